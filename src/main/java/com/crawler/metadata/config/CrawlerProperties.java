@@ -0,0 +1,520 @@
+package com.crawler.metadata.config;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import com.crawler.metadata.util.UrlCanonicalizer;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ *
+ * application.properties 의 crawler.* 설정값
+ *
+ */
+@ConfigurationProperties(prefix = "crawler")
+@Getter
+@Setter
+public class CrawlerProperties {
+
+	private Browser browser = new Browser();
+
+	private Render render = new Render();
+
+	private Politeness politeness = new Politeness();
+
+	private Robots robots = new Robots();
+
+	private Visited visited = new Visited();
+
+	private Canonical canonical = new Canonical();
+
+	private Filter filter = new Filter();
+
+	private Bfs bfs = new Bfs();
+
+	private Fetch fetch = new Fetch();
+
+	private Executor executor = new Executor();
+
+	private Pipeline pipeline = new Pipeline();
+
+	private Jobs jobs = new Jobs();
+
+	private Session session = new Session();
+
+	private Persistence persistence = new Persistence();
+
+	private ResultLog resultLog = new ResultLog();
+
+	private Revisit revisit = new Revisit();
+
+	private Recrawl recrawl = new Recrawl();
+
+	/**
+	 * playwright browser pool 설정
+	 */
+	@Getter
+	@Setter
+	public static class Browser {
+
+		// 동시에 띄워둘 chromium 수 ( 각각 전용 스레드에 고정 )
+		private int poolSize = 2;
+
+		// 해당 수 만큼 페이지를 렌더링한 browser context 는 새로 만든다
+		private int recycleAfterPages = 50;
+
+		// browser 를 빌려오기 위해 기다리는 최대 시간
+		private long leaseTimeoutMs = 30000;
+
+		// 페이지 하나를 렌더링하는 최대 시간
+		private long renderTimeoutMs = 30000;
+	}
+
+	/**
+	 * playwright 렌더링 요청 차단 / 대기 설정
+	 */
+	@Getter
+	@Setter
+	public static class Render {
+
+		// 차단할 playwright resource type
+		private List<String> blockResourceTypes = new ArrayList<>(Arrays.asList("image", "font", "media", "stylesheet"));
+
+		// 페이지와 다른 사이트의 script 차단 여부
+		private boolean blockThirdPartyScripts = false;
+
+		// head 의 meta tag 가 생기면 network idle 까지 기다리지 않고 바로 반환
+		private boolean earlyExitOnHeadMeta = true;
+
+		// early exit 판단에 사용할 meta tag selector
+		private String headMetaSelector = "head meta[name=description], head meta[property^='og:']";
+
+		// meta tag 를 기다리는 최대 시간 ( 초과하면 network idle 까지 대기 )
+		private long headMetaWaitMs = 3000;
+
+		// meta tag 가 부족한 페이지라도 body 의 tag 가 이보다 많으면 정적 페이지로 판단 ( script 만 있는 빈 껍데기 판별 )
+		private int minBodyTags = 8;
+
+		// 렌더링 판단을 기억할 host + path template 최대 수
+		private int templateCacheSize = 10000;
+
+		// 같은 template 에서 판단이 이 횟수만큼 일치하면 이후 페이지는 판별하지 않고 그대로 사용
+		private int templateMinSamples = 3;
+
+		// template 판단을 그대로 사용하는 시간 ( 지나면 다시 표본을 모아 판단, 사이트 개편 등으로 바뀔 수 있음 )
+		private long templateDecisionTtlMs = 3600000;
+	}
+
+	/**
+	 * host 별 요청 속도 제한 설정
+	 */
+	@Getter
+	@Setter
+	public static class Politeness {
+
+		// host 하나에 보내는 초당 요청 수 ( token bucket 충전 속도 )
+		private double requestsPerSecond = 2.0;
+
+		// token bucket 크기 ( 한 번에 몰아서 보낼 수 있는 요청 수 )
+		private int burst = 2;
+
+		// host 하나에 동시에 보내는 최대 요청 수
+		private int maxConcurrencyPerHost = 2;
+
+		// 응답 시간의 몇 배 만큼 다음 요청 간격을 둘지 ( 느린 서버일수록 천천히 )
+		private double latencyFactor = 1.0;
+
+		// 429 / 503 응답 시 간격을 늘리는 최대 배수
+		private double maxBackoff = 32.0;
+
+		// 요청 간격 최대값
+		private long maxDelayMs = 60000;
+
+		// 대기 / 진행 중인 요청 없이 이 시간이 지난 host 의 상태는 제거
+		private long hostIdleTtlMs = 600000;
+	}
+
+	/**
+	 * robots.txt 설정
+	 */
+	@Getter
+	@Setter
+	public static class Robots {
+
+		// robots.txt group 을 고를 때 사용할 crawler 이름
+		private String userAgent = "metadata-crawler";
+
+		// robots.txt 규칙을 다시 내려받는 주기
+		private long ttlMinutes = 24 * 60;
+
+		// robots.txt 를 받지 못했을 때 ( 5xx, 요청 실패 ) 전부 금지로 두는 시간
+		private long errorTtlMinutes = 10;
+
+		// cache 에 보관하는 최대 origin 수
+		private int maxOrigins = 10000;
+	}
+
+	public enum VisitedStoreType {
+		// url 문자열을 그대로 보관
+		HASH_SET,
+		// url fingerprint 만 보관
+		FINGERPRINT
+	}
+
+	/**
+	 * 방문한 url 보관소 설정
+	 */
+	@Getter
+	@Setter
+	public static class Visited {
+
+		private VisitedStoreType store = VisitedStoreType.FINGERPRINT;
+
+		// 64 또는 128 ( 128 은 메모리 2배, 충돌 확률은 사실상 0 )
+		private int fingerprintBits = 64;
+
+		// table 을 direct buffer 에 둘지 여부
+		private boolean offHeap = false;
+
+		// lock 을 나눌 수
+		private int stripes = 64;
+
+		// seed url 하나에 예상되는 url 수 ( 넘으면 table 을 늘림 )
+		private int initialCapacity = 16 * 1024;
+
+		// 보관소 앞에 Bloom filter 를 두어 이미 본 link 를 먼저 거를지 여부
+		private boolean bloomFilter = true;
+
+		// Bloom filter 목표 오탐률 ( 이 비율 만큼의 새 url 을 방문한 것으로 잘못 판단할 수 있음 )
+		private double bloomFalsePositiveRate = 0.001;
+
+		// Bloom filter 첫 slice 용량 ( 넘으면 2배씩 slice 추가 )
+		private long bloomInitialCapacity = 64 * 1024;
+
+		// filter 에 있다고 나온 url 을 보관소에서 한 번 더 확인할지 여부 ( true 면 오탐 없음 )
+		private boolean bloomVerifyPositives = false;
+	}
+
+	/**
+	 * url 중복 판단용 canonical url 규칙
+	 */
+	@Getter
+	@Setter
+	public static class Canonical {
+
+		// host 앞의 www. 제거
+		private boolean stripWww = true;
+
+		// path 끝의 / 제거
+		private boolean stripTrailingSlash = true;
+
+		// query parameter 이름 순 정렬
+		private boolean sortQueryParams = true;
+
+		// 제거할 추적용 query parameter ( * 로 끝나면 prefix )
+		private List<String> trackingParams = new ArrayList<>(UrlCanonicalizer.DEFAULT_TRACKING_PARAMS);
+	}
+
+	/**
+	 * link 수집 대상 url filter 규칙
+	 */
+	@Getter
+	@Setter
+	public static class FilterRules {
+
+		private boolean enabled = true;
+
+		// 허용하는 scheme
+		private List<String> protocols = new ArrayList<>(Arrays.asList("http", "https"));
+
+		// url 에 포함되면 제외할 문자열 ( 대소문자 구분 없음, ascii 만 )
+		private List<String> blockedPatterns = new ArrayList<>(
+				Arrays.asList("facebook.com", "twitter.com", "/ads/", "login", "subscribe"));
+
+		// path 가 이 확장자로 끝나면 제외
+		private List<String> blockedExtensions = new ArrayList<>(
+				Arrays.asList(".jpg", ".png", ".gif", ".pdf", ".zip", ".mp4"));
+
+		// path segment 최대 개수 ( 0 이하면 제한 없음 )
+		private int maxDepth = 10;
+
+		// url 최대 길이 ( 0 이하면 제한 없음 )
+		private int maxLength = 2048;
+
+		// seed 와 같은 domain 의 link 만 수집
+		private boolean sameDomain = false;
+
+		// sameDomain 일 때 seed 의 하위 domain 도 허용
+		private boolean allowSubdomains = true;
+	}
+
+	/**
+	 * 기본 url filter 규칙 + seed host 별 규칙 ( crawler.filter.seeds[host].* )
+	 */
+	@Getter
+	@Setter
+	public static class Filter extends FilterRules {
+
+		private Map<String, FilterRules> seeds = new LinkedHashMap<>();
+	}
+
+	/**
+	 * seed url 별 BFS 탐색 설정
+	 */
+	@Getter
+	@Setter
+	public static class Bfs {
+
+		// seed 로부터 link 를 따라갈 최대 깊이 ( 0 이하면 제한 없음 )
+		private int maxDepth = 0;
+	}
+
+	/**
+	 * 페이지 요청 ( java.net.http.HttpClient ) 설정
+	 */
+	@Getter
+	@Setter
+	public static class Fetch {
+
+		private String userAgent = "Mozilla/5.0 (compatible; metadata-crawler)";
+
+		// 응답 처리에 사용하는 스레드 수 ( 요청을 기다리는 동안에는 스레드를 쓰지 않음 )
+		private int ioThreads = 2;
+
+		// https 연결에서 HTTP/2 사용 ( 지원하지 않는 서버는 HTTP/1.1 )
+		private boolean http2 = true;
+
+		private long connectTimeoutMs = 10000;
+
+		// 응답 header 를 받을 때까지의 최대 시간
+		private long requestTimeoutMs = 30000;
+
+		// 이 크기를 넘는 body 는 잘라냄
+		private int maxBodyBytes = 2 * 1024 * 1024;
+	}
+
+	/**
+	 * crawl() 의 fetch -> parse -> extract 단계 설정
+	 */
+	@Getter
+	@Setter
+	public static class Pipeline {
+
+		// 동시에 처리하는 페이지 수 ( 요청 중 + parse 대기 )
+		private int fetchMaxInFlight = 64;
+
+		// link, meta tag 추출 worker 수 ( 0 이하면 CPU 코어 수 )
+		private int parseThreads = 0;
+
+		// parse 를 기다릴 수 있는 페이지 수 ( fetchMaxInFlight 보다 작으면 fetchMaxInFlight 사용 )
+		private int parseQueueCapacity = 256;
+
+		// frontier 에 link 추가, 결과 전달 worker 수
+		private int extractThreads = 1;
+
+		// extract 를 기다릴 수 있는 페이지 수
+		private int extractQueueCapacity = 256;
+	}
+
+	/**
+	 * 비동기 crawl job 설정
+	 */
+	@Getter
+	@Setter
+	public static class Jobs {
+
+		// 동시에 크롤링하는 seed 수 ( seed 마다 frontier 를 도는 스레드 하나 )
+		private int maxRunning = 4;
+
+		// 실행을 기다릴 수 있는 seed 수 ( 넘으면 job 제출 거절 )
+		private int maxQueued = 100;
+
+		// 보관하는 job 수 ( 넘으면 끝난 job 부터 삭제 )
+		private int maxRetained = 100;
+
+		// job 하나가 동시에 처리하는 페이지 수 ( 0 이하면 제한 없음, 공유 pipeline 을 한 job 이 차지하지 않도록 )
+		private int maxPagesInFlightPerJob = 32;
+
+		// application 종료 시 실행 중인 job 을 기다리는 시간 ( 넘으면 취소 )
+		private long drainTimeoutMs = 30000;
+
+		// 결과 stream 을 client 로 보내는 스레드 수
+		private int streamThreads = 2;
+
+		// 결과 stream ( NDJSON, SSE ) 응답 timeout
+		private long streamTimeoutMs = 600000;
+
+		// job 하나가 다시 보내기 위해 보관하는 최근 결과 수 ( 전체 결과는 result log 에서 읽음 )
+		private int maxReplayResults = 1000;
+
+		// subscriber 하나에 보내지 못하고 쌓아둘 수 있는 결과 수 ( 넘으면 구독 해제, maxReplayResults 보다 커야 함 )
+		private int maxPendingPerSubscriber = 2000;
+	}
+
+	/**
+	 * crawl session ( seed 크롤링 한 번의 방문 대기열 + 방문 url 보관소 ) 설정
+	 */
+	@Getter
+	@Setter
+	public static class Session {
+
+		// frontier 를 host 별로 나눌 대기열 수 ( 2 의 거듭제곱으로 올림, 1 이면 FIFO 대기열 하나 )
+		private int frontierBuckets = 16;
+
+		// crawl() 의 frontier 대기열 보관 위치
+		private FrontierStore frontierStore = FrontierStore.MEMORY;
+
+		// MAPPED 대기열 파일 위치 ( seed 마다 하위 directory )
+		private String frontierDirectory = "data/frontier";
+
+		// MAPPED 대기열 segment 파일 크기
+		private int frontierSegmentBytes = 64 * 1024 * 1024;
+
+		// MAPPED 대기열에서 미리 읽어 둘 url 수
+		private int frontierHeadSize = 1024;
+
+		// 처리를 마친 url 이 이만큼 늘 때마다 읽은 위치 기록 ( 재시작 시 이 다음부터 )
+		private int frontierCheckpointEvery = 1000;
+	}
+
+	/**
+	 * 수집한 페이지 meta tag 의 DB ( spring.datasource ) 저장 설정
+	 */
+	@Getter
+	@Setter
+	public static class Persistence {
+
+		private boolean enabled = true;
+
+		// 저장을 기다릴 수 있는 페이지 수 ( 가득 차면 extract 단계가 기다림 )
+		private int bufferCapacity = 10000;
+
+		// 한 번에 저장하는 페이지 수
+		private int batchSize = 500;
+
+		// batch 가 차지 않아도 이 시간이 지나면 저장
+		private long flushIntervalMs = 200;
+	}
+
+	/**
+	 * 페이지 결과를 이어 쓰는 로컬 result log ( segment 파일, 다른 consumer 가 따라 읽음 ) 설정
+	 */
+	@Getter
+	@Setter
+	public static class ResultLog {
+
+		private boolean enabled = true;
+
+		private String directory = "data/results";
+
+		// segment 파일이 이 크기를 넘으면 다음 segment 에 씀
+		private long segmentBytes = 64 * 1024 * 1024;
+
+		// 디스크에 쓰기 전 record 를 모아 두는 버퍼 크기 ( 가득 차면 extract 단계가 기다림 )
+		private int bufferBytes = 1024 * 1024;
+
+		// 첫 record 를 받은 뒤 이 시간 동안 더 모아서 한 번에 씀 ( group commit )
+		private long commitIntervalMs = 20;
+
+		// 쓸 때마다 디스크에 내림 ( false 면 OS 에 맡김 )
+		private boolean fsync = true;
+
+		// 남겨 둘 segment 수 ( 오래된 것부터 삭제, 0 이하면 모두 보관 )
+		private int retainSegments = 16;
+	}
+
+	/**
+	 * 다시 크롤링할 때 바뀌지 않은 페이지를 건너뛰는 설정 ( url 별 ETag, Last-Modified, body hash + 추출 결과를 DB 에 보관 )
+	 */
+	@Getter
+	@Setter
+	public static class Revisit {
+
+		private boolean enabled = true;
+
+		// 한 번에 저장하는 entry 수
+		private int batchSize = 500;
+
+		// batch 가 차지 않아도 이 시간이 지나면 저장
+		private long flushIntervalMs = 1000;
+
+		// 저장을 기다릴 수 있는 entry 수 ( 넘으면 store() 는 저장 스레드가 줄일 때까지 대기 )
+		private int maxPending = 10000;
+	}
+
+	/**
+	 * 페이지별 meta tag 변경 빈도로 다시 방문할 간격을 정해서 때가 된 페이지만 다시 크롤링하는 설정
+	 */
+	@Getter
+	@Setter
+	public static class Recrawl {
+
+		private boolean enabled = true;
+
+		// 처음 수집한 페이지의 다시 방문할 간격
+		private long initialIntervalMs = 24 * 60 * 60 * 1000L;
+
+		// 자주 바뀌는 페이지도 이 간격보다 자주 방문하지 않음
+		private long minIntervalMs = 10 * 60 * 1000L;
+
+		// 바뀌지 않는 페이지도 이 간격 안에는 한 번 방문
+		private long maxIntervalMs = 7 * 24 * 60 * 60 * 1000L;
+
+		// 메모리에 올려 두는 방문 예정 url 수 ( 나머지는 DB 에서 next due 순서로 읽어 옴 )
+		private int windowSize = 10000;
+
+		// 한 번에 다시 크롤링하는 url 수
+		private int dispatchBatch = 200;
+
+		// 다시 크롤링할 때 동시에 처리하는 페이지 수 ( 사용자 job 의 fetch 예산을 모두 쓰지 않도록 )
+		private int maxPagesInFlight = 8;
+
+		// 방문할 url 이 없을 때 다시 확인하는 간격
+		private long pollIntervalMs = 1000;
+
+		// 방문 결과를 한 번에 저장하는 수
+		private int batchSize = 500;
+
+		private long flushIntervalMs = 1000;
+
+		// 저장을 기다릴 수 있는 방문 결과 수 ( 넘으면 호출한 스레드는 저장 스레드가 줄일 때까지 대기 )
+		private int maxPending = 10000;
+	}
+
+	public enum FrontierStore {
+		// host bucket 으로 나눈 메모리 대기열 ( 재시작하면 사라짐 )
+		MEMORY,
+		// memory-mapped segment 파일 ( heap 밖에 보관, 재시작 후 같은 seed 를 크롤링하면 이어서 진행 )
+		MAPPED
+	}
+
+	public enum ExecutorMode {
+		// 고정 크기 ThreadPoolTaskExecutor
+		PLATFORM,
+		// 작업마다 virtual thread ( JDK 21 미만이면 platform thread )
+		VIRTUAL
+	}
+
+	/**
+	 * blocking 작업 ( seed 준비, 렌더링 ) 을 실행하는 crawler executor 설정
+	 */
+	@Getter
+	@Setter
+	public static class Executor {
+
+		private ExecutorMode mode = ExecutorMode.PLATFORM;
+
+		// 동시에 실행하는 최대 작업 수
+		private int maxConcurrency = 256;
+
+		// host 하나에 대해 동시에 실행하는 최대 작업 수
+		private int maxConcurrencyPerHost = 8;
+	}
+}
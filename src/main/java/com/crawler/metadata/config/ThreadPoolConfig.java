@@ -6,11 +6,22 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
+import com.crawler.metadata.crawl.executor.CrawlExecutor;
+
 @Configuration
 public class ThreadPoolConfig {
-	
+
+    // crawler.executor.mode 에 따라 platform thread pool 또는 작업별 ( virtual ) thread 사용
     @Bean
-    public ThreadPoolTaskExecutor crawlerExecutor() {
+    public CrawlExecutor crawlerExecutor(CrawlerProperties properties) {
+        CrawlerProperties.Executor executor = properties.getExecutor();
+        if (executor.getMode() == CrawlerProperties.ExecutorMode.VIRTUAL) {
+            return new CrawlExecutor(executor, null);
+        }
+        return new CrawlExecutor(executor, platformPool());
+    }
+
+    private ThreadPoolTaskExecutor platformPool() {
         ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();    
         // CPU 코어 수를 기반으로 한 스레드 풀 설정
         int cores = Runtime.getRuntime().availableProcessors();
@@ -22,18 +33,36 @@ public class ThreadPoolConfig {
         executor.setThreadNamePrefix("crawler-");
         // 큐가 가득 찼을 때의 정책 설정
         executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        // application 종료 시 실행 중인 렌더링을 끝까지 기다림
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        executor.initialize();
         return executor;
     }
-    
-//    @Bean(name = "crawlerExecutor")
-//    public ThreadPoolTaskExecutor crawlerExecutor() {
-//        return createExecutor(10, 20, 500, "crawler-thread-");
-//    }
 
-//    @Bean(name = "metadataExecutor")
-//    public ThreadPoolTaskExecutor metadataExecutor() {
-//        return createExecutor(5, 10, 200, "metadata-thread-");
-//    }
+    // 내려받은 페이지 파싱 ( link 추출, meta tag 수집 ) 전용 - CPU 작업이므로 코어 수 만큼
+    @Bean
+    public ThreadPoolTaskExecutor parseExecutor() {
+        int cores = Runtime.getRuntime().availableProcessors();
+        return createExecutor(cores, cores, 10000, "parser-");
+    }
+
+    // crawl job 의 seed 별 frontier 순회 - 대기열이 가득 차면 거절 ( 요청 스레드에서 crawl 을 돌리지 않도록 )
+    @Bean
+    public ThreadPoolTaskExecutor jobExecutor(CrawlerProperties properties) {
+        CrawlerProperties.Jobs jobs = properties.getJobs();
+        ThreadPoolTaskExecutor executor = createExecutor(jobs.getMaxRunning(), jobs.getMaxRunning(),
+                jobs.getMaxQueued(), "crawl-job-");
+        executor.getThreadPoolExecutor().setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        return executor;
+    }
+
+    // crawl job 결과, result log long polling 응답을 client 로 전달 ( 요청마다 작업 하나이므로 대기열 제한 없음 )
+    @Bean
+    public ThreadPoolTaskExecutor streamExecutor(CrawlerProperties properties) {
+        int threads = properties.getJobs().getStreamThreads();
+        return createExecutor(threads, threads, Integer.MAX_VALUE, "job-stream-");
+    }
 
     private ThreadPoolTaskExecutor createExecutor(int corePoolSize, int maxPoolSize, int queueCapacity, String threadNamePrefix) {
         ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
@@ -42,6 +71,8 @@ public class ThreadPoolConfig {
         executor.setQueueCapacity(queueCapacity);
         executor.setThreadNamePrefix(threadNamePrefix);
         executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
         executor.initialize();
         return executor;
     }
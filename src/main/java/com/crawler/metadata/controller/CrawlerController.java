@@ -1,18 +1,56 @@
 package com.crawler.metadata.controller;
 
 
+import java.io.IOException;
+import java.net.URI;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
-import com.crawler.metadata.crawl.CrawlerService;
+import com.crawler.metadata.config.CrawlerProperties;
+import com.crawler.metadata.crawl.CrawlPageResult;
+import com.crawler.metadata.crawl.URLQueueService;
+import com.crawler.metadata.crawl.job.CrawlJob;
+import com.crawler.metadata.crawl.job.CrawlJobProgress;
+import com.crawler.metadata.crawl.job.CrawlJobService;
+import com.crawler.metadata.crawl.job.CrawlJobSubscriber;
+import com.crawler.metadata.crawl.job.CrawlJobSubscription;
+import com.crawler.metadata.crawl.persist.MetadataWriter;
+import com.crawler.metadata.crawl.persist.PersistenceMetrics;
+import com.crawler.metadata.crawl.pipeline.CrawlPipeline;
+import com.crawler.metadata.crawl.pipeline.StageMetrics;
+import com.crawler.metadata.crawl.render.DynamicPageClassifier;
+import com.crawler.metadata.crawl.render.RenderDecisionMetrics;
+import com.crawler.metadata.crawl.revisit.RecrawlMetrics;
+import com.crawler.metadata.crawl.revisit.RecrawlScheduler;
+import com.crawler.metadata.crawl.revisit.ValidatorCache;
+import com.crawler.metadata.crawl.revisit.ValidatorCacheMetrics;
+import com.crawler.metadata.crawl.session.CrawlSessionStats;
+import com.crawler.metadata.crawl.sink.ResultLogMetrics;
+import com.crawler.metadata.crawl.sink.ResultLogReader;
+import com.crawler.metadata.crawl.sink.ResultLogRecord;
+import com.crawler.metadata.crawl.sink.SegmentedResultLog;
 
 import lombok.extern.slf4j.Slf4j;
 
@@ -21,24 +59,234 @@ import lombok.extern.slf4j.Slf4j;
 @Slf4j
 public class CrawlerController {
 
-	private final CrawlerService crawlerService;
-	
+	private final CrawlJobService crawlJobService;
+
+	private final CrawlPipeline crawlPipeline;
+
+	private final URLQueueService urlQueueService;
+
+	private final MetadataWriter metadataWriter;
+
+	private final SegmentedResultLog resultLog;
+
+	private final ValidatorCache validatorCache;
+
+	private final RecrawlScheduler recrawlScheduler;
+
+	private final DynamicPageClassifier dynamicPageClassifier;
+
+	private final ThreadPoolTaskExecutor streamExecutor;
+
+	private final long streamTimeoutMs;
+
 	private final Logger log = LoggerFactory.getLogger(getClass());
 
-	public CrawlerController(CrawlerService crawlerService) {
-		this.crawlerService = crawlerService;
+	public CrawlerController(CrawlJobService crawlJobService, CrawlPipeline crawlPipeline,
+			URLQueueService urlQueueService, MetadataWriter metadataWriter, SegmentedResultLog resultLog,
+			ValidatorCache validatorCache, RecrawlScheduler recrawlScheduler, DynamicPageClassifier dynamicPageClassifier,
+			@Qualifier("streamExecutor") ThreadPoolTaskExecutor streamExecutor, CrawlerProperties properties) {
+		this.crawlJobService = crawlJobService;
+		this.crawlPipeline = crawlPipeline;
+		this.urlQueueService = urlQueueService;
+		this.metadataWriter = metadataWriter;
+		this.resultLog = resultLog;
+		this.validatorCache = validatorCache;
+		this.recrawlScheduler = recrawlScheduler;
+		this.dynamicPageClassifier = dynamicPageClassifier;
+		this.streamExecutor = streamExecutor;
+		this.streamTimeoutMs = properties.getJobs().getStreamTimeoutMs();
 	}
 
-	@GetMapping("/tag/chunk")
-	public ResponseEntity<String> getCrawlingDataChunk(@RequestBody List<String> seedUrls) {
-		crawlerService.crawlParallel(seedUrls);
-		return ResponseEntity.ok("seed Url =====>>>>>" + seedUrls);
+	// seed url 목록을 crawl job 으로 등록 ( 결과는 /crawler/jobs/{id}/results 또는 /events )
+	@PostMapping("/tag/chunk")
+	public ResponseEntity<CrawlJobProgress> getCrawlingDataChunk(@RequestBody List<String> seedUrls) {
+		return submit(seedUrls);
 	}
 
 	@GetMapping("/tag")
-	public ResponseEntity<String> getCrawlingData(@RequestParam String seedUrl) {
+	public ResponseEntity<CrawlJobProgress> getCrawlingData(@RequestParam String seedUrl) {
 		log.debug("crawl start-------------");
-		crawlerService.crawl(seedUrl);
-		return ResponseEntity.ok("seed URL: ======> " + seedUrl);
+		return submit(Collections.singletonList(seedUrl));
+	}
+
+	@PostMapping("/jobs")
+	public ResponseEntity<CrawlJobProgress> submitJob(@RequestBody List<String> seedUrls) {
+		return submit(seedUrls);
+	}
+
+	@GetMapping("/jobs")
+	public ResponseEntity<List<CrawlJobProgress>> getJobs() {
+		return ResponseEntity.ok(crawlJobService.list());
+	}
+
+	// job 진행 상황 ( polling )
+	@GetMapping("/jobs/{id}")
+	public ResponseEntity<CrawlJobProgress> getJob(@PathVariable String id) {
+		CrawlJob job = crawlJobService.get(id);
+		if (job == null) {
+			return ResponseEntity.notFound().build();
+		}
+		return ResponseEntity.ok(job.getProgress());
+	}
+
+	// job 취소 ( 처리 중이던 페이지까지만 진행 )
+	@DeleteMapping("/jobs/{id}")
+	public ResponseEntity<CrawlJobProgress> cancelJob(@PathVariable String id) {
+		CrawlJob job = crawlJobService.cancel(id);
+		if (job == null) {
+			return ResponseEntity.notFound().build();
+		}
+		return ResponseEntity.accepted().body(job.getProgress());
+	}
+
+	// 페이지 결과를 한 줄에 하나씩 ( NDJSON ) 끝날 때까지 전달 ( 너무 느리게 받으면 응답을 닫음, from 으로 이어서 다시 요청 )
+	@GetMapping(value = "/jobs/{id}/results", produces = MediaType.APPLICATION_NDJSON_VALUE)
+	public ResponseEntity<ResponseBodyEmitter> streamResults(@PathVariable String id,
+			@RequestParam(defaultValue = "0") long from) {
+		CrawlJob job = crawlJobService.get(id);
+		if (job == null) {
+			return ResponseEntity.notFound().build();
+		}
+		ResponseBodyEmitter emitter = new ResponseBodyEmitter(streamTimeoutMs);
+		CrawlJobSubscription subscription = crawlJobService.subscribe(job, from, new CrawlJobSubscriber() {
+
+			@Override
+			public void onResult(long index, CrawlPageResult result) throws IOException {
+				emitter.send(result, MediaType.APPLICATION_JSON);
+				emitter.send("\n", MediaType.TEXT_PLAIN);
+			}
+
+			@Override
+			public void onComplete(CrawlJobProgress progress) {
+				emitter.complete();
+			}
+
+			@Override
+			public void onDropped() {
+				log.warn("[streamResults] job ===> {} slow subscriber dropped", id);
+				emitter.complete();
+			}
+		});
+		unsubscribeOnClose(emitter, subscription);
+		return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(emitter);
+	}
+
+	// 페이지 결과를 Server-Sent Events 로 전달 ( event : page, id : 결과 순번, 마지막에 done ), Last-Event-ID 다음 결과부터 재개
+	@GetMapping(value = "/jobs/{id}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+	public ResponseEntity<SseEmitter> streamEvents(@PathVariable String id,
+			@RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId) {
+		CrawlJob job = crawlJobService.get(id);
+		if (job == null) {
+			return ResponseEntity.notFound().build();
+		}
+		long from = lastEventId == null ? 0 : lastEventId + 1;
+		SseEmitter emitter = new SseEmitter(streamTimeoutMs);
+		CrawlJobSubscription subscription = crawlJobService.subscribe(job, from, new CrawlJobSubscriber() {
+
+			@Override
+			public void onResult(long index, CrawlPageResult result) throws IOException {
+				emitter.send(SseEmitter.event().id(String.valueOf(index)).name("page").data(result,
+						MediaType.APPLICATION_JSON));
+			}
+
+			@Override
+			public void onComplete(CrawlJobProgress progress) throws IOException {
+				emitter.send(SseEmitter.event().name("done").data(progress, MediaType.APPLICATION_JSON));
+				emitter.complete();
+			}
+
+			// EventSource 는 연결이 닫히면 Last-Event-ID 로 다시 연결함
+			@Override
+			public void onDropped() {
+				log.warn("[streamEvents] job ===> {} slow subscriber dropped", id);
+				emitter.complete();
+			}
+		});
+		unsubscribeOnClose(emitter, subscription);
+		return ResponseEntity.ok(emitter);
+	}
+
+	// crawl 단계별 ( fetch, parse, extract ) 대기열 깊이, 대기 시간, 처리 시간
+	@GetMapping("/pipeline")
+	public ResponseEntity<List<StageMetrics>> getPipelineMetrics() {
+		return ResponseEntity.ok(crawlPipeline.getMetrics());
+	}
+
+	// 크롤링 중인 session 별 대기열, 방문 기록 크기, frontier 대기 ( contention ) 통계
+	@GetMapping("/sessions")
+	public ResponseEntity<List<CrawlSessionStats>> getSessions() {
+		return ResponseEntity.ok(urlQueueService.getSessionStats());
+	}
+
+	// 페이지 저장 버퍼 깊이, batch 크기, 저장 시간
+	@GetMapping("/persistence")
+	public ResponseEntity<PersistenceMetrics> getPersistenceMetrics() {
+		return ResponseEntity.ok(metadataWriter.getMetrics());
+	}
+
+	// result log 쓰기 위치, segment, group commit 통계
+	@GetMapping("/result-log")
+	public ResponseEntity<ResultLogMetrics> getResultLogMetrics() {
+		return ResponseEntity.ok(resultLog.getMetrics());
+	}
+
+	// 다시 크롤링한 페이지 중 304 / 같은 body 로 이전 결과를 사용한 수, validator 저장 통계
+	@GetMapping("/validators")
+	public ResponseEntity<ValidatorCacheMetrics> getValidatorMetrics() {
+		return ResponseEntity.ok(validatorCache.getMetrics());
+	}
+
+	// 재크롤링 scheduler 의 방문 예정 url, 변경을 발견한 방문, 다시 크롤링한 url 수
+	@GetMapping("/recrawl")
+	public ResponseEntity<RecrawlMetrics> getRecrawlMetrics() {
+		return ResponseEntity.ok(recrawlScheduler.getMetrics());
+	}
+
+	// 렌더링한 페이지 비율, 판단 근거별 수, 렌더링을 건너뛰어 아낀 시간 추정치
+	@GetMapping("/render")
+	public ResponseEntity<RenderDecisionMetrics> getRenderMetrics() {
+		return ResponseEntity.ok(dynamicPageClassifier.getMetrics());
+	}
+
+	// result log 를 from offset 부터 최대 max 개 ( 이어 읽으려면 마지막 offset + 1 로 다시 요청, waitMs 동안 새 record 를 기다림 )
+	// 기다리는 동안 요청 스레드를 반환하고, 새 record 가 commit 되면 streamExecutor 에서 응답
+	@GetMapping("/results")
+	public DeferredResult<ResponseEntity<List<ResultLogRecord>>> readResults(@RequestParam(defaultValue = "0") long from,
+			@RequestParam(defaultValue = "100") int max, @RequestParam(defaultValue = "0") long waitMs) {
+		long wait = Math.max(0, Math.min(waitMs, 30000));
+		// 응답 timeout 은 기다리는 시간보다 길게 ( 기다린 뒤 빈 목록으로 응답 )
+		DeferredResult<ResponseEntity<List<ResultLogRecord>>> result = new DeferredResult<>(wait + 10000);
+		result.onTimeout(() -> result.setResult(ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build()));
+		resultLog.pollAsync(from, Math.min(Math.max(1, max), 1000), wait, TimeUnit.MILLISECONDS, streamExecutor)
+				.whenComplete((records, error) -> {
+					if (error != null) {
+						log.error("[readResults] from ===> {} error ===> {}", from, error.getMessage());
+						result.setResult(ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build());
+					} else {
+						result.setResult(ResponseEntity.ok(records));
+					}
+				});
+		return result;
+	}
+
+	// 응답이 끝나면 ( 완료, timeout, client 연결 끊김 ) 구독 해제 ( 결과가 더 쌓이지 않도록 )
+	private static void unsubscribeOnClose(ResponseBodyEmitter emitter, CrawlJobSubscription subscription) {
+		emitter.onCompletion(subscription::cancel);
+		emitter.onTimeout(subscription::cancel);
+		emitter.onError(error -> subscription.cancel());
+	}
+
+	// 요청 스레드는 job 등록만 하고 바로 반환 ( 202 + Location )
+	private ResponseEntity<CrawlJobProgress> submit(List<String> seedUrls) {
+		try {
+			CrawlJob job = crawlJobService.submit(seedUrls);
+			return ResponseEntity.accepted().location(URI.create("/crawler/jobs/" + job.getId()))
+					.body(job.getProgress());
+		} catch (IllegalArgumentException e) {
+			return ResponseEntity.badRequest().build();
+		} catch (RejectedExecutionException e) {
+			log.error("[submit] rejected ===> {}", seedUrls);
+			return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+		}
 	}
 }
@@ -0,0 +1,32 @@
+package com.crawler.metadata.crawl;
+
+/**
+ *
+ * crawl() 의 페이지 처리 결과를 받는 listener
+ * extract 단계 worker 에서 호출되므로 오래 막히는 작업 ( 응답 쓰기 등 ) 은 다른 스레드로 넘겨야 한다.
+ *
+ */
+public interface CrawlListener {
+
+	CrawlListener NONE = new CrawlListener() {
+	};
+
+	/**
+	 *
+	 * 페이지를 내려받아 meta tag, link 추출을 마쳤을 때
+	 * @param result
+	 *
+	 */
+	default void onPage(CrawlPageResult result) {
+	}
+
+	/**
+	 *
+	 * 페이지를 내려받지 못했을 때 ( 요청 실패, http error 응답 )
+	 * @param url
+	 * @param reason
+	 *
+	 */
+	default void onPageFailed(String url, String reason) {
+	}
+}
@@ -0,0 +1,87 @@
+package com.crawler.metadata.crawl;
+
+import java.util.Map;
+
+import com.crawler.metadata.crawl.extract.HeadMetadata;
+
+/**
+ *
+ * crawl 한 페이지 하나의 결과 ( head meta tag, title, canonical url, 찾은 link 수 )
+ *
+ */
+public class CrawlPageResult {
+
+	private final String seedUrl;
+
+	private final String url;
+
+	private final String finalUrl;
+
+	private final int statusCode;
+
+	private final String title;
+
+	private final String canonicalUrl;
+
+	private final Map<String, String> metaTags;
+
+	private final int linkCount;
+
+	private final long crawledAt;
+
+	public CrawlPageResult(String seedUrl, String url, String finalUrl, int statusCode, HeadMetadata metadata,
+			int linkCount, long crawledAt) {
+		this.seedUrl = seedUrl;
+		this.url = url;
+		this.finalUrl = finalUrl;
+		this.statusCode = statusCode;
+		this.title = metadata.getTitle();
+		this.canonicalUrl = metadata.getCanonicalUrl();
+		this.metaTags = metadata.getMetaTags();
+		this.linkCount = linkCount;
+		this.crawledAt = crawledAt;
+	}
+
+	public String getSeedUrl() {
+		return seedUrl;
+	}
+
+	public String getUrl() {
+		return url;
+	}
+
+	public String getFinalUrl() {
+		return finalUrl;
+	}
+
+	public int getStatusCode() {
+		return statusCode;
+	}
+
+	public String getTitle() {
+		return title;
+	}
+
+	public String getCanonicalUrl() {
+		return canonicalUrl;
+	}
+
+	public Map<String, String> getMetaTags() {
+		return metaTags;
+	}
+
+	public int getLinkCount() {
+		return linkCount;
+	}
+
+	public long getCrawledAt() {
+		return crawledAt;
+	}
+
+	@Override
+	public String toString() {
+		return "CrawlPageResult [seedUrl=" + seedUrl + ", url=" + url + ", finalUrl=" + finalUrl + ", statusCode="
+				+ statusCode + ", title=" + title + ", canonicalUrl=" + canonicalUrl + ", metaTags=" + metaTags
+				+ ", linkCount=" + linkCount + ", crawledAt=" + crawledAt + "]";
+	}
+}
@@ -0,0 +1,136 @@
+package com.crawler.metadata.crawl;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import com.crawler.metadata.crawl.frontier.CrawlFrontier;
+
+/**
+ *
+ * crawl 작업 ( job ) 하나의 실행 범위
+ * 공유 executor, pipeline 위에서 job 마다 동시에 처리하는 페이지 수를 제한하고, 취소하면 job 의 모든 frontier 를 닫는다.
+ * 여러 seed 를 가진 job 은 seed 들이 같은 scope ( 같은 quota ) 를 사용한다.
+ *
+ */
+public class CrawlScope {
+
+	private final String id;
+
+	private final int maxPagesInFlight;
+
+	private final ReentrantLock lock = new ReentrantLock();
+
+	private final Condition changed = lock.newCondition();
+
+	private final List<CrawlFrontier> frontiers = new CopyOnWriteArrayList<>();
+
+	private int pagesInFlight;
+
+	private volatile boolean cancelled;
+
+	/**
+	 *
+	 * @param id job id ( log 용 )
+	 * @param maxPagesInFlight 동시에 처리하는 페이지 수 ( 0 이하면 제한 없음 )
+	 *
+	 */
+	public CrawlScope(String id, int maxPagesInFlight) {
+		this.id = id;
+		this.maxPagesInFlight = maxPagesInFlight > 0 ? maxPagesInFlight : Integer.MAX_VALUE;
+	}
+
+	/**
+	 *
+	 * 제한 없는 scope ( job 없이 직접 crawl 을 호출한 경우 )
+	 *
+	 */
+	public static CrawlScope unbounded() {
+		return new CrawlScope("direct", 0);
+	}
+
+	/**
+	 *
+	 * 페이지 하나를 처리할 quota 를 얻음 ( job 의 처리 중인 페이지가 가득이면 대기 )
+	 * @return 얻었으면 true, 취소된 scope 면 false
+	 *
+	 */
+	public boolean acquire() throws InterruptedException {
+		lock.lock();
+		try {
+			while (!cancelled && pagesInFlight >= maxPagesInFlight) {
+				changed.await();
+			}
+			if (cancelled) {
+				return false;
+			}
+			pagesInFlight++;
+			return true;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	public void release() {
+		lock.lock();
+		try {
+			pagesInFlight--;
+			changed.signal();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 *
+	 * 취소 ( 기다리던 acquire 는 false 반환, 등록된 frontier 는 닫아서 남은 url 을 버림 )
+	 * 이미 처리 중인 페이지는 끝까지 진행하되 결과는 전달하지 않는다.
+	 *
+	 */
+	public void cancel() {
+		lock.lock();
+		try {
+			cancelled = true;
+			changed.signalAll();
+		} finally {
+			lock.unlock();
+		}
+		for (CrawlFrontier frontier : frontiers) {
+			frontier.close();
+		}
+	}
+
+	public boolean isCancelled() {
+		return cancelled;
+	}
+
+	void register(CrawlFrontier frontier) {
+		frontiers.add(frontier);
+		if (cancelled) {
+			frontier.close();
+		}
+	}
+
+	void unregister(CrawlFrontier frontier) {
+		frontiers.remove(frontier);
+	}
+
+	public String getId() {
+		return id;
+	}
+
+	public int getPagesInFlight() {
+		lock.lock();
+		try {
+			return pagesInFlight;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "CrawlScope [id=" + id + ", pagesInFlight=" + getPagesInFlight() + ", cancelled=" + cancelled + "]";
+	}
+}
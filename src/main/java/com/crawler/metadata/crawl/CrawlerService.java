@@ -1,23 +1,36 @@
 package com.crawler.metadata.crawl;
 
-import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
-import org.jsoup.Connection.Response;
-import org.jsoup.Jsoup;
-import org.jsoup.nodes.Document;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.stereotype.Service;
 
+import com.crawler.metadata.config.CrawlerProperties;
+import com.crawler.metadata.config.CrawlerProperties.FrontierStore;
+import com.crawler.metadata.crawl.executor.CrawlExecutor;
+import com.crawler.metadata.crawl.extract.HeadMetadata;
+import com.crawler.metadata.crawl.fetch.FetchResult;
+import com.crawler.metadata.crawl.fetch.PageFetcher;
+import com.crawler.metadata.crawl.frontier.CrawlFrontier;
+import com.crawler.metadata.crawl.pipeline.CrawlPipeline;
+import com.crawler.metadata.crawl.pipeline.FetchStage;
+import com.crawler.metadata.crawl.politeness.HostPolitenessScheduler;
+import com.crawler.metadata.crawl.revisit.CachedPage;
+import com.crawler.metadata.crawl.revisit.RecrawlScheduler;
+import com.crawler.metadata.crawl.revisit.ValidatorCache;
+import com.crawler.metadata.crawl.session.CrawlSession;
+import com.crawler.metadata.crawl.sink.CrawlResultSink;
 import com.crawler.metadata.util.UrlUtils;
 
 import lombok.extern.slf4j.Slf4j;
@@ -32,15 +45,45 @@ public class CrawlerService {
 
 	private final MetadataExtractorService metadataExtractorService;
 
-	private final ThreadPoolTaskExecutor threadPoolTaskExecutor;
+	private final CrawlExecutor threadPoolTaskExecutor;
+
+	// 내려받은 페이지의 link 추출, meta tag 수집 ( CPU 작업 )
+	private final ThreadPoolTaskExecutor parseExecutor;
+
+	private final HostPolitenessScheduler politenessScheduler;
+
+	// crawl() 의 fetch -> parse -> extract 단계
+	private final CrawlPipeline pipeline;
+
+	// 페이지 결과를 받는 곳 ( DB 저장, 로컬 result log - 버퍼가 가득 차면 extract 단계가 대기 )
+	private final List<CrawlResultSink> sinks;
+
+	// 이전 크롤링의 validator, 추출 결과 ( 바뀌지 않은 페이지는 다시 parse 하지 않음 )
+	private final ValidatorCache validatorCache;
+
+	// 페이지별 meta tag 변경 빈도 기록 ( 다시 방문할 간격 추정 )
+	private final RecrawlScheduler recrawlScheduler;
+
+	// BFS 탐색 최대 깊이 ( 0 이하면 제한 없음 )
+	private final int maxDepth;
 
 	public CrawlerService(
 			URLQueueService urlQueueService, MetadataExtractorService metadataExtractorService,
-			@Qualifier("crawlerExecutor") ThreadPoolTaskExecutor threadPoolTaskExecutor) {
+			@Qualifier("crawlerExecutor") CrawlExecutor threadPoolTaskExecutor,
+			@Qualifier("parseExecutor") ThreadPoolTaskExecutor parseExecutor,
+			HostPolitenessScheduler politenessScheduler, CrawlPipeline pipeline, List<CrawlResultSink> sinks,
+			ValidatorCache validatorCache, RecrawlScheduler recrawlScheduler, CrawlerProperties properties) {
 
 		this.urlQueueService = urlQueueService;
 		this.metadataExtractorService = metadataExtractorService;
 		this.threadPoolTaskExecutor = threadPoolTaskExecutor;
+		this.parseExecutor = parseExecutor;
+		this.politenessScheduler = politenessScheduler;
+		this.pipeline = pipeline;
+		this.sinks = sinks;
+		this.validatorCache = validatorCache;
+		this.recrawlScheduler = recrawlScheduler;
+		this.maxDepth = properties.getBfs().getMaxDepth();
 
 	}
 
@@ -58,20 +101,17 @@ public class CrawlerService {
 		Map<String, List<String>> seedUrlsPageLinks = new ConcurrentHashMap<>();
 
 		List<CompletableFuture<Void>> futures = seedUrls.stream()
-				.map(seedUrl -> CompletableFuture.runAsync(() -> {
-					// seedUrl 의 도메인만 추출해서 해당 부분부터 탐색해야 함.
-					// https 가 안 붙으면 오류 난다;;;
-//					String domainUrl = UrlUtils.getDomainName(seedUrl); // https 를 떼버림.
-					// 탐색 시, domainUrl 을 parameter로 지정.
-					List<String> urls = makeQueueListToBfs(seedUrl);
-					seedUrlsPageLinks.put(seedUrl, urls); // 입력 data: 사용자로부터 받아온 seedUrl 을 그대로 사용하도록 한다.
-				}, threadPoolTaskExecutor))
+				// executor 스레드는 seed 의 robots.txt 확인까지만 사용하고, 이후 탐색은 페이지 요청 완료 시점에 이어서 진행
+				// ( seed 마다 스레드를 잡고 기다리지 않으므로 seed 가 많아도 페이지 요청이 밀리지 않음 )
+				.map(seedUrl -> CompletableFuture.supplyAsync(() -> makeQueueListToBfsAsync(seedUrl), threadPoolTaskExecutor)
+						.thenCompose(bfs -> bfs)
+						// 입력 data: 사용자로부터 받아온 seedUrl 을 그대로 사용하도록 한다.
+						.thenAccept(urls -> seedUrlsPageLinks.put(seedUrl, urls)))
 				.collect(Collectors.toList());
 
 		// 동시에 실행
+		// crawlerExecutor 는 application 전체가 공유하므로 여기서 종료하지 않음 ( 종료는 Spring 이 application 종료 시 처리 )
 		CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
-		// 실행 후 down
-		threadPoolTaskExecutor.shutdown();
 		return seedUrlsPageLinks;
 	}
 
@@ -83,52 +123,109 @@ public class CrawlerService {
 	 * 
 	 */
 	public List<String> makeQueueListToBfs(String seedUrl) {
-		// 1. robots.txt 파일 확인
-		// 1-1. robots.txt 내부에 비허용하는 url 이 존재하면 filter 에 반영
-		// 2. Queue를 이용한 BFS 탐색
-		// 2-1. seedUrl 이 유효한 url 인지 확인
-		// 2-2. queue 초기화
-		urlQueueService.initializeQueue(seedUrl); // 받아온 값 그대로 queue map 에 입력해서 초기화.
+		return makeQueueListToBfsAsync(seedUrl).join();
+	}
 
+	/**
+	 * 
+	 * seed url 을 진입점으로 하여 깊이 단위로 BFS 탐색
+	 * 같은 깊이의 페이지는 동시에 내려받고 ( host 별 동시 요청 수 제한 적용 ), 모두 끝나면 다음 깊이로 넘어간다.
+	 * 새 link 는 페이지 순서대로 방문 기록하므로 결과 순서는 순차 BFS 와 같다.
+	 * @param seedUrl
+	 * @return url List future
+	 * 
+	 */
+	public CompletableFuture<List<String>> makeQueueListToBfsAsync(String seedUrl) {
 		// 반환할 값 초기화
 		List<String> collectedUrls = new ArrayList<>();
-		// seed Url 을 대기열 list에 추가 - 진입점
-		urlQueueService.addUrl(seedUrl, seedUrl);
-		// BFS 탐색
-		while (urlQueueService.hasMoreUrls(seedUrl)) {
-			String currentUrl = urlQueueService.getNextUrl(seedUrl);
+		// 1. robots.txt 파일 확인
+		// 1-1. robots.txt 내부에 비허용하는 url 은 isValidLink 에서 제외 ( origin 별로 한 번만 내려받음 )
+		if (!metadataExtractorService.isAllowedByRobotsTxt(seedUrl)) {
+			log.info("[makeQueueListToBfs] disallowed by robots.txt ===> {}", seedUrl);
+			return CompletableFuture.completedFuture(collectedUrls);
+		}
+		// 2. 깊이 단위 BFS 탐색
+		// 2-1. 이번 탐색 전용 방문 url set ( 같은 seed 를 다시, 또는 동시에 탐색해도 섞이지 않음 / 끝나면 해제 )
+		CrawlSession session = urlQueueService.openSession(seedUrl, FrontierStore.MEMORY); // frontier 는 사용하지 않음
+		// seed Url 방문 기록 - 진입점 ( 깊이 0 )
+		session.markVisited(seedUrl);
+		CompletableFuture<List<String>> bfs;
+		try {
+			bfs = visitLevel(session, Collections.singletonList(seedUrl), 0, collectedUrls);
+		} catch (RuntimeException e) {
+			session.close();
+			throw e;
+		}
+		return bfs.whenComplete((urls, e) -> session.close());
+	}
+
+	/**
+	 * 
+	 * 같은 깊이의 url 을 동시에 내려받고, 찾은 link 로 다음 깊이 탐색
+	 * @param session
+	 * @param level 현재 깊이의 url 목록
+	 * @param depth 현재 깊이
+	 * @param collectedUrls 지금까지 찾은 url ( 깊이 순 )
+	 * @return url List future
+	 * 
+	 */
+	private CompletableFuture<List<String>> visitLevel(CrawlSession session, List<String> level, int depth,
+			List<String> collectedUrls) {
+		String seedUrl = session.getSeedUrl();
+		if (level.isEmpty() || maxDepth > 0 && depth >= maxDepth) {
+			log.debug("[makeQueueListToBfs] collectedUrls ===> {}", collectedUrls);
+			log.debug("[makeQueueListToBfs] visited ===> {}", session.getStats());
+			return CompletableFuture.completedFuture(collectedUrls);
+		}
+		// 1. 페이지를 한 번 내려받아서 유효한 link 추출 ( host 별 요청 속도 제한 적용, 페이지끼리는 동시에 진행 )
+		List<CompletableFuture<List<String>>> pages = new ArrayList<>(level.size());
+		for (String currentUrl : level) {
 			log.debug("makeQueueListToBfs current url ---> {}", currentUrl);
-			// jsoup connect -> html 문서
-			Document jsoupDoc = metadataExtractorService.convertPageIntoDoc(currentUrl);
-			// link 추출
-			// 상대경로로 해놓은 거는 못 가져오고 있음
-			// 유효성 검사 고쳐야 함...;;;
-			// 고치면서 상대경로느느 domain url 을 붙여서 넣어주기
-			List<String> urlList = metadataExtractorService.extractLinksFromPage(currentUrl, jsoupDoc);
-
-			for (String urlLink : urlList) {
-
-				// 1. link 유효성 check
-				boolean isValidLink = metadataExtractorService.isValidLink(seedUrl, urlLink);
-				if (isValidLink == false) {
-					continue;
+			pages.add(fetchPolitely(currentUrl)
+					.thenApplyAsync(page -> extractValidLinks(seedUrl, page), parseExecutor)
+					.exceptionally(e -> {
+						log.error("[makeQueueListToBfs] url ===> {} error ===> {}", currentUrl, e.getMessage());
+						return Collections.emptyList();
+					}));
+		}
+		return CompletableFuture.allOf(pages.toArray(new CompletableFuture[0])).thenCompose(done -> {
+			// 2. 페이지 순서대로 방문 기록 + 중복 확인을 한 번에 ( 이미 방문한 url 이면 false )
+			List<String> candidates = new ArrayList<>();
+			for (CompletableFuture<List<String>> page : pages) {
+				for (String urlLink : page.join()) {
+					if (session.markVisited(urlLink)) {
+						candidates.add(urlLink);
+					}
 				}
-
-				if (urlQueueService.isVisitedUrl(seedUrl, urlLink) == true) {
-					continue;
+			}
+			// 3. parse 단계에서 확인하지 못한 ( robots.txt 를 아직 내려받지 않은 origin ) link 는 여기서 비동기로 확인
+			List<CompletableFuture<Boolean>> allowed = new ArrayList<>(candidates.size());
+			for (String urlLink : candidates) {
+				allowed.add(metadataExtractorService.isAllowedByRobotsTxtAsync(urlLink));
+			}
+			return CompletableFuture.allOf(allowed.toArray(new CompletableFuture[0])).thenCompose(checked -> {
+				List<String> nextLevel = new ArrayList<>();
+				for (int i = 0; i < candidates.size(); i++) {
+					if (allowed.get(i).join()) {
+						nextLevel.add(candidates.get(i)); // 다음 깊이에서 방문할 url
+						collectedUrls.add(candidates.get(i)); // 반환할 List에 추출한 url 을 추가
+					}
 				}
+				log.debug("[makeQueueListToBfs] seed ===> {} depth ===> {} pages ===> {} new links ===> {}", seedUrl,
+						depth, level.size(), nextLevel.size());
+				return visitLevel(session, nextLevel, depth + 1, collectedUrls);
+			});
+		});
+	}
 
-				// urlQueueService.markAsVisited(seedUrl, currentUrl); // 현재 url 을 방문한 url set에
-				// 추가
-
-				urlQueueService.markAsVisited(seedUrl, urlLink);
-				urlQueueService.addUrl(seedUrl, urlLink); // seedUrl 의 대기열 목록에 추출한 url 을 추가
-				collectedUrls.add(urlLink); // 반환할 List에 추출한 url 을 추가
-			}
+	// 내려받은 페이지의 유효한 link ( 페이지 내 순서, 중복 제외, 유효성은 seed 기준으로 한 번만 검사 )
+	private List<String> extractValidLinks(String seedUrl, FetchResult page) {
+		if (page == null || !page.isSuccess()) { // 내려받지 못한 페이지는 건너뛰기
+			return Collections.emptyList();
 		}
-
-		log.debug("[makeQueueListToBfs] collectedUrls ===> {}", collectedUrls);
-		return collectedUrls;
+		List<String> links = new ArrayList<>();
+		metadataExtractorService.extractLinksFromPage(seedUrl, page, links::add);
+		return links;
 	}
 
 	/**
@@ -158,7 +255,10 @@ public class CrawlerService {
 			log.debug("seedMap ====> {}", seedMap);
 		}
 
-		// 3. kafka 같은 외부 대기열...
+		// 3. 페이지 meta tag 결과는 crawl() 에서 CrawlResultSink ( DB, 로컬 result log ) 로 전달
+		// 다른 consumer 는 result log 를 따라 읽어서 ( ResultLogReader, /crawler/results ) 크롤링과 따로 가져감
+
+		// 4. 수집한 페이지는 RecrawlScheduler 가 meta tag 변경 빈도로 방문 간격을 정하고, RecrawlService 가 때가 된 페이지만 다시 크롤링
 	}
 
 	/**
@@ -169,104 +269,373 @@ public class CrawlerService {
 	 */
 
 	public void crawl(String seedUrl) {
+		crawl(seedUrl, CrawlListener.NONE, CrawlScope.unbounded());
+	}
 
-		urlQueueService.addUrl(seedUrl); // 시작점 url 을 queue 에 add
-		Set<String> visitedUrls = ConcurrentHashMap.newKeySet();
-		// 리팩토링 버전 2.
-		// exception, 재시도 로직, 지수백오프 추가 필요
-		// 멀티 스레드 를 위한 list
-		List<CompletableFuture<Void>> futures = new ArrayList<>();
-		String domainUrl = UrlUtils.getDomainName(seedUrl);
-		while (true) {
+	/**
+	 * 
+	 * 단일 패스로 입력받은 seedUrl에 대해서 link 탐색 + meta tag data 수집.
+	 * 페이지마다 결과를 listener 로 바로 전달한다. ( crawl 이 끝날 때까지 호출한 스레드는 frontier 를 돌며 대기 )
+	 * scope 의 quota 만큼만 페이지를 동시에 처리하고, scope 가 취소되면 처리 중인 페이지가 끝나는 대로 반환한다.
+	 * @param seedUrl
+	 * @param listener
+	 * @param scope job 단위 실행 범위 ( 동시 처리 페이지 수, 취소 )
+	 * 
+	 */
+	public void crawl(String seedUrl, CrawlListener listener, CrawlScope scope) {
 
-			String url = urlQueueService.getNextUrl(); // queue 내부 url 을 꺼내면서 자료구조 내에서 지우기
-			if (url == null) { // 만약에 빈 자료구조 라면...
-				log.info("[url list is empty. checking active tasks] =====");
-				if (threadPoolTaskExecutor.getActiveCount() == 0) {
-					log.info("[url list is empty. checking active tasks] ===== activeCount ===> 0");
-					break;
-				}
+		// crawl 한 번의 session : 전용 방문 대기열 + 방문 기록 ( 끝나면 닫고 해제 )
+		// 디스크 대기열이면 이전에 중단된 같은 seed 의 대기열을 이어서 사용 ( 끝까지 마친 경우만 삭제 )
+		CrawlSession session = urlQueueService.openSession(seedUrl);
+		if (session.isResumed()) {
+			log.info("[crawl] resume ===> {} queued ===> {}", seedUrl, session.getFrontier().getQueuedCount());
+		}
+		drain(session, Collections.singletonList(seedUrl), listener, scope, true);
+	}
 
-				try {
-					Thread.sleep(5000); // 5초간 작업을 기다려보기...
-				} catch (InterruptedException e) {
-					// TODO Auto-generated catch block
-					e.printStackTrace();
-				} // 메인 스레드 멈춘 후, 5초 경과 후 다시 확인
-				continue;
+	/**
+	 * 
+	 * 때가 된 페이지만 다시 크롤링 ( 재크롤링 scheduler 가 호출 )
+	 * 찾은 link 는 따라가지 않고 scheduler 에 넘겨서, 추적하지 않던 url 만 다음 차례에 방문한다.
+	 * @param seedUrl 페이지를 처음 찾은 seed url ( link 유효성 검사 기준 )
+	 * @param urls 다시 방문할 url
+	 * @param listener
+	 * @param scope 동시 처리 페이지 수, 취소
+	 * 
+	 */
+	public void revisit(String seedUrl, List<String> urls, CrawlListener listener, CrawlScope scope) {
+		// 이어서 할 대기열이 없으므로 메모리 대기열 ( 같은 seed 의 디스크 대기열과 섞이지 않음 )
+		drain(urlQueueService.openSession(seedUrl, FrontierStore.MEMORY), urls, listener, scope, false);
+	}
 
+	// 시작 url 을 frontier 에 넣고 대기열이 빌 때까지 fetch 단계로 넘김 ( 끝나면 session 을 닫음 )
+	private void drain(CrawlSession session, List<String> startUrls, CrawlListener listener, CrawlScope scope,
+			boolean followLinks) {
+		String seedUrl = session.getSeedUrl();
+		// 방문 대기열 : url 을 넣을 때 방문 기록 ( 같은 url 을 두 번 내려받지 않도록 ) + 처리 중인 url 수 관리
+		CrawlFrontier frontier = session.getFrontier();
+		FetchStage fetchStage = pipeline.getFetchStage();
+		scope.register(frontier);
+		boolean drained = false;
+		try {
+			for (String startUrl : startUrls) {
+				frontier.offer(startUrl); // 시작점 url 을 queue 에 add
 			}
+			// 리팩토링 버전 2.
+			// exception, 재시도 로직, 지수백오프 추가 필요
+			CrawlRun run = new CrawlRun(frontier, seedUrl, UrlUtils.getDomainName(seedUrl), listener, scope,
+					followLinks);
+			while (true) {
 
-			if (visitedUrls.contains(url)) { // 방문한 적 있으면 그냥 다음 루프절로 순회
-				continue;
-			}
-			// CompletableFuture 활용하여 멀티 스레드 사용
-			CompletableFuture<Void> future = CompletableFuture.runAsync(() -> {
+				String url = null;
 				try {
-					// 1. Jsoup 의 document 객체로 웹 페이지를 변환하여 meta tag, link data 추출
-					log.debug("url================== {}", url);
-					Document jsoupDoc = metadataExtractorService.convertPageIntoDoc(url);
-					// 1-2. meta tag 추출 - seed url
-					Map<String, String> metadata = metadataExtractorService.extractMetadataStatic(jsoupDoc);
-					// 1-3. link 추출 - seed url
-					List<String> links = metadataExtractorService.extractLinksFromPage(domainUrl, jsoupDoc);
-					// 1-4. 작업이 끝났으니 visited link 에 담아주기 - 비동기 내부에 하긴 했는데... 시점에 따라 그전에 해야할수도..
-					// 있음...
-					visitedUrls.add(url);
-					// 2. 해당 page link 태그를 통한 나머지 방문할 url 탐색 ---> 리팩토링 시, 이 부분이 먼저 실행되어야 함.
-					// domain page 그래프 탐색 - BFS ( 해당 도메인 queue link list에 방문할 url 추가 )
-					for (String urlLink : links) {
-
-						boolean isValidLink = metadataExtractorService.isValidLink(domainUrl, urlLink);
-						if (false == isValidLink) {
-							// 제외할 url 보관소가 따로 있다면 거기에 해당 url을 저장해주어야 할 거 같음;;
-							continue; // 아예 다음 roop 로 보내기...
-						}
-
-						if (false == visitedUrls.contains(urlLink)) {
-							urlQueueService.addUrl(urlLink);
+					// job 의 quota 를 먼저 얻고 ( 취소되면 false ), 처리 중인 페이지 ( 요청 중 + parse 대기 ) 가 가득이면
+					// 뒤 단계가 비워줄 때까지 대기 ( backpressure )
+					if (!scope.acquire()) {
+						break;
+					}
+					fetchStage.acquire();
+					try {
+						// 대기열이 비어 있으면 처리 중인 페이지가 link 를 넣거나 모두 끝날 때까지 대기
+						url = frontier.next();
+					} finally {
+						if (url == null) {
+							fetchStage.release();
+							scope.release();
 						}
 					}
-				} catch (Exception e) {
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					log.error("[crawl] interrupted ===> {}", seedUrl);
+					frontier.close();
+					break;
+				}
+				if (url == null) { // 대기열이 비었고 처리 중인 페이지도 없으면 종료 ( 취소된 경우 포함 )
+					drained = !frontier.isClosed();
+					break;
+				}
 
-					log.error("Error Processing URL : {}", url, e);
+				log.debug("url================== {}", url);
+				fetchPage(run, url);
+			}
+			// 취소, interrupt 로 빠져나온 경우 이미 꺼낸 페이지가 끝날 때까지 대기 ( 끝난 뒤 결과가 전달되지 않도록 )
+			awaitInFlight(frontier);
+			if (drained) {
+				session.complete();
+			}
+		} finally {
+			scope.unregister(frontier);
+			session.close();
+		}
 
-				}
+		log.info("All crawling tasks completed. scope ===> {} session ===> {}", scope, session.getStats());
+		log.info("[crawl] pipeline ===> {}", pipeline.getMetrics());
+	}
 
-			}, threadPoolTaskExecutor);
+	private void awaitInFlight(CrawlFrontier frontier) {
+		boolean interrupted = Thread.interrupted();
+		while (true) {
+			try {
+				frontier.awaitQuiescence(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+				break;
+			} catch (InterruptedException e) {
+				interrupted = true;
+			}
+		}
+		if (interrupted) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * 
+	 * [fetch] host 별 요청 속도 제한을 통과한 순서대로 비동기로 내려받고, 내려받은 페이지를 parse 단계로 넘김
+	 * 이전 크롤링 결과가 있으면 조건부 요청을 보내고, 304 나 같은 body 면 이전 결과를 parse 단계로 넘김
+	 * 이전 결과 조회 ( DB 조회 ) 도 fetch 단계에서 비동기로 하므로 frontier 를 도는 스레드는 막히지 않는다.
+	 * @param run
+	 * @param url
+	 * 
+	 */
+	private void fetchPage(CrawlRun run, String url) {
+		// parse 단계는 robots.txt 를 기다리지 않으므로 ( 처음 보는 origin 의 link 는 그대로 넘어옴 ) 요청 전에 확인
+		metadataExtractorService.isAllowedByRobotsTxtAsync(url).whenComplete((allowed, e) -> {
+			if (Boolean.FALSE.equals(allowed)) {
+				log.debug("[crawl] disallowed by robots.txt ===> {}", url);
+				pipeline.getFetchStage().release();
+				run.pageDone(url);
+				return;
+			}
+			fetchAllowedPage(run, url);
+		});
+	}
 
-			futures.add(future);
+	private void fetchAllowedPage(CrawlRun run, String url) {
+		FetchStage fetchStage = pipeline.getFetchStage();
+		long started = fetchStage.start();
+		CompletableFuture<CachedPage> lookup = lookupCached(url);
+		lookup.thenCompose(cached -> fetchPolitely(url, run.scope, cached)).whenComplete((page, e) -> {
+			// 요청이 끝났으면 조회도 끝난 상태
+			CachedPage cached = e == null ? lookup.join() : null;
+			boolean reusable = e == null && isUnchanged(page, cached);
+			boolean fetched = e == null && page != null && (page.isSuccess() || reusable);
+			fetchStage.finish(started, fetched);
+			if (e != null) {
+				log.error("Error Processing URL : {}", url, e);
+			}
+			if (!fetched || run.scope.isCancelled()) { // 내려받지 못한 페이지, 취소된 job 은 건너뛰기
+				if (!run.scope.isCancelled()) {
+					run.failed(url, e != null ? PageFetcher.unwrap(e).getMessage()
+							: page == null ? "no content" : "status " + page.getStatusCode());
+				}
+				fetchStage.release();
+				run.pageDone(url);
+				return;
+			}
+			try {
+				pipeline.getParseStage().execute(() -> {
+					// parse 를 시작하면 permit 반납 ( 다음 url 을 꺼낼 수 있음 )
+					fetchStage.release();
+					parsePage(run, url, page, reusable ? cached : null);
+				});
+			} catch (RejectedExecutionException rejected) {
+				log.error("[crawl] parse stage rejected ===> {}", url);
+				fetchStage.release();
+				run.pageDone(url);
+			}
+		});
+	}
 
+	// 이전 크롤링 결과 조회는 blocking 작업이므로 crawlerExecutor 에서 실행 ( 저장하지 않는 설정이면 바로 null )
+	private CompletableFuture<CachedPage> lookupCached(String url) {
+		if (!validatorCache.isEnabled()) {
+			return CompletableFuture.completedFuture(null);
 		}
+		try {
+			return CompletableFuture.supplyAsync(() -> validatorCache.lookup(url), threadPoolTaskExecutor);
+		} catch (RejectedExecutionException e) {
+			return CompletableFuture.failedFuture(e);
+		}
+	}
 
-		// 모든 크롤링 작업 완료 대기
-		// allOf ---> 동시에 모든 스레드 작업을 실행
-		// join ---> 완료 될때까지 스레드 차단
-		// test 결과, 성공적으로 추출된 웹사이트는 1개임. 프로세스 간 경쟁상태... 중복 방문 체크가 제대로 되지 않는 사례가 많음.
-		// 어쩔 수 없이 2개의 단계로 나눠서 (해당 단계는 순차적으로 진행되어ㅇ야 함.) 해야 할 거 같음
-		// 대기열( 방문해야 하는 list ) 목록을 만들고, 그걸 병렬로 실행해서 meta data를 뽑아내게 해야 rdb에 중복으로 data가
-		// insert 되는 사례 예방
-		CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
-		log.info("All crawling tasks completed. Shutting down executor...");
-		threadPoolTaskExecutor.shutdown();
+	/**
+	 * 
+	 * [parse] 내려받은 페이지를 한 번씩 훑어서 meta tag, 유효한 link 추출 후 extract 단계로 넘김
+	 * 바뀌지 않은 페이지 ( cached 가 있음 ) 는 훑지 않고 이전 결과를 사용한다. ( link 유효성만 다시 check )
+	 * extract 대기열이 가득이면 이 worker 가 기다린다.
+	 * 
+	 */
+	private void parsePage(CrawlRun run, String url, FetchResult page, CachedPage cached) {
+		if (run.scope.isCancelled()) {
+			run.pageDone(url);
+			return;
+		}
+		HeadMetadata metadata;
+		List<String> links;
+		String finalUrl = page.getFinalUrl();
+		int statusCode = page.getStatusCode();
+		try {
+			if (cached != null) {
+				metadata = cached.toHeadMetadata();
+				links = reuseValidLinks(run.domainUrl, cached);
+				if (page.isNotModified()) {
+					finalUrl = cached.getFinalUrl();
+					statusCode = cached.getStatusCode();
+					validatorCache.record(ValidatorCache.Outcome.NOT_MODIFIED);
+				} else {
+					validatorCache.record(ValidatorCache.Outcome.UNCHANGED);
+					CachedPage refreshed = cached.refreshValidators(page);
+					if (refreshed != cached) {
+						validatorCache.store(url, refreshed);
+					}
+				}
+			} else {
+				// 1. meta tag 추출
+				metadata = metadataExtractorService.extractHeadMetadata(page);
+				// 2. 해당 page link 태그를 통한 나머지 방문할 url 탐색 ( link 유효성 check 포함 )
+				links = extractValidLinks(run.domainUrl, page);
+				validatorCache.record(ValidatorCache.Outcome.CHANGED);
+				validatorCache.store(url, CachedPage.of(page, metadata, links));
+			}
+		} catch (RuntimeException e) {
+			log.error("Error Processing URL : {}", url, e);
+			run.failed(url, e.getMessage());
+			run.pageDone(url);
+			return;
+		}
+		CrawlPageResult result = new CrawlPageResult(run.seedUrl, url, finalUrl, statusCode, metadata, links.size(),
+				System.currentTimeMillis());
+		try {
+			pipeline.getExtractStage().execute(() -> emitPage(run, result, links));
+		} catch (RejectedExecutionException rejected) {
+			log.error("[crawl] extract stage rejected ===> {}", url);
+			run.pageDone(url);
+		}
 	}
 
-	private void processMetadata(String url, Map<String, String> metadata) {
-		log.info("[processMetadata] Metadata for url : {}", url);
-		metadata.forEach((key, value) -> log.error("key : {}  value: {}", key, value));
+	// 이전 결과를 사용해도 되는 응답인지 ( 304 또는 같은 body )
+	private static boolean isUnchanged(FetchResult page, CachedPage cached) {
+		if (page == null || cached == null) {
+			return false;
+		}
+		return page.isNotModified() || page.isSuccess() && page.getContentHash() == cached.getContentHash();
 	}
 
-	private boolean isDynamicPage(String url) {
+	// 이전에 찾은 link 중 지금 규칙 ( filter, robots.txt ) 으로도 유효한 link
+	private List<String> reuseValidLinks(String domainUrl, CachedPage cached) {
+		List<String> links = new ArrayList<>(cached.getLinks().size());
+		for (String link : cached.getLinks()) {
+			if (metadataExtractorService.isValidLink(domainUrl, link)) {
+				links.add(link);
+			}
+		}
+		return links;
+	}
 
+	/**
+	 * 
+	 * [extract] 찾은 link 를 frontier 에 넣고 meta tag 결과를 sink 와 listener 로 전달
+	 * link 를 모두 넣은 뒤에 완료 처리 ( 순서가 바뀌면 대기열이 빈 것으로 보고 일찍 끝날 수 있음 )
+	 * 
+	 */
+	private void emitPage(CrawlRun run, CrawlPageResult result, List<String> links) {
+		String url = result.getUrl();
 		try {
-			Response response = Jsoup.connect(url).execute();
-			String content = response.body();
-			boolean hasScript = content.contains("<script");
-			boolean hasPlaceholder = content.contains("{{") || content.contains("ng-");
-			return hasScript || hasPlaceholder || response.header("X-Powered-By") != null;
-		} catch (IOException e) {
-			return true; // If an error occurs, assume dynamic page
+			if (run.scope.isCancelled()) {
+				return;
+			}
+			if (run.followLinks) {
+				// domain page 그래프 탐색 - BFS ( 방문 기록 + 중복 확인을 한 번에, 이미 방문한 url 은 대기열에 넣지 않음 )
+				for (String urlLink : links) {
+					run.frontier.offer(urlLink);
+				}
+			} else {
+				// 재크롤링은 추적하지 않던 url 만 scheduler 로 ( 다음 차례에 방문 )
+				recrawlScheduler.discover(run.seedUrl, links);
+			}
+			log.debug("[crawl] result ===> {}", result);
+			writeToSinks(result);
+			recrawlScheduler.observe(result);
+			run.listener.onPage(result);
+		} catch (RuntimeException e) {
+			log.error("[crawl] listener error ===> {}", result.getUrl(), e);
+		} finally {
+			run.pageDone(url);
+		}
+	}
+
+	// sink 하나가 실패해도 나머지 sink, listener 에는 전달
+	private void writeToSinks(CrawlPageResult result) {
+		for (CrawlResultSink sink : sinks) {
+			try {
+				sink.write(result);
+			} catch (RuntimeException e) {
+				log.error("[crawl] sink error ===> {} {}", sink.getClass().getSimpleName(), result.getUrl(), e);
+			}
+		}
+	}
+
+	/**
+	 * 
+	 * crawl() 한 번의 상태 ( frontier, listener, job scope )
+	 * 
+	 */
+	private final class CrawlRun {
+
+		private final CrawlFrontier frontier;
+
+		private final String seedUrl;
+
+		private final String domainUrl;
+
+		private final CrawlListener listener;
+
+		private final CrawlScope scope;
+
+		// 찾은 link 를 frontier 에 넣을지 ( 재크롤링이면 false )
+		private final boolean followLinks;
+
+		CrawlRun(CrawlFrontier frontier, String seedUrl, String domainUrl, CrawlListener listener, CrawlScope scope,
+				boolean followLinks) {
+			this.frontier = frontier;
+			this.seedUrl = seedUrl;
+			this.domainUrl = domainUrl;
+			this.listener = listener;
+			this.scope = scope;
+			this.followLinks = followLinks;
+		}
+
+		// frontier 완료 처리 + job quota 반납 ( 페이지마다 한 번, 디스크 대기열은 이 url 까지 checkpoint )
+		void pageDone(String url) {
+			scope.release();
+			frontier.done(url);
+		}
+
+		void failed(String url, String reason) {
+			try {
+				listener.onPageFailed(url, reason);
+			} catch (RuntimeException e) {
+				log.error("[crawl] listener error ===> {}", url, e);
+			}
 		}
 	}
 
+	/**
+	 * 
+	 * host 별 요청 속도 제한을 거쳐 페이지를 비동기로 내려받음
+	 * 요청을 기다리는 동안 스레드를 잡지 않고, 동적 페이지 렌더링만 crawlerExecutor 에서 실행 ( host 별 동시 실행 수 제한 )
+	 * @param url
+	 * @return fetchResult future
+	 * 
+	 */
+	private CompletableFuture<FetchResult> fetchPolitely(String url) {
+		return fetchPolitely(url, CrawlScope.unbounded(), null);
+	}
+
+	// 취소된 job 의 요청은 차례가 와도 보내지 않음 ( cached 가 있으면 조건부 요청 )
+	private CompletableFuture<FetchResult> fetchPolitely(String url, CrawlScope scope, CachedPage cached) {
+		return politenessScheduler.schedule(url, () -> scope.isCancelled() ? CompletableFuture.completedFuture(null)
+				: metadataExtractorService.fetchPageAsync(url, cached,
+						threadPoolTaskExecutor.forHost(UrlUtils.getHost(url))));
+	}
+
 }
\ No newline at end of file
@@ -2,29 +2,35 @@ package com.crawler.metadata.crawl;
 
 
 import java.io.IOException;
-import java.net.MalformedURLException;
-import java.net.URI;
-import java.net.URISyntaxException;
-import java.net.URL;
-import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 import java.util.stream.Collectors;
 
 import org.apache.tomcat.util.buf.StringUtils;
-import org.jsoup.Connection.Response;
 import org.jsoup.Jsoup;
 import org.jsoup.nodes.Document;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 
-import com.microsoft.playwright.Browser;
-import com.microsoft.playwright.Page;
-import com.microsoft.playwright.Playwright;
-import com.microsoft.playwright.impl.Connection;
-import com.microsoft.playwright.options.LoadState;
+import com.crawler.metadata.crawl.extract.HeadMetadata;
+import com.crawler.metadata.crawl.extract.HeadMetadataExtractor;
+import com.crawler.metadata.crawl.extract.LinkScanner;
+import com.crawler.metadata.crawl.extract.LinkSink;
+import com.crawler.metadata.crawl.filter.FilterRule;
+import com.crawler.metadata.crawl.filter.UrlFilterRegistry;
+import com.crawler.metadata.crawl.fetch.FetchResult;
+import com.crawler.metadata.crawl.fetch.PageFetcher;
+import com.crawler.metadata.crawl.render.BrowserPool;
+import com.crawler.metadata.crawl.render.DynamicPageClassifier;
+import com.crawler.metadata.crawl.render.RenderDecision;
+import com.crawler.metadata.crawl.render.RenderException;
+import com.crawler.metadata.crawl.revisit.CachedPage;
+import com.crawler.metadata.crawl.robots.RobotsTxtCache;
+import com.microsoft.playwright.PlaywrightException;
 
 import lombok.extern.slf4j.Slf4j;
 
@@ -34,6 +40,32 @@ public class MetadataExtractorService {
 	
 	private final Logger log = LoggerFactory.getLogger(getClass());
 
+	private final PageFetcher pageFetcher;
+
+	private final BrowserPool browserPool;
+
+	private final DynamicPageClassifier dynamicPageClassifier;
+
+	private final HeadMetadataExtractor headMetadataExtractor;
+
+	private final LinkScanner linkScanner;
+
+	private final RobotsTxtCache robotsTxtCache;
+
+	private final UrlFilterRegistry urlFilterRegistry;
+
+	public MetadataExtractorService(PageFetcher pageFetcher, BrowserPool browserPool,
+			DynamicPageClassifier dynamicPageClassifier, HeadMetadataExtractor headMetadataExtractor,
+			LinkScanner linkScanner, RobotsTxtCache robotsTxtCache, UrlFilterRegistry urlFilterRegistry) {
+		this.pageFetcher = pageFetcher;
+		this.browserPool = browserPool;
+		this.dynamicPageClassifier = dynamicPageClassifier;
+		this.headMetadataExtractor = headMetadataExtractor;
+		this.linkScanner = linkScanner;
+		this.robotsTxtCache = robotsTxtCache;
+		this.urlFilterRegistry = urlFilterRegistry;
+	}
+
 	/**
 	 * 페이지의 링크 내 url 수집
 	 * 
@@ -47,6 +79,23 @@ public class MetadataExtractorService {
 		return links;
 	}
 
+	/**
+	 * 내려받은 페이지 html 을 한 번 훑으면서 유효한 link 를 sink 로 전달
+	 * DOM, List 를 만들지 않고 페이지 내 중복 link 는 한 번만 전달한다.
+	 * 
+	 * @param url  유효성 검사 기준 url
+	 * @param page
+	 * @param sink
+	 */
+	public void extractLinksFromPage(String url, FetchResult page, LinkSink sink) {
+		int count = linkScanner.scan(page.getBodyText(), page.getFinalUrl(), link -> {
+			if (isValidLink(url, link)) {
+				sink.accept(link);
+			}
+		});
+		log.debug("[extractLinksFromPage] url ====> {} links ====> {}", page.getFinalUrl(), count);
+	}
+
 	/**
 	 * @param domainUrl seedUrl에서 추출한 원 도메인 url
 	 * @param url       유효성 검사의 target url
@@ -56,150 +105,185 @@ public class MetadataExtractorService {
 			return false;
 		}
 
-//		    url = normalizeUrl(url);
-
-		// domain url 비교 대신 이런 식으로 해야 할듯.
-//		    String urlHost = UrlUtils.getDomainName(domainUrl);
-//		    if (false == url.contains(urlHost)) {
-//		    	return false;
-//		    }
-
-//		    if (!isValidUrlFormat(url) || !isValidProtocol(url) || containsSpamPatterns(url) || isMediaFile(url)) {
-//		        return false;
-//		    }
-
-//		    if (isDuplicate(url)) {
-//		        return false;
-//		    }
+		// url 정규화 ( canonical url ) 는 URLQueueService 에서 방문 여부 판단 시 적용
+		// 중복 제거는 URLQueueService 의 방문 url 보관소에서 처리
 
-//		    if (!isDepthValid(url, 5)) { // !isAllowedDomain(url) || 
-//		        return false;
-//		    }
+		// 형식, protocol, domain, 스팸 문자열, 미디어 파일, 깊이 규칙을 한 번에 검사 ( seed 별 규칙 )
+		FilterRule rejected = urlFilterRegistry.check(domainUrl, url);
+		if (rejected != null) {
+			log.debug("[isValidLink] url ===> {} rejected ===> {}", url, rejected);
+			return false;
+		}
 
-//		    if (!isAllowedByRobotsTxt(url)) {
-//		        return false;
-//		    }
+		// robots.txt 는 filter 를 통과한 url 만 확인 ( 걸러질 link 때문에 robots.txt 를 내려받지 않도록 )
+		// parse 단계에서는 기다리지 않음 - 아직 내려받지 않은 origin 의 link 는 통과시키고 fetch 단계에서 확인
+		if (robotsTxtCache.isKnownDisallowed(url)) {
+			return false;
+		}
 
 		return true;
-		//
-//		//공백 확인
-//		if (StringUtils.isEmpty(url)) {
-//			return false;
-//		}
-//		
-//		// bloom filter
-//		
-//		// 중복 제거
-//		
-//		// 스팸 data 제거
-//		
-//		//  robots.txt 에 포함된 url 이 아닌지 확인
-//		
-//		return true;
 	}
 
-	private boolean isValidUrlFormat(String url) {
-		try {
-			new URL(url);
-			return true;
-		} catch (MalformedURLException e) {
-			return false;
-		}
+	/**
+	 * robots.txt 에서 수집을 허용한 url 인지 확인 ( origin 별 cache, 처음 보는 origin 이면 내려받을 때까지 대기 )
+	 * 
+	 * @param url
+	 */
+	public boolean isAllowedByRobotsTxt(String url) {
+		return robotsTxtCache.isAllowed(url);
 	}
 
-	private String normalizeUrl(String url) {
-		try {
-			URI uri = new URI(url);
-			return uri.normalize().toString();
-		} catch (URISyntaxException e) {
-			return url; // Return original if normalization fails
-		}
+	/**
+	 * robots.txt 에서 수집을 허용한 url 인지 비동기로 확인 ( fetch 단계에서 요청 전에 사용 )
+	 * 
+	 * @param url
+	 * @return 허용 여부 future
+	 */
+	public CompletableFuture<Boolean> isAllowedByRobotsTxtAsync(String url) {
+		return robotsTxtCache.isAllowedAsync(url);
 	}
 
-	private final List<String> blockedPatterns = Arrays.asList("utm_", "facebook.com", "twitter.com", "ads", "login",
-			"subscribe");
-
-	private boolean containsSpamPatterns(String url) {
-		return blockedPatterns.stream().anyMatch(url::contains);
+	/**
+	 * URL 의 web page를 jsoup의 document 객체로 변환하여 반환
+	 * 
+	 * @param url
+	 * @return document
+	 */
+	public Document convertPageIntoDoc(String url) {
+		FetchResult result = fetchPage(url);
+		if (result == null || !result.isSuccess()) {
+			return null;
+		}
+		return result.parse();
 	}
 
-//	public boolean isAllowedByRobotsTxt(String url) {
-//	    try {
-//	        SimpleRobotRulesParser parser = new SimpleRobotRulesParser();
-//	        SimpleRobotRules rules = parser.parse(new URL(url).openStream(), url);
-//	        return rules.isAllowed(url);
-//	    } catch (IOException e) {
-//	        return false;  // If robots.txt cannot be read, assume restricted access
-//	    }
-//	}
-
-	private final List<String> blockedExtensions = Arrays.asList(".jpg", ".png", ".gif", ".pdf", ".zip", ".mp4");
-
-	private boolean isMediaFile(String url) {
-		return blockedExtensions.stream().anyMatch(url::endsWith);
-	}
+	/**
+	 * URL 의 web page 를 한 번만 내려받아 반환
+	 * 내려받은 body 로 렌더링이 필요한지 판별하고 ( DynamicPageClassifier ), 필요한 경우에만 playwright 로 렌더링한 html 로 교체
+	 * 
+	 * http error 응답은 렌더링하지 않고 그대로 반환 ( 429, 503 등은 politeness scheduler 가 사용 )
+	 * 요청 자체가 실패한 url 은 렌더링해도 같은 이유로 실패하므로 렌더링하지 않는다.
+	 * 
+	 * @param url
+	 * @return fetchResult ( 요청 자체가 실패하면 null )
+	 */
+	public FetchResult fetchPage(String url) {
+		FetchResult result;
+		try {
+			result = pageFetcher.fetch(url);
+		} catch (IOException e) {
+			log.error("[fetchPage] error ===> {}", e.getMessage());
+			return null;
+		}
 
-	private boolean isDepthValid(String url, int maxDepth) {
-		int depth = url.split("/").length;
-		return depth <= maxDepth;
-	}
+		if (!result.isSuccess()) {
+			log.error("[fetchPage] url ===> {} status ===> {}", url, result.getStatusCode());
+			return result;
+		}
 
-	private boolean isValidProtocol(String url) {
-		return url.startsWith("http://") || url.startsWith("https://");
+		RenderDecision decision = dynamicPageClassifier.classify(result);
+		if (decision.isRenderRequired()) {
+			// 렌더링에 실패하면 내려받은 정적 html 사용
+			String content = renderPage(result, decision);
+			return content == null ? result : result.withBody(content);
+		}
+		return result;
 	}
 
-	private String getCanonicalUrl(String url) {
-		return url.toLowerCase().replaceAll("www.", "").replaceAll("#.*", "");
+	/**
+	 * URL 의 web page 를 비동기로 한 번만 내려받아 반환
+	 * 요청을 기다리는 동안 스레드를 잡지 않고, 동적 페이지 렌더링 ( blocking ) 만 renderExecutor 에서 실행
+	 * 
+	 * @param url
+	 * @param renderExecutor playwright 렌더링을 실행할 executor
+	 * @return fetchResult future ( 요청 자체가 실패하면 null )
+	 */
+	public CompletableFuture<FetchResult> fetchPageAsync(String url, Executor renderExecutor) {
+		return fetchPageAsync(url, null, renderExecutor);
 	}
 
 	/**
-	 * URL 의 web page를 jsoup의 document 객체로 변환하여 반환
+	 * 이전 크롤링 결과의 validator 로 조건부 요청을 보내서 web page 를 비동기로 내려받아 반환
+	 * 304 응답이나 이전과 같은 body ( content hash ) 는 렌더링하지 않고 그대로 반환 ( 호출한 쪽에서 이전 결과를 사용 )
 	 * 
 	 * @param url
-	 * @return document
+	 * @param cached 이전 크롤링 결과 ( 없으면 null )
+	 * @param renderExecutor playwright 렌더링을 실행할 executor
+	 * @return fetchResult future ( 요청 자체가 실패하면 null )
 	 */
-	public Document convertPageIntoDoc(String url) {
-		if (isDynamicPage(url)) {
-			try (Playwright playwright = Playwright.create()) {
-				// headless mode 로 웹 페이지 로드
-				Browser browser = playwright.chromium().launch();
-				Page page = browser.newPage();
-				page.navigate(url);
-				page.waitForLoadState(LoadState.NETWORKIDLE);
-				String content = page.content();
-				Document doc = Jsoup.parse(content);
-				return doc;
+	public CompletableFuture<FetchResult> fetchPageAsync(String url, CachedPage cached, Executor renderExecutor) {
+		CompletableFuture<FetchResult> request = cached == null ? pageFetcher.fetchAsync(url)
+				: pageFetcher.fetchAsync(url, cached.getEtag(), cached.getLastModified());
+		return request.handle((result, error) -> {
+			if (error != null) {
+				Throwable cause = PageFetcher.unwrap(error);
+				if (!(cause instanceof IOException)) {
+					return CompletableFuture.<FetchResult>failedFuture(cause);
+				}
+				log.error("[fetchPage] error ===> {}", cause.getMessage());
+				return CompletableFuture.<FetchResult>completedFuture(null);
+			}
+			if (result.isNotModified() && cached != null) {
+				log.debug("[fetchPage] url ===> {} not modified", url);
+				return CompletableFuture.completedFuture(result);
+			}
+			if (!result.isSuccess()) {
+				log.error("[fetchPage] url ===> {} status ===> {}", url, result.getStatusCode());
+				return CompletableFuture.completedFuture(result);
 			}
-		} else {
-			try {
-				Document doc = Jsoup.connect(url).get();
-				return doc;
-			} catch (IOException e) {
-				log.error("[convertPageIntoDoc] error ===> {}", e.getMessage());
+			if (cached != null && result.getContentHash() == cached.getContentHash()) {
+				log.debug("[fetchPage] url ===> {} unchanged", url);
+				return CompletableFuture.completedFuture(result);
 			}
+			RenderDecision decision = dynamicPageClassifier.classify(result);
+			if (decision.isRenderRequired()) {
+				return CompletableFuture.supplyAsync(() -> {
+					// 렌더링에 실패하면 내려받은 정적 html 사용
+					String content = renderPage(result, decision);
+					return content == null ? result : result.withBody(content);
+				}, renderExecutor);
+			}
+			return CompletableFuture.completedFuture(result);
+		}).thenCompose(page -> page);
+	}
+
+	// 렌더링 결과와 시간은 판별기에 알려서 같은 template 의 다음 판단에 반영
+	private String renderPage(FetchResult page, RenderDecision decision) {
+		long start = System.nanoTime();
+		String content = null;
+		try {
+			// browser pool 의 headless browser 로 웹 페이지 로드 ( main document 는 내려받은 body 사용 )
+			content = browserPool.render(page);
+			return content;
+		} catch (RenderException | PlaywrightException e) {
+			log.error("[renderPage] url ===> {} error ===> {}", page.getFinalUrl(), e.getMessage());
+			return null;
+		} finally {
+			dynamicPageClassifier.recordRender(decision, content, System.nanoTime() - start);
 		}
-		return null;
 	}
 
 	/**
 	 * 정적 페이지의 meta tag 데이터 수집
+	 * link 탐색이 필요 없으므로 head 영역만 읽고 연결을 닫는다.
 	 * 
 	 * @param url
 	 */
 	public Map<String, String> extractMetadataStatic(String url) throws IOException {
 		log.debug("extractMetadataStatic start");
-		Document doc = Jsoup.connect(url).get();
-		Map<String, String> metadata = new HashMap<>();
-
-		doc.select("meta").forEach(meta -> {
-			String name = meta.attr("name");
-			String content = meta.attr("content");
-			if (!name.isEmpty()) {
-				metadata.put(name, content);
-			}
-		});
+		return extractHeadMetadata(url).getMetaTags();
+	}
 
-		log.debug("[extractMetadataStatic] metadata ====> {}", metadata);
+	/**
+	 * 페이지의 head 영역 meta tag, title, canonical url 수집
+	 * DOM 을 만들지 않고 stream 으로 읽다가 &lt;/head&gt; 에서 멈춘다.
+	 * 
+	 * @param url
+	 * @return headMetadata
+	 */
+	public HeadMetadata extractHeadMetadata(String url) throws IOException {
+		HeadMetadata metadata = pageFetcher.fetchStreaming(url, headMetadataExtractor::extract);
+		log.debug("[extractHeadMetadata] metadata ====> {}", metadata);
 		return metadata;
 	}
 
@@ -222,6 +306,16 @@ public class MetadataExtractorService {
 		return metadata;
 	}
 
+	/**
+	 * 내려받은 페이지 html 의 head 영역 meta tag 수집
+	 * 
+	 * @param page
+	 * @return headMetadata
+	 */
+	public HeadMetadata extractHeadMetadata(FetchResult page) {
+		return headMetadataExtractor.extract(page.getBodyText(), page.getFinalUrl());
+	}
+
 	/**
 	 * 동적 페이지의 meta tag 데이터 수집
 	 * 
@@ -229,48 +323,23 @@ public class MetadataExtractorService {
 	 */
 	public Map<String, String> extractMetadataDynamic(String url) throws IOException {
 		log.debug("extractMetadataDynamic start");
-		try (Playwright playwright = Playwright.create()) {
-
-			// headless mode로 브라우저 탐색 - 기본 설정 default ()
-
-			Browser browser = playwright.chromium().launch();
-			Page page = browser.newPage();
-			page.navigate(url);
-
-			page.waitForLoadState(LoadState.NETWORKIDLE);
-
-			String content = page.content();
+		// browser pool 의 headless browser 로 탐색
+		String content = browserPool.render(url);
 //			log.debug("extractMetadataDynamic content ===> {}", content);
 
-			// playwright
-			Map<String, String> metadata = new HashMap<>();
-			Document doc = Jsoup.parse(content);
-
-			doc.select("meta").forEach(meta -> {
-				String name = meta.attr("name");
-				String contentValue = meta.attr("content");
-				if (!name.isEmpty()) {
-					metadata.put(name, contentValue);
-				}
-			});
-
-			log.debug("[extractMetadataDynamic] metadata ====> {}", metadata);
-			return metadata;
-		}
-
-	}
-
-	private boolean isDynamicPage(String url) {
-		try {
-			Response response = Jsoup.connect(url).execute();
-			String content = response.body();
+		// playwright
+		Map<String, String> metadata = new HashMap<>();
+		Document doc = Jsoup.parse(content, url);
 
-			boolean hasScript = content.contains("<script");
-			boolean hasPlaceholder = content.contains("{{") || content.contains("ng-");
+		doc.select("meta").forEach(meta -> {
+			String name = meta.attr("name");
+			String contentValue = meta.attr("content");
+			if (!name.isEmpty()) {
+				metadata.put(name, contentValue);
+			}
+		});
 
-			return hasScript || hasPlaceholder || response.header("X-Powered-By") != null;
-		} catch (IOException e) {
-			return true; // If an error occurs, assume dynamic page
-		}
+		log.debug("[extractMetadataDynamic] metadata ====> {}", metadata);
+		return metadata;
 	}
 }
@@ -1,139 +1,171 @@
 package com.crawler.metadata.crawl;
 
-import java.util.LinkedList;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
 import java.util.Map;
-import java.util.Queue;
 import java.util.Set;
-import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 
+import com.crawler.metadata.config.CrawlerProperties;
+import com.crawler.metadata.config.CrawlerProperties.FrontierStore;
+import com.crawler.metadata.crawl.frontier.FrontierQueue;
+import com.crawler.metadata.crawl.frontier.HostBucketQueue;
+import com.crawler.metadata.crawl.frontier.MappedFrontierQueue;
+import com.crawler.metadata.crawl.session.CrawlSession;
+import com.crawler.metadata.crawl.session.CrawlSessionStats;
+import com.crawler.metadata.crawl.visited.VisitedUrlStore;
+import com.crawler.metadata.crawl.visited.VisitedUrlStoreFactory;
+import com.crawler.metadata.util.Fingerprints;
+import com.crawler.metadata.util.UrlCanonicalizer;
+
+import lombok.extern.slf4j.Slf4j;
+
 @Service
+@Slf4j
 public class URLQueueService {
 
-	// ---------------------------------------------------------------
+	private final Logger log = LoggerFactory.getLogger(getClass());
 
-	// 다중 url 동시 처리에 대해서 사용
+	private final VisitedUrlStoreFactory visitedUrlStoreFactory;
 
-	// seedUrl 마다 방문해야 할 url queue list
+	// 방문 여부는 canonical url 로 판단 ( 대기열에는 원래 url 을 넣음 )
+	private final UrlCanonicalizer canonicalizer;
 
-	private final Map<String, BlockingQueue<String>> urlQueues = new ConcurrentHashMap<>();
+	private final CrawlerProperties.Session session;
 
-	// seedUrl 마다 방문한 rul set
+	// ---------------------------------------------------------------
 
-	private final Map<String, Set<String>> visitedUrlSets = new ConcurrentHashMap<>();
+	// 다중 url 동시 처리에 대해서 사용
 
-	public void initializeQueue(String seedUrl) {
-		urlQueues.putIfAbsent(seedUrl, new LinkedBlockingQueue<>()); // 대기열 목록 초기화
-		visitedUrlSets.putIfAbsent(seedUrl, ConcurrentHashMap.newKeySet()); // 방문 url set 초기화
-	}
+	// 크롤링 중인 session ( close 하면 제거, seed 가 같아도 crawl 마다 따로 )
 
-	/**
-	 * 
-	 * seedUrl 에 할당된 queue link list 내부에 방문해야 할 url 추가
-	 * @param seedUrl
-	 * @param url
-	 * 
-	 */
+	private final Map<Long, CrawlSession> sessions = new ConcurrentHashMap<>();
 
-	public void addUrl(String seedUrl, String url) {
-		if (!visitedUrlSets.get(seedUrl).contains(url)) {
-			urlQueues.get(seedUrl).offer(url);
-		}
-	}
+	private final AtomicLong sessionIds = new AtomicLong();
 
-	/**
-	 * 
-	 * seedUrl 에 할당된 queue link list 의 다음 순서에 방문할 url 반환
-	 * 
-	 * @param seedUrl
-	 * 
-	 * @return nextUrl
-	 * 
-	 */
+	private final LongAdder closedSessions = new LongAdder();
+
+	// 사용 중인 디스크 대기열 directory ( 같은 seed 를 동시에 크롤링하면 나중 session 은 메모리 대기열 사용 )
+
+	private final Set<Path> mappedDirectories = ConcurrentHashMap.newKeySet();
 
-	public String getNextUrl(String seedUrl) {
-		return urlQueues.get(seedUrl).poll();
+	public URLQueueService(VisitedUrlStoreFactory visitedUrlStoreFactory, CrawlerProperties properties) {
+		this.visitedUrlStoreFactory = visitedUrlStoreFactory;
+		CrawlerProperties.Canonical canonical = properties.getCanonical();
+		this.canonicalizer = new UrlCanonicalizer(canonical.isStripWww(), canonical.isStripTrailingSlash(),
+				canonical.isSortQueryParams(), canonical.getTrackingParams());
+		this.session = properties.getSession();
 	}
 
 	/**
 	 * 
-	 * 방문한 url 에 대해서, seedUrl 에 할당된 방문 url set에 저장
-	 * 
-	 * @param seedUrl
-	 * 
+	 * 중복 판단에 사용하는 canonical url
 	 * @param url
+	 * @return canonical url
 	 * 
 	 */
 
-	public void markAsVisited(String seedUrl, String url) {
-		visitedUrlSets.get(seedUrl).add(url);
+	public String canonicalize(String url) {
+		return canonicalizer.canonicalize(url);
 	}
 
 	/**
 	 * 
-	 * seedUrl에 대해서, 현재 방문 순서에 해당하는 url 을 확인
-	 * 
+	 * seedUrl 크롤링 한 번에 사용할 session ( 전용 방문 대기열 + 방문 url 보관소 ) 생성
+	 * 크롤링이 끝나면 close() 해야 목록에서 빠지고 메모리가 해제된다.
+	 * frontier 대기열은 crawler.session.frontier-store 설정을 따른다.
 	 * @param seedUrl
-	 * 
-	 * @return currentUrl
+	 * @return session
 	 * 
 	 */
 
-	public String pickCurrentUrl(String seedUrl) {
-		return urlQueues.get(seedUrl).peek();
+	public CrawlSession openSession(String seedUrl) {
+		return openSession(seedUrl, session.getFrontierStore());
 	}
 
 	/**
 	 * 
-	 * seedUrl 의 방문해야 할 queue list 내부에 더 방문해야 할 url 이 존재하는지 확인
+	 * seedUrl 크롤링 한 번에 사용할 session 생성
+	 * MAPPED 면 seed 의 directory 에 남아 있는 대기열을 이어서 사용하고, 남아 있던 url 은 방문 기록에 다시 넣는다.
+	 * ( directory 를 열 수 없거나 같은 seed 의 session 이 사용 중이면 메모리 대기열 )
 	 * @param seedUrl
-	 * @return isMoreUrl flag
+	 * @param store frontier 대기열 보관 위치
+	 * @return session
 	 * 
 	 */
 
-	public boolean hasMoreUrls(String seedUrl) {
-		return !urlQueues.get(seedUrl).isEmpty();
+	public CrawlSession openSession(String seedUrl, FrontierStore store) {
+		VisitedUrlStore visitedUrls = visitedUrlStoreFactory.create();
+		Path directory = store == FrontierStore.MAPPED ? frontierDirectory(seedUrl) : null;
+		FrontierQueue queue = null;
+		if (directory != null && mappedDirectories.add(directory)) {
+			try {
+				queue = MappedFrontierQueue.open(directory, session.getFrontierSegmentBytes(),
+						session.getFrontierHeadSize(), session.getFrontierCheckpointEvery(),
+						url -> visitedUrls.add(canonicalize(url)));
+			} catch (IOException | RuntimeException e) {
+				log.error("[openSession] frontier directory ===> {} error ===> {}", directory, e.getMessage());
+				mappedDirectories.remove(directory);
+			}
+		} else if (directory != null) {
+			log.warn("[openSession] frontier directory in use ===> {}", seedUrl);
+		}
+		Path owned = queue == null ? null : directory;
+		if (queue == null) {
+			queue = new HostBucketQueue(session.getFrontierBuckets());
+		}
+		CrawlSession crawlSession = new CrawlSession(sessionIds.incrementAndGet(), seedUrl, visitedUrls,
+				this::canonicalize, queue, closed -> release(closed, owned));
+		sessions.put(crawlSession.getId(), crawlSession);
+		return crawlSession;
 	}
 
 	/**
 	 * 
-	 * 해당 seedUrl 의 queue 대기열에서 이전에 처리된 url(방문했는지 여부)인지 확인
-	 * @param seedUrl
-	 * @param url
+	 * 크롤링 중인 session 별 대기열, 방문 기록, contention 통계
+	 * @return session stats ( id 순 )
 	 * 
 	 */
 
-	public boolean isVisitedUrl(String seedUrl, String url) {
-		return visitedUrlSets.get(seedUrl).contains(url);
+	public List<CrawlSessionStats> getSessionStats() {
+		return sessions.values().stream().map(CrawlSession::getStats)
+				.sorted((a, b) -> Long.compare(a.getId(), b.getId())).collect(Collectors.toList());
 	}
 
-	// ---------------------------------------------------------------
-
-	// 단일 url 처리에 대해서 사용.
-
-	private final Queue<String> urlQueue = new LinkedList<>();
-
-	private final Set<String> visitedUrls = ConcurrentHashMap.newKeySet();
+	public int getActiveSessionCount() {
+		return sessions.size();
+	}
 
-	public synchronized void addUrl(String url) {
-		if (!visitedUrls.contains(url)) {
-			urlQueue.offer(url);
-		}
+	public long getOpenedSessionCount() {
+		return sessionIds.get();
 	}
 
-	public synchronized String getNextUrl() {
-		return urlQueue.poll();
+	public long getClosedSessionCount() {
+		return closedSessions.sum();
 	}
 
-	public synchronized void markAsVisited(String url) {
-		visitedUrls.add(url);
+	private void release(CrawlSession crawlSession, Path directory) {
+		if (directory != null) {
+			mappedDirectories.remove(directory);
+		}
+		if (sessions.remove(crawlSession.getId(), crawlSession)) {
+			closedSessions.increment();
+		}
 	}
 
-	public synchronized String pickCurrentUrl() {
-		return urlQueue.peek();
+	// seed 마다 고정된 directory ( seed url 의 64bit hash )
+	private Path frontierDirectory(String seedUrl) {
+		return Paths.get(session.getFrontierDirectory()).toAbsolutePath().normalize()
+				.resolve(String.format("%016x", Fingerprints.hash64(seedUrl)));
 	}
 
 }
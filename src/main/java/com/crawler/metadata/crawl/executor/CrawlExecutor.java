@@ -0,0 +1,313 @@
+package com.crawler.metadata.crawl.executor;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import com.crawler.metadata.config.CrawlerProperties;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ *
+ * blocking 작업 ( seed 준비, playwright 렌더링 등 ) 을 실행하는 crawler executor
+ * PLATFORM : 기존 ThreadPoolTaskExecutor 에서 실행
+ * VIRTUAL : 작업마다 스레드 하나 ( JDK 21+ 면 virtual thread, 아니면 platform thread )
+ * 두 방식 모두 작업을 host 별 대기열에 넣고, 전체 / host 별 실행 자리가 있을 때만 스레드로 넘긴다.
+ * 자리를 기다리는 작업은 스레드도 전체 자리도 잡지 않으므로, 붐비는 host 하나가 다른 host 의 작업을 막지 않는다.
+ * 대기열은 host 를 돌아가며 꺼낸다. ( 작업을 마친 스레드가 다음 작업을 이어서 실행 )
+ *
+ */
+@Slf4j
+public class CrawlExecutor implements Executor {
+
+	// 종료 시 실행 중 / 대기 중인 작업을 기다리는 시간 ( PLATFORM pool 의 awaitTerminationSeconds 와 같음 )
+	private static final long SHUTDOWN_TIMEOUT_SECONDS = 30;
+
+	private final Logger log = LoggerFactory.getLogger(getClass());
+
+	private final CrawlerProperties.ExecutorMode mode;
+
+	// PLATFORM 모드의 pool
+	private final ThreadPoolTaskExecutor pool;
+
+	// VIRTUAL 모드의 스레드 생성
+	private final ThreadFactory threadFactory;
+
+	private final boolean virtualThreads;
+
+	private final int maxConcurrency;
+
+	private final int maxConcurrencyPerHost;
+
+	// 아래 상태는 lock 으로 보호
+	private final Object lock = new Object();
+
+	// 대기 중이거나 실행 중인 작업이 있는 host 만 ( 모두 끝나면 제거 )
+	private final Map<String, HostQueue> hosts = new HashMap<>();
+
+	// 대기 작업이 있고 host 자리가 남은 host ( 돌아가며 꺼냄 )
+	private final ArrayDeque<HostQueue> ready = new ArrayDeque<>();
+
+	private int running;
+
+	private int queued;
+
+	private final AtomicInteger active = new AtomicInteger();
+
+	private final LongAdder completed = new LongAdder();
+
+	private volatile boolean shutdown;
+
+	/**
+	 *
+	 * @param executor 실행 방식, 동시 실행 수 설정
+	 * @param pool PLATFORM 모드에서 사용할 pool ( VIRTUAL 모드면 null 가능 )
+	 *
+	 */
+	public CrawlExecutor(CrawlerProperties.Executor executor, ThreadPoolTaskExecutor pool) {
+		this.mode = executor.getMode();
+		this.maxConcurrency = Math.max(1, executor.getMaxConcurrency());
+		this.maxConcurrencyPerHost = Math.max(1, executor.getMaxConcurrencyPerHost());
+		if (mode == CrawlerProperties.ExecutorMode.VIRTUAL) {
+			this.pool = null;
+			this.virtualThreads = VirtualThreads.isSupported();
+			if (virtualThreads) {
+				this.threadFactory = VirtualThreads.factory();
+			} else {
+				// 자리를 얻은 작업만 스레드를 만드므로 스레드 수는 maxConcurrency 를 넘지 않음
+				log.warn("[CrawlExecutor] virtual threads need JDK 21+, using up to {} platform threads",
+						maxConcurrency);
+				AtomicInteger sequence = new AtomicInteger();
+				this.threadFactory = runnable -> {
+					Thread thread = new Thread(runnable, "crawler-task-" + sequence.incrementAndGet());
+					thread.setDaemon(true);
+					return thread;
+				};
+			}
+		} else {
+			this.pool = pool;
+			this.virtualThreads = false;
+			this.threadFactory = null;
+		}
+		log.info("[CrawlExecutor] mode ===> {} virtualThreads ===> {} maxConcurrency ===> {}", mode, virtualThreads,
+				maxConcurrency);
+	}
+
+	/**
+	 *
+	 * 전체 동시 실행 수 안에서 작업 실행
+	 * @param task
+	 *
+	 */
+	@Override
+	public void execute(Runnable task) {
+		submit(null, task);
+	}
+
+	/**
+	 *
+	 * host 별 동시 실행 수 제한을 함께 적용하는 executor
+	 * @param host
+	 * @return executor
+	 *
+	 */
+	public Executor forHost(String host) {
+		return host == null ? this : task -> submit(host, task);
+	}
+
+	private void submit(String host, Runnable task) {
+		Slot slot;
+		synchronized (lock) {
+			if (shutdown) {
+				throw new RejectedExecutionException("crawl executor is shut down");
+			}
+			// host 가 없는 작업은 전체 제한만 적용
+			HostQueue queue = hosts.computeIfAbsent(host == null ? "" : host,
+					key -> new HostQueue(key, host == null ? Integer.MAX_VALUE : maxConcurrencyPerHost));
+			queue.tasks.add(task);
+			queued++;
+			markReady(queue);
+			slot = nextSlot();
+		}
+		if (slot != null) {
+			try {
+				start(slot);
+			} catch (RuntimeException e) {
+				finish(slot, false);
+				throw e;
+			}
+		}
+	}
+
+	private void start(Slot slot) {
+		Runnable worker = () -> run(slot);
+		if (pool != null) {
+			pool.execute(worker);
+		} else {
+			threadFactory.newThread(worker).start();
+		}
+	}
+
+	// 자리를 얻은 작업을 실행하고, 이어서 실행할 작업이 있으면 같은 스레드에서 계속
+	private void run(Slot first) {
+		Slot slot = first;
+		while (slot != null) {
+			Slot current = slot;
+			boolean returned = false;
+			active.incrementAndGet();
+			try {
+				current.task.run();
+				returned = true;
+			} catch (RuntimeException e) {
+				log.error("[run] task error ===> {}", e.getMessage(), e);
+				returned = true;
+			} finally {
+				completed.increment();
+				active.decrementAndGet();
+				slot = finish(current, true);
+				// Error 로 빠져나가는 스레드 대신 다음 작업을 새 스레드에서 실행
+				if (!returned && slot != null) {
+					start(slot);
+				}
+			}
+		}
+	}
+
+	// 작업의 자리를 반납하고 다음에 실행할 작업을 꺼냄 ( next 가 false 면 꺼내지 않음 )
+	private Slot finish(Slot slot, boolean next) {
+		synchronized (lock) {
+			slot.queue.running--;
+			running--;
+			markReady(slot.queue);
+			Slot following = next ? nextSlot() : null;
+			if (slot.queue.running == 0 && slot.queue.tasks.isEmpty()) {
+				hosts.remove(slot.queue.key, slot.queue);
+			}
+			if (running == 0 && queued == 0) {
+				lock.notifyAll();
+			}
+			return following;
+		}
+	}
+
+	// 전체 자리가 남았으면 ready host 에서 작업 하나를 꺼냄 ( lock 안에서 호출 )
+	private Slot nextSlot() {
+		if (running >= maxConcurrency) {
+			return null;
+		}
+		HostQueue queue = ready.poll();
+		if (queue == null) {
+			return null;
+		}
+		queue.ready = false;
+		Runnable task = queue.tasks.poll();
+		queued--;
+		queue.running++;
+		running++;
+		// 다른 host 뒤로 보내서 돌아가며 꺼냄
+		markReady(queue);
+		return new Slot(queue, task);
+	}
+
+	private void markReady(HostQueue queue) {
+		if (!queue.ready && !queue.tasks.isEmpty() && queue.running < queue.maxRunning) {
+			queue.ready = true;
+			ready.add(queue);
+		}
+	}
+
+	public CrawlerProperties.ExecutorMode getMode() {
+		return mode;
+	}
+
+	public boolean isVirtualThreads() {
+		return virtualThreads;
+	}
+
+	public int getActiveCount() {
+		return active.get();
+	}
+
+	public long getCompletedCount() {
+		return completed.sum();
+	}
+
+	/**
+	 *
+	 * 새 작업을 받지 않고, 실행 중 / 대기 중인 작업이 끝날 때까지 최대 30초 대기
+	 *
+	 */
+	public void shutdown() {
+		synchronized (lock) {
+			shutdown = true;
+			long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(SHUTDOWN_TIMEOUT_SECONDS);
+			boolean interrupted = false;
+			while (running > 0 || queued > 0) {
+				long remaining = deadline - System.nanoTime();
+				if (remaining <= 0) {
+					log.error("[shutdown] tasks not finished ===> running {} queued {}", running, queued);
+					break;
+				}
+				try {
+					TimeUnit.NANOSECONDS.timedWait(lock, remaining);
+				} catch (InterruptedException e) {
+					interrupted = true;
+					break;
+				}
+			}
+			if (interrupted) {
+				Thread.currentThread().interrupt();
+			}
+		}
+		if (pool != null) {
+			pool.shutdown();
+		}
+	}
+
+	/**
+	 * host 하나의 대기 작업과 실행 중인 작업 수
+	 */
+	private static final class HostQueue {
+
+		private final String key;
+
+		private final ArrayDeque<Runnable> tasks = new ArrayDeque<>();
+
+		private final int maxRunning;
+
+		private int running;
+
+		private boolean ready;
+
+		private HostQueue(String key, int maxRunning) {
+			this.key = key;
+			this.maxRunning = maxRunning;
+		}
+	}
+
+	/**
+	 * 자리를 얻은 작업
+	 */
+	private static final class Slot {
+
+		private final HostQueue queue;
+
+		private final Runnable task;
+
+		private Slot(HostQueue queue, Runnable task) {
+			this.queue = queue;
+			this.task = task;
+		}
+	}
+}
@@ -0,0 +1,48 @@
+package com.crawler.metadata.crawl.executor;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ *
+ * 실행 중인 JVM 이 virtual thread ( JDK 21+ ) 를 지원하면 virtual thread 를 만드는 ThreadFactory 제공
+ * build 는 JDK 17 기준이므로 Thread.ofVirtual() 은 reflection 으로 호출한다.
+ *
+ */
+final class VirtualThreads {
+
+	private static final ThreadFactory FACTORY = createFactory();
+
+	private VirtualThreads() {
+	}
+
+	static boolean isSupported() {
+		return FACTORY != null;
+	}
+
+	/**
+	 *
+	 * virtual thread factory ( 이름 : crawler-virtual-N )
+	 * @return factory, 지원하지 않는 JVM 이면 null
+	 *
+	 */
+	static ThreadFactory factory() {
+		return FACTORY;
+	}
+
+	private static ThreadFactory createFactory() {
+		try {
+			Method ofVirtual = Thread.class.getMethod("ofVirtual");
+			Object builder = ofVirtual.invoke(null);
+			Class<?> builderType = Class.forName("java.lang.Thread$Builder");
+			builder = builderType.getMethod("name", String.class, long.class).invoke(builder, "crawler-virtual-", 0L);
+			return (ThreadFactory) builderType.getMethod("factory").invoke(builder);
+		} catch (NoSuchMethodException | ClassNotFoundException | IllegalAccessException e) {
+			return null;
+		} catch (InvocationTargetException e) {
+			// preview 기능이 꺼진 JDK 19, 20
+			return null;
+		}
+	}
+}
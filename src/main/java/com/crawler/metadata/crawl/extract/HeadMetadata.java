@@ -0,0 +1,42 @@
+package com.crawler.metadata.crawl.extract;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ *
+ * html head 영역에서 추출한 meta tag, title, canonical url
+ *
+ */
+public class HeadMetadata {
+
+	// name / property / http-equiv -> content
+	private final Map<String, String> metaTags;
+
+	private final String title;
+
+	private final String canonicalUrl;
+
+	public HeadMetadata(Map<String, String> metaTags, String title, String canonicalUrl) {
+		this.metaTags = Collections.unmodifiableMap(metaTags);
+		this.title = title;
+		this.canonicalUrl = canonicalUrl;
+	}
+
+	public Map<String, String> getMetaTags() {
+		return metaTags;
+	}
+
+	public String getTitle() {
+		return title;
+	}
+
+	public String getCanonicalUrl() {
+		return canonicalUrl;
+	}
+
+	@Override
+	public String toString() {
+		return "HeadMetadata [metaTags=" + metaTags + ", title=" + title + ", canonicalUrl=" + canonicalUrl + "]";
+	}
+}
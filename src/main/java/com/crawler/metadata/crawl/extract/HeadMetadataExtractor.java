@@ -0,0 +1,124 @@
+package com.crawler.metadata.crawl.extract;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.stereotype.Component;
+
+/**
+ *
+ * DOM 을 만들지 않고 head 영역만 읽어서 meta tag 를 수집하는 extractor
+ * &lt;/head&gt; 또는 &lt;body&gt; 를 만나면 나머지 html 은 읽지 않는다.
+ *
+ */
+@Component
+public class HeadMetadataExtractor {
+
+	private static final ThreadLocal<HtmlTagScanner> SCANNER = ThreadLocal.withInitial(HtmlTagScanner::new);
+
+	/**
+	 *
+	 * reader 로 들어오는 html 의 head 영역 meta tag 수집
+	 * @param reader
+	 * @param baseUri canonical url 상대경로 변환용 url
+	 * @return headMetadata
+	 *
+	 */
+	public HeadMetadata extract(Reader reader, String baseUri) throws IOException {
+		HeadHandler handler = new HeadHandler();
+		SCANNER.get().scan(reader, handler);
+		return handler.toMetadata(baseUri);
+	}
+
+	public HeadMetadata extract(CharSequence html, String baseUri) {
+		HeadHandler handler = new HeadHandler();
+		SCANNER.get().scan(html, handler);
+		return handler.toMetadata(baseUri);
+	}
+
+	private static final class HeadHandler implements HtmlTagScanner.TagHandler {
+
+		private final Map<String, String> metaTags = new LinkedHashMap<>();
+
+		private String title;
+
+		private String canonical;
+
+		@Override
+		public boolean startTag(CharSequence name, HtmlAttributes attributes) {
+			String tag = name.toString();
+			switch (tag) {
+			case "meta":
+				String key = firstNonEmpty(attributes, "name", "property", "http-equiv");
+				if (key != null) {
+					String content = attributes.getString("content");
+					metaTags.putIfAbsent(key, content == null ? "" : content);
+				}
+				return true;
+			case "link":
+				if (canonical == null && isCanonical(attributes.get("rel"))) {
+					canonical = attributes.getString("href");
+				}
+				return true;
+			case "body":
+				return false; // head 영역 끝
+			default:
+				return true;
+			}
+		}
+
+		@Override
+		public boolean endTag(CharSequence name) {
+			return !"head".contentEquals(name);
+		}
+
+		@Override
+		public boolean rawText(CharSequence name, CharSequence text) {
+			if (title == null && "title".contentEquals(name)) {
+				title = text.toString().trim();
+			}
+			return true;
+		}
+
+		HeadMetadata toMetadata(String baseUri) {
+			return new HeadMetadata(metaTags, title, resolve(baseUri, canonical));
+		}
+
+		private static String firstNonEmpty(HtmlAttributes attributes, String... names) {
+			for (String attribute : names) {
+				CharSequence value = attributes.get(attribute);
+				if (value != null && value.length() > 0) {
+					return value.toString();
+				}
+			}
+			return null;
+		}
+
+		private static boolean isCanonical(CharSequence rel) {
+			if (rel == null) {
+				return false;
+			}
+			for (String token : rel.toString().trim().split("\\s+")) {
+				if ("canonical".equalsIgnoreCase(token)) {
+					return true;
+				}
+			}
+			return false;
+		}
+
+		private static String resolve(String baseUri, String href) {
+			if (href == null || baseUri == null) {
+				return href;
+			}
+			try {
+				return new URI(baseUri).resolve(href.trim()).toString();
+			} catch (URISyntaxException | IllegalArgumentException e) {
+				return href;
+			}
+		}
+	}
+}
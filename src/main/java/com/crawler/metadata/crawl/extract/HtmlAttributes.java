@@ -0,0 +1,98 @@
+package com.crawler.metadata.crawl.extract;
+
+/**
+ *
+ * HtmlTagScanner 가 읽은 시작 tag 의 속성 목록
+ * tag 마다 새로 만들지 않고 내부 buffer 를 재사용하므로, 값이 필요하면 callback 안에서 꺼내야 한다.
+ *
+ */
+public final class HtmlAttributes {
+
+	private StringBuilder[] names = newBuilders(8);
+
+	private StringBuilder[] values = newBuilders(8);
+
+	private int size;
+
+	public int size() {
+		return size;
+	}
+
+	public CharSequence name(int index) {
+		return names[index];
+	}
+
+	public CharSequence value(int index) {
+		return values[index];
+	}
+
+	/**
+	 *
+	 * 속성 값 조회 ( 속성 이름은 소문자로 저장되어 있음 )
+	 * @param name 소문자 속성 이름
+	 * @return 속성 값 ( 없으면 null )
+	 *
+	 */
+	public CharSequence get(String name) {
+		for (int i = 0; i < size; i++) {
+			if (contentEquals(names[i], name)) {
+				return values[i];
+			}
+		}
+		return null;
+	}
+
+	public String getString(String name) {
+		CharSequence value = get(name);
+		return value == null ? null : value.toString();
+	}
+
+	void clear() {
+		size = 0;
+	}
+
+	StringBuilder nextName() {
+		if (size == names.length) {
+			names = grow(names);
+			values = grow(values);
+		}
+		names[size].setLength(0);
+		values[size].setLength(0);
+		return names[size];
+	}
+
+	StringBuilder currentValue() {
+		return values[size];
+	}
+
+	void commit() {
+		size++;
+	}
+
+	private static boolean contentEquals(StringBuilder builder, String value) {
+		int length = builder.length();
+		if (length != value.length()) {
+			return false;
+		}
+		for (int i = 0; i < length; i++) {
+			if (builder.charAt(i) != value.charAt(i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static StringBuilder[] newBuilders(int count) {
+		StringBuilder[] builders = new StringBuilder[count];
+		for (int i = 0; i < count; i++) {
+			builders[i] = new StringBuilder(32);
+		}
+		return builders;
+	}
+
+	private static StringBuilder[] grow(StringBuilder[] builders) {
+		StringBuilder[] grown = newBuilders(builders.length * 2);
+		System.arraycopy(builders, 0, grown, 0, builders.length);
+		return grown;
+	}
+}
@@ -0,0 +1,394 @@
+package com.crawler.metadata.crawl.extract;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+
+/**
+ *
+ * DOM 을 만들지 않고 html 을 앞에서부터 한 번만 읽는 tag 단위 tokenizer
+ * 시작 / 종료 tag 와 속성만 handler 로 전달하고, 본문 text 는 건너뛴다.
+ * script, style 내용은 건너뛰고 title 내용은 rawText 로 전달한다.
+ * 내부 buffer 를 재사용하므로 thread-safe 하지 않다.
+ *
+ */
+public final class HtmlTagScanner {
+
+	/**
+	 * scanner callback. false 를 반환하면 그 자리에서 읽기를 멈춘다.
+	 */
+	public interface TagHandler {
+
+		boolean startTag(CharSequence name, HtmlAttributes attributes);
+
+		default boolean endTag(CharSequence name) {
+			return true;
+		}
+
+		default boolean rawText(CharSequence name, CharSequence text) {
+			return true;
+		}
+	}
+
+	private static final int EOF = -1;
+
+	private final char[] buffer = new char[8192];
+
+	private final StringBuilder tagName = new StringBuilder(16);
+
+	private final StringBuilder rawText = new StringBuilder(128);
+
+	private final StringBuilder decodeBuffer = new StringBuilder(64);
+
+	private final HtmlAttributes attributes = new HtmlAttributes();
+
+	private Reader reader;
+
+	private int pos;
+
+	private int limit;
+
+	private int pushback = EOF;
+
+	public void scan(CharSequence html, TagHandler handler) {
+		try {
+			scan(new StringReader(html.toString()), handler);
+		} catch (IOException e) {
+			throw new IllegalStateException(e); // StringReader 는 IOException 을 던지지 않음
+		}
+	}
+
+	/**
+	 *
+	 * reader 의 html 을 읽으면서 tag 마다 handler 호출
+	 * handler 가 false 를 반환하면 나머지는 읽지 않고 반환한다.
+	 * @param reader
+	 * @param handler
+	 *
+	 */
+	public void scan(Reader reader, TagHandler handler) throws IOException {
+		this.reader = reader;
+		this.pos = 0;
+		this.limit = 0;
+		this.pushback = EOF;
+		try {
+			int c;
+			while ((c = next()) != EOF) {
+				if (c != '<') {
+					continue;
+				}
+				c = next();
+				if (c == '!') {
+					skipMarkupDeclaration();
+				} else if (c == '?') {
+					skipUntil('>');
+				} else if (c == '/') {
+					if (!readEndTag(handler)) {
+						return;
+					}
+				} else if (isLetter(c)) {
+					if (!readStartTag(c, handler)) {
+						return;
+					}
+				} else if (c != EOF) {
+					unread(c); // '<' 가 그냥 text 인 경우
+				}
+			}
+		} finally {
+			this.reader = null;
+		}
+	}
+
+	private boolean readStartTag(int first, TagHandler handler) throws IOException {
+		tagName.setLength(0);
+		tagName.append(toLower(first));
+		int c;
+		while ((c = next()) != EOF && !isWhitespace(c) && c != '>' && c != '/') {
+			tagName.append(toLower(c));
+		}
+		attributes.clear();
+		c = readAttributes(c);
+		if (c == EOF) {
+			return false;
+		}
+
+		if (!handler.startTag(tagName, attributes)) {
+			return false;
+		}
+		if (isRawTextElement("script") || isRawTextElement("style")) {
+			return skipRawText(null, handler);
+		}
+		if (isRawTextElement("title") || isRawTextElement("textarea")) {
+			rawText.setLength(0);
+			return skipRawText(rawText, handler);
+		}
+		return true;
+	}
+
+	// 속성을 읽고 tag 를 닫는 '>' 까지 소비. 마지막으로 읽은 문자를 반환
+	private int readAttributes(int c) throws IOException {
+		while (true) {
+			while (c != EOF && (isWhitespace(c) || c == '/')) {
+				c = next();
+			}
+			if (c == EOF || c == '>') {
+				return c;
+			}
+			StringBuilder name = attributes.nextName();
+			while (c != EOF && !isWhitespace(c) && c != '=' && c != '>' && c != '/') {
+				name.append(toLower(c));
+				c = next();
+			}
+			while (c != EOF && isWhitespace(c)) {
+				c = next();
+			}
+			if (c != '=') {
+				attributes.commit(); // 값이 없는 속성
+				continue;
+			}
+			c = next();
+			while (c != EOF && isWhitespace(c)) {
+				c = next();
+			}
+			StringBuilder value = attributes.currentValue();
+			boolean hasEntity = false;
+			if (c == '"' || c == '\'') {
+				int quote = c;
+				while ((c = next()) != EOF && c != quote) {
+					hasEntity |= c == '&';
+					value.append((char) c);
+				}
+				c = c == EOF ? EOF : next();
+			} else {
+				while (c != EOF && !isWhitespace(c) && c != '>') {
+					hasEntity |= c == '&';
+					value.append((char) c);
+					c = next();
+				}
+			}
+			if (hasEntity) {
+				decodeEntities(value);
+			}
+			attributes.commit();
+		}
+	}
+
+	private boolean readEndTag(TagHandler handler) throws IOException {
+		tagName.setLength(0);
+		int c;
+		while ((c = next()) != EOF && !isWhitespace(c) && c != '>') {
+			tagName.append(toLower(c));
+		}
+		if (c != '>' && c != EOF) {
+			skipUntil('>');
+		}
+		return tagName.length() == 0 || handler.endTag(tagName);
+	}
+
+	/**
+	 *
+	 * script, style, title 처럼 내부에 tag 가 올 수 없는 요소의 내용을 종료 tag 까지 읽음
+	 * @param text 내용을 담을 buffer ( null 이면 버림 )
+	 *
+	 */
+	private boolean skipRawText(StringBuilder text, TagHandler handler) throws IOException {
+		int nameLength = tagName.length();
+		int c;
+		while ((c = next()) != EOF) {
+			if (c != '<') {
+				if (text != null) {
+					text.append((char) c);
+				}
+				continue;
+			}
+			c = next();
+			if (c != '/') {
+				if (text != null) {
+					text.append('<');
+				}
+				unread(c);
+				continue;
+			}
+			int matched = 0;
+			while (matched < nameLength && (c = next()) != EOF && toLower(c) == tagName.charAt(matched)) {
+				matched++;
+			}
+			if (matched == nameLength) {
+				c = next();
+				if (c == '>' || isWhitespace(c) || c == '/' || c == EOF) {
+					if (c != '>' && c != EOF) {
+						skipUntil('>');
+					}
+					if (text != null) {
+						decodeEntities(text);
+						if (!handler.rawText(tagName, text)) {
+							return false;
+						}
+					}
+					return handler.endTag(tagName);
+				}
+			}
+			if (text != null) {
+				text.append("</").append(tagName, 0, matched);
+			}
+			unread(c);
+		}
+		return false;
+	}
+
+	private void skipMarkupDeclaration() throws IOException {
+		int c = next();
+		if (c == '-') {
+			int d = next();
+			if (d == '-') {
+				skipComment();
+				return;
+			}
+			unread(d);
+		}
+		if (c != '>') {
+			skipUntil('>');
+		}
+	}
+
+	private void skipComment() throws IOException {
+		int dashes = 0;
+		int c;
+		while ((c = next()) != EOF) {
+			if (c == '-') {
+				dashes++;
+			} else if (c == '>' && dashes >= 2) {
+				return;
+			} else {
+				dashes = 0;
+			}
+		}
+	}
+
+	private void skipUntil(char end) throws IOException {
+		int c;
+		while ((c = next()) != EOF && c != end) {
+			// skip
+		}
+	}
+
+	private boolean isRawTextElement(String name) {
+		return tagName.length() == name.length() && tagName.indexOf(name) == 0;
+	}
+
+	/**
+	 *
+	 * &amp;amp; &amp;#39; 등 문자 참조를 그 자리에서 변환
+	 * @param text
+	 *
+	 */
+	private void decodeEntities(StringBuilder text) {
+		if (text.indexOf("&") < 0) {
+			return;
+		}
+		StringBuilder out = decodeBuffer;
+		out.setLength(0);
+		int length = text.length();
+		int i = 0;
+		while (i < length) {
+			char c = text.charAt(i);
+			if (c != '&') {
+				out.append(c);
+				i++;
+				continue;
+			}
+			int semicolon = -1;
+			for (int j = i + 1; j < length && j <= i + 10; j++) {
+				if (text.charAt(j) == ';') {
+					semicolon = j;
+					break;
+				}
+			}
+			int decoded = semicolon < 0 ? -1 : decodeReference(text, i + 1, semicolon);
+			if (decoded < 0) {
+				out.append(c);
+				i++;
+			} else {
+				out.appendCodePoint(decoded);
+				i = semicolon + 1;
+			}
+		}
+		text.setLength(0);
+		text.append(out);
+	}
+
+	private static int decodeReference(CharSequence text, int start, int end) {
+		if (start >= end) {
+			return -1;
+		}
+		if (text.charAt(start) == '#') {
+			int radix = 10;
+			int i = start + 1;
+			if (i < end && (text.charAt(i) == 'x' || text.charAt(i) == 'X')) {
+				radix = 16;
+				i++;
+			}
+			if (i >= end) {
+				return -1;
+			}
+			int codePoint = 0;
+			for (; i < end; i++) {
+				int digit = Character.digit(text.charAt(i), radix);
+				if (digit < 0 || codePoint > 0x10FFFF) {
+					return -1;
+				}
+				codePoint = codePoint * radix + digit;
+			}
+			return Character.isValidCodePoint(codePoint) ? codePoint : -1;
+		}
+		switch (text.subSequence(start, end).toString()) {
+		case "amp":
+			return '&';
+		case "lt":
+			return '<';
+		case "gt":
+			return '>';
+		case "quot":
+			return '"';
+		case "apos":
+			return '\'';
+		case "nbsp":
+			return '\u00A0';
+		default:
+			return -1;
+		}
+	}
+
+	private int next() throws IOException {
+		if (pushback != EOF) {
+			int c = pushback;
+			pushback = EOF;
+			return c;
+		}
+		if (pos == limit) {
+			limit = reader.read(buffer, 0, buffer.length);
+			pos = 0;
+			if (limit <= 0) {
+				limit = 0;
+				return EOF;
+			}
+		}
+		return buffer[pos++];
+	}
+
+	private void unread(int c) {
+		pushback = c;
+	}
+
+	private static boolean isLetter(int c) {
+		return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+	}
+
+	private static boolean isWhitespace(int c) {
+		return c == ' ' || c == '\n' || c == '\t' || c == '\r' || c == '\f';
+	}
+
+	private static char toLower(int c) {
+		return (c >= 'A' && c <= 'Z') ? (char) (c + 32) : (char) c;
+	}
+}
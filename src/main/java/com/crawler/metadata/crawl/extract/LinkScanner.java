@@ -0,0 +1,114 @@
+package com.crawler.metadata.crawl.extract;
+
+import java.io.IOException;
+import java.io.Reader;
+
+import org.springframework.stereotype.Component;
+
+import com.crawler.metadata.util.Fingerprints;
+
+/**
+ *
+ * html 을 한 번만 읽으면서 a[href] link 를 절대경로로 변환해 sink 로 전달하는 link 추출기
+ * jsoup DOM, Elements, 중간 List 를 만들지 않고, 페이지 내 중복은 64bit fingerprint set 으로 제거한다.
+ * &lt;base href&gt; 가 있으면 해당 url 을 기준으로 상대경로를 변환한다.
+ *
+ */
+@Component
+public class LinkScanner {
+
+	// 페이지 하나의 link 수가 이보다 많으면 다음 페이지를 위해 set 을 줄임
+	private static final int RETAINED_SET_CAPACITY = 1 << 14;
+
+	private static final ThreadLocal<ScanState> STATE = ThreadLocal.withInitial(ScanState::new);
+
+	/**
+	 *
+	 * html 의 link 를 sink 로 전달
+	 * @param html
+	 * @param pageUrl 상대경로 변환의 기준 url
+	 * @param sink
+	 * @return 전달한 link 수
+	 *
+	 */
+	public int scan(CharSequence html, String pageUrl, LinkSink sink) {
+		ScanState state = STATE.get();
+		state.begin(pageUrl, sink);
+		try {
+			state.scanner.scan(html, state);
+			return state.emitted;
+		} finally {
+			state.end();
+		}
+	}
+
+	public int scan(Reader reader, String pageUrl, LinkSink sink) throws IOException {
+		ScanState state = STATE.get();
+		state.begin(pageUrl, sink);
+		try {
+			state.scanner.scan(reader, state);
+			return state.emitted;
+		} finally {
+			state.end();
+		}
+	}
+
+	/**
+	 * thread 마다 재사용하는 scanner, resolver, 중복 제거 set
+	 */
+	private static final class ScanState implements HtmlTagScanner.TagHandler {
+
+		private final HtmlTagScanner scanner = new HtmlTagScanner();
+
+		private final UrlResolver resolver = new UrlResolver();
+
+		private final LongHashSet seen = new LongHashSet(1024);
+
+		private LinkSink sink;
+
+		private boolean baseSeen;
+
+		private int emitted;
+
+		void begin(String pageUrl, LinkSink sink) {
+			this.sink = sink;
+			this.baseSeen = false;
+			this.emitted = 0;
+			resolver.clear();
+			if (pageUrl != null) {
+				resolver.setBase(pageUrl);
+			}
+		}
+
+		void end() {
+			sink = null;
+			seen.clear(RETAINED_SET_CAPACITY);
+		}
+
+		@Override
+		public boolean startTag(CharSequence name, HtmlAttributes attributes) {
+			if (name.length() == 1 && name.charAt(0) == 'a') {
+				CharSequence href = attributes.get("href");
+				if (href != null) {
+					emit(resolver.resolve(href));
+				}
+			} else if (!baseSeen && name.length() == 4 && "base".contentEquals(name)) {
+				CharSequence href = attributes.get("href");
+				if (href != null) {
+					baseSeen = resolver.setBase(href);
+				}
+			}
+			return true;
+		}
+
+		private void emit(CharSequence link) {
+			if (link == null) {
+				return;
+			}
+			if (seen.add(Fingerprints.hash64(link))) {
+				emitted++;
+				sink.accept(link.toString());
+			}
+		}
+	}
+}
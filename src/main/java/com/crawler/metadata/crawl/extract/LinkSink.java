@@ -0,0 +1,13 @@
+package com.crawler.metadata.crawl.extract;
+
+/**
+ *
+ * LinkScanner 가 찾은 절대경로 link 를 받는 callback
+ * List 를 만들지 않고 호출하는 쪽에서 바로 처리한다.
+ *
+ */
+@FunctionalInterface
+public interface LinkSink {
+
+	void accept(String link);
+}
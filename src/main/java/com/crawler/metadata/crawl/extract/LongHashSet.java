@@ -0,0 +1,95 @@
+package com.crawler.metadata.crawl.extract;
+
+import java.util.Arrays;
+
+/**
+ *
+ * long 값을 boxing 없이 보관하는 open addressing hash set
+ * 페이지 단위 link 중복 제거용으로 clear 후 재사용한다. thread-safe 하지 않다.
+ *
+ */
+final class LongHashSet {
+
+	// 0 은 빈 칸 표시로 사용하므로 별도로 기록
+	private boolean hasZero;
+
+	private long[] table;
+
+	private int size;
+
+	private int mask;
+
+	LongHashSet(int expected) {
+		int capacity = Integer.highestOneBit(Math.max(16, expected * 2 - 1)) << 1;
+		table = new long[capacity];
+		mask = capacity - 1;
+	}
+
+	/**
+	 *
+	 * 값 추가
+	 * @param value
+	 * @return 새로 추가되었으면 true, 이미 있었으면 false
+	 *
+	 */
+	boolean add(long value) {
+		if (value == 0) {
+			if (hasZero) {
+				return false;
+			}
+			hasZero = true;
+			return true;
+		}
+		int index = (int) value & mask;
+		while (true) {
+			long current = table[index];
+			if (current == 0) {
+				table[index] = value;
+				if (++size * 2 > table.length) {
+					rehash();
+				}
+				return true;
+			}
+			if (current == value) {
+				return false;
+			}
+			index = (index + 1) & mask;
+		}
+	}
+
+	/**
+	 *
+	 * 비우기. 너무 커진 table 은 기본 크기로 줄여서 다음 페이지에서 큰 배열을 계속 비우지 않도록 한다.
+	 * @param maxRetainedCapacity
+	 *
+	 */
+	void clear(int maxRetainedCapacity) {
+		if (table.length > maxRetainedCapacity) {
+			table = new long[maxRetainedCapacity];
+			mask = maxRetainedCapacity - 1;
+		} else if (size > 0) {
+			Arrays.fill(table, 0L);
+		}
+		size = 0;
+		hasZero = false;
+	}
+
+	int size() {
+		return size + (hasZero ? 1 : 0);
+	}
+
+	private void rehash() {
+		long[] old = table;
+		table = new long[old.length * 2];
+		mask = table.length - 1;
+		for (long value : old) {
+			if (value != 0) {
+				int index = (int) value & mask;
+				while (table[index] != 0) {
+					index = (index + 1) & mask;
+				}
+				table[index] = value;
+			}
+		}
+	}
+}
@@ -0,0 +1,246 @@
+package com.crawler.metadata.crawl.extract;
+
+/**
+ *
+ * 기준 url 에 대해 href 를 절대경로로 변환하는 재사용 가능한 resolver ( RFC 3986 5.2 )
+ * 결과는 내부 buffer 에 쓰고 CharSequence 로 반환하므로, 필요한 경우에만 toString() 으로 꺼내 쓴다.
+ * http, https 가 아닌 link ( mailto:, javascript: 등 ) 는 null 을 반환한다. thread-safe 하지 않다.
+ *
+ */
+public final class UrlResolver {
+
+	private final StringBuilder out = new StringBuilder(256);
+
+	private final StringBuilder path = new StringBuilder(128);
+
+	private String base;
+
+	// base url 의 각 부분이 끝나는 위치
+	private int schemeEnd;
+
+	private int authorityEnd;
+
+	private int pathEnd;
+
+	private int queryEnd;
+
+	/**
+	 *
+	 * 기준 url 지정
+	 * @param baseUrl http, https 절대경로 url
+	 * @return 기준 url 로 사용할 수 있으면 true
+	 *
+	 */
+	public boolean setBase(CharSequence baseUrl) {
+		CharSequence resolved = resolve(baseUrl);
+		if (resolved == null) {
+			return false;
+		}
+		String value = resolved.toString();
+		int colon = value.indexOf(':');
+		int authorityStart = colon + 3;
+		int end = authorityStart;
+		while (end < value.length() && !isPathDelimiter(value.charAt(end))) {
+			end++;
+		}
+		int query = indexOrEnd(value, '?', end);
+		int fragment = indexOrEnd(value, '#', end);
+		this.base = value;
+		this.schemeEnd = colon;
+		this.authorityEnd = end;
+		this.queryEnd = fragment;
+		this.pathEnd = Math.min(query, fragment);
+		return true;
+	}
+
+	public void clear() {
+		base = null;
+	}
+
+	public String getBase() {
+		return base;
+	}
+
+	/**
+	 *
+	 * href 를 기준 url 에 대해 절대경로로 변환
+	 * @param href
+	 * @return 절대경로 url ( 내부 buffer, 다음 호출 시 덮어씀 ) 또는 null
+	 *
+	 */
+	public CharSequence resolve(CharSequence href) {
+		int start = 0;
+		int end = href.length();
+		while (start < end && href.charAt(start) <= ' ') {
+			start++;
+		}
+		while (end > start && href.charAt(end - 1) <= ' ') {
+			end--;
+		}
+		if (hasScheme(href, start, end)) {
+			return absolute(href, start, end);
+		}
+		if (base == null) {
+			return null;
+		}
+		out.setLength(0);
+		if (start == end) {
+			out.append(base, 0, queryEnd);
+			return out;
+		}
+		char first = href.charAt(start);
+		if (first == '/' && start + 1 < end && href.charAt(start + 1) == '/') {
+			out.append(base, 0, schemeEnd + 1).append(href, start, end);
+			return normalize(out, authorityStart(out));
+		}
+		if (first == '/') {
+			out.append(base, 0, authorityEnd).append(href, start, end);
+			return normalize(out, authorityEnd);
+		}
+		if (first == '?') {
+			out.append(base, 0, pathEnd).append(href, start, end);
+			return out;
+		}
+		if (first == '#') {
+			out.append(base, 0, queryEnd).append(href, start, end);
+			return out;
+		}
+		// 상대경로 : base path 의 마지막 '/' 까지 + href
+		int lastSlash = base.lastIndexOf('/', pathEnd - 1);
+		if (lastSlash < authorityEnd) {
+			out.append(base, 0, authorityEnd).append('/');
+		} else {
+			out.append(base, 0, lastSlash + 1);
+		}
+		out.append(href, start, end);
+		return normalize(out, authorityEnd);
+	}
+
+	private CharSequence absolute(CharSequence url, int start, int end) {
+		int colon = indexOrEnd(url, ':', start);
+		if (!isHttpScheme(url, start, colon - start)) {
+			return null;
+		}
+		if (colon + 2 >= end || url.charAt(colon + 1) != '/' || url.charAt(colon + 2) != '/') {
+			return null;
+		}
+		out.setLength(0);
+		for (int i = start; i < colon; i++) {
+			out.append(Character.toLowerCase(url.charAt(i)));
+		}
+		out.append(url, colon, end);
+		return normalize(out, authorityStart(out));
+	}
+
+	private static int authorityStart(StringBuilder url) {
+		int index = url.indexOf("//") + 2;
+		while (index < url.length() && !isPathDelimiter(url.charAt(index))) {
+			index++;
+		}
+		return index;
+	}
+
+	/**
+	 *
+	 * path 의 "." / ".." segment 제거
+	 * @param url
+	 * @param pathStart path 가 시작하는 위치
+	 *
+	 */
+	private CharSequence normalize(StringBuilder url, int pathStart) {
+		int pathStop = pathStart;
+		boolean hasDot = false;
+		while (pathStop < url.length()) {
+			char c = url.charAt(pathStop);
+			if (c == '?' || c == '#') {
+				break;
+			}
+			if (c == '.' && url.charAt(pathStop - 1) == '/') {
+				hasDot = true;
+			}
+			pathStop++;
+		}
+		if (pathStop == pathStart) {
+			url.insert(pathStart, '/');
+			return url;
+		}
+		if (!hasDot) {
+			return url;
+		}
+
+		path.setLength(0);
+		int segmentStart = pathStart + 1;
+		while (segmentStart <= pathStop) {
+			int segmentEnd = segmentStart;
+			while (segmentEnd < pathStop && url.charAt(segmentEnd) != '/') {
+				segmentEnd++;
+			}
+			int length = segmentEnd - segmentStart;
+			boolean last = segmentEnd >= pathStop;
+			if (length == 1 && url.charAt(segmentStart) == '.') {
+				if (last) {
+					path.append('/');
+				}
+			} else if (length == 2 && url.charAt(segmentStart) == '.' && url.charAt(segmentStart + 1) == '.') {
+				int parent = path.lastIndexOf("/");
+				path.setLength(Math.max(parent, 0));
+				if (last) {
+					path.append('/');
+				}
+			} else {
+				path.append('/').append(url, segmentStart, segmentEnd);
+			}
+			segmentStart = segmentEnd + 1;
+		}
+		if (path.length() == 0) {
+			path.append('/');
+		}
+		url.replace(pathStart, pathStop, path.toString());
+		return url;
+	}
+
+	private static boolean hasScheme(CharSequence href, int start, int end) {
+		if (start >= end || !Character.isLetter(href.charAt(start))) {
+			return false;
+		}
+		for (int i = start + 1; i < end; i++) {
+			char c = href.charAt(i);
+			if (c == ':') {
+				return true;
+			}
+			if (!(Character.isLetterOrDigit(c) || c == '+' || c == '-' || c == '.')) {
+				return false;
+			}
+		}
+		return false;
+	}
+
+	private static boolean isHttpScheme(CharSequence url, int start, int length) {
+		if (length == 4) {
+			return regionMatchesIgnoreCase(url, start, "http");
+		}
+		return length == 5 && regionMatchesIgnoreCase(url, start, "https");
+	}
+
+	private static boolean regionMatchesIgnoreCase(CharSequence url, int start, String scheme) {
+		for (int i = 0; i < scheme.length(); i++) {
+			if (Character.toLowerCase(url.charAt(start + i)) != scheme.charAt(i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static boolean isPathDelimiter(char c) {
+		return c == '/' || c == '?' || c == '#';
+	}
+
+	private static int indexOrEnd(CharSequence value, char c, int from) {
+		for (int i = from; i < value.length(); i++) {
+			if (value.charAt(i) == c) {
+				return i;
+			}
+		}
+		return value.length();
+	}
+}
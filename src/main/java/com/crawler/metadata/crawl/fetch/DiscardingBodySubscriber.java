@@ -0,0 +1,45 @@
+package com.crawler.metadata.crawl.fetch;
+
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Flow;
+
+/**
+ *
+ * 응답 body 를 한 byte 도 요청하지 않고 바로 취소하는 subscriber ( html 이 아닌 응답 )
+ * 구독하자마자 요청을 취소해서 연결을 닫고, body 는 null 로 완료한다.
+ *
+ */
+final class DiscardingBodySubscriber implements HttpResponse.BodySubscriber<byte[]> {
+
+	private final CompletableFuture<byte[]> result = new CompletableFuture<>();
+
+	@Override
+	public void onSubscribe(Flow.Subscription subscription) {
+		subscription.cancel();
+		result.complete(null);
+	}
+
+	@Override
+	public void onNext(List<ByteBuffer> items) {
+		// 취소한 뒤에 도착한 buffer 는 버림
+	}
+
+	@Override
+	public void onError(Throwable throwable) {
+		result.complete(null);
+	}
+
+	@Override
+	public void onComplete() {
+		result.complete(null);
+	}
+
+	@Override
+	public CompletionStage<byte[]> getBody() {
+		return result;
+	}
+}
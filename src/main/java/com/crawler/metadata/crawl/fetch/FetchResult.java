@@ -0,0 +1,174 @@
+package com.crawler.metadata.crawl.fetch;
+
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+
+import com.crawler.metadata.util.Fingerprints;
+
+/**
+ *
+ * 한 번의 요청으로 내려받은 web page 응답
+ * body, header 를 그대로 보관하여 동적 페이지 판별과 document 변환에 재사용한다.
+ *
+ */
+public class FetchResult {
+
+	private final String url;
+
+	private final String finalUrl;
+
+	private final int statusCode;
+
+	private final Map<String, List<String>> headers;
+
+	private final byte[] body;
+
+	private final Charset charset;
+
+	private final long elapsedNanos;
+
+	private String bodyText;
+
+	// 내려받은 응답 body 의 hash ( 렌더링으로 body 를 바꿔도 원래 응답 기준 )
+	private long contentHash;
+
+	private boolean contentHashed;
+
+	// 최대 크기에서 잘린 body
+	private boolean truncated;
+
+	public FetchResult(String url, String finalUrl, int statusCode, Map<String, List<String>> headers, byte[] body,
+			Charset charset, long elapsedNanos) {
+		this.url = url;
+		this.finalUrl = finalUrl;
+		this.statusCode = statusCode;
+		// header 이름은 대소문자 구분 없이 조회
+		Map<String, List<String>> headerMap = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+		if (headers != null) {
+			headerMap.putAll(headers);
+		}
+		this.headers = Collections.unmodifiableMap(headerMap);
+		this.body = body == null ? new byte[0] : body;
+		this.charset = charset == null ? StandardCharsets.UTF_8 : charset;
+		this.elapsedNanos = elapsedNanos;
+	}
+
+	/**
+	 *
+	 * 같은 응답 header 를 유지한 채 body 만 교체 ( playwright 로 렌더링된 html 등 )
+	 * content hash 는 일부러 원래 응답 body 의 hash 를 유지한다.
+	 * 다음 크롤링에서는 렌더링 전의 정적 응답끼리 비교하므로 ( 렌더링한 html 은 매번 달라질 수 있음 )
+	 * 렌더링한 html 의 hash 를 저장하면 바뀌지 않은 페이지도 항상 바뀐 것으로 판단된다.
+	 * @param html
+	 * @return fetchResult
+	 *
+	 */
+	public FetchResult withBody(String html) {
+		FetchResult rendered = new FetchResult(url, finalUrl, statusCode, headers, html.getBytes(StandardCharsets.UTF_8),
+				StandardCharsets.UTF_8, elapsedNanos);
+		rendered.bodyText = html;
+		rendered.contentHash = getContentHash();
+		rendered.contentHashed = true;
+		return rendered;
+	}
+
+	public String getUrl() {
+		return url;
+	}
+
+	public String getFinalUrl() {
+		return finalUrl;
+	}
+
+	public int getStatusCode() {
+		return statusCode;
+	}
+
+	public boolean isSuccess() {
+		return statusCode >= 200 && statusCode < 300;
+	}
+
+	// 조건부 요청 ( If-None-Match, If-Modified-Since ) 에 대한 304 응답
+	public boolean isNotModified() {
+		return statusCode == 304;
+	}
+
+	public Map<String, List<String>> getHeaders() {
+		return headers;
+	}
+
+	public String getHeader(String name) {
+		List<String> values = headers.get(name);
+		return values == null || values.isEmpty() ? null : values.get(0);
+	}
+
+	public byte[] getBody() {
+		return body;
+	}
+
+	/**
+	 *
+	 * body 가 최대 크기에서 잘렸는지 ( 잘린 body 는 렌더링할 문서로 쓰지 않음 )
+	 *
+	 */
+	public boolean isTruncated() {
+		return truncated;
+	}
+
+	void markTruncated() {
+		truncated = true;
+	}
+
+	public Charset getCharset() {
+		return charset;
+	}
+
+	public long getElapsedNanos() {
+		return elapsedNanos;
+	}
+
+	/**
+	 *
+	 * 응답 body 의 64bit hash ( 최초 1회만 계산, 이전 크롤링과 같은 내용인지 비교 )
+	 * @return content hash
+	 *
+	 */
+	public long getContentHash() {
+		if (!contentHashed) {
+			contentHash = Fingerprints.hash64(body);
+			contentHashed = true;
+		}
+		return contentHash;
+	}
+
+	/**
+	 *
+	 * body 를 문자열로 변환 ( 최초 1회만 decode )
+	 * @return body text
+	 *
+	 */
+	public String getBodyText() {
+		if (bodyText == null) {
+			bodyText = new String(body, charset);
+		}
+		return bodyText;
+	}
+
+	/**
+	 *
+	 * 보관된 body 를 jsoup document 로 변환
+	 * 상대경로 link 가 abs:href 로 풀리도록 최종 url 을 base uri 로 지정
+	 * @return document
+	 *
+	 */
+	public Document parse() {
+		return Jsoup.parse(getBodyText(), finalUrl);
+	}
+}
@@ -0,0 +1,75 @@
+package com.crawler.metadata.crawl.fetch;
+
+import java.io.ByteArrayOutputStream;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Flow;
+
+/**
+ *
+ * 응답 body 를 최대 크기까지만 모으는 subscriber
+ * 최대 크기에 도달하면 나머지 body 는 받지 않고 ( 요청 취소 ) 그때까지 받은 부분만 반환한다.
+ *
+ */
+final class LimitedBodySubscriber implements HttpResponse.BodySubscriber<byte[]> {
+
+	private final CompletableFuture<byte[]> result = new CompletableFuture<>();
+
+	private final int maxBytes;
+
+	private final ByteArrayOutputStream out;
+
+	private Flow.Subscription subscription;
+
+	LimitedBodySubscriber(int maxBytes, long contentLength) {
+		this.maxBytes = maxBytes;
+		int expected = contentLength > 0 ? (int) Math.min(contentLength, maxBytes) : 8 * 1024;
+		this.out = new ByteArrayOutputStream(Math.max(expected, 32));
+	}
+
+	@Override
+	public void onSubscribe(Flow.Subscription subscription) {
+		this.subscription = subscription;
+		subscription.request(Long.MAX_VALUE);
+	}
+
+	@Override
+	public void onNext(List<ByteBuffer> items) {
+		if (result.isDone()) {
+			return;
+		}
+		for (ByteBuffer item : items) {
+			int length = Math.min(item.remaining(), maxBytes - out.size());
+			if (item.hasArray()) {
+				out.write(item.array(), item.arrayOffset() + item.position(), length);
+			} else {
+				byte[] copy = new byte[length];
+				item.get(copy);
+				out.write(copy, 0, length);
+			}
+			if (out.size() >= maxBytes) {
+				subscription.cancel();
+				result.complete(out.toByteArray());
+				return;
+			}
+		}
+	}
+
+	@Override
+	public void onError(Throwable throwable) {
+		result.completeExceptionally(throwable);
+	}
+
+	@Override
+	public void onComplete() {
+		result.complete(out.toByteArray());
+	}
+
+	@Override
+	public CompletionStage<byte[]> getBody() {
+		return result;
+	}
+}
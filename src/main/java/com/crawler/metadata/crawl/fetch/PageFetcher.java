@@ -0,0 +1,409 @@
+package com.crawler.metadata.crawl.fetch;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.Charset;
+import java.nio.charset.IllegalCharsetNameException;
+import java.nio.charset.StandardCharsets;
+import java.nio.charset.UnsupportedCharsetException;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPInputStream;
+
+import javax.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import com.crawler.metadata.config.CrawlerProperties;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ *
+ * url 당 한 번만 요청을 보내는 fetch 단계
+ * 응답 body, header 를 FetchResult 로 보관하여 이후 단계에서 재사용한다.
+ * java.net.http.HttpClient 하나를 공유해서 host 별 연결 ( keep-alive, HTTP/2 다중화 ) 을 재사용하고,
+ * 요청을 기다리는 동안 스레드를 잡지 않으므로 적은 수의 io 스레드로 많은 요청을 동시에 보낼 수 있다.
+ *
+ */
+@Component
+@Slf4j
+public class PageFetcher {
+
+	private final Logger log = LoggerFactory.getLogger(getClass());
+
+	// 실제로 외부로 나간 요청 수
+	private final AtomicLong requestCount = new AtomicLong();
+
+	// 응답을 기다리는 요청 수
+	private final AtomicInteger inFlight = new AtomicInteger();
+
+	// 내려받은 body byte 수 ( 압축된 크기 )
+	private final AtomicLong receivedBytes = new AtomicLong();
+
+	private final ExecutorService ioExecutor;
+
+	private final HttpClient httpClient;
+
+	private final String userAgent;
+
+	private final Duration requestTimeout;
+
+	private final int maxBodyBytes;
+
+	public PageFetcher(CrawlerProperties properties) {
+		CrawlerProperties.Fetch fetch = properties.getFetch();
+		AtomicInteger sequence = new AtomicInteger();
+		this.ioExecutor = Executors.newFixedThreadPool(Math.max(1, fetch.getIoThreads()), runnable -> {
+			Thread thread = new Thread(runnable, "fetch-io-" + sequence.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+		this.httpClient = HttpClient.newBuilder()
+				.version(fetch.isHttp2() ? HttpClient.Version.HTTP_2 : HttpClient.Version.HTTP_1_1)
+				.followRedirects(HttpClient.Redirect.NORMAL)
+				.connectTimeout(Duration.ofMillis(fetch.getConnectTimeoutMs()))
+				.executor(ioExecutor)
+				.build();
+		this.userAgent = fetch.getUserAgent();
+		this.requestTimeout = Duration.ofMillis(fetch.getRequestTimeoutMs());
+		this.maxBodyBytes = fetch.getMaxBodyBytes();
+	}
+
+	// 응답 처리 스레드 ( 요청을 만드는 짧은 작업도 여기서 실행 )
+	public Executor getExecutor() {
+		return ioExecutor;
+	}
+
+	/**
+	 *
+	 * url 의 web page 를 한 번 내려받아 반환 ( 요청이 끝날 때까지 대기 )
+	 * http error status 도 예외 대신 FetchResult 로 반환한다.
+	 * @param url
+	 * @return fetchResult
+	 *
+	 */
+	public FetchResult fetch(String url) throws IOException {
+		return await(fetchAsync(url));
+	}
+
+	/**
+	 *
+	 * url 의 web page 를 비동기로 내려받음
+	 * html, xml 이 아닌 응답은 body 를 받지 않고 UnsupportedContentTypeException 으로 실패한다.
+	 * @param url
+	 * @return fetchResult future ( 요청 실패 시 IOException 으로 완료 )
+	 *
+	 */
+	public CompletableFuture<FetchResult> fetchAsync(String url) {
+		return fetchAsync(url, null, null);
+	}
+
+	/**
+	 *
+	 * 이전 응답의 ETag, Last-Modified 로 조건부 요청 ( 바뀌지 않았으면 서버가 body 없이 304 로 응답 )
+	 * @param url
+	 * @param etag If-None-Match 로 보낼 값 ( 없으면 null )
+	 * @param lastModified If-Modified-Since 로 보낼 값 ( 없으면 null )
+	 * @return fetchResult future ( 304 응답도 FetchResult 로 완료 )
+	 *
+	 */
+	public CompletableFuture<FetchResult> fetchAsync(String url, String etag, String lastModified) {
+		return send(url, maxBodyBytes, true, etag, lastModified);
+	}
+
+	/**
+	 *
+	 * content-type 과 상관없이 text 파일을 내려받아 반환 ( robots.txt 등 )
+	 * @param url
+	 * @param maxBodySize 이 크기를 넘는 body 는 잘라냄
+	 * @return fetchResult
+	 *
+	 */
+	public FetchResult fetchText(String url, int maxBodySize) throws IOException {
+		return await(fetchTextAsync(url, maxBodySize));
+	}
+
+	/**
+	 *
+	 * content-type 과 상관없이 text 파일을 비동기로 내려받음
+	 * @param url
+	 * @param maxBodySize 이 크기를 넘는 body 는 잘라냄
+	 * @return fetchResult future ( 요청 실패 시 IOException 으로 완료 )
+	 *
+	 */
+	public CompletableFuture<FetchResult> fetchTextAsync(String url, int maxBodySize) {
+		return send(url, maxBodySize, false, null, null);
+	}
+
+	private CompletableFuture<FetchResult> send(String url, int maxBodySize, boolean htmlOnly, String etag,
+			String lastModified) {
+		HttpRequest request;
+		try {
+			HttpRequest.Builder builder = newRequest(url).header("Accept-Encoding", "gzip");
+			if (etag != null) {
+				builder.header("If-None-Match", etag);
+			}
+			if (lastModified != null) {
+				builder.header("If-Modified-Since", lastModified);
+			}
+			request = builder.GET().build();
+		} catch (IllegalArgumentException e) {
+			return CompletableFuture.failedFuture(new IOException("invalid url : " + url, e));
+		}
+		requestCount.incrementAndGet();
+		inFlight.incrementAndGet();
+		long start = System.nanoTime();
+		return httpClient.sendAsync(request, info -> {
+			String contentType = info.headers().firstValue("Content-Type").orElse(null);
+			// 304 는 body 가 없으므로 content type 을 보지 않음
+			if (htmlOnly && info.statusCode() != 304 && !isHtml(contentType)) {
+				// body 를 요청하지 않고 바로 취소해서 연결을 닫음
+				return new DiscardingBodySubscriber();
+			}
+			return new LimitedBodySubscriber(maxBodySize, info.headers().firstValueAsLong("Content-Length").orElse(-1));
+		}).whenComplete((response, error) -> inFlight.decrementAndGet()).thenApply(response -> {
+			try {
+				return toResult(url, response, maxBodySize, start);
+			} catch (IOException e) {
+				throw new CompletionException(e);
+			}
+		});
+	}
+
+	private FetchResult toResult(String url, HttpResponse<byte[]> response, int maxBodySize, long start)
+			throws IOException {
+		String contentType = response.headers().firstValue("Content-Type").orElse(null);
+		if (response.body() == null) {
+			throw new UnsupportedContentTypeException(url, contentType);
+		}
+		receivedBytes.addAndGet(response.body().length);
+		byte[] body = decode(response.body(), response.headers().firstValue("Content-Encoding").orElse(null),
+				maxBodySize);
+		long elapsed = System.nanoTime() - start;
+		log.debug("[fetch] url ===> {} status ===> {} bytes ===> {}", url, response.statusCode(), body.length);
+		FetchResult result = new FetchResult(url, response.uri().toString(), response.statusCode(),
+				response.headers().map(), body, toCharset(charsetOf(contentType)), elapsed);
+		if (response.body().length >= maxBodySize || body.length >= maxBodySize) {
+			result.markTruncated();
+		}
+		return result;
+	}
+
+	/**
+	 *
+	 * url 의 응답 body 를 stream 으로 handler 에 전달
+	 * handler 가 필요한 부분만 읽고 반환하면 나머지 body 는 내려받지 않는다.
+	 * @param url
+	 * @param handler
+	 * @return handler result
+	 *
+	 */
+	public <T> T fetchStreaming(String url, StreamingBodyHandler<T> handler) throws IOException {
+		HttpRequest request;
+		try {
+			request = newRequest(url).header("Accept-Encoding", "gzip").GET().build();
+		} catch (IllegalArgumentException e) {
+			throw new IOException("invalid url : " + url, e);
+		}
+		requestCount.incrementAndGet();
+		HttpResponse<InputStream> response;
+		try {
+			response = httpClient.send(request, HttpResponse.BodyHandlers.ofInputStream());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("interrupted : " + url, e);
+		}
+		String contentType = response.headers().firstValue("Content-Type").orElse(null);
+		try (InputStream raw = response.body();
+				InputStream body = isGzip(response.headers().firstValue("Content-Encoding").orElse(null))
+						? new GZIPInputStream(raw) : raw;
+				Reader reader = new InputStreamReader(body, toCharset(charsetOf(contentType)))) {
+			if (response.statusCode() < 200 || response.statusCode() >= 300) {
+				throw new IOException("http status " + response.statusCode() + " : " + url);
+			}
+			return handler.handle(reader, response.uri().toString());
+		}
+	}
+
+	public long getRequestCount() {
+		return requestCount.get();
+	}
+
+	public int getInFlightCount() {
+		return inFlight.get();
+	}
+
+	public long getReceivedBytes() {
+		return receivedBytes.get();
+	}
+
+	@PreDestroy
+	public void close() {
+		ioExecutor.shutdownNow();
+	}
+
+	private HttpRequest.Builder newRequest(String url) {
+		return HttpRequest.newBuilder(toUri(url)).timeout(requestTimeout).header("User-Agent", userAgent)
+				.header("Accept", "text/html,application/xhtml+xml,application/xml;q=0.9,*/*;q=0.8");
+	}
+
+	/**
+	 *
+	 * url 문자열을 URI 로 변환
+	 * 공백, 비 ascii 문자 등 URI 에 그대로 쓸 수 없는 문자는 UTF-8 percent-encoding 한다. ( 브라우저와 같은 방식 )
+	 * @param url
+	 * @return uri
+	 *
+	 */
+	static URI toUri(String url) {
+		int fragment = url.indexOf('#');
+		String target = fragment < 0 ? url : url.substring(0, fragment);
+		StringBuilder encoded = null;
+		for (int i = 0; i < target.length(); i++) {
+			char c = target.charAt(i);
+			if (isUriChar(c)) {
+				if (encoded != null) {
+					encoded.append(c);
+				}
+				continue;
+			}
+			if (encoded == null) {
+				encoded = new StringBuilder(target.length() + 16).append(target, 0, i);
+			}
+			int end = Character.isHighSurrogate(c) && i + 1 < target.length() ? i + 2 : i + 1;
+			for (byte b : target.substring(i, end).getBytes(StandardCharsets.UTF_8)) {
+				encoded.append('%').append(Character.toUpperCase(Character.forDigit((b >> 4) & 0xF, 16)))
+						.append(Character.toUpperCase(Character.forDigit(b & 0xF, 16)));
+			}
+			i = end - 1;
+		}
+		return URI.create(encoded == null ? target : encoded.toString());
+	}
+
+	// RFC 3986 의 unreserved, reserved 문자와 '%'
+	private static boolean isUriChar(char c) {
+		if (c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z' || c >= '0' && c <= '9') {
+			return true;
+		}
+		return "-._~:/?#[]@!$&'()*+,;=%".indexOf(c) >= 0;
+	}
+
+	// jsoup 과 같이 text/*, xml 계열만 html 로 처리 ( content-type 이 없으면 html 로 간주 )
+	private static boolean isHtml(String contentType) {
+		if (contentType == null) {
+			return true;
+		}
+		String type = contentType.toLowerCase(Locale.ROOT);
+		return type.startsWith("text/") || type.startsWith("application/xml") || type.startsWith("application/xhtml+xml")
+				|| type.contains("+xml");
+	}
+
+	private static boolean isGzip(String contentEncoding) {
+		return contentEncoding != null && contentEncoding.trim().equalsIgnoreCase("gzip");
+	}
+
+	// gzip body 는 풀어서 반환 ( 풀어낸 크기도 최대 크기까지만 )
+	private static byte[] decode(byte[] body, String contentEncoding, int maxBodySize) throws IOException {
+		if (!isGzip(contentEncoding) || body.length == 0) {
+			return body;
+		}
+		ByteArrayOutputStream out = new ByteArrayOutputStream(body.length * 4);
+		try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(body))) {
+			byte[] buffer = new byte[8 * 1024];
+			int read;
+			while (out.size() < maxBodySize && (read = in.read(buffer, 0, Math.min(buffer.length, maxBodySize - out.size()))) > 0) {
+				out.write(buffer, 0, read);
+			}
+		} catch (IOException e) {
+			// 최대 크기에서 잘린 gzip body 는 읽은 부분까지만 사용
+			if (out.size() == 0) {
+				throw e;
+			}
+		}
+		return out.toByteArray();
+	}
+
+	private static String charsetOf(String contentType) {
+		if (contentType == null) {
+			return null;
+		}
+		int index = contentType.toLowerCase(Locale.ROOT).indexOf("charset=");
+		if (index < 0) {
+			return null;
+		}
+		int start = index + "charset=".length();
+		int end = contentType.indexOf(';', start);
+		String charset = (end < 0 ? contentType.substring(start) : contentType.substring(start, end)).trim();
+		if (charset.length() > 1 && charset.startsWith("\"") && charset.endsWith("\"")) {
+			charset = charset.substring(1, charset.length() - 1);
+		}
+		return charset.isEmpty() ? null : charset;
+	}
+
+	private Charset toCharset(String charsetName) {
+		if (charsetName == null) {
+			return StandardCharsets.UTF_8;
+		}
+		try {
+			return Charset.forName(charsetName);
+		} catch (IllegalCharsetNameException | UnsupportedCharsetException e) {
+			return StandardCharsets.UTF_8;
+		}
+	}
+
+	// 비동기 요청의 결과를 기다리고, 실패 원인은 그대로 전달
+	private static FetchResult await(CompletableFuture<FetchResult> future) throws IOException {
+		try {
+			return future.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("interrupted", e);
+		} catch (ExecutionException e) {
+			Throwable cause = unwrap(e);
+			if (cause instanceof IOException) {
+				throw (IOException) cause;
+			}
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			}
+			if (cause instanceof Error) {
+				throw (Error) cause;
+			}
+			throw new IOException(cause);
+		}
+	}
+
+	/**
+	 *
+	 * 비동기 요청 실패 원인 ( CompletionException, ExecutionException 을 벗겨냄 )
+	 * @param error
+	 * @return cause
+	 *
+	 */
+	public static Throwable unwrap(Throwable error) {
+		Throwable cause = error;
+		while ((cause instanceof CompletionException || cause instanceof ExecutionException) && cause.getCause() != null) {
+			cause = cause.getCause();
+		}
+		return cause;
+	}
+}
@@ -0,0 +1,16 @@
+package com.crawler.metadata.crawl.fetch;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ *
+ * 응답 body 를 buffer 에 모으지 않고 읽으면서 처리하는 handler
+ * handler 가 반환하면 나머지 body 는 읽지 않고 연결을 닫는다.
+ *
+ */
+@FunctionalInterface
+public interface StreamingBodyHandler<T> {
+
+	T handle(Reader body, String finalUrl) throws IOException;
+}
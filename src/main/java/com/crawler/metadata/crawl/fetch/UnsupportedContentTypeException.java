@@ -0,0 +1,25 @@
+package com.crawler.metadata.crawl.fetch;
+
+import java.io.IOException;
+
+/**
+ *
+ * html 로 처리할 수 없는 content-type 응답 ( 이미지, pdf 등 )
+ * body 는 내려받지 않는다.
+ *
+ */
+public class UnsupportedContentTypeException extends IOException {
+
+	private static final long serialVersionUID = 1L;
+
+	private final String contentType;
+
+	public UnsupportedContentTypeException(String url, String contentType) {
+		super("unsupported content type " + contentType + " : " + url);
+		this.contentType = contentType;
+	}
+
+	public String getContentType() {
+		return contentType;
+	}
+}
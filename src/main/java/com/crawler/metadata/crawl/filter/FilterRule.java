@@ -0,0 +1,21 @@
+package com.crawler.metadata.crawl.filter;
+
+/**
+ *
+ * url filter 규칙 ( 거절 사유 )
+ *
+ */
+public enum FilterRule {
+	// 길이 초과, scheme / host / port 형식 오류, 공백 / 제어 문자 포함
+	FORMAT,
+	// 허용하지 않은 scheme ( mailto:, ftp: 등 )
+	PROTOCOL,
+	// seed 와 다른 domain
+	DOMAIN,
+	// 차단 문자열 포함 ( 광고, 로그인, sns 등 )
+	PATTERN,
+	// 차단 확장자 ( 이미지, 동영상, 압축 파일 등 )
+	EXTENSION,
+	// path 깊이 초과
+	DEPTH
+}
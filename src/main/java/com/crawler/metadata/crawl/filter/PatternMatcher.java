@@ -0,0 +1,148 @@
+package com.crawler.metadata.crawl.filter;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ *
+ * 여러 차단 문자열을 한 번에 찾는 Aho-Corasick 자동자 ( 대소문자 구분 없음 )
+ * 실패 link 를 미리 따라가서 상태 전이표를 완성해 두므로, 문자 하나당 배열 조회 한 번으로 다음 상태가 정해진다.
+ * 문자열에 없는 문자는 모두 같은 문자 class 로 묶어 전이표 크기를 줄인다. 만든 뒤에는 읽기만 하므로 thread-safe 하다.
+ *
+ */
+final class PatternMatcher {
+
+	static final int START = 0;
+
+	// ascii 문자 -> 문자 class ( 0 은 pattern 에 없는 문자 )
+	private final char[] classes = new char[128];
+
+	private final int classCount;
+
+	// state * classCount + class -> 다음 state
+	private final int[] transitions;
+
+	// 해당 state 에 도달하면 pattern 하나 이상이 끝남
+	private final boolean[] terminal;
+
+	PatternMatcher(Collection<String> patterns) {
+		List<String> lowered = new ArrayList<>();
+		int count = 1;
+		for (String pattern : patterns) {
+			if (pattern == null || pattern.isEmpty()) {
+				continue;
+			}
+			String value = pattern.toLowerCase(Locale.ROOT);
+			for (int i = 0; i < value.length(); i++) {
+				char c = value.charAt(i);
+				if (c >= 128) {
+					throw new IllegalArgumentException("pattern must be ascii : " + pattern);
+				}
+				if (classes[c] == 0) {
+					classes[c] = (char) count++;
+				}
+			}
+			lowered.add(value);
+		}
+		this.classCount = count;
+
+		// trie 구성 ( -1 은 아직 없는 전이 )
+		List<int[]> nodes = new ArrayList<>();
+		List<Boolean> ends = new ArrayList<>();
+		nodes.add(emptyNode());
+		ends.add(false);
+		for (String pattern : lowered) {
+			int state = START;
+			for (int i = 0; i < pattern.length(); i++) {
+				int c = classes[pattern.charAt(i)];
+				if (nodes.get(state)[c] < 0) {
+					nodes.get(state)[c] = nodes.size();
+					nodes.add(emptyNode());
+					ends.add(false);
+				}
+				state = nodes.get(state)[c];
+			}
+			ends.set(state, true);
+		}
+
+		// BFS 로 실패 link 를 계산하면서 없는 전이를 실패 state 의 전이로 채움
+		int size = nodes.size();
+		this.transitions = new int[size * classCount];
+		this.terminal = new boolean[size];
+		int[] fail = new int[size];
+		ArrayDeque<Integer> queue = new ArrayDeque<>();
+		for (int c = 0; c < classCount; c++) {
+			int next = nodes.get(START)[c];
+			transitions[c] = next < 0 ? START : next;
+			if (next > 0) {
+				fail[next] = START;
+				queue.add(next);
+			}
+		}
+		terminal[START] = ends.get(START);
+		while (!queue.isEmpty()) {
+			int state = queue.poll();
+			terminal[state] = ends.get(state) || terminal[fail[state]];
+			for (int c = 0; c < classCount; c++) {
+				int next = nodes.get(state)[c];
+				if (next < 0) {
+					transitions[state * classCount + c] = transitions[fail[state] * classCount + c];
+				} else {
+					transitions[state * classCount + c] = next;
+					fail[next] = transitions[fail[state] * classCount + c];
+					queue.add(next);
+				}
+			}
+		}
+	}
+
+	private int[] emptyNode() {
+		int[] node = new int[classCount];
+		Arrays.fill(node, -1);
+		return node;
+	}
+
+	/**
+	 *
+	 * 문자 하나를 읽은 뒤의 state
+	 * @param state
+	 * @param c
+	 * @return 다음 state
+	 *
+	 */
+	int next(int state, char c) {
+		char lower = c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c;
+		int cls = lower < 128 ? classes[lower] : 0;
+		return transitions[state * classCount + cls];
+	}
+
+	boolean isMatch(int state) {
+		return terminal[state];
+	}
+
+	/**
+	 *
+	 * 문자열에 pattern 이 하나라도 포함되어 있는지 확인
+	 * @param value
+	 * @return 포함되어 있으면 true
+	 *
+	 */
+	boolean find(CharSequence value) {
+		int state = START;
+		for (int i = 0; i < value.length(); i++) {
+			state = next(state, value.charAt(i));
+			if (terminal[state]) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	int getStateCount() {
+		return terminal.length;
+	}
+}
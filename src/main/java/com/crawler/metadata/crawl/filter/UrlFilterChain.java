@@ -0,0 +1,317 @@
+package com.crawler.metadata.crawl.filter;
+
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.crawler.metadata.config.CrawlerProperties;
+
+/**
+ *
+ * 형식 / protocol / domain / 차단 문자열 / 확장자 / 깊이 규칙을 미리 컴파일해 두고 url 을 한 번 훑으면서 모두 검사하는 filter
+ * 차단 문자열은 Aho-Corasick 자동자로, 확장자는 정렬된 long key 표로 찾으므로 검사 중에 객체를 만들지 않는다.
+ * 규칙별 거절 수를 집계한다. thread-safe 하다.
+ *
+ */
+public class UrlFilterChain {
+
+	private static final FilterRule[] RULES = FilterRule.values();
+
+	// 확장자 key 로 만들 수 있는 최대 길이 ( 37 진수 12 자리 )
+	private static final int MAX_EXTENSION_LENGTH = 12;
+
+	private final boolean enabled;
+
+	private final String[] protocols;
+
+	private final PatternMatcher patterns;
+
+	// 정렬된 확장자 key
+	private final long[] extensions;
+
+	private final int maxDepth;
+
+	private final int maxLength;
+
+	private final boolean sameDomain;
+
+	private final boolean allowSubdomains;
+
+	private final LongAdder checked = new LongAdder();
+
+	private final LongAdder[] rejections = new LongAdder[RULES.length];
+
+	public UrlFilterChain(CrawlerProperties.FilterRules rules) {
+		this.enabled = rules.isEnabled();
+		this.protocols = rules.getProtocols().stream().map(protocol -> protocol.toLowerCase(Locale.ROOT))
+				.toArray(String[]::new);
+		this.patterns = new PatternMatcher(rules.getBlockedPatterns());
+		this.extensions = compileExtensions(rules.getBlockedExtensions());
+		this.maxDepth = rules.getMaxDepth();
+		this.maxLength = rules.getMaxLength();
+		this.sameDomain = rules.isSameDomain();
+		this.allowSubdomains = rules.isAllowSubdomains();
+		for (int i = 0; i < rejections.length; i++) {
+			rejections[i] = new LongAdder();
+		}
+	}
+
+	/**
+	 *
+	 * url 이 모든 규칙을 통과하는지 확인
+	 * @param url
+	 * @param seedHost domain 규칙 기준 host ( null 이면 domain 규칙 생략 )
+	 * @return 통과하면 true
+	 *
+	 */
+	public boolean accept(String url, String seedHost) {
+		return check(url, seedHost) == null;
+	}
+
+	/**
+	 *
+	 * url 검사 후 처음 어긴 규칙 반환
+	 * 여러 규칙을 어기면 FORMAT, PROTOCOL, DOMAIN, PATTERN, EXTENSION, DEPTH 순으로 하나만 집계한다.
+	 * @param url
+	 * @param seedHost domain 규칙 기준 host ( null 이면 domain 규칙 생략 )
+	 * @return 어긴 규칙, 통과하면 null
+	 *
+	 */
+	public FilterRule check(String url, String seedHost) {
+		if (!enabled) {
+			return null;
+		}
+		checked.increment();
+		FilterRule rule = evaluate(url, seedHost);
+		if (rule != null) {
+			rejections[rule.ordinal()].increment();
+		}
+		return rule;
+	}
+
+	private FilterRule evaluate(String url, String seedHost) {
+		int length = url.length();
+		if (length == 0 || maxLength > 0 && length > maxLength) {
+			return FilterRule.FORMAT;
+		}
+		int state = PatternMatcher.START;
+		boolean patternFound = false;
+
+		// scheme
+		int i = 0;
+		for (; i < length; i++) {
+			char c = url.charAt(i);
+			if (c == ':') {
+				break;
+			}
+			if (!(isLetter(c) || i > 0 && (isDigit(c) || c == '+' || c == '-' || c == '.'))) {
+				return FilterRule.FORMAT;
+			}
+			state = patterns.next(state, c);
+			patternFound |= patterns.isMatch(state);
+		}
+		if (i == 0 || i + 2 >= length || url.charAt(i + 1) != '/' || url.charAt(i + 2) != '/') {
+			return FilterRule.FORMAT;
+		}
+		if (!isAllowedProtocol(url, i)) {
+			return FilterRule.PROTOCOL;
+		}
+		for (int end = i + 3; i < end; i++) {
+			state = patterns.next(state, url.charAt(i));
+			patternFound |= patterns.isMatch(state);
+		}
+
+		// authority : [userinfo@]host[:port]
+		int hostStart = i;
+		int portStart = -1;
+		boolean inBracket = false;
+		boolean invalidHost = false;
+		boolean invalidPort = false;
+		for (; i < length; i++) {
+			char c = url.charAt(i);
+			if (c == '/' || c == '?' || c == '#') {
+				break;
+			}
+			if (c <= ' ' || c == 127) {
+				return FilterRule.FORMAT;
+			}
+			state = patterns.next(state, c);
+			patternFound |= patterns.isMatch(state);
+			if (c == '@') {
+				// 앞 부분은 사용자 정보
+				hostStart = i + 1;
+				portStart = -1;
+				invalidHost = false;
+				invalidPort = false;
+			} else if (portStart >= 0) {
+				invalidPort |= !isDigit(c);
+			} else if (c == '[') {
+				inBracket = true;
+			} else if (c == ']') {
+				inBracket = false;
+			} else if (c == ':' && !inBracket) {
+				portStart = i + 1;
+			} else {
+				invalidHost |= !isHostChar(c, inBracket);
+			}
+		}
+		int hostEnd = portStart >= 0 ? portStart - 1 : i;
+		if (hostEnd == hostStart || invalidHost || invalidPort || portStart >= 0 && i - portStart > 5) {
+			return FilterRule.FORMAT;
+		}
+		if (sameDomain && seedHost != null && !isSameDomain(url, hostStart, hostEnd, seedHost)) {
+			return FilterRule.DOMAIN;
+		}
+		if (patternFound) {
+			return FilterRule.PATTERN;
+		}
+
+		// path : 깊이와 마지막 segment 의 확장자
+		int depth = 0;
+		int segmentStart = i;
+		int lastDot = -1;
+		for (; i < length; i++) {
+			char c = url.charAt(i);
+			if (c == '?' || c == '#') {
+				break;
+			}
+			if (c < ' ') {
+				return FilterRule.FORMAT;
+			}
+			state = patterns.next(state, c);
+			if (patterns.isMatch(state)) {
+				return FilterRule.PATTERN;
+			}
+			if (c == '/') {
+				if (i > segmentStart) {
+					depth++;
+				}
+				segmentStart = i + 1;
+				lastDot = -1;
+			} else if (c == '.') {
+				lastDot = i;
+			}
+		}
+		int pathEnd = i;
+		if (pathEnd > segmentStart) {
+			depth++;
+		}
+
+		// query, fragment 는 차단 문자열만 확인
+		for (; i < length; i++) {
+			char c = url.charAt(i);
+			if (c < ' ') {
+				return FilterRule.FORMAT;
+			}
+			state = patterns.next(state, c);
+			if (patterns.isMatch(state)) {
+				return FilterRule.PATTERN;
+			}
+		}
+
+		if (lastDot >= 0 && extensions.length > 0
+				&& Arrays.binarySearch(extensions, extensionKey(url, lastDot + 1, pathEnd)) >= 0) {
+			return FilterRule.EXTENSION;
+		}
+		if (maxDepth > 0 && depth > maxDepth) {
+			return FilterRule.DEPTH;
+		}
+		return null;
+	}
+
+	private boolean isAllowedProtocol(String url, int schemeEnd) {
+		for (String protocol : protocols) {
+			if (protocol.length() == schemeEnd && url.regionMatches(true, 0, protocol, 0, schemeEnd)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	// www. 과 끝의 . 은 무시하고 비교, allowSubdomains 면 seed host 의 하위 domain 도 허용
+	private boolean isSameDomain(String url, int hostStart, int hostEnd, String seedHost) {
+		if (hostEnd - hostStart > 4 && url.regionMatches(true, hostStart, "www.", 0, 4)) {
+			hostStart += 4;
+		}
+		if (url.charAt(hostEnd - 1) == '.') {
+			hostEnd--;
+		}
+		int seedStart = seedHost.length() > 4 && seedHost.regionMatches(true, 0, "www.", 0, 4) ? 4 : 0;
+		int seedEnd = seedHost.endsWith(".") ? seedHost.length() - 1 : seedHost.length();
+		int seedLength = seedEnd - seedStart;
+		int hostLength = hostEnd - hostStart;
+		if (hostLength == seedLength) {
+			return url.regionMatches(true, hostStart, seedHost, seedStart, seedLength);
+		}
+		return allowSubdomains && hostLength > seedLength && url.charAt(hostEnd - seedLength - 1) == '.'
+				&& url.regionMatches(true, hostEnd - seedLength, seedHost, seedStart, seedLength);
+	}
+
+	/**
+	 *
+	 * 확장자를 37 진수 long 으로 변환 ( 숫자, 영문자만, 대소문자 구분 없음 )
+	 * @return key, 변환할 수 없으면 -1
+	 *
+	 */
+	static long extensionKey(CharSequence value, int start, int end) {
+		if (end <= start || end - start > MAX_EXTENSION_LENGTH) {
+			return -1;
+		}
+		long key = 0;
+		for (int i = start; i < end; i++) {
+			char c = value.charAt(i);
+			int digit;
+			if (isDigit(c)) {
+				digit = c - '0' + 1;
+			} else if (c >= 'a' && c <= 'z') {
+				digit = c - 'a' + 11;
+			} else if (c >= 'A' && c <= 'Z') {
+				digit = c - 'A' + 11;
+			} else {
+				return -1;
+			}
+			key = key * 37 + digit;
+		}
+		return key;
+	}
+
+	private static long[] compileExtensions(List<String> blockedExtensions) {
+		return blockedExtensions.stream().map(extension -> extension.startsWith(".") ? extension.substring(1) : extension)
+				.mapToLong(extension -> {
+					long key = extensionKey(extension, 0, extension.length());
+					if (key < 0) {
+						throw new IllegalArgumentException("invalid extension : " + extension);
+					}
+					return key;
+				}).sorted().distinct().toArray();
+	}
+
+	private static boolean isLetter(char c) {
+		return c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z';
+	}
+
+	private static boolean isDigit(char c) {
+		return c >= '0' && c <= '9';
+	}
+
+	// 영문자, 숫자, - . _ % 와 국제화 domain 문자 ( [] 안은 IPv6 주소 )
+	private static boolean isHostChar(char c, boolean inBracket) {
+		return isLetter(c) || isDigit(c) || c == '-' || c == '.' || c == '_' || c == '%' || c >= 128
+				|| inBracket && c == ':';
+	}
+
+	public long getCheckedCount() {
+		return checked.sum();
+	}
+
+	public Map<FilterRule, Long> getRejectionCounts() {
+		Map<FilterRule, Long> counts = new EnumMap<>(FilterRule.class);
+		for (FilterRule rule : RULES) {
+			counts.put(rule, rejections[rule.ordinal()].sum());
+		}
+		return counts;
+	}
+}
@@ -0,0 +1,130 @@
+package com.crawler.metadata.crawl.filter;
+
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import com.crawler.metadata.config.CrawlerProperties;
+import com.crawler.metadata.util.UrlUtils;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ *
+ * seed 별 url filter 보관소
+ * crawler.filter.seeds[host] 로 설정한 seed 는 해당 규칙을, 나머지 seed 는 crawler.filter 의 기본 규칙을 사용한다.
+ * 규칙은 시작할 때 한 번만 컴파일한다.
+ *
+ */
+@Component
+@Slf4j
+public class UrlFilterRegistry {
+
+	private final Logger log = LoggerFactory.getLogger(getClass());
+
+	private final UrlFilterChain defaultChain;
+
+	// seed host ( 소문자 ) -> filter
+	private final Map<String, UrlFilterChain> seedChains = new HashMap<>();
+
+	private final ThreadLocal<Recent> recent = ThreadLocal.withInitial(Recent::new);
+
+	public UrlFilterRegistry(CrawlerProperties properties) {
+		CrawlerProperties.Filter filter = properties.getFilter();
+		this.defaultChain = new UrlFilterChain(filter);
+		filter.getSeeds().forEach((host, rules) -> seedChains.put(seedKey(host.toLowerCase(Locale.ROOT)), new UrlFilterChain(rules)));
+		log.debug("[UrlFilterRegistry] seeds ===> {}", seedChains.keySet());
+	}
+
+	/**
+	 *
+	 * seed 의 filter 규칙으로 url 검사
+	 * @param seedUrl seed url 또는 seed host
+	 * @param url
+	 * @return 어긴 규칙, 통과하면 null
+	 *
+	 */
+	public FilterRule check(String seedUrl, String url) {
+		// 같은 페이지의 link 는 seed 가 같으므로 직전에 사용한 seed 면 host 추출 / map 조회 생략
+		Recent last = recent.get();
+		if (!seedUrl.equals(last.seedUrl)) {
+			last.seedHost = seedHostOf(seedUrl);
+			last.chain = chainOf(last.seedHost);
+			last.seedUrl = seedUrl;
+		}
+		return last.chain.check(url, last.seedHost);
+	}
+
+	public boolean accept(String seedUrl, String url) {
+		return check(seedUrl, url) == null;
+	}
+
+	public UrlFilterChain getChain(String seedUrl) {
+		return chainOf(seedHostOf(seedUrl));
+	}
+
+	private UrlFilterChain chainOf(String seedHost) {
+		if (seedHost == null || seedChains.isEmpty()) {
+			return defaultChain;
+		}
+		return seedChains.getOrDefault(seedKey(seedHost), defaultChain);
+	}
+
+	/**
+	 *
+	 * 모든 filter 의 규칙별 거절 수 합계
+	 * @return rule -> 거절 수
+	 *
+	 */
+	public Map<FilterRule, Long> getRejectionCounts() {
+		Map<FilterRule, Long> counts = new EnumMap<>(FilterRule.class);
+		for (UrlFilterChain chain : chains()) {
+			chain.getRejectionCounts().forEach((rule, count) -> counts.merge(rule, count, Long::sum));
+		}
+		return counts;
+	}
+
+	public long getCheckedCount() {
+		long count = 0;
+		for (UrlFilterChain chain : chains()) {
+			count += chain.getCheckedCount();
+		}
+		return count;
+	}
+
+	private Set<UrlFilterChain> chains() {
+		Set<UrlFilterChain> chains = new LinkedHashSet<>(seedChains.values());
+		chains.add(defaultChain);
+		return chains;
+	}
+
+	// seed url 이면 host, scheme 없이 host 만 넘어오면 그대로 ( 소문자 )
+	private static String seedHostOf(String seedUrl) {
+		if (seedUrl.contains("://")) {
+			return UrlUtils.getHost(seedUrl);
+		}
+		return seedUrl.isEmpty() ? null : seedUrl.toLowerCase(Locale.ROOT);
+	}
+
+	// www. 유무와 상관없이 같은 설정 사용
+	private static String seedKey(String host) {
+		return host.startsWith("www.") ? host.substring(4) : host;
+	}
+
+	// 스레드 별 직전 조회 결과
+	private static final class Recent {
+
+		private String seedUrl;
+
+		private String seedHost;
+
+		private UrlFilterChain chain;
+	}
+}
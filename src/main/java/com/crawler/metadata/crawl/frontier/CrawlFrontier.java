@@ -0,0 +1,316 @@
+package com.crawler.metadata.crawl.frontier;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.UnaryOperator;
+
+import com.crawler.metadata.crawl.visited.VisitedUrlStore;
+
+/**
+ *
+ * 크롤링 한 번의 방문 대기열
+ * url 은 대기열에 넣을 때 방문 url 보관소에 기록해서 같은 url 을 두 번 내보내지 않는다.
+ * 꺼내 간 url 은 done() 을 호출할 때까지 처리 중으로 세고, 대기열이 비고 처리 중인 url 도 없으면 크롤링이 끝난 것으로 판단한다.
+ * 처리 중인 url 에서 찾은 link 는 done() 전에 offer() 해야 한다.
+ *
+ * url 보관은 FrontierQueue 에 맡긴다. ( 기본은 host bucket 으로 나눈 메모리 대기열, 설정에 따라 memory-mapped 파일 )
+ * 대기 수 / 처리 중 수는 long 하나에 같이 두어 ( 하위 32bit 대기, 상위 32bit 처리 중 ) 한 번의 원자 연산으로 옮긴다.
+ * lock 은 꺼낼 url 이 없어 기다려야 할 때만 잡는다. ( 기다린 횟수, 시간은 contention 통계로 제공 )
+ *
+ */
+public class CrawlFrontier {
+
+	public static final int DEFAULT_BUCKETS = 16;
+
+	private static final long QUEUED_ONE = 1L;
+
+	private static final long IN_FLIGHT_ONE = 1L << 32;
+
+	private static final long QUEUED_MASK = IN_FLIGHT_ONE - 1;
+
+	private final VisitedUrlStore visitedUrls;
+
+	private final UnaryOperator<String> canonicalizer;
+
+	private final FrontierQueue queue;
+
+	// 하위 32bit : 대기열의 url 수, 상위 32bit : next() 로 꺼내 갔지만 done() 이 호출되지 않은 url 수
+	private final AtomicLong state = new AtomicLong();
+
+	private final LongAdder claimed = new LongAdder();
+
+	private final LongAdder duplicates = new LongAdder();
+
+	private final LongAdder completed = new LongAdder();
+
+	// 꺼낼 url 이 없어 lock 을 잡고 기다린 횟수, 시간
+	private final LongAdder waits = new LongAdder();
+
+	private final LongAdder waitNanos = new LongAdder();
+
+	private final ReentrantLock lock = new ReentrantLock();
+
+	private final Condition changed = lock.newCondition();
+
+	// 기다리는 스레드 수 ( 0 이면 offer, done 이 lock 을 잡지 않음 )
+	private final AtomicInteger waiters = new AtomicInteger();
+
+	private volatile boolean closed;
+
+	/**
+	 *
+	 * @param visitedUrls 방문 url 보관소
+	 * @param canonicalizer 방문 여부 판단에 사용할 key 변환
+	 *
+	 */
+	public CrawlFrontier(VisitedUrlStore visitedUrls, UnaryOperator<String> canonicalizer) {
+		this(visitedUrls, canonicalizer, DEFAULT_BUCKETS);
+	}
+
+	/**
+	 *
+	 * @param visitedUrls 방문 url 보관소
+	 * @param canonicalizer 방문 여부 판단에 사용할 key 변환
+	 * @param bucketCount host 별로 나눌 대기열 수 ( 2 의 거듭제곱으로 올림 )
+	 *
+	 */
+	public CrawlFrontier(VisitedUrlStore visitedUrls, UnaryOperator<String> canonicalizer, int bucketCount) {
+		this(visitedUrls, canonicalizer, new HostBucketQueue(bucketCount));
+	}
+
+	/**
+	 *
+	 * @param visitedUrls 방문 url 보관소 ( 이어서 크롤링하면 이미 대기열에 있는 url 도 기록되어 있어야 함 )
+	 * @param canonicalizer 방문 여부 판단에 사용할 key 변환
+	 * @param queue url 대기열 ( 이전 크롤링에서 남은 url 은 대기 중으로 셈 )
+	 *
+	 */
+	public CrawlFrontier(VisitedUrlStore visitedUrls, UnaryOperator<String> canonicalizer, FrontierQueue queue) {
+		this.visitedUrls = visitedUrls;
+		this.canonicalizer = canonicalizer;
+		this.queue = queue;
+		this.state.set(queue.size());
+	}
+
+	/**
+	 *
+	 * 처음 보는 url 이면 방문 기록 후 대기열에 추가
+	 * @param url
+	 * @return 추가했으면 true ( 이미 본 url 이거나 닫힌 대기열이면 false )
+	 *
+	 */
+	public boolean offer(String url) {
+		if (closed) {
+			return false;
+		}
+		// 보관소 add 는 스스로 동기화되므로 key 를 만들고 바로 기록
+		if (!visitedUrls.add(canonicalizer.apply(url))) {
+			duplicates.increment();
+			return false;
+		}
+		// 대기 수를 먼저 올려야 꺼내 가는 쪽이 대기열이 빈 것으로 보고 끝내지 않음
+		state.addAndGet(QUEUED_ONE);
+		if (!queue.add(url)) { // 닫혔거나 보관할 수 없는 url
+			state.addAndGet(-QUEUED_ONE);
+			signalWaiters();
+			return false;
+		}
+		claimed.increment();
+		signalWaiters();
+		return true;
+	}
+
+	/**
+	 *
+	 * 다음에 방문할 url 을 꺼냄
+	 * 대기열이 비어 있으면 처리 중인 url 이 새 link 를 넣거나 모두 끝날 때까지 기다린다.
+	 * @return url, 크롤링이 끝났으면 ( 대기열, 처리 중인 url 모두 없음 ) 또는 닫혔으면 null
+	 *
+	 */
+	public String next() throws InterruptedException {
+		if (closed) {
+			return null;
+		}
+		String url = poll();
+		if (url != null || state.get() == 0) {
+			return url;
+		}
+		// 기다려야 하는 경우만 lock ( waiters 를 올린 뒤 다시 확인하므로 offer 의 signal 을 놓치지 않음 )
+		long start = System.nanoTime();
+		waits.increment();
+		lock.lock();
+		waiters.incrementAndGet();
+		try {
+			while (true) {
+				if (closed) {
+					return null;
+				}
+				url = poll();
+				if (url != null || state.get() == 0) {
+					return url;
+				}
+				changed.await();
+			}
+		} finally {
+			waiters.decrementAndGet();
+			lock.unlock();
+			waitNanos.add(System.nanoTime() - start);
+		}
+	}
+
+	/**
+	 *
+	 * next() 로 꺼낸 url 의 처리 완료 ( 성공, 실패 모두 호출 )
+	 * 디스크 대기열은 완료된 url 까지 checkpoint 하므로 url 을 알려주는 done(url) 을 사용한다.
+	 * @param url next() 로 꺼낸 url
+	 *
+	 */
+	public void done(String url) {
+		queue.ack(url);
+		done();
+	}
+
+	/**
+	 *
+	 * next() 로 꺼낸 url 의 처리 완료 ( 성공, 실패 모두 호출 )
+	 *
+	 */
+	public void done() {
+		long current;
+		do {
+			current = state.get();
+			if (current >>> 32 == 0) {
+				throw new IllegalStateException("no url in flight");
+			}
+		} while (!state.compareAndSet(current, current - IN_FLIGHT_ONE));
+		completed.increment();
+		// 처리 중인 url 이 모두 끝나면 깨움 ( 닫힌 대기열은 남은 url 과 관계없이 끝 )
+		if ((current - IN_FLIGHT_ONE) >>> 32 == 0) {
+			signalWaiters();
+		}
+	}
+
+	/**
+	 *
+	 * 처리 중인 url 이 모두 끝나고 대기열이 빌 때까지 대기 ( next() 를 호출하지 않는 쪽에서 사용 )
+	 * 닫힌 대기열이면 이미 꺼내 간 url 의 done() 만 기다린다.
+	 * @return 제한 시간 안에 끝났으면 true
+	 *
+	 */
+	public boolean awaitQuiescence(long timeout, TimeUnit unit) throws InterruptedException {
+		if (isQuiescent()) {
+			return true;
+		}
+		long remaining = unit.toNanos(timeout);
+		lock.lock();
+		waiters.incrementAndGet();
+		try {
+			while (!isQuiescent()) {
+				if (remaining <= 0) {
+					return false;
+				}
+				remaining = changed.awaitNanos(remaining);
+			}
+			return true;
+		} finally {
+			waiters.decrementAndGet();
+			lock.unlock();
+		}
+	}
+
+	/**
+	 *
+	 * 대기열을 닫음 ( 기다리던 next() 는 null 반환, 남은 url 은 버림 - 디스크 대기열은 파일에 남김 )
+	 *
+	 */
+	public void close() {
+		closed = true;
+		queue.close();
+		lock.lock();
+		try {
+			changed.signalAll();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	// 꺼내면 대기 -> 처리 중으로 한 번에 옮김
+	private String poll() {
+		String url = queue.poll();
+		if (url != null) {
+			state.addAndGet(IN_FLIGHT_ONE - QUEUED_ONE);
+		}
+		return url;
+	}
+
+	// 닫힌 대기열은 남은 url 과 관계없이 처리 중인 url 이 없으면 끝
+	private boolean isQuiescent() {
+		long current = state.get();
+		return closed ? current >>> 32 == 0 : current == 0;
+	}
+
+	private void signalWaiters() {
+		if (waiters.get() == 0) {
+			return;
+		}
+		lock.lock();
+		try {
+			changed.signalAll();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	public int getQueuedCount() {
+		return closed ? 0 : (int) (state.get() & QUEUED_MASK);
+	}
+
+	public int getInFlightCount() {
+		return (int) (state.get() >>> 32);
+	}
+
+	public long getClaimedCount() {
+		return claimed.sum();
+	}
+
+	public long getDuplicateCount() {
+		return duplicates.sum();
+	}
+
+	public long getCompletedCount() {
+		return completed.sum();
+	}
+
+	public int getBucketCount() {
+		return queue.getBucketCount();
+	}
+
+	public long getDiskBytes() {
+		return queue.getDiskBytes();
+	}
+
+	// next() 가 꺼낼 url 이 없어 기다린 횟수
+	public long getWaitCount() {
+		return waits.sum();
+	}
+
+	// next() 가 기다린 시간 합계
+	public long getWaitNanos() {
+		return waitNanos.sum();
+	}
+
+	public boolean isClosed() {
+		return closed;
+	}
+
+	@Override
+	public String toString() {
+		return "CrawlFrontier[queued=" + getQueuedCount() + ", inFlight=" + getInFlightCount() + ", claimed="
+				+ claimed.sum() + ", duplicates=" + duplicates.sum() + ", completed=" + completed.sum() + ", buckets="
+				+ queue.getBucketCount() + ", waits=" + waits.sum() + "]";
+	}
+}
@@ -0,0 +1,65 @@
+package com.crawler.metadata.crawl.frontier;
+
+/**
+ *
+ * CrawlFrontier 가 방문할 url 을 보관하는 대기열 ( 방문 기록, 대기 / 처리 중 수 관리는 CrawlFrontier 가 담당 )
+ * 구현체는 여러 스레드에서 동시에 호출해도 안전해야 한다.
+ *
+ */
+public interface FrontierQueue {
+
+	/**
+	 *
+	 * @param url
+	 * @return 넣었으면 true ( 닫힌 대기열, 보관할 수 없는 url 이면 false )
+	 *
+	 */
+	boolean add(String url);
+
+	/**
+	 *
+	 * @return 다음 url, 비어 있으면 null
+	 *
+	 */
+	String poll();
+
+	/**
+	 *
+	 * 대기 중인 url 수 ( 대기열을 만들 때 이미 들어 있던 url 수 확인용 )
+	 *
+	 */
+	long size();
+
+	/**
+	 *
+	 * poll() 로 꺼낸 url 의 처리 완료 ( 디스크 대기열은 처리를 마친 위치까지 checkpoint 를 옮긴다 )
+	 * @param url
+	 *
+	 */
+	default void ack(String url) {
+	}
+
+	/**
+	 *
+	 * 대기열을 닫음 ( 메모리 대기열은 남은 url 을 버리고, 디스크 대기열은 파일에 남겨 다음에 이어서 사용 )
+	 *
+	 */
+	void close();
+
+	/**
+	 *
+	 * 닫은 뒤 남은 기록까지 삭제 ( 크롤링이 끝까지 진행된 경우 )
+	 *
+	 */
+	default void delete() {
+	}
+
+	default int getBucketCount() {
+		return 1;
+	}
+
+	// 대기열이 사용하는 디스크 크기 ( byte )
+	default long getDiskBytes() {
+		return 0;
+	}
+}
@@ -0,0 +1,95 @@
+package com.crawler.metadata.crawl.frontier;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ *
+ * host hash 로 고른 bucket ( lock 없는 MPMC queue ) 으로 나눈 메모리 대기열
+ * poll() 은 bucket 을 돌아가며 꺼내므로 한 host 의 url 이 몰려 있어도 다른 host 의 url 이 뒤로 밀리지 않는다.
+ *
+ */
+public class HostBucketQueue implements FrontierQueue {
+
+	private final Queue<String>[] buckets;
+
+	private final int bucketMask;
+
+	// 다음 poll() 이 먼저 볼 bucket
+	private final AtomicInteger cursor = new AtomicInteger();
+
+	/**
+	 *
+	 * @param bucketCount host 별로 나눌 대기열 수 ( 2 의 거듭제곱으로 올림 )
+	 *
+	 */
+	@SuppressWarnings("unchecked")
+	public HostBucketQueue(int bucketCount) {
+		int count = bucketCount <= 1 ? 1 : Integer.highestOneBit(bucketCount - 1) << 1;
+		this.buckets = new Queue[count];
+		this.bucketMask = count - 1;
+		for (int i = 0; i < count; i++) {
+			buckets[i] = new ConcurrentLinkedQueue<>();
+		}
+	}
+
+	@Override
+	public boolean add(String url) {
+		return buckets[bucketOf(url)].add(url);
+	}
+
+	// cursor 의 bucket 부터 돌아가며 꺼내고 다음 차례는 꺼낸 bucket 의 다음
+	@Override
+	public String poll() {
+		int start = cursor.get();
+		for (int i = 0; i < buckets.length; i++) {
+			int index = (start + i) & bucketMask;
+			String url = buckets[index].poll();
+			if (url != null) {
+				cursor.set(index + 1);
+				return url;
+			}
+		}
+		return null;
+	}
+
+	@Override
+	public long size() {
+		long size = 0;
+		for (Queue<String> bucket : buckets) {
+			size += bucket.size();
+		}
+		return size;
+	}
+
+	@Override
+	public void close() {
+		for (Queue<String> bucket : buckets) {
+			bucket.clear();
+		}
+	}
+
+	@Override
+	public int getBucketCount() {
+		return buckets.length;
+	}
+
+	// 같은 host 의 url 은 같은 bucket ( scheme 뒤 authority 부분의 hash )
+	private int bucketOf(String url) {
+		if (bucketMask == 0) {
+			return 0;
+		}
+		int start = url.indexOf("://");
+		start = start < 0 ? 0 : start + 3;
+		int hash = 0;
+		for (int i = start; i < url.length(); i++) {
+			char c = url.charAt(i);
+			if (c == '/' || c == '?' || c == '#') {
+				break;
+			}
+			hash = 31 * hash + Character.toLowerCase(c);
+		}
+		return (hash ^ hash >>> 16) & bucketMask;
+	}
+}
@@ -0,0 +1,542 @@
+package com.crawler.metadata.crawl.frontier;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ *
+ * memory-mapped segment 파일에 url 을 이어 쓰는 디스크 대기열 ( heap 보다 큰 크롤링, 재시작 후 이어서 크롤링 )
+ *
+ * segment 는 고정 크기 파일이고, 가득 차면 다음 번호의 segment 를 만든다. ( 추가만 하고 고쳐 쓰지 않음 )
+ * url 은 같은 segment 의 바로 앞 url 과 겹치는 앞부분 길이 + 나머지 byte 로 저장한다. ( front coding )
+ *   record = varint ( 나머지 길이 + 1 ) + varint ( 겹치는 길이 ) + 나머지 UTF-8 byte
+ * record 의 첫 byte 는 항상 0 이 아니고 마지막에 쓰므로, 0 을 만나면 그 segment 의 끝 ( process 가 중간에 죽어도 반쯤 쓴 record 는 읽지 않음 )
+ *
+ * 읽기는 head 버퍼 크기만큼 미리 풀어 두고, 꺼낸 url 이 ack 되면 ( 꺼낸 순서대로 이어진 곳까지 ) 그 위치를 checkpoint 로 기록한다.
+ * 다시 열면 checkpoint 다음 url 부터 대기 중으로 보므로, 처리 중이던 url 은 다시 꺼낸다.
+ * checkpoint 는 ack checkpointEvery 번마다, 그리고 close() 시 segment 를 디스크에 내린 뒤 임시 파일 + rename 으로 바꾼다.
+ *
+ * 다 읽은 segment 도 크롤링이 끝날 때 ( delete() ) 까지 남겨서, 다시 열 때 방문 기록을 복원하는 데 사용한다.
+ *
+ */
+public class MappedFrontierQueue implements FrontierQueue {
+
+	private static final String SEGMENT_PREFIX = "segment-";
+
+	private static final String SEGMENT_SUFFIX = ".log";
+
+	private static final String CHECKPOINT = "checkpoint";
+
+	private static final int CHECKPOINT_MAGIC = 0x46524e54;
+
+	private static final byte[] EMPTY = new byte[0];
+
+	private final Logger log = LoggerFactory.getLogger(getClass());
+
+	private final Path directory;
+
+	private final int segmentBytes;
+
+	private final int headCapacity;
+
+	private final int checkpointEvery;
+
+	private long firstSegment;
+
+	// 쓰는 위치 ( 마지막 segment )
+	private long writeSegment;
+
+	private MappedByteBuffer writeBuffer;
+
+	private int writeOffset;
+
+	// front coding 기준 ( segment 마다 처음부터 )
+	private byte[] writePrevious = EMPTY;
+
+	// 읽는 위치 ( head 로 미리 읽은 곳까지 )
+	private Reader reader;
+
+	private final ArrayDeque<Entry> head;
+
+	// 꺼내 갔지만 ack 되지 않은 url ( 꺼낸 순서 )
+	private final ArrayDeque<Entry> unacked = new ArrayDeque<>();
+
+	private final Map<String, Entry> unackedByUrl = new HashMap<>();
+
+	// 처리를 마친 위치 ( 다시 열면 이 다음부터 읽음 )
+	private long checkpointSegment;
+
+	private int checkpointOffset;
+
+	private String checkpointPrevious = "";
+
+	private int acksSinceCheckpoint;
+
+	// head + 아직 읽지 않은 url 수
+	private long pending;
+
+	private long recoveredCount;
+
+	private boolean closed;
+
+	private MappedFrontierQueue(Path directory, int segmentBytes, int headCapacity, int checkpointEvery) {
+		this.directory = directory;
+		this.segmentBytes = segmentBytes;
+		this.headCapacity = Math.max(1, headCapacity);
+		this.checkpointEvery = Math.max(1, checkpointEvery);
+		this.head = new ArrayDeque<>(this.headCapacity);
+	}
+
+	/**
+	 *
+	 * directory 의 대기열을 열거나 새로 만듦
+	 * 남아 있는 segment 의 url 은 모두 recovered 로 전달하고 ( 방문 기록 복원 ), checkpoint 다음 url 은 대기 중으로 센다.
+	 * @param directory 대기열 전용 directory
+	 * @param segmentBytes segment 파일 크기
+	 * @param headCapacity 미리 읽어 둘 url 수
+	 * @param checkpointEvery checkpoint 를 기록할 ack 간격
+	 * @param recovered 남아 있던 url 을 받을 consumer
+	 * @return queue
+	 *
+	 */
+	public static MappedFrontierQueue open(Path directory, int segmentBytes, int headCapacity, int checkpointEvery,
+			Consumer<String> recovered) throws IOException {
+		MappedFrontierQueue queue = new MappedFrontierQueue(directory, segmentBytes, headCapacity, checkpointEvery);
+		queue.recover(recovered);
+		return queue;
+	}
+
+	private void recover(Consumer<String> recovered) throws IOException {
+		Files.createDirectories(directory);
+		List<Long> segments = listSegments();
+		if (segments.isEmpty()) {
+			segments = List.of(0L);
+		}
+		firstSegment = segments.get(0);
+		writeSegment = segments.get(segments.size() - 1);
+		readCheckpoint();
+		if (checkpointSegment < firstSegment || checkpointSegment > writeSegment) {
+			log.warn("[recover] checkpoint out of range ===> {} segment ===> {}", directory, checkpointSegment);
+			resetCheckpoint();
+		}
+
+		// 모든 segment 를 처음부터 읽으며 방문 기록 복원 + checkpoint 뒤의 url 수 확인, 마지막 segment 의 끝이 쓰는 위치
+		for (long segment : segments) {
+			MappedByteBuffer buffer = map(segment);
+			Reader scan = new Reader(segment, buffer, 0, EMPTY);
+			byte[] url;
+			while ((url = scan.next()) != null) {
+				recovered.accept(new String(url, StandardCharsets.UTF_8));
+				if (segment > checkpointSegment || segment == checkpointSegment && scan.offset > checkpointOffset) {
+					pending++;
+				}
+			}
+			if (segment == writeSegment) {
+				writeBuffer = buffer;
+				writeOffset = scan.offset;
+				writePrevious = scan.previous;
+			}
+		}
+		recoveredCount = pending;
+		reader = new Reader(checkpointSegment, bufferOf(checkpointSegment), checkpointOffset,
+				checkpointPrevious.getBytes(StandardCharsets.UTF_8));
+		log.info("[recover] directory ===> {} segments ===> {} pending ===> {}", directory, segments.size(), pending);
+	}
+
+	@Override
+	public synchronized boolean add(String url) {
+		if (closed) {
+			return false;
+		}
+		byte[] bytes = url.getBytes(StandardCharsets.UTF_8);
+		int shared = sharedPrefix(writePrevious, bytes);
+		int size = recordSize(bytes.length - shared, shared);
+		if (writeOffset + size > writeBuffer.capacity()) {
+			if (recordSize(bytes.length, 0) > segmentBytes) {
+				log.error("[add] url too long ===> {}", url.length());
+				return false;
+			}
+			try {
+				rollSegment();
+			} catch (IOException e) {
+				log.error("[add] segment error ===> {}", e.getMessage());
+				return false;
+			}
+			shared = 0;
+			size = recordSize(bytes.length, 0);
+		}
+		writeOffset = writeRecord(writeBuffer, writeOffset, bytes, shared);
+		writePrevious = bytes;
+		pending++;
+		return true;
+	}
+
+	@Override
+	public synchronized String poll() {
+		if (closed) {
+			return null;
+		}
+		if (head.isEmpty()) {
+			fillHead();
+		}
+		Entry entry = head.poll();
+		if (entry == null) {
+			return null;
+		}
+		pending--;
+		unacked.add(entry);
+		unackedByUrl.put(entry.url, entry);
+		return entry.url;
+	}
+
+	@Override
+	public synchronized long size() {
+		return pending;
+	}
+
+	// 꺼낸 순서대로 ack 가 이어진 곳까지 checkpoint 이동
+	@Override
+	public synchronized void ack(String url) {
+		Entry entry = unackedByUrl.remove(url);
+		if (entry == null || closed) {
+			return;
+		}
+		entry.acked = true;
+		Entry last = null;
+		while (!unacked.isEmpty() && unacked.peek().acked) {
+			last = unacked.poll();
+		}
+		if (last == null) {
+			return;
+		}
+		checkpointSegment = last.segment;
+		checkpointOffset = last.endOffset;
+		checkpointPrevious = last.url;
+		if (++acksSinceCheckpoint >= checkpointEvery) {
+			writeCheckpoint();
+		}
+	}
+
+	@Override
+	public synchronized void close() {
+		if (closed) {
+			return;
+		}
+		writeCheckpoint();
+		closed = true;
+		head.clear();
+		unacked.clear();
+		unackedByUrl.clear();
+		// mapping 은 참조가 없어지면 GC 가 해제
+		writeBuffer = null;
+		reader = null;
+	}
+
+	@Override
+	public synchronized void delete() {
+		close();
+		try (Stream<Path> files = Files.list(directory)) {
+			for (Path file : files.collect(Collectors.toList())) {
+				Files.deleteIfExists(file);
+			}
+			Files.deleteIfExists(directory);
+		} catch (NoSuchFileException e) {
+			// 이미 삭제됨
+		} catch (IOException e) {
+			log.error("[delete] directory ===> {} error ===> {}", directory, e.getMessage());
+		}
+	}
+
+	@Override
+	public synchronized long getDiskBytes() {
+		return (writeSegment - firstSegment + 1) * (long) segmentBytes;
+	}
+
+	// segment 에 기록한 byte 수 ( 다 읽은 segment 포함 )
+	public synchronized long getWrittenBytes() {
+		return (writeSegment - firstSegment) * (long) segmentBytes + writeOffset;
+	}
+
+	// 다시 열 때 대기 중이던 url 수
+	public long getRecoveredCount() {
+		return recoveredCount;
+	}
+
+	public synchronized int getSegmentCount() {
+		return (int) (writeSegment - firstSegment + 1);
+	}
+
+	public Path getDirectory() {
+		return directory;
+	}
+
+	/**
+	 *
+	 * 지금 위치를 checkpoint 로 기록 ( 기록 전에 쓴 segment 를 디스크에 내림 )
+	 *
+	 */
+	public synchronized void checkpoint() {
+		if (!closed) {
+			writeCheckpoint();
+		}
+	}
+
+	private void fillHead() {
+		while (head.size() < headCapacity) {
+			byte[] url = reader.next();
+			if (url != null) {
+				head.add(new Entry(new String(url, StandardCharsets.UTF_8), reader.segment, reader.offset));
+				continue;
+			}
+			if (reader.segment >= writeSegment) {
+				return;
+			}
+			try {
+				long next = reader.segment + 1;
+				reader = new Reader(next, bufferOf(next), 0, EMPTY);
+			} catch (IOException e) {
+				log.error("[poll] segment error ===> {}", e.getMessage());
+				return;
+			}
+		}
+	}
+
+	private void rollSegment() throws IOException {
+		MappedByteBuffer next = map(writeSegment + 1);
+		writeBuffer.force();
+		writeSegment++;
+		writeBuffer = next;
+		writeOffset = 0;
+		writePrevious = EMPTY;
+	}
+
+	// 쓰는 segment 는 같은 mapping 을 공유 ( 새로 쓴 url 을 바로 읽음 )
+	private ByteBuffer bufferOf(long segment) throws IOException {
+		return segment == writeSegment ? writeBuffer.duplicate() : map(segment);
+	}
+
+	private MappedByteBuffer map(long segment) throws IOException {
+		try (FileChannel channel = FileChannel.open(segmentPath(segment), StandardOpenOption.CREATE,
+				StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+			// 설정보다 큰 기존 파일은 파일 크기만큼
+			return channel.map(MapMode.READ_WRITE, 0, Math.max(segmentBytes, channel.size()));
+		}
+	}
+
+	private Path segmentPath(long segment) {
+		return directory.resolve(String.format("%s%010d%s", SEGMENT_PREFIX, segment, SEGMENT_SUFFIX));
+	}
+
+	private List<Long> listSegments() throws IOException {
+		try (Stream<Path> files = Files.list(directory)) {
+			return files.map(file -> file.getFileName().toString())
+					.filter(name -> name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX))
+					.map(name -> Long.parseLong(
+							name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length())))
+					.sorted().collect(Collectors.toList());
+		}
+	}
+
+	private void writeCheckpoint() {
+		acksSinceCheckpoint = 0;
+		try {
+			writeBuffer.force();
+			byte[] previous = checkpointPrevious.getBytes(StandardCharsets.UTF_8);
+			ByteBuffer data = ByteBuffer.allocate(4 + 8 + 4 + 4 + previous.length + 8);
+			data.putInt(CHECKPOINT_MAGIC).putLong(checkpointSegment).putInt(checkpointOffset).putInt(previous.length)
+					.put(previous);
+			CRC32 crc = new CRC32();
+			crc.update(data.array(), 0, data.position());
+			data.putLong(crc.getValue());
+			Path temp = directory.resolve(CHECKPOINT + ".tmp");
+			Files.write(temp, data.array());
+			Files.move(temp, directory.resolve(CHECKPOINT), StandardCopyOption.REPLACE_EXISTING,
+					StandardCopyOption.ATOMIC_MOVE);
+		} catch (IOException e) {
+			log.error("[checkpoint] directory ===> {} error ===> {}", directory, e.getMessage());
+		}
+	}
+
+	// 없거나 깨진 checkpoint 는 첫 segment 의 처음
+	private void readCheckpoint() throws IOException {
+		resetCheckpoint();
+		Path path = directory.resolve(CHECKPOINT);
+		if (!Files.exists(path)) {
+			return;
+		}
+		ByteBuffer data = ByteBuffer.wrap(Files.readAllBytes(path));
+		if (data.remaining() < 28 || data.getInt() != CHECKPOINT_MAGIC) {
+			log.warn("[recover] invalid checkpoint ===> {}", path);
+			return;
+		}
+		long segment = data.getLong();
+		int offset = data.getInt();
+		int length = data.getInt();
+		if (length < 0 || data.remaining() != length + 8) {
+			log.warn("[recover] invalid checkpoint ===> {}", path);
+			return;
+		}
+		byte[] previous = new byte[length];
+		data.get(previous);
+		CRC32 crc = new CRC32();
+		crc.update(data.array(), 0, data.position());
+		if (crc.getValue() != data.getLong()) {
+			log.warn("[recover] checkpoint checksum mismatch ===> {}", path);
+			return;
+		}
+		checkpointSegment = segment;
+		checkpointOffset = offset;
+		checkpointPrevious = new String(previous, StandardCharsets.UTF_8);
+	}
+
+	private void resetCheckpoint() {
+		checkpointSegment = firstSegment;
+		checkpointOffset = 0;
+		checkpointPrevious = "";
+	}
+
+	// 첫 byte 를 마지막에 써서 record 를 한 번에 보이게 함
+	private static int writeRecord(ByteBuffer buffer, int offset, byte[] url, int shared) {
+		int suffix = url.length - shared;
+		byte[] header = new byte[10];
+		int headerLength = putVarint(header, putVarint(header, 0, suffix + 1), shared);
+		buffer.put(offset + 1, header, 1, headerLength - 1);
+		buffer.put(offset + headerLength, url, shared, suffix);
+		buffer.put(offset, header[0]);
+		return offset + headerLength + suffix;
+	}
+
+	private static int recordSize(int suffix, int shared) {
+		return varintSize(suffix + 1) + varintSize(shared) + suffix;
+	}
+
+	private static int sharedPrefix(byte[] previous, byte[] url) {
+		int length = Math.min(previous.length, url.length);
+		int shared = 0;
+		while (shared < length && previous[shared] == url[shared]) {
+			shared++;
+		}
+		return shared;
+	}
+
+	private static int putVarint(byte[] out, int position, int value) {
+		while ((value & ~0x7f) != 0) {
+			out[position++] = (byte) (value & 0x7f | 0x80);
+			value >>>= 7;
+		}
+		out[position++] = (byte) value;
+		return position;
+	}
+
+	private static int varintSize(int value) {
+		int size = 1;
+		while ((value & ~0x7f) != 0) {
+			size++;
+			value >>>= 7;
+		}
+		return size;
+	}
+
+	/**
+	 *
+	 * segment 하나를 앞에서부터 푸는 위치 ( front coding 기준 url 포함 )
+	 *
+	 */
+	private static final class Reader {
+
+		private final long segment;
+
+		private final ByteBuffer buffer;
+
+		private int offset;
+
+		private byte[] previous;
+
+		Reader(long segment, ByteBuffer buffer, int offset, byte[] previous) {
+			this.segment = segment;
+			this.buffer = buffer;
+			this.offset = offset;
+			this.previous = previous;
+		}
+
+		// 다음 url ( segment 끝이면 null )
+		byte[] next() {
+			int limit = buffer.capacity();
+			if (offset >= limit || buffer.get(offset) == 0) {
+				return null;
+			}
+			int position = offset;
+			int suffix = 0;
+			int shared = 0;
+			for (int field = 0; field < 2; field++) {
+				int value = 0;
+				int shift = 0;
+				byte b;
+				do {
+					if (position >= limit || shift > 28) {
+						return null;
+					}
+					b = buffer.get(position++);
+					value |= (b & 0x7f) << shift;
+					shift += 7;
+				} while ((b & 0x80) != 0);
+				if (field == 0) {
+					suffix = value - 1;
+				} else {
+					shared = value;
+				}
+			}
+			if (suffix < 0 || shared > previous.length || position + suffix > limit) {
+				return null;
+			}
+			byte[] url = new byte[shared + suffix];
+			System.arraycopy(previous, 0, url, 0, shared);
+			buffer.get(position, url, shared, suffix);
+			offset = position + suffix;
+			previous = url;
+			return url;
+		}
+	}
+
+	/**
+	 *
+	 * 읽은 url 과 그 record 의 끝 위치 ( checkpoint 후보 )
+	 *
+	 */
+	private static final class Entry {
+
+		private final String url;
+
+		private final long segment;
+
+		private final int endOffset;
+
+		private boolean acked;
+
+		Entry(String url, long segment, int endOffset) {
+			this.url = url;
+			this.segment = segment;
+			this.endOffset = endOffset;
+		}
+	}
+}
@@ -0,0 +1,200 @@
+package com.crawler.metadata.crawl.job;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.crawler.metadata.crawl.CrawlListener;
+import com.crawler.metadata.crawl.CrawlPageResult;
+import com.crawler.metadata.crawl.CrawlScope;
+
+/**
+ *
+ * seed url 목록 하나에 대한 비동기 크롤링 작업
+ * 최근 maxReplayResults 개의 페이지 결과를 순서대로 보관하고, 구독한 시점까지의 결과를 먼저 보낸 뒤 이후 결과를 이어서 보낸다.
+ * 그보다 오래된 결과는 버리므로 ( 전체 결과는 result log ) 크롤링한 페이지 수와 상관없이 job 하나의 메모리는 일정하다.
+ * 결과 추가와 구독 등록은 같은 lock 안에서 처리하므로 구독 시점 전후로 결과가 빠지거나 두 번 가지 않는다.
+ *
+ */
+public class CrawlJob implements CrawlListener {
+
+	private final String id;
+
+	private final List<String> seedUrls;
+
+	// 동시 처리 페이지 수 quota, 취소
+	private final CrawlScope scope;
+
+	private final long submittedAt = System.currentTimeMillis();
+
+	// 최근 결과 ( 가장 오래된 결과의 순번 = resultCount - results.size() )
+	private final ArrayDeque<CrawlPageResult> results = new ArrayDeque<>();
+
+	private final int maxReplayResults;
+
+	private long resultCount;
+
+	private final List<CrawlJobSubscriber> subscribers = new ArrayList<>();
+
+	private final LongAdder pagesFailed = new LongAdder();
+
+	private CrawlJobStatus status = CrawlJobStatus.QUEUED;
+
+	private int seedsCompleted;
+
+	private int seedsFailed;
+
+	private Long startedAt;
+
+	private Long finishedAt;
+
+	private String error;
+
+	CrawlJob(String id, List<String> seedUrls, int maxPagesInFlight, int maxReplayResults) {
+		this.id = id;
+		this.maxReplayResults = Math.max(0, maxReplayResults);
+		this.seedUrls = Collections.unmodifiableList(new ArrayList<>(seedUrls));
+		this.scope = new CrawlScope(id, maxPagesInFlight);
+	}
+
+	public String getId() {
+		return id;
+	}
+
+	public List<String> getSeedUrls() {
+		return seedUrls;
+	}
+
+	public synchronized CrawlJobStatus getStatus() {
+		return status;
+	}
+
+	public synchronized boolean isFinished() {
+		return status == CrawlJobStatus.COMPLETED || status == CrawlJobStatus.FAILED
+				|| status == CrawlJobStatus.CANCELLED;
+	}
+
+	CrawlScope getScope() {
+		return scope;
+	}
+
+	public synchronized CrawlJobProgress getProgress() {
+		return new CrawlJobProgress(id, status, seedUrls, seedsCompleted, resultCount, pagesFailed.sum(),
+				submittedAt, startedAt, finishedAt, error);
+	}
+
+	/**
+	 *
+	 * from 번째 결과부터 구독 ( 이미 끝난 job 이면 남은 결과와 완료를 바로 전달 )
+	 * 보관 범위보다 오래된 결과는 건너뛰고 보관 중인 가장 오래된 결과부터 전달한다.
+	 * subscriber 는 이 job 의 lock 안에서 호출되므로 바로 반환해야 한다.
+	 * @param from 건너뛸 결과 수
+	 * @param subscriber
+	 *
+	 */
+	public void subscribe(long from, CrawlJobSubscriber subscriber) {
+		CrawlJobProgress completed = null;
+		synchronized (this) {
+			try {
+				long index = resultCount - results.size();
+				for (CrawlPageResult result : results) {
+					if (index >= from) {
+						subscriber.onResult(index, result);
+					}
+					index++;
+				}
+				if (isFinished()) {
+					completed = getProgress();
+				} else {
+					subscribers.add(subscriber);
+				}
+			} catch (IOException e) {
+				return;
+			}
+		}
+		if (completed != null) {
+			try {
+				subscriber.onComplete(completed);
+			} catch (IOException e) {
+				// 연결이 끊긴 subscriber
+			}
+		}
+	}
+
+	public synchronized void unsubscribe(CrawlJobSubscriber subscriber) {
+		subscribers.remove(subscriber);
+	}
+
+	@Override
+	public synchronized void onPage(CrawlPageResult result) {
+		long index = resultCount++;
+		results.addLast(result);
+		if (results.size() > maxReplayResults) {
+			results.removeFirst();
+		}
+		for (int i = subscribers.size() - 1; i >= 0; i--) {
+			try {
+				subscribers.get(i).onResult(index, result);
+			} catch (IOException e) {
+				subscribers.remove(i);
+			}
+		}
+	}
+
+	@Override
+	public void onPageFailed(String url, String reason) {
+		pagesFailed.increment();
+	}
+
+	synchronized void seedStarted() {
+		if (status == CrawlJobStatus.QUEUED) {
+			status = CrawlJobStatus.RUNNING;
+			startedAt = System.currentTimeMillis();
+		}
+	}
+
+	/**
+	 *
+	 * seed 하나의 크롤링 종료 ( 모든 seed 가 끝나면 job 완료 후 subscriber 에 알림 )
+	 * @param failure 실패 원인, 성공이면 null
+	 *
+	 */
+	void seedFinished(Throwable failure) {
+		List<CrawlJobSubscriber> completed;
+		CrawlJobProgress progress;
+		synchronized (this) {
+			seedsCompleted++;
+			if (failure != null) {
+				seedsFailed++;
+				error = failure.getMessage() == null ? failure.toString() : failure.getMessage();
+			}
+			if (seedsCompleted < seedUrls.size()) {
+				return;
+			}
+			status = scope.isCancelled() ? CrawlJobStatus.CANCELLED
+					: seedsFailed > 0 ? CrawlJobStatus.FAILED : CrawlJobStatus.COMPLETED;
+			finishedAt = System.currentTimeMillis();
+			if (startedAt == null) {
+				startedAt = finishedAt;
+			}
+			completed = new ArrayList<>(subscribers);
+			subscribers.clear();
+			progress = getProgress();
+		}
+		for (CrawlJobSubscriber subscriber : completed) {
+			try {
+				subscriber.onComplete(progress);
+			} catch (IOException e) {
+				// 연결이 끊긴 subscriber
+			}
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "CrawlJob [id=" + id + ", seedUrls=" + seedUrls + "]";
+	}
+}
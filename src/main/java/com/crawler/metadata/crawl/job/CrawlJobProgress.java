@@ -0,0 +1,93 @@
+package com.crawler.metadata.crawl.job;
+
+import java.util.List;
+
+/**
+ *
+ * crawl job 진행 상황 snapshot
+ *
+ */
+public class CrawlJobProgress {
+
+	private final String id;
+
+	private final CrawlJobStatus status;
+
+	private final List<String> seedUrls;
+
+	private final int seedsCompleted;
+
+	private final long pagesCrawled;
+
+	private final long pagesFailed;
+
+	private final long submittedAt;
+
+	private final Long startedAt;
+
+	private final Long finishedAt;
+
+	private final String error;
+
+	public CrawlJobProgress(String id, CrawlJobStatus status, List<String> seedUrls, int seedsCompleted,
+			long pagesCrawled, long pagesFailed, long submittedAt, Long startedAt, Long finishedAt, String error) {
+		this.id = id;
+		this.status = status;
+		this.seedUrls = seedUrls;
+		this.seedsCompleted = seedsCompleted;
+		this.pagesCrawled = pagesCrawled;
+		this.pagesFailed = pagesFailed;
+		this.submittedAt = submittedAt;
+		this.startedAt = startedAt;
+		this.finishedAt = finishedAt;
+		this.error = error;
+	}
+
+	public String getId() {
+		return id;
+	}
+
+	public CrawlJobStatus getStatus() {
+		return status;
+	}
+
+	public List<String> getSeedUrls() {
+		return seedUrls;
+	}
+
+	public int getSeedsCompleted() {
+		return seedsCompleted;
+	}
+
+	public long getPagesCrawled() {
+		return pagesCrawled;
+	}
+
+	public long getPagesFailed() {
+		return pagesFailed;
+	}
+
+	public long getSubmittedAt() {
+		return submittedAt;
+	}
+
+	public Long getStartedAt() {
+		return startedAt;
+	}
+
+	public Long getFinishedAt() {
+		return finishedAt;
+	}
+
+	public String getError() {
+		return error;
+	}
+
+	@Override
+	public String toString() {
+		return "CrawlJobProgress [id=" + id + ", status=" + status + ", seedUrls=" + seedUrls + ", seedsCompleted="
+				+ seedsCompleted + ", pagesCrawled=" + pagesCrawled + ", pagesFailed=" + pagesFailed
+				+ ", submittedAt=" + submittedAt + ", startedAt=" + startedAt + ", finishedAt=" + finishedAt
+				+ ", error=" + error + "]";
+	}
+}
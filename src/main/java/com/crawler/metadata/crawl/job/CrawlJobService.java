@@ -0,0 +1,231 @@
+package com.crawler.metadata.crawl.job;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import com.crawler.metadata.config.CrawlerProperties;
+import com.crawler.metadata.crawl.CrawlerService;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ *
+ * crawl job 제출, 조회, 결과 구독
+ * 요청 스레드 ( tomcat worker ) 는 job 을 등록하고 바로 반환하며, seed 마다 jobExecutor 에서 crawl 을 실행한다.
+ * 결과는 streamExecutor 에서 subscriber 로 전달한다.
+ * executor, pipeline 은 application 전체가 공유하고 job 마다 CrawlScope 로 동시 처리 페이지 수를 제한한다.
+ * application 종료 시 새 job 을 받지 않고 실행 중인 job 이 끝날 때까지 기다린 뒤 ( drainTimeoutMs ), 남은 job 은 취소한다.
+ *
+ */
+@Service
+@Slf4j
+public class CrawlJobService {
+
+	private final Logger log = LoggerFactory.getLogger(getClass());
+
+	private final CrawlerService crawlerService;
+
+	private final ThreadPoolTaskExecutor jobExecutor;
+
+	private final ThreadPoolTaskExecutor streamExecutor;
+
+	private final int maxRetained;
+
+	private final int maxPagesInFlightPerJob;
+
+	private final int maxReplayResults;
+
+	private final int maxPendingPerSubscriber;
+
+	private final long drainTimeoutMs;
+
+	private volatile boolean accepting = true;
+
+	// 제출 순서 ( 끝난 job 은 maxRetained 를 넘으면 오래된 것부터 삭제 )
+	private final Map<String, CrawlJob> jobs = new LinkedHashMap<>();
+
+	public CrawlJobService(CrawlerService crawlerService,
+			@Qualifier("jobExecutor") ThreadPoolTaskExecutor jobExecutor,
+			@Qualifier("streamExecutor") ThreadPoolTaskExecutor streamExecutor, CrawlerProperties properties) {
+		this.crawlerService = crawlerService;
+		this.jobExecutor = jobExecutor;
+		this.streamExecutor = streamExecutor;
+		this.maxRetained = Math.max(1, properties.getJobs().getMaxRetained());
+		this.maxPagesInFlightPerJob = properties.getJobs().getMaxPagesInFlightPerJob();
+		this.drainTimeoutMs = properties.getJobs().getDrainTimeoutMs();
+		this.maxReplayResults = properties.getJobs().getMaxReplayResults();
+		// 다시 보내는 결과가 한 번에 들어갈 수 있도록
+		this.maxPendingPerSubscriber = Math.max(maxReplayResults + 1,
+				properties.getJobs().getMaxPendingPerSubscriber());
+	}
+
+	/**
+	 *
+	 * seed url 목록의 crawl job 등록 후 바로 반환
+	 * @param seedUrls
+	 * @return job
+	 * @throws RejectedExecutionException job 대기열이 가득 찬 경우, 종료 중인 경우
+	 *
+	 */
+	public CrawlJob submit(List<String> seedUrls) {
+		if (seedUrls == null || seedUrls.isEmpty()) {
+			throw new IllegalArgumentException("seedUrls is empty");
+		}
+		if (!accepting) {
+			throw new RejectedExecutionException("crawl job service is shutting down");
+		}
+		if (jobExecutor.getThreadPoolExecutor().getQueue().remainingCapacity() < seedUrls.size()) {
+			throw new RejectedExecutionException("crawl job queue is full");
+		}
+		CrawlJob job = new CrawlJob(UUID.randomUUID().toString(), seedUrls, maxPagesInFlightPerJob,
+				maxReplayResults);
+		register(job);
+		for (String seedUrl : job.getSeedUrls()) {
+			try {
+				jobExecutor.execute(() -> run(job, seedUrl));
+			} catch (RejectedExecutionException e) {
+				log.error("[submit] job ===> {} seed rejected ===> {}", job.getId(), seedUrl);
+				job.seedFinished(e);
+			}
+		}
+		log.info("[submit] job ===> {} seeds ===> {}", job.getId(), seedUrls);
+		return job;
+	}
+
+	private void run(CrawlJob job, String seedUrl) {
+		Throwable failure = null;
+		// 대기 중에 취소된 job 은 crawl 하지 않음
+		if (!job.getScope().isCancelled()) {
+			job.seedStarted();
+			try {
+				crawlerService.crawl(seedUrl, job, job.getScope());
+			} catch (RuntimeException e) {
+				log.error("[run] job ===> {} seed ===> {}", job.getId(), seedUrl, e);
+				failure = e;
+			}
+		}
+		job.seedFinished(failure);
+		if (job.isFinished()) {
+			log.info("[run] job finished ===> {}", job.getProgress());
+			synchronized (jobs) {
+				jobs.notifyAll();
+			}
+		}
+	}
+
+	/**
+	 *
+	 * job 취소 ( 대기 중인 seed 는 실행하지 않고, 실행 중인 seed 는 처리 중인 페이지가 끝나는 대로 종료 )
+	 * @param id
+	 * @return 취소한 job, 없으면 null
+	 *
+	 */
+	public CrawlJob cancel(String id) {
+		CrawlJob job = get(id);
+		if (job != null && !job.isFinished()) {
+			log.info("[cancel] job ===> {}", id);
+			job.getScope().cancel();
+		}
+		return job;
+	}
+
+	/**
+	 *
+	 * application 종료 시 graceful drain
+	 * 새 job 은 거절하고, 실행 중인 job 을 drainTimeoutMs 동안 기다린 뒤 남은 job 은 취소하고 끝날 때까지 기다린다.
+	 *
+	 */
+	@PreDestroy
+	public void shutdown() throws InterruptedException {
+		accepting = false;
+		if (!awaitJobs(drainTimeoutMs)) {
+			List<CrawlJob> running = new ArrayList<>();
+			synchronized (jobs) {
+				for (CrawlJob job : jobs.values()) {
+					if (!job.isFinished()) {
+						running.add(job);
+					}
+				}
+			}
+			log.warn("[shutdown] cancel unfinished jobs ===> {}", running);
+			for (CrawlJob job : running) {
+				job.getScope().cancel();
+			}
+			awaitJobs(drainTimeoutMs);
+		}
+	}
+
+	private boolean awaitJobs(long timeoutMs) throws InterruptedException {
+		long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+		synchronized (jobs) {
+			while (jobs.values().stream().anyMatch(job -> !job.isFinished())) {
+				long remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+				if (remaining <= 0) {
+					return false;
+				}
+				jobs.wait(remaining);
+			}
+			return true;
+		}
+	}
+
+	public CrawlJob get(String id) {
+		synchronized (jobs) {
+			return jobs.get(id);
+		}
+	}
+
+	public List<CrawlJobProgress> list() {
+		List<CrawlJobProgress> progress = new ArrayList<>();
+		synchronized (jobs) {
+			for (CrawlJob job : jobs.values()) {
+				progress.add(job.getProgress());
+			}
+		}
+		return progress;
+	}
+
+	/**
+	 *
+	 * job 결과 구독 ( from 번째 결과부터, 이후 결과는 끝날 때까지 이어서 전달 )
+	 * subscriber 는 streamExecutor 에서 순서대로 호출된다.
+	 * 보내지 못한 결과가 maxPendingPerSubscriber 개를 넘으면 구독을 해제하고 onDropped 를 호출한다.
+	 * @param job
+	 * @param from
+	 * @param subscriber
+	 * @return 응답이 먼저 끝났을 때 구독을 해제하는 handle
+	 *
+	 */
+	public CrawlJobSubscription subscribe(CrawlJob job, long from, CrawlJobSubscriber subscriber) {
+		QueuedSubscriber queued = new QueuedSubscriber(job, subscriber, streamExecutor, maxPendingPerSubscriber);
+		job.subscribe(from, queued);
+		return queued;
+	}
+
+	private void register(CrawlJob job) {
+		synchronized (jobs) {
+			jobs.put(job.getId(), job);
+			int excess = jobs.size() - maxRetained;
+			for (Iterator<CrawlJob> it = jobs.values().iterator(); excess > 0 && it.hasNext();) {
+				if (it.next().isFinished()) {
+					it.remove();
+					excess--;
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,14 @@
+package com.crawler.metadata.crawl.job;
+
+public enum CrawlJobStatus {
+	// 실행 대기 중
+	QUEUED,
+	// seed 중 하나 이상 크롤링 중
+	RUNNING,
+	// 모든 seed 크롤링 완료
+	COMPLETED,
+	// seed 크롤링이 하나라도 실패 ( 실행 거절 포함 )
+	FAILED,
+	// 취소 ( 처리 중이던 페이지까지만 진행 )
+	CANCELLED
+}
@@ -0,0 +1,34 @@
+package com.crawler.metadata.crawl.job;
+
+import java.io.IOException;
+
+import com.crawler.metadata.crawl.CrawlPageResult;
+
+/**
+ *
+ * crawl job 의 결과를 차례로 받는 subscriber ( 응답 stream 등 )
+ * IOException 을 던지면 ( client 연결 끊김 ) 구독이 해제된다.
+ *
+ */
+public interface CrawlJobSubscriber {
+
+	/**
+	 *
+	 * 결과 하나 전달
+	 * @param index job 안에서 결과의 순번 ( 0 부터, 보관 범위를 벗어난 결과는 건너뛰므로 연속이 아닐 수 있음 )
+	 * @param result
+	 *
+	 */
+	void onResult(long index, CrawlPageResult result) throws IOException;
+
+	void onComplete(CrawlJobProgress progress) throws IOException;
+
+	/**
+	 *
+	 * 결과를 받는 속도가 너무 느려서 구독이 해제됨 ( 대기열이 가득 참 )
+	 * 이후 결과는 전달되지 않으므로 응답을 닫고, client 는 마지막으로 받은 순번 다음부터 다시 구독한다.
+	 *
+	 */
+	default void onDropped() throws IOException {
+	}
+}
@@ -0,0 +1,17 @@
+package com.crawler.metadata.crawl.job;
+
+/**
+ *
+ * CrawlJobService.subscribe 로 등록한 구독
+ * 응답이 먼저 끝나면 ( client 연결 끊김, timeout ) 구독을 해제해서 결과를 더 쌓지 않는다.
+ *
+ */
+public interface CrawlJobSubscription {
+
+	/**
+	 *
+	 * 구독 해제 ( 전달을 기다리던 결과는 버림, 여러 번 호출해도 됨 )
+	 *
+	 */
+	void cancel();
+}
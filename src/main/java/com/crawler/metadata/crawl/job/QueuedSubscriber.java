@@ -0,0 +1,142 @@
+package com.crawler.metadata.crawl.job;
+
+import java.io.IOException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.crawler.metadata.crawl.CrawlPageResult;
+
+/**
+ *
+ * 결과를 대기열에 넣고 executor 에서 순서대로 전달하는 subscriber
+ * crawl 의 extract 단계 스레드가 느린 client 에 응답을 쓰느라 막히지 않도록 한다.
+ * 한 subscriber 의 전달은 한 번에 하나의 스레드에서만 실행되므로 순서가 유지된다.
+ * 대기열이 maxPending 개를 넘으면 ( client 가 결과를 받는 속도가 너무 느림 ) 대기열을 비우고 구독을 해제한다.
+ *
+ */
+final class QueuedSubscriber implements CrawlJobSubscriber, CrawlJobSubscription {
+
+	private final CrawlJob job;
+
+	private final CrawlJobSubscriber delegate;
+
+	private final Executor executor;
+
+	private final int maxPending;
+
+	private final ConcurrentLinkedQueue<Pending> pending = new ConcurrentLinkedQueue<>();
+
+	private final AtomicInteger pendingCount = new AtomicInteger();
+
+	private final AtomicBoolean scheduled = new AtomicBoolean();
+
+	private volatile CrawlJobProgress completed;
+
+	private volatile boolean closed;
+
+	// 대기열이 가득 차서 해제됨 ( delegate 에 아직 알리지 않았으면 dropNotified = false )
+	private volatile boolean dropped;
+
+	private volatile boolean dropNotified;
+
+	QueuedSubscriber(CrawlJob job, CrawlJobSubscriber delegate, Executor executor, int maxPending) {
+		this.job = job;
+		this.delegate = delegate;
+		this.executor = executor;
+		this.maxPending = Math.max(1, maxPending);
+	}
+
+	@Override
+	public void onResult(long index, CrawlPageResult result) throws IOException {
+		if (closed) {
+			throw new IOException("subscriber closed");
+		}
+		if (pendingCount.incrementAndGet() > maxPending) {
+			// 호출한 job 이 IOException 을 받고 구독을 해제함
+			dropped = true;
+			closed = true;
+			pending.clear();
+			schedule();
+			throw new IOException("subscriber queue is full ( " + maxPending + " )");
+		}
+		pending.add(new Pending(index, result));
+		schedule();
+	}
+
+	@Override
+	public void onComplete(CrawlJobProgress progress) {
+		completed = progress;
+		schedule();
+	}
+
+	@Override
+	public void cancel() {
+		close();
+	}
+
+	private void schedule() {
+		if (scheduled.compareAndSet(false, true)) {
+			try {
+				executor.execute(this::drain);
+			} catch (RejectedExecutionException e) {
+				scheduled.set(false);
+				close();
+			}
+		}
+	}
+
+	private void drain() {
+		try {
+			Pending next;
+			while (!closed && (next = pending.poll()) != null) {
+				pendingCount.decrementAndGet();
+				delegate.onResult(next.index, next.result);
+			}
+			if (dropped) {
+				if (!dropNotified) {
+					dropNotified = true;
+					delegate.onDropped();
+				}
+				return;
+			}
+			// completed 는 마지막 결과 뒤에 설정되므로, 대기열이 빈 것을 확인한 뒤에 완료 전달
+			CrawlJobProgress progress = completed;
+			if (!closed && progress != null && pending.isEmpty()) {
+				closed = true;
+				delegate.onComplete(progress);
+			}
+		} catch (IOException | RuntimeException e) {
+			close();
+		} finally {
+			scheduled.set(false);
+		}
+		// drain 을 마치는 사이에 들어온 결과, 가득 차서 해제된 경우
+		if ((!closed && (!pending.isEmpty() || completed != null)) || (dropped && !dropNotified)) {
+			schedule();
+		}
+	}
+
+	private void close() {
+		closed = true;
+		pending.clear();
+		job.unsubscribe(this);
+	}
+
+	/**
+	 * 전달을 기다리는 결과와 순번
+	 */
+	private static final class Pending {
+
+		private final long index;
+
+		private final CrawlPageResult result;
+
+		private Pending(long index, CrawlPageResult result) {
+			this.index = index;
+			this.result = result;
+		}
+	}
+}
@@ -0,0 +1,340 @@
+package com.crawler.metadata.crawl.persist;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.UnaryOperator;
+
+import javax.annotation.PreDestroy;
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.crawler.metadata.config.CrawlerProperties;
+import com.crawler.metadata.crawl.CrawlPageResult;
+import com.crawler.metadata.crawl.URLQueueService;
+import com.crawler.metadata.crawl.sink.CrawlResultSink;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ *
+ * 수집한 페이지와 meta tag 를 DB 에 모아서 저장 ( write-behind )
+ * write() 는 버퍼에 넣기만 하고, 저장 스레드가 batchSize 개가 모이거나 flushInterval 이 지나면 한 transaction 으로 저장한다.
+ * 페이지는 canonical url 을 key 로 MERGE 하므로 같은 페이지를 다시 수집해도 row 가 늘지 않는다. ( meta tag 는 지우고 다시 넣음 )
+ * 버퍼가 가득 차면 write() 를 호출한 스레드 ( extract 단계 ) 가 기다리므로 저장이 밀린 만큼 크롤링도 느려진다. ( backpressure )
+ *
+ */
+@Component
+@Slf4j
+public class MetadataWriter implements CrawlResultSink {
+
+	private static final String CREATE_PAGE = "CREATE TABLE IF NOT EXISTS crawl_page ("
+			+ "url_key VARCHAR(4096) PRIMARY KEY, url VARCHAR(4096) NOT NULL, final_url VARCHAR(4096), "
+			+ "seed_url VARCHAR(4096), status_code INT, title VARCHAR, canonical_url VARCHAR(4096), link_count INT, "
+			+ "crawled_at TIMESTAMP)";
+
+	private static final String CREATE_META_TAG = "CREATE TABLE IF NOT EXISTS crawl_meta_tag ("
+			+ "url_key VARCHAR(4096) NOT NULL, name VARCHAR(1024) NOT NULL, content VARCHAR, "
+			+ "PRIMARY KEY (url_key, name))";
+
+	private static final String MERGE_PAGE = "MERGE INTO crawl_page (url_key, url, final_url, seed_url, status_code, "
+			+ "title, canonical_url, link_count, crawled_at) KEY (url_key) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+	private static final String DELETE_META_TAGS = "DELETE FROM crawl_meta_tag WHERE url_key = ?";
+
+	private static final String INSERT_META_TAG = "INSERT INTO crawl_meta_tag (url_key, name, content) VALUES (?, ?, ?)";
+
+	private final Logger log = LoggerFactory.getLogger(getClass());
+
+	private final DataSource dataSource;
+
+	private final UnaryOperator<String> canonicalizer;
+
+	private final boolean enabled;
+
+	private final int bufferCapacity;
+
+	private final int batchSize;
+
+	private final long flushIntervalNanos;
+
+	private final BlockingQueue<CrawlPageResult> buffer;
+
+	private volatile boolean running = true;
+
+	private Thread flusher;
+
+	// write() 로 받은 페이지 수 / 저장을 마친 ( 성공 + 실패 ) 페이지 수 ( flush() 대기용 )
+	private final AtomicLong submitted = new AtomicLong();
+
+	private long processed;
+
+	private final LongAdder written = new LongAdder();
+
+	private final LongAdder failed = new LongAdder();
+
+	private final LongAdder batches = new LongAdder();
+
+	private final LongAdder blockedWrites = new LongAdder();
+
+	private final LongAdder flushNanos = new LongAdder();
+
+	private final AtomicLong maxFlushNanos = new AtomicLong();
+
+	@Autowired
+	public MetadataWriter(DataSource dataSource, URLQueueService urlQueueService, CrawlerProperties properties) {
+		this(dataSource, urlQueueService::canonicalize, properties.getPersistence());
+	}
+
+	/**
+	 *
+	 * @param dataSource
+	 * @param canonicalizer 페이지 key ( canonical url ) 변환
+	 * @param persistence 버퍼, batch 설정
+	 *
+	 */
+	public MetadataWriter(DataSource dataSource, UnaryOperator<String> canonicalizer,
+			CrawlerProperties.Persistence persistence) {
+		this.dataSource = dataSource;
+		this.canonicalizer = canonicalizer;
+		this.enabled = persistence.isEnabled();
+		this.bufferCapacity = Math.max(1, persistence.getBufferCapacity());
+		this.batchSize = Math.max(1, persistence.getBatchSize());
+		this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, persistence.getFlushIntervalMs()));
+		this.buffer = new ArrayBlockingQueue<>(bufferCapacity);
+		if (enabled) {
+			createTables();
+			flusher = new Thread(this::flushLoop, "metadata-writer");
+			flusher.setDaemon(true);
+			flusher.start();
+		}
+	}
+
+	/**
+	 *
+	 * 페이지 결과를 저장 버퍼에 넣음 ( 버퍼가 가득 차면 자리가 날 때까지 대기 )
+	 * @param result
+	 *
+	 */
+	@Override
+	public void write(CrawlPageResult result) {
+		if (!enabled) {
+			return;
+		}
+		if (!running) {
+			log.error("[write] writer stopped ===> {}", result.getUrl());
+			failed.increment();
+			return;
+		}
+		submitted.incrementAndGet();
+		if (buffer.offer(result)) {
+			return;
+		}
+		blockedWrites.increment();
+		try {
+			buffer.put(result);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			log.error("[write] interrupted ===> {}", result.getUrl());
+			failed.increment();
+			markProcessed(1);
+		}
+	}
+
+	/**
+	 *
+	 * 지금까지 write() 한 페이지의 저장이 끝날 때까지 대기
+	 * @return 제한 시간 안에 끝났으면 true
+	 *
+	 */
+	public boolean flush(long timeout, TimeUnit unit) throws InterruptedException {
+		long target = submitted.get();
+		long deadline = System.nanoTime() + unit.toNanos(timeout);
+		synchronized (this) {
+			while (processed < target) {
+				long remaining = deadline - System.nanoTime();
+				if (remaining <= 0) {
+					return false;
+				}
+				TimeUnit.NANOSECONDS.timedWait(this, remaining);
+			}
+			return true;
+		}
+	}
+
+	/**
+	 *
+	 * 버퍼에 남은 페이지를 저장하고 저장 스레드 종료 ( 크롤링 스레드가 먼저 종료된 뒤 호출됨 )
+	 *
+	 */
+	@PreDestroy
+	public void stop() {
+		running = false;
+		if (flusher == null) {
+			return;
+		}
+		try {
+			flusher.join(TimeUnit.SECONDS.toMillis(30));
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		if (flusher.isAlive()) {
+			log.error("[stop] writer did not finish ===> buffered {}", buffer.size());
+		}
+	}
+
+	public PersistenceMetrics getMetrics() {
+		long batchCount = batches.sum();
+		long rows = written.sum();
+		return new PersistenceMetrics(enabled, buffer.size(), bufferCapacity, batchSize, submitted.get(), rows,
+				failed.sum(), batchCount, blockedWrites.sum(), batchCount == 0 ? 0 : (double) rows / batchCount,
+				batchCount == 0 ? 0 : flushNanos.sum() / 1_000_000.0 / batchCount, maxFlushNanos.get() / 1_000_000.0);
+	}
+
+	// batchSize 개가 모이거나 첫 페이지를 꺼낸 뒤 flushInterval 이 지나면 저장 ( 종료 시에는 남은 페이지를 바로 저장 )
+	private void flushLoop() {
+		List<CrawlPageResult> batch = new ArrayList<>(batchSize);
+		while (running || !buffer.isEmpty()) {
+			try {
+				CrawlPageResult first = buffer.poll(flushIntervalNanos, TimeUnit.NANOSECONDS);
+				if (first == null) {
+					continue;
+				}
+				batch.add(first);
+				long deadline = System.nanoTime() + flushIntervalNanos;
+				while (batch.size() < batchSize) {
+					buffer.drainTo(batch, batchSize - batch.size());
+					long remaining = deadline - System.nanoTime();
+					if (batch.size() >= batchSize || remaining <= 0 || !running) {
+						break;
+					}
+					CrawlPageResult next = buffer.poll(remaining, TimeUnit.NANOSECONDS);
+					if (next == null) {
+						break;
+					}
+					batch.add(next);
+				}
+			} catch (InterruptedException e) {
+				// 종료 중이면 남은 페이지만 저장
+				running = false;
+			}
+			if (!batch.isEmpty()) {
+				writeBatch(batch);
+				batch.clear();
+			}
+		}
+	}
+
+	private void writeBatch(List<CrawlPageResult> batch) {
+		long start = System.nanoTime();
+		// 같은 batch 안에서 같은 페이지는 마지막 결과만
+		Map<String, CrawlPageResult> pages = new LinkedHashMap<>();
+		for (CrawlPageResult result : batch) {
+			pages.put(canonicalizer.apply(result.getUrl()), result);
+		}
+		try {
+			writePages(pages);
+			written.add(pages.size());
+		} catch (SQLException | RuntimeException e) {
+			log.warn("[writeBatch] pages ===> {} error ===> {} retry one by one", pages.size(), e.getMessage());
+			// 잘못된 페이지 하나 때문에 batch 전체를 잃지 않도록 한 페이지씩 다시 저장
+			for (Map.Entry<String, CrawlPageResult> page : pages.entrySet()) {
+				try {
+					writePages(Collections.singletonMap(page.getKey(), page.getValue()));
+					written.increment();
+				} catch (SQLException | RuntimeException pageError) {
+					log.error("[writeBatch] url ===> {} error ===> {}", page.getValue().getUrl(),
+							pageError.getMessage());
+					failed.increment();
+				}
+			}
+		}
+		long elapsed = System.nanoTime() - start;
+		batches.increment();
+		flushNanos.add(elapsed);
+		maxFlushNanos.accumulateAndGet(elapsed, Math::max);
+		markProcessed(batch.size());
+		log.debug("[writeBatch] pages ===> {} elapsed ===> {}ms", batch.size(), elapsed / 1_000_000);
+	}
+
+	// 한 transaction 으로 저장 ( 실패하면 모두 rollback )
+	private void writePages(Map<String, CrawlPageResult> pages) throws SQLException {
+		try (Connection connection = dataSource.getConnection()) {
+			connection.setAutoCommit(false);
+			try (PreparedStatement merge = connection.prepareStatement(MERGE_PAGE);
+					PreparedStatement deleteTags = connection.prepareStatement(DELETE_META_TAGS);
+					PreparedStatement insertTag = connection.prepareStatement(INSERT_META_TAG)) {
+				for (Map.Entry<String, CrawlPageResult> page : pages.entrySet()) {
+					addPage(merge, deleteTags, insertTag, page.getKey(), page.getValue());
+				}
+				merge.executeBatch();
+				deleteTags.executeBatch();
+				insertTag.executeBatch();
+				connection.commit();
+			} catch (SQLException | RuntimeException e) {
+				connection.rollback();
+				throw e;
+			}
+		}
+	}
+
+	private static void addPage(PreparedStatement merge, PreparedStatement deleteTags, PreparedStatement insertTag,
+			String key, CrawlPageResult result) throws SQLException {
+		merge.setString(1, key);
+		merge.setString(2, result.getUrl());
+		merge.setString(3, result.getFinalUrl());
+		merge.setString(4, result.getSeedUrl());
+		merge.setInt(5, result.getStatusCode());
+		merge.setString(6, result.getTitle());
+		merge.setString(7, result.getCanonicalUrl());
+		merge.setInt(8, result.getLinkCount());
+		if (result.getCrawledAt() > 0) {
+			merge.setTimestamp(9, new Timestamp(result.getCrawledAt()));
+		} else {
+			merge.setNull(9, Types.TIMESTAMP);
+		}
+		merge.addBatch();
+		deleteTags.setString(1, key);
+		deleteTags.addBatch();
+		if (result.getMetaTags() == null) {
+			return;
+		}
+		for (Map.Entry<String, String> tag : result.getMetaTags().entrySet()) {
+			insertTag.setString(1, key);
+			insertTag.setString(2, tag.getKey());
+			insertTag.setString(3, tag.getValue());
+			insertTag.addBatch();
+		}
+	}
+
+	private synchronized void markProcessed(int count) {
+		processed += count;
+		notifyAll();
+	}
+
+	private void createTables() {
+		try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+			statement.execute(CREATE_PAGE);
+			statement.execute(CREATE_META_TAG);
+		} catch (SQLException e) {
+			throw new IllegalStateException("failed to create metadata tables", e);
+		}
+	}
+}
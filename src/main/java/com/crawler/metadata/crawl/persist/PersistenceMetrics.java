@@ -0,0 +1,107 @@
+package com.crawler.metadata.crawl.persist;
+
+/**
+ *
+ * 페이지 저장 ( write-behind ) 버퍼 깊이, batch 크기, 저장 시간 통계 snapshot
+ *
+ */
+public class PersistenceMetrics {
+
+	private final boolean enabled;
+
+	private final int buffered;
+
+	private final int capacity;
+
+	private final int batchSize;
+
+	private final long submitted;
+
+	private final long written;
+
+	private final long failed;
+
+	private final long batches;
+
+	private final long blockedWrites;
+
+	private final double avgBatchSize;
+
+	private final double avgFlushMs;
+
+	private final double maxFlushMs;
+
+	public PersistenceMetrics(boolean enabled, int buffered, int capacity, int batchSize, long submitted,
+			long written, long failed, long batches, long blockedWrites, double avgBatchSize, double avgFlushMs,
+			double maxFlushMs) {
+		this.enabled = enabled;
+		this.buffered = buffered;
+		this.capacity = capacity;
+		this.batchSize = batchSize;
+		this.submitted = submitted;
+		this.written = written;
+		this.failed = failed;
+		this.batches = batches;
+		this.blockedWrites = blockedWrites;
+		this.avgBatchSize = avgBatchSize;
+		this.avgFlushMs = avgFlushMs;
+		this.maxFlushMs = maxFlushMs;
+	}
+
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	public int getBuffered() {
+		return buffered;
+	}
+
+	public int getCapacity() {
+		return capacity;
+	}
+
+	public int getBatchSize() {
+		return batchSize;
+	}
+
+	public long getSubmitted() {
+		return submitted;
+	}
+
+	public long getWritten() {
+		return written;
+	}
+
+	public long getFailed() {
+		return failed;
+	}
+
+	public long getBatches() {
+		return batches;
+	}
+
+	// 버퍼가 가득 차서 write() 가 기다린 횟수
+	public long getBlockedWrites() {
+		return blockedWrites;
+	}
+
+	public double getAvgBatchSize() {
+		return avgBatchSize;
+	}
+
+	public double getAvgFlushMs() {
+		return avgFlushMs;
+	}
+
+	public double getMaxFlushMs() {
+		return maxFlushMs;
+	}
+
+	@Override
+	public String toString() {
+		return "PersistenceMetrics [enabled=" + enabled + ", buffered=" + buffered + ", capacity=" + capacity
+				+ ", batchSize=" + batchSize + ", submitted=" + submitted + ", written=" + written + ", failed="
+				+ failed + ", batches=" + batches + ", blockedWrites=" + blockedWrites + ", avgBatchSize="
+				+ avgBatchSize + ", avgFlushMs=" + avgFlushMs + ", maxFlushMs=" + maxFlushMs + "]";
+	}
+}
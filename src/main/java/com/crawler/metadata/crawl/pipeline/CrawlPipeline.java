@@ -0,0 +1,92 @@
+package com.crawler.metadata.crawl.pipeline;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import com.crawler.metadata.config.CrawlerProperties;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ *
+ * crawl() 의 페이지 처리 단계
+ * fetch ( 비동기 I/O, 처리 중인 페이지 수 제한 ) -> parse ( link, meta tag 추출 ) -> extract ( frontier 에 link 추가, 결과 전달 )
+ * 단계마다 크기가 정해진 대기열을 두어 뒤 단계가 밀리면 frontier 에서 url 을 꺼내는 쪽이 기다린다.
+ * 모든 crawl 이 같은 단계를 공유하므로 동시에 여러 seed 를 크롤링해도 처리 중인 페이지 수는 설정값을 넘지 않는다.
+ *
+ */
+@Component
+@Slf4j
+public class CrawlPipeline {
+
+	private final Logger log = LoggerFactory.getLogger(getClass());
+
+	private final FetchStage fetchStage;
+
+	private final PipelineStage parseStage;
+
+	private final PipelineStage extractStage;
+
+	public CrawlPipeline(CrawlerProperties properties) {
+		CrawlerProperties.Pipeline pipeline = properties.getPipeline();
+		int cores = Runtime.getRuntime().availableProcessors();
+		this.fetchStage = new FetchStage(pipeline.getFetchMaxInFlight());
+		// fetch 완료 callback ( HttpClient 스레드 ) 이 parse 대기열에서 멈추지 않도록 parse 대기열은 fetch permit 수 이상
+		// ( permit 은 parse 가 시작될 때 반납하므로 parse 를 기다리는 페이지는 permit 수를 넘지 않음 )
+		int parseQueueCapacity = Math.max(pipeline.getParseQueueCapacity(), fetchStage.getMaxInFlight());
+		this.parseStage = new PipelineStage("parse", pipeline.getParseThreads() > 0 ? pipeline.getParseThreads() : cores,
+				parseQueueCapacity);
+		this.extractStage = new PipelineStage("extract", pipeline.getExtractThreads(),
+				pipeline.getExtractQueueCapacity());
+		log.info("[CrawlPipeline] fetch max in flight ===> {} parse workers ===> {} queue ===> {} extract workers ===> {} queue ===> {}",
+				fetchStage.getMaxInFlight(), parseStage.getWorkers(), parseStage.getQueueCapacity(),
+				extractStage.getWorkers(), extractStage.getQueueCapacity());
+	}
+
+	public FetchStage getFetchStage() {
+		return fetchStage;
+	}
+
+	public PipelineStage getParseStage() {
+		return parseStage;
+	}
+
+	public PipelineStage getExtractStage() {
+		return extractStage;
+	}
+
+	/**
+	 *
+	 * 단계별 통계 ( 대기열 깊이, 대기 시간, 처리 시간 ) - 대기 시간이 긴 단계가 병목
+	 * @return fetch, parse, extract 순서
+	 *
+	 */
+	public List<StageMetrics> getMetrics() {
+		return Arrays.asList(fetchStage.getMetrics(), parseStage.getMetrics(), extractStage.getMetrics());
+	}
+
+	// 대기열에 남은 페이지를 처리한 뒤 종료 ( parse 는 extract 에 작업을 넣으므로 parse 가 끝난 뒤 extract 종료 )
+	@PreDestroy
+	public void shutdown() {
+		parseStage.shutdown();
+		try {
+			if (!parseStage.awaitTermination(30, TimeUnit.SECONDS)) {
+				log.warn("[shutdown] parse stage did not drain ===> {}", parseStage.getMetrics());
+			}
+			extractStage.shutdown();
+			if (!extractStage.awaitTermination(30, TimeUnit.SECONDS)) {
+				log.warn("[shutdown] extract stage did not drain ===> {}", extractStage.getMetrics());
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			extractStage.shutdown();
+		}
+	}
+}
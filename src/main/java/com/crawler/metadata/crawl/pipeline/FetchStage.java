@@ -0,0 +1,93 @@
+package com.crawler.metadata.crawl.pipeline;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ *
+ * crawl pipeline 의 I/O 단계 ( 비동기 fetch )
+ * fetch 는 스레드를 잡지 않으므로 worker 대신 처리 중인 페이지 수를 permit 으로 제한한다.
+ * permit 은 frontier 에서 url 을 꺼내기 전에 얻고, 내려받은 페이지가 parse 단계에서 처리되기 시작할 때 반납한다.
+ * ( 내려받았지만 아직 parse 하지 못한 페이지도 permit 을 잡고 있으므로 뒤 단계가 밀리면 frontier 에서 꺼내는 쪽이 기다린다 )
+ *
+ */
+public class FetchStage {
+
+	private final int maxInFlight;
+
+	private final Semaphore permits;
+
+	private final AtomicInteger inFlight = new AtomicInteger();
+
+	private final StageCounters counters = new StageCounters();
+
+	public FetchStage(int maxInFlight) {
+		this.maxInFlight = Math.max(1, maxInFlight);
+		this.permits = new Semaphore(this.maxInFlight);
+	}
+
+	/**
+	 *
+	 * 페이지 하나를 처리할 permit 을 얻음 ( 처리 중인 페이지가 가득이면 대기 )
+	 *
+	 */
+	public void acquire() throws InterruptedException {
+		if (permits.tryAcquire()) {
+			counters.recordWait(0);
+			return;
+		}
+		counters.recordBlockedSubmit();
+		long start = System.nanoTime();
+		permits.acquire();
+		counters.recordWait(System.nanoTime() - start);
+	}
+
+	/**
+	 *
+	 * acquire() 로 얻은 permit 반납 ( parse 단계로 넘겼거나, 내려받지 못한 경우 )
+	 *
+	 */
+	public void release() {
+		permits.release();
+	}
+
+	/**
+	 *
+	 * fetch 시작 기록
+	 * @return 시작 시각 ( finish 에 전달 )
+	 *
+	 */
+	public long start() {
+		inFlight.incrementAndGet();
+		return System.nanoTime();
+	}
+
+	/**
+	 *
+	 * fetch 완료 기록 ( politeness 대기 시간 포함 )
+	 * @param startNanos start() 의 반환값
+	 * @param success
+	 *
+	 */
+	public void finish(long startNanos, boolean success) {
+		inFlight.decrementAndGet();
+		counters.recordService(System.nanoTime() - startNanos, success);
+	}
+
+	public int getMaxInFlight() {
+		return maxInFlight;
+	}
+
+	public int getAvailablePermits() {
+		return permits.availablePermits();
+	}
+
+	/**
+	 *
+	 * queued : permit 을 기다리는 스레드 수, inFlight : 요청 중인 페이지 수
+	 *
+	 */
+	public StageMetrics getMetrics() {
+		return counters.snapshot("fetch", maxInFlight, permits.getQueueLength(), inFlight.get());
+	}
+}
@@ -0,0 +1,135 @@
+package com.crawler.metadata.crawl.pipeline;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+/**
+ *
+ * crawl pipeline 의 CPU 단계 ( parse, extract )
+ * 고정된 수의 worker 와 크기가 정해진 대기열을 가지며, 대기열이 가득 차면 작업을 넣는 스레드가 자리가 날 때까지 기다린다.
+ * ( 앞 단계의 worker 가 멈추므로 밀린 만큼 앞 단계도 느려짐 - backpressure )
+ *
+ */
+public class PipelineStage implements Executor {
+
+	private final String name;
+
+	private final int workers;
+
+	private final int queueCapacity;
+
+	// 실행 중 + 대기열의 작업 수 제한
+	private final Semaphore slots;
+
+	private final ThreadPoolExecutor executor;
+
+	private final AtomicInteger running = new AtomicInteger();
+
+	private final StageCounters counters = new StageCounters();
+
+	/**
+	 *
+	 * @param name 단계 이름 ( 스레드 이름 : name-stage-N )
+	 * @param workers worker 스레드 수
+	 * @param queueCapacity 실행을 기다릴 수 있는 작업 수
+	 *
+	 */
+	public PipelineStage(String name, int workers, int queueCapacity) {
+		this.name = name;
+		this.workers = Math.max(1, workers);
+		this.queueCapacity = Math.max(1, queueCapacity);
+		this.slots = new Semaphore(this.workers + this.queueCapacity);
+		CustomizableThreadFactory threadFactory = new CustomizableThreadFactory(name + "-stage-");
+		threadFactory.setDaemon(true);
+		// 대기열 크기는 slots 로 제한하므로 executor 대기열은 제한하지 않음
+		this.executor = new ThreadPoolExecutor(this.workers, this.workers, 60, TimeUnit.SECONDS,
+				new LinkedBlockingQueue<>(), threadFactory);
+		this.executor.allowCoreThreadTimeOut(true);
+	}
+
+	/**
+	 *
+	 * 작업을 대기열에 넣음 ( 가득 차 있으면 자리가 날 때까지 대기 )
+	 * @param task
+	 *
+	 */
+	@Override
+	public void execute(Runnable task) {
+		if (executor.isShutdown()) {
+			throw new RejectedExecutionException(name + " stage is shut down");
+		}
+		if (!slots.tryAcquire()) {
+			counters.recordBlockedSubmit();
+			try {
+				slots.acquire();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new RejectedExecutionException(name + " stage submit interrupted", e);
+			}
+		}
+		long queuedAt = System.nanoTime();
+		try {
+			executor.execute(() -> run(task, queuedAt));
+		} catch (RejectedExecutionException e) {
+			slots.release();
+			throw e;
+		}
+	}
+
+	private void run(Runnable task, long queuedAt) {
+		long start = System.nanoTime();
+		counters.recordWait(start - queuedAt);
+		running.incrementAndGet();
+		boolean success = false;
+		try {
+			task.run();
+			success = true;
+		} finally {
+			counters.recordService(System.nanoTime() - start, success);
+			running.decrementAndGet();
+			slots.release();
+		}
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public int getWorkers() {
+		return workers;
+	}
+
+	public int getQueueCapacity() {
+		return queueCapacity;
+	}
+
+	/**
+	 *
+	 * queued : 대기열의 작업 수, inFlight : 실행 중인 작업 수
+	 *
+	 */
+	public StageMetrics getMetrics() {
+		return counters.snapshot(name, workers, executor.getQueue().size(), running.get());
+	}
+
+	public void shutdown() {
+		executor.shutdown();
+	}
+
+	/**
+	 *
+	 * shutdown() 후 대기열의 작업이 모두 끝날 때까지 대기
+	 * @return 제한 시간 안에 끝났으면 true
+	 *
+	 */
+	public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+		return executor.awaitTermination(timeout, unit);
+	}
+}
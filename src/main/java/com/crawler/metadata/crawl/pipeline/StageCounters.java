@@ -0,0 +1,59 @@
+package com.crawler.metadata.crawl.pipeline;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ *
+ * 단계 하나의 대기 시간, 처리 시간 누적값 ( 여러 스레드에서 기록 )
+ *
+ */
+final class StageCounters {
+
+	private final LongAdder waits = new LongAdder();
+
+	private final LongAdder waitNanos = new LongAdder();
+
+	private final LongAccumulator maxWaitNanos = new LongAccumulator(Math::max, 0);
+
+	private final LongAdder processed = new LongAdder();
+
+	private final LongAdder failed = new LongAdder();
+
+	private final LongAdder serviceNanos = new LongAdder();
+
+	private final LongAccumulator maxServiceNanos = new LongAccumulator(Math::max, 0);
+
+	private final LongAdder blockedSubmits = new LongAdder();
+
+	void recordWait(long nanos) {
+		waits.increment();
+		waitNanos.add(nanos);
+		maxWaitNanos.accumulate(nanos);
+	}
+
+	void recordService(long nanos, boolean success) {
+		processed.increment();
+		if (!success) {
+			failed.increment();
+		}
+		serviceNanos.add(nanos);
+		maxServiceNanos.accumulate(nanos);
+	}
+
+	void recordBlockedSubmit() {
+		blockedSubmits.increment();
+	}
+
+	StageMetrics snapshot(String stage, int workers, int queued, int inFlight) {
+		long waitCount = waits.sum();
+		long processedCount = processed.sum();
+		return new StageMetrics(stage, workers, queued, inFlight, processedCount, failed.sum(), blockedSubmits.sum(),
+				average(waitNanos.sum(), waitCount), maxWaitNanos.get() / 1_000_000.0,
+				average(serviceNanos.sum(), processedCount), maxServiceNanos.get() / 1_000_000.0);
+	}
+
+	private static double average(long totalNanos, long count) {
+		return count == 0 ? 0 : totalNanos / 1_000_000.0 / count;
+	}
+}
@@ -0,0 +1,98 @@
+package com.crawler.metadata.crawl.pipeline;
+
+/**
+ *
+ * crawl pipeline 단계별 대기열 깊이, 대기 시간, 처리 시간 통계 snapshot
+ *
+ */
+public class StageMetrics {
+
+	private final String stage;
+
+	private final int workers;
+
+	private final int queued;
+
+	private final int inFlight;
+
+	private final long processed;
+
+	private final long failed;
+
+	private final long blockedSubmits;
+
+	private final double avgWaitMs;
+
+	private final double maxWaitMs;
+
+	private final double avgServiceMs;
+
+	private final double maxServiceMs;
+
+	public StageMetrics(String stage, int workers, int queued, int inFlight, long processed, long failed,
+			long blockedSubmits, double avgWaitMs, double maxWaitMs, double avgServiceMs, double maxServiceMs) {
+		this.stage = stage;
+		this.workers = workers;
+		this.queued = queued;
+		this.inFlight = inFlight;
+		this.processed = processed;
+		this.failed = failed;
+		this.blockedSubmits = blockedSubmits;
+		this.avgWaitMs = avgWaitMs;
+		this.maxWaitMs = maxWaitMs;
+		this.avgServiceMs = avgServiceMs;
+		this.maxServiceMs = maxServiceMs;
+	}
+
+	public String getStage() {
+		return stage;
+	}
+
+	public int getWorkers() {
+		return workers;
+	}
+
+	public int getQueued() {
+		return queued;
+	}
+
+	public int getInFlight() {
+		return inFlight;
+	}
+
+	public long getProcessed() {
+		return processed;
+	}
+
+	public long getFailed() {
+		return failed;
+	}
+
+	public long getBlockedSubmits() {
+		return blockedSubmits;
+	}
+
+	public double getAvgWaitMs() {
+		return avgWaitMs;
+	}
+
+	public double getMaxWaitMs() {
+		return maxWaitMs;
+	}
+
+	public double getAvgServiceMs() {
+		return avgServiceMs;
+	}
+
+	public double getMaxServiceMs() {
+		return maxServiceMs;
+	}
+
+	@Override
+	public String toString() {
+		return "StageMetrics [stage=" + stage + ", workers=" + workers + ", queued=" + queued + ", inFlight="
+				+ inFlight + ", processed=" + processed + ", failed=" + failed + ", blockedSubmits=" + blockedSubmits
+				+ ", avgWaitMs=" + avgWaitMs + ", maxWaitMs=" + maxWaitMs + ", avgServiceMs=" + avgServiceMs
+				+ ", maxServiceMs=" + maxServiceMs + "]";
+	}
+}
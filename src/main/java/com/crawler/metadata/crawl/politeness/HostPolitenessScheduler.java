@@ -0,0 +1,426 @@
+package com.crawler.metadata.crawl.politeness;
+
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+import javax.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import com.crawler.metadata.config.CrawlerProperties;
+import com.crawler.metadata.crawl.fetch.FetchResult;
+import com.crawler.metadata.crawl.fetch.PageFetcher;
+import com.crawler.metadata.util.UrlUtils;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ *
+ * fetch 단계 앞에서 host 별 요청 속도를 제한하는 scheduler
+ * host 마다 token bucket, 동시 요청 수 제한을 두고, 응답 시간 / 429, 503 / Retry-After 에 따라 요청 간격을 조절한다.
+ * 요청을 보낼 수 있는 host 만 ready queue 에 올려서, 한 host 를 기다리는 동안에도 다른 host 의 요청은 바로 실행된다.
+ * 시각은 System.nanoTime 이므로 항상 차이 ( a - b ) 로 비교한다.
+ *
+ */
+@Component
+@Slf4j
+public class HostPolitenessScheduler {
+
+	private final Logger log = LoggerFactory.getLogger(getClass());
+
+	private static final double EWMA_WEIGHT = 0.2;
+
+	private final double requestsPerSecond;
+
+	private final double burst;
+
+	private final int maxConcurrencyPerHost;
+
+	private final double latencyFactor;
+
+	private final double maxBackoff;
+
+	private final long maxDelayNanos;
+
+	private final long hostIdleTtlNanos;
+
+	private final Executor fetchExecutor;
+
+	// 아래 map, queue 는 lock 안에서만 접근
+	private final Map<String, HostState> hosts = new HashMap<>();
+
+	// robots.txt Crawl-delay ( host 상태를 제거해도 유지, Crawl-delay 를 선언한 host 만 )
+	private final Map<String, Long> crawlDelays = new HashMap<>();
+
+	private long lastEvictionNanos;
+
+	private final ReentrantLock lock = new ReentrantLock();
+
+	private final Condition readyChanged = lock.newCondition();
+
+	// 다음 요청 가능 시각 순으로 정렬된 host
+	private final PriorityQueue<HostState> readyHosts = new PriorityQueue<>(
+			(a, b) -> Long.signum(a.readyAt - b.readyAt));
+
+	private final LongAdder dispatched = new LongAdder();
+
+	private final LongAdder throttled = new LongAdder();
+
+	private Thread dispatcher;
+
+	private volatile boolean running = true;
+
+	public HostPolitenessScheduler(CrawlerProperties properties, PageFetcher pageFetcher) {
+		CrawlerProperties.Politeness politeness = properties.getPoliteness();
+		this.requestsPerSecond = politeness.getRequestsPerSecond();
+		this.burst = Math.max(1, politeness.getBurst());
+		this.maxConcurrencyPerHost = Math.max(1, politeness.getMaxConcurrencyPerHost());
+		this.latencyFactor = politeness.getLatencyFactor();
+		this.maxBackoff = Math.max(1.0, politeness.getMaxBackoff());
+		this.maxDelayNanos = TimeUnit.MILLISECONDS.toNanos(politeness.getMaxDelayMs());
+		this.hostIdleTtlNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, politeness.getHostIdleTtlMs()));
+		this.fetchExecutor = pageFetcher.getExecutor();
+		this.lastEvictionNanos = System.nanoTime();
+	}
+
+	/**
+	 *
+	 * url 의 host 순서에 맞춰 fetch 실행 예약
+	 * fetch 는 차례가 오면 PageFetcher 의 executor 에서 호출된다. ( 요청을 기다리지 말고 바로 future 를 반환 )
+	 * @param url
+	 * @param fetch
+	 * @return fetch 결과
+	 *
+	 */
+	public CompletableFuture<FetchResult> schedule(String url, Supplier<CompletableFuture<FetchResult>> fetch) {
+		String host = UrlUtils.getHost(url);
+		String key = host == null ? "" : host;
+		CompletableFuture<FetchResult> result = new CompletableFuture<>();
+		lock.lock();
+		try {
+			if (!running) {
+				result.completeExceptionally(new CancellationException("politeness scheduler is stopped"));
+				return result;
+			}
+			startDispatcher();
+			long now = System.nanoTime();
+			evictIdleHosts(now);
+			HostState state = hostState(key, now);
+			state.pending.add(new HostState.Task(fetch, result));
+			state.lastActiveNanos = now;
+			offerReady(state, now);
+		} finally {
+			lock.unlock();
+		}
+		return result;
+	}
+
+	/**
+	 *
+	 * robots.txt 의 Crawl-delay 반영
+	 * @param host
+	 * @param delayMs
+	 *
+	 */
+	public void setCrawlDelay(String host, long delayMs) {
+		lock.lock();
+		try {
+			long delayNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, delayMs));
+			if (delayNanos > 0) {
+				crawlDelays.put(host, delayNanos);
+			} else {
+				crawlDelays.remove(host);
+			}
+			HostState state = hosts.get(host);
+			if (state != null) {
+				state.crawlDelayNanos = delayNanos;
+			}
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	public List<HostStats> getHostStats() {
+		lock.lock();
+		try {
+			List<HostStats> stats = new ArrayList<>(hosts.size());
+			for (HostState state : hosts.values()) {
+				stats.add(new HostStats(state.host, state.pending.size(), state.inFlight,
+						intervalNanos(state) / 1_000_000.0, state.backoff, state.throttledResponses));
+			}
+			return stats;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	public long getDispatchedCount() {
+		return dispatched.sum();
+	}
+
+	public long getThrottledCount() {
+		return throttled.sum();
+	}
+
+	public int getHostCount() {
+		lock.lock();
+		try {
+			return hosts.size();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@PreDestroy
+	public void stop() {
+		List<HostState.Task> cancelled = new ArrayList<>();
+		lock.lock();
+		try {
+			running = false;
+			for (HostState state : hosts.values()) {
+				cancelled.addAll(state.pending);
+				state.pending.clear();
+			}
+			readyHosts.clear();
+			readyChanged.signalAll();
+		} finally {
+			lock.unlock();
+		}
+		if (dispatcher != null) {
+			dispatcher.interrupt();
+		}
+		for (HostState.Task task : cancelled) {
+			task.result.completeExceptionally(new CancellationException("politeness scheduler is stopped"));
+		}
+	}
+
+	private HostState hostState(String key, long now) {
+		HostState state = hosts.get(key);
+		if (state == null) {
+			state = new HostState(key, burst, now);
+			state.crawlDelayNanos = crawlDelays.getOrDefault(key, 0L);
+			hosts.put(key, state);
+		}
+		return state;
+	}
+
+	// idle host 상태 제거 ( ttl 마다 한 번만 전체를 훑음, lock 안에서 호출 )
+	private void evictIdleHosts(long now) {
+		if (now - lastEvictionNanos < hostIdleTtlNanos) {
+			return;
+		}
+		lastEvictionNanos = now;
+		Iterator<HostState> iterator = hosts.values().iterator();
+		while (iterator.hasNext()) {
+			if (iterator.next().isIdle(now, hostIdleTtlNanos)) {
+				iterator.remove();
+			}
+		}
+	}
+
+	private void startDispatcher() {
+		if (dispatcher == null) {
+			dispatcher = new Thread(this::dispatchLoop, "politeness-dispatcher");
+			dispatcher.setDaemon(true);
+			dispatcher.start();
+		}
+	}
+
+	private void dispatchLoop() {
+		while (running) {
+			HostState state = null;
+			HostState.Task task = null;
+			lock.lock();
+			try {
+				HostState head = readyHosts.peek();
+				long now = System.nanoTime();
+				if (head == null) {
+					readyChanged.await();
+					continue;
+				}
+				if (head.readyAt - now > 0) {
+					readyChanged.awaitNanos(head.readyAt - now);
+					continue;
+				}
+				readyHosts.poll();
+				head.queued = false;
+				if (head.pending.isEmpty() || head.inFlight >= maxConcurrencyPerHost) {
+					continue; // 요청이 끝나면 다시 ready queue 에 올라옴
+				}
+				long start = earliestStart(head, now);
+				if (start - now > 0) {
+					enqueue(head, start);
+					continue;
+				}
+				head.tokens -= 1;
+				head.inFlight++;
+				head.lastActiveNanos = now;
+				task = head.pending.poll();
+				state = head;
+				offerReady(head, now);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return;
+			} finally {
+				lock.unlock();
+			}
+			start(state, task);
+		}
+	}
+
+	private void start(HostState state, HostState.Task task) {
+		dispatched.increment();
+		try {
+			fetchExecutor.execute(() -> run(state, task));
+		} catch (RejectedExecutionException e) {
+			complete(state, null, 0);
+			task.result.completeExceptionally(e);
+		}
+	}
+
+	// fetch executor 에서 요청 시작 ( dispatcher 스레드는 다음 host 의 차례만 계산 )
+	private void run(HostState state, HostState.Task task) {
+		long startNanos = System.nanoTime();
+		CompletableFuture<FetchResult> future;
+		try {
+			future = task.fetch.get();
+		} catch (RuntimeException e) {
+			future = new CompletableFuture<>();
+			future.completeExceptionally(e);
+		}
+		future.whenComplete((result, error) -> {
+			complete(state, result, System.nanoTime() - startNanos);
+			if (error != null) {
+				task.result.completeExceptionally(error);
+			} else {
+				task.result.complete(result);
+			}
+		});
+	}
+
+	private void complete(HostState state, FetchResult result, long latencyNanos) {
+		lock.lock();
+		try {
+			long now = System.nanoTime();
+			state.inFlight--;
+			state.lastActiveNanos = now;
+			if (result != null) {
+				adapt(state, result, latencyNanos, now);
+			}
+			offerReady(state, now);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 *
+	 * 응답에 따라 요청 간격 조절
+	 * 429 / 503 은 간격을 두 배로 늘리고 Retry-After 까지 요청을 멈춘다. 정상 응답은 간격을 서서히 되돌린다.
+	 *
+	 */
+	private void adapt(HostState state, FetchResult result, long latencyNanos, long now) {
+		int status = result.getStatusCode();
+		if (status == 429 || status == 503) {
+			throttled.increment();
+			state.throttledResponses++;
+			state.backoff = Math.min(maxBackoff, state.backoff * 2);
+			state.tokens = Math.min(state.tokens, 0);
+			long retryAfter = parseRetryAfterNanos(result.getHeader("Retry-After"));
+			if (retryAfter > 0) {
+				long until = now + Math.min(retryAfter, maxDelayNanos);
+				if (!state.blocked || until - state.blockedUntilNanos > 0) {
+					state.blocked = true;
+					state.blockedUntilNanos = until;
+				}
+			}
+			log.debug("[adapt] host ===> {} status ===> {} backoff ===> {}", state.host, status, state.backoff);
+			return;
+		}
+		state.latencyEwmaNanos = state.latencyEwmaNanos == 0 ? latencyNanos
+				: (long) (state.latencyEwmaNanos * (1 - EWMA_WEIGHT) + latencyNanos * EWMA_WEIGHT);
+		state.backoff = Math.max(1.0, state.backoff * 0.75);
+	}
+
+	private void offerReady(HostState state, long now) {
+		if (!state.queued && !state.pending.isEmpty() && state.inFlight < maxConcurrencyPerHost) {
+			enqueue(state, earliestStart(state, now));
+		}
+	}
+
+	private void enqueue(HostState state, long readyAt) {
+		state.readyAt = readyAt;
+		state.queued = true;
+		readyHosts.add(state);
+		readyChanged.signal();
+	}
+
+	// token 을 충전하고, 다음 요청을 보낼 수 있는 시각 계산
+	private long earliestStart(HostState state, long now) {
+		long interval = intervalNanos(state);
+		long elapsed = now - state.lastRefillNanos;
+		if (elapsed > 0) {
+			state.tokens = Math.min(burst, state.tokens + (double) elapsed / interval);
+			state.lastRefillNanos = now;
+		}
+		long start = state.tokens >= 1 ? now : now + (long) ((1 - state.tokens) * interval);
+		if (state.blocked) {
+			if (state.blockedUntilNanos - now > 0) {
+				return state.blockedUntilNanos - start > 0 ? state.blockedUntilNanos : start;
+			}
+			state.blocked = false;
+		}
+		return start;
+	}
+
+	private long intervalNanos(HostState state) {
+		long base = (long) (TimeUnit.SECONDS.toNanos(1) / requestsPerSecond);
+		long latencyBased = (long) (state.latencyEwmaNanos * latencyFactor);
+		long interval = (long) (Math.max(Math.max(base, latencyBased), state.crawlDelayNanos) * state.backoff);
+		return Math.max(1, Math.min(interval, maxDelayNanos));
+	}
+
+	/**
+	 *
+	 * Retry-After header 해석 ( 초 단위 숫자 또는 HTTP-date )
+	 * @param value
+	 * @return 대기 시간 ( nanos ), 없으면 0
+	 *
+	 */
+	static long parseRetryAfterNanos(String value) {
+		if (value == null || value.isBlank()) {
+			return 0;
+		}
+		String trimmed = value.trim();
+		try {
+			return TimeUnit.SECONDS.toNanos(Math.max(0, Long.parseLong(trimmed)));
+		} catch (NumberFormatException e) {
+			// HTTP-date
+		}
+		try {
+			ZonedDateTime retryAt = ZonedDateTime.parse(trimmed, DateTimeFormatter.RFC_1123_DATE_TIME);
+			return Math.max(0, Duration.between(ZonedDateTime.now(retryAt.getZone()), retryAt).toNanos());
+		} catch (DateTimeParseException e) {
+			return 0;
+		}
+	}
+}
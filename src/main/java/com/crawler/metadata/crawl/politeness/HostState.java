@@ -0,0 +1,75 @@
+package com.crawler.metadata.crawl.politeness;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+import com.crawler.metadata.crawl.fetch.FetchResult;
+
+/**
+ *
+ * host 하나의 대기 요청, token bucket, 적응형 요청 간격 상태
+ * HostPolitenessScheduler 의 lock 안에서만 접근한다.
+ *
+ */
+class HostState {
+
+	final String host;
+
+	final Queue<Task> pending = new ArrayDeque<>();
+
+	int inFlight;
+
+	// token bucket
+	double tokens;
+
+	long lastRefillNanos;
+
+	// 적응형 간격
+	double backoff = 1.0;
+
+	long latencyEwmaNanos;
+
+	long crawlDelayNanos;
+
+	// Retry-After 로 요청이 막혔는지, 막힌 시각 ( blocked 일 때만 의미 있음 )
+	boolean blocked;
+
+	long blockedUntilNanos;
+
+	// 마지막으로 요청을 받거나 보내거나 끝낸 시각 ( idle host 제거 기준 )
+	long lastActiveNanos;
+
+	long throttledResponses;
+
+	// ready queue 정렬 기준
+	long readyAt;
+
+	boolean queued;
+
+	HostState(String host, double burst, long now) {
+		this.host = host;
+		this.tokens = burst;
+		this.lastRefillNanos = now;
+		this.lastActiveNanos = now;
+	}
+
+	// 대기 / 진행 중인 요청이 없고 Retry-After 로 막혀 있지도 않은 채 ttl 이 지났는지
+	boolean isIdle(long now, long ttlNanos) {
+		return pending.isEmpty() && inFlight == 0 && !queued
+				&& !(blocked && blockedUntilNanos - now > 0) && now - lastActiveNanos >= ttlNanos;
+	}
+
+	static final class Task {
+
+		final Supplier<CompletableFuture<FetchResult>> fetch;
+
+		final CompletableFuture<FetchResult> result;
+
+		Task(Supplier<CompletableFuture<FetchResult>> fetch, CompletableFuture<FetchResult> result) {
+			this.fetch = fetch;
+			this.result = result;
+		}
+	}
+}
@@ -0,0 +1,61 @@
+package com.crawler.metadata.crawl.politeness;
+
+/**
+ *
+ * host 별 요청 속도 제한 상태 snapshot
+ *
+ */
+public class HostStats {
+
+	private final String host;
+
+	private final int pending;
+
+	private final int inFlight;
+
+	private final double intervalMs;
+
+	private final double backoff;
+
+	private final long throttledResponses;
+
+	public HostStats(String host, int pending, int inFlight, double intervalMs, double backoff,
+			long throttledResponses) {
+		this.host = host;
+		this.pending = pending;
+		this.inFlight = inFlight;
+		this.intervalMs = intervalMs;
+		this.backoff = backoff;
+		this.throttledResponses = throttledResponses;
+	}
+
+	public String getHost() {
+		return host;
+	}
+
+	public int getPending() {
+		return pending;
+	}
+
+	public int getInFlight() {
+		return inFlight;
+	}
+
+	public double getIntervalMs() {
+		return intervalMs;
+	}
+
+	public double getBackoff() {
+		return backoff;
+	}
+
+	public long getThrottledResponses() {
+		return throttledResponses;
+	}
+
+	@Override
+	public String toString() {
+		return "HostStats [host=" + host + ", pending=" + pending + ", inFlight=" + inFlight + ", intervalMs="
+				+ intervalMs + ", backoff=" + backoff + ", throttledResponses=" + throttledResponses + "]";
+	}
+}
@@ -0,0 +1,56 @@
+package com.crawler.metadata.crawl.render;
+
+import java.util.function.Function;
+
+import com.microsoft.playwright.Page;
+
+/**
+ *
+ * browser pool 에서 빌려온 page
+ * try-with-resources 로 사용하면 close 시점에 pool 로 반환된다.
+ *
+ */
+public class BrowserLease implements AutoCloseable {
+
+	private final BrowserPool pool;
+
+	private final BrowserWorker worker;
+
+	private boolean released;
+
+	BrowserLease(BrowserPool pool, BrowserWorker worker) {
+		this.pool = pool;
+		this.worker = worker;
+	}
+
+	/**
+	 *
+	 * 빌려온 page 로 작업 실행
+	 * task 는 browser 전용 스레드에서 실행되므로 page 객체를 밖으로 꺼내면 안된다.
+	 * @param task
+	 * @return task result
+	 *
+	 */
+	public <T> T execute(Function<Page, T> task) {
+		if (released) {
+			throw new IllegalStateException("lease already returned");
+		}
+		long start = System.nanoTime();
+		boolean success = false;
+		try {
+			T result = worker.render(task, pool.getRenderTimeoutMs());
+			success = true;
+			return result;
+		} finally {
+			pool.recordRender(System.nanoTime() - start, success);
+		}
+	}
+
+	@Override
+	public void close() {
+		if (!released) {
+			released = true;
+			pool.release(worker);
+		}
+	}
+}
@@ -0,0 +1,335 @@
+package com.crawler.metadata.crawl.render;
+
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+
+import javax.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.crawler.metadata.config.CrawlerProperties;
+import com.crawler.metadata.crawl.fetch.FetchResult;
+import com.microsoft.playwright.Page;
+import com.microsoft.playwright.Request;
+import com.microsoft.playwright.Route;
+import com.microsoft.playwright.TimeoutError;
+import com.microsoft.playwright.options.LoadState;
+import com.microsoft.playwright.options.WaitForSelectorState;
+import com.microsoft.playwright.options.WaitUntilState;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ *
+ * 오래 유지되는 chromium 인스턴스 pool
+ * 페이지마다 Playwright.create() / launch() 를 하지 않고, 최대 poolSize 개의 browser 를 빌려주고 돌려받는다.
+ * browser 는 처음 필요할 때 띄운다.
+ *
+ */
+@Component
+@Slf4j
+public class BrowserPool {
+
+	private final Logger log = LoggerFactory.getLogger(getClass());
+
+	// browser 가 없을 때 기다리는 중에도 빈 자리 ( 버려진 browser ) 를 확인하는 간격
+	private static final long RETRY_CREATE_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+
+	/**
+	 * browser worker 생성 ( 시험에서는 playwright 없는 worker 로 대체 )
+	 */
+	interface WorkerFactory {
+
+		BrowserWorker create(int id, RenderProfile renderProfile, LongAdder blockedRequests);
+	}
+
+	private final WorkerFactory workerFactory;
+
+	private final int poolSize;
+
+	private final int recycleAfterPages;
+
+	private final long leaseTimeoutMs;
+
+	private final long renderTimeoutMs;
+
+	private final RenderProfile renderProfile;
+
+	private final BlockingQueue<BrowserWorker> idleWorkers = new LinkedBlockingQueue<>();
+
+	private final List<BrowserWorker> workers = new CopyOnWriteArrayList<>();
+
+	private final AtomicInteger created = new AtomicInteger();
+
+	private final AtomicInteger workerSequence = new AtomicInteger();
+
+	private volatile boolean closed;
+
+	// metrics
+	private final LongAdder leases = new LongAdder();
+
+	private final LongAdder waitNanos = new LongAdder();
+
+	private final LongAccumulator maxWaitNanos = new LongAccumulator(Long::max, 0);
+
+	private final LongAdder renders = new LongAdder();
+
+	private final LongAdder renderFailures = new LongAdder();
+
+	private final LongAdder renderNanos = new LongAdder();
+
+	private final LongAccumulator maxRenderNanos = new LongAccumulator(Long::max, 0);
+
+	private final LongAdder recycles = new LongAdder();
+
+	private final LongAdder restarts = new LongAdder();
+
+	private final LongAdder blockedRequests = new LongAdder();
+
+	@Autowired
+	public BrowserPool(CrawlerProperties properties) {
+		this(properties, BrowserWorker::new);
+	}
+
+	BrowserPool(CrawlerProperties properties, WorkerFactory workerFactory) {
+		this.workerFactory = workerFactory;
+		CrawlerProperties.Browser browser = properties.getBrowser();
+		this.poolSize = Math.max(1, browser.getPoolSize());
+		this.recycleAfterPages = Math.max(1, browser.getRecycleAfterPages());
+		this.leaseTimeoutMs = browser.getLeaseTimeoutMs();
+		this.renderTimeoutMs = browser.getRenderTimeoutMs();
+		this.renderProfile = RenderProfile.from(properties.getRender());
+	}
+
+	/**
+	 *
+	 * url 을 렌더링한 html 반환
+	 * @param url
+	 * @return rendered html
+	 *
+	 */
+	public String render(String url) {
+		try (BrowserLease lease = lease()) {
+			return lease.execute(page -> renderContent(page, url));
+		}
+	}
+
+	/**
+	 *
+	 * 이미 내려받은 페이지를 렌더링한 html 반환
+	 * main document 는 browser 가 다시 내려받지 않고 내려받은 body 로 응답한다. ( script, css 등 하위 요청만 browser 가 보냄 )
+	 * body 가 최대 크기에서 잘렸으면 browser 가 main document 부터 직접 내려받는다.
+	 * @param document 정적 요청으로 내려받은 페이지
+	 * @return rendered html
+	 *
+	 */
+	public String render(FetchResult document) {
+		if (document.isTruncated()) {
+			return render(document.getFinalUrl());
+		}
+		String url = withoutFragment(document.getFinalUrl());
+		// 뒤에 '/' 만 붙은 url 도 같은 문서 ( 경로가 없는 url 은 browser 가 '/' 를 붙임 )
+		Predicate<String> mainDocument = requested -> requested.equals(url) || requested.equals(url + "/");
+		try (BrowserLease lease = lease()) {
+			return lease.execute(page -> {
+				page.route(mainDocument, route -> fulfillDocument(route, document));
+				try {
+					return renderContent(page, url);
+				} finally {
+					page.unroute(mainDocument);
+				}
+			});
+		}
+	}
+
+	// 최상위 frame 의 navigation 만 내려받은 body 로 응답 ( 나머지는 context 의 요청 차단 규칙으로 넘김 )
+	private static void fulfillDocument(Route route, FetchResult document) {
+		Request request = route.request();
+		if (!request.isNavigationRequest() || request.frame().parentFrame() != null) {
+			route.fallback();
+			return;
+		}
+		String contentType = document.getHeader("Content-Type");
+		route.fulfill(new Route.FulfillOptions().setStatus(document.getStatusCode())
+				.setContentType(contentType == null ? "text/html" : contentType).setBodyBytes(document.getBody()));
+	}
+
+	private static String withoutFragment(String url) {
+		int hash = url.indexOf('#');
+		return hash < 0 ? url : url.substring(0, hash);
+	}
+
+	/**
+	 *
+	 * early exit 설정 시 DOMContentLoaded 이후 head meta tag 가 생기는 즉시 반환
+	 * meta tag 가 제한 시간 내에 생기지 않으면 기존처럼 network idle 까지 대기
+	 *
+	 */
+	private String renderContent(Page page, String url) {
+		if (!renderProfile.isEarlyExitOnHeadMeta()) {
+			page.navigate(url);
+			page.waitForLoadState(LoadState.NETWORKIDLE);
+			return page.content();
+		}
+		page.navigate(url, new Page.NavigateOptions().setWaitUntil(WaitUntilState.DOMCONTENTLOADED));
+		try {
+			page.waitForSelector(renderProfile.getHeadMetaSelector(), new Page.WaitForSelectorOptions()
+					.setState(WaitForSelectorState.ATTACHED).setTimeout(renderProfile.getHeadMetaWaitMs()));
+		} catch (TimeoutError e) {
+			page.waitForLoadState(LoadState.NETWORKIDLE);
+		}
+		return page.content();
+	}
+
+	/**
+	 *
+	 * pool 에서 browser 하나를 빌려옴
+	 * 빌려온 browser 는 상태 확인 후, 연결이 끊겼으면 다시 띄워서 반환한다.
+	 * 기다리는 동안 다른 browser 가 버려지면 ( 재시작 실패 등 ) 기다리던 쪽에서 새로 띄운다.
+	 * @return lease
+	 *
+	 */
+	public BrowserLease lease() {
+		if (closed) {
+			throw new RenderException("browser pool is closed");
+		}
+		long start = System.nanoTime();
+		long deadline = start + TimeUnit.MILLISECONDS.toNanos(leaseTimeoutMs);
+		BrowserWorker worker = idleWorkers.poll();
+		while (worker == null) {
+			if (closed) {
+				throw new RenderException("browser pool is closed");
+			}
+			worker = tryCreateWorker();
+			if (worker != null) {
+				break;
+			}
+			long remaining = deadline - System.nanoTime();
+			if (remaining <= 0) {
+				throw new RenderException("no browser available within " + leaseTimeoutMs + "ms");
+			}
+			try {
+				worker = idleWorkers.poll(Math.min(remaining, RETRY_CREATE_NANOS), TimeUnit.NANOSECONDS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new RenderException("interrupted while waiting for browser", e);
+			}
+		}
+		long waited = System.nanoTime() - start;
+		leases.increment();
+		waitNanos.add(waited);
+		maxWaitNanos.accumulate(waited);
+
+		if (!worker.isHealthy(renderTimeoutMs)) {
+			try {
+				worker.restart(renderTimeoutMs);
+				restarts.increment();
+			} catch (RuntimeException e) {
+				discard(worker);
+				throw e;
+			}
+		}
+		return new BrowserLease(this, worker);
+	}
+
+	/**
+	 *
+	 * 빌려간 browser 반환
+	 * 렌더링에 실패한 browser 는 다시 띄우고, N 페이지 이상 사용한 context 는 교체한다.
+	 * @param worker
+	 *
+	 */
+	void release(BrowserWorker worker) {
+		if (closed) {
+			worker.close();
+			return;
+		}
+		try {
+			if (!worker.isHealthy(renderTimeoutMs)) {
+				worker.restart(renderTimeoutMs);
+				restarts.increment();
+			} else if (worker.recycleIfNeeded(recycleAfterPages, renderTimeoutMs)) {
+				recycles.increment();
+			}
+			idleWorkers.offer(worker);
+		} catch (RuntimeException e) {
+			log.error("[release] browser-{} error ===> {}", worker.getId(), e.getMessage());
+			discard(worker);
+		}
+	}
+
+	void recordRender(long nanos, boolean success) {
+		renders.increment();
+		renderNanos.add(nanos);
+		maxRenderNanos.accumulate(nanos);
+		if (!success) {
+			renderFailures.increment();
+		}
+	}
+
+	long getRenderTimeoutMs() {
+		return renderTimeoutMs;
+	}
+
+	public BrowserPoolMetrics getMetrics() {
+		long leaseCount = leases.sum();
+		long renderCount = renders.sum();
+		return new BrowserPoolMetrics(workers.size(), idleWorkers.size(), leaseCount,
+				leaseCount == 0 ? 0 : toMillis(waitNanos.sum()) / leaseCount, toMillis(maxWaitNanos.get()),
+				renderCount, renderFailures.sum(), renderCount == 0 ? 0 : toMillis(renderNanos.sum()) / renderCount,
+				toMillis(maxRenderNanos.get()), recycles.sum(), restarts.sum(), blockedRequests.sum());
+	}
+
+	@PreDestroy
+	public void close() {
+		closed = true;
+		for (BrowserWorker worker : workers) {
+			worker.close();
+		}
+		workers.clear();
+		idleWorkers.clear();
+	}
+
+	private BrowserWorker tryCreateWorker() {
+		while (true) {
+			int current = created.get();
+			if (current >= poolSize) {
+				return null;
+			}
+			if (created.compareAndSet(current, current + 1)) {
+				break;
+			}
+		}
+		BrowserWorker worker = workerFactory.create(workerSequence.incrementAndGet(), renderProfile, blockedRequests);
+		try {
+			worker.start(renderTimeoutMs);
+		} catch (RuntimeException e) {
+			created.decrementAndGet();
+			worker.close();
+			throw e;
+		}
+		workers.add(worker);
+		log.info("[tryCreateWorker] browser-{} launched", worker.getId());
+		return worker;
+	}
+
+	private void discard(BrowserWorker worker) {
+		workers.remove(worker);
+		created.decrementAndGet();
+		worker.close();
+	}
+
+	private static double toMillis(long nanos) {
+		return nanos / 1_000_000.0;
+	}
+}
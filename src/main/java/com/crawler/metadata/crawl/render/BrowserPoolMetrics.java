@@ -0,0 +1,107 @@
+package com.crawler.metadata.crawl.render;
+
+/**
+ *
+ * browser pool 의 대기 시간, 렌더링 시간 통계 snapshot
+ *
+ */
+public class BrowserPoolMetrics {
+
+	private final int browsers;
+
+	private final int idleBrowsers;
+
+	private final long leases;
+
+	private final double avgWaitMs;
+
+	private final double maxWaitMs;
+
+	private final long renders;
+
+	private final long renderFailures;
+
+	private final double avgRenderMs;
+
+	private final double maxRenderMs;
+
+	private final long recycles;
+
+	private final long restarts;
+
+	private final long blockedRequests;
+
+	public BrowserPoolMetrics(int browsers, int idleBrowsers, long leases, double avgWaitMs, double maxWaitMs,
+			long renders, long renderFailures, double avgRenderMs, double maxRenderMs, long recycles, long restarts,
+			long blockedRequests) {
+		this.browsers = browsers;
+		this.idleBrowsers = idleBrowsers;
+		this.leases = leases;
+		this.avgWaitMs = avgWaitMs;
+		this.maxWaitMs = maxWaitMs;
+		this.renders = renders;
+		this.renderFailures = renderFailures;
+		this.avgRenderMs = avgRenderMs;
+		this.maxRenderMs = maxRenderMs;
+		this.recycles = recycles;
+		this.restarts = restarts;
+		this.blockedRequests = blockedRequests;
+	}
+
+	public int getBrowsers() {
+		return browsers;
+	}
+
+	public int getIdleBrowsers() {
+		return idleBrowsers;
+	}
+
+	public long getLeases() {
+		return leases;
+	}
+
+	public double getAvgWaitMs() {
+		return avgWaitMs;
+	}
+
+	public double getMaxWaitMs() {
+		return maxWaitMs;
+	}
+
+	public long getRenders() {
+		return renders;
+	}
+
+	public long getRenderFailures() {
+		return renderFailures;
+	}
+
+	public double getAvgRenderMs() {
+		return avgRenderMs;
+	}
+
+	public double getMaxRenderMs() {
+		return maxRenderMs;
+	}
+
+	public long getRecycles() {
+		return recycles;
+	}
+
+	public long getRestarts() {
+		return restarts;
+	}
+
+	public long getBlockedRequests() {
+		return blockedRequests;
+	}
+
+	@Override
+	public String toString() {
+		return "BrowserPoolMetrics [browsers=" + browsers + ", idleBrowsers=" + idleBrowsers + ", leases=" + leases
+				+ ", avgWaitMs=" + avgWaitMs + ", maxWaitMs=" + maxWaitMs + ", renders=" + renders
+				+ ", renderFailures=" + renderFailures + ", avgRenderMs=" + avgRenderMs + ", maxRenderMs="
+				+ maxRenderMs + ", recycles=" + recycles + ", restarts=" + restarts + ", blockedRequests="
+				+ blockedRequests + "]";
+	}
+}
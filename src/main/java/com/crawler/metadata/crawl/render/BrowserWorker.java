@@ -0,0 +1,225 @@
+package com.crawler.metadata.crawl.render;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.crawler.metadata.util.UrlUtils;
+import com.microsoft.playwright.Browser;
+import com.microsoft.playwright.BrowserContext;
+import com.microsoft.playwright.Page;
+import com.microsoft.playwright.Playwright;
+import com.microsoft.playwright.Request;
+import com.microsoft.playwright.Route;
+
+/**
+ *
+ * 전용 스레드 하나에 고정된 playwright + chromium 인스턴스
+ * playwright 객체는 thread-safe 하지 않으므로 모든 호출은 해당 스레드에서만 실행한다.
+ *
+ */
+class BrowserWorker {
+
+	private final Logger log = LoggerFactory.getLogger(getClass());
+
+	private final int id;
+
+	private final ExecutorService thread;
+
+	private final RenderProfile renderProfile;
+
+	private final LongAdder blockedRequests;
+
+	// 아래 필드는 전용 스레드 에서만 접근
+	private Playwright playwright;
+
+	private Browser browser;
+
+	private BrowserContext context;
+
+	private Page page;
+
+	private int pagesServed;
+
+	private volatile boolean broken;
+
+	BrowserWorker(int id, RenderProfile renderProfile, LongAdder blockedRequests) {
+		this.id = id;
+		this.renderProfile = renderProfile;
+		this.blockedRequests = blockedRequests;
+		this.thread = Executors.newSingleThreadExecutor(runnable -> {
+			Thread t = new Thread(runnable, "browser-" + id);
+			t.setDaemon(true);
+			return t;
+		});
+	}
+
+	int getId() {
+		return id;
+	}
+
+	void start(long timeoutMs) {
+		call(() -> {
+			launch();
+			return null;
+		}, timeoutMs);
+	}
+
+	/**
+	 *
+	 * 재사용 중인 page 로 작업 실행
+	 * @param task
+	 * @param timeoutMs
+	 * @return task result
+	 *
+	 */
+	<T> T render(Function<Page, T> task, long timeoutMs) {
+		try {
+			return call(() -> {
+				pagesServed++;
+				return task.apply(page);
+			}, timeoutMs);
+		} catch (RuntimeException e) {
+			broken = true;
+			throw e;
+		}
+	}
+
+	boolean isHealthy(long timeoutMs) {
+		if (broken) {
+			return false;
+		}
+		try {
+			return call(() -> browser != null && browser.isConnected() && page != null && !page.isClosed(), timeoutMs);
+		} catch (RuntimeException e) {
+			return false;
+		}
+	}
+
+	/**
+	 *
+	 * 렌더링 실패 또는 연결이 끊긴 browser 를 새로 띄움
+	 * @param timeoutMs
+	 *
+	 */
+	void restart(long timeoutMs) {
+		log.info("[restart] browser-{} restarting", id);
+		call(() -> {
+			closeQuietly();
+			launch();
+			return null;
+		}, timeoutMs);
+		broken = false;
+	}
+
+	/**
+	 *
+	 * N 페이지 이상 사용한 context 를 버리고 새 context 로 교체
+	 * @param recycleAfterPages
+	 * @param timeoutMs
+	 * @return 교체 여부
+	 *
+	 */
+	boolean recycleIfNeeded(int recycleAfterPages, long timeoutMs) {
+		return call(() -> {
+			if (pagesServed < recycleAfterPages) {
+				return false;
+			}
+			context.close();
+			openContext();
+			return true;
+		}, timeoutMs);
+	}
+
+	void close() {
+		try {
+			call(() -> {
+				closeQuietly();
+				return null;
+			}, 10000);
+		} catch (RuntimeException e) {
+			log.error("[close] browser-{} error ===> {}", id, e.getMessage());
+		} finally {
+			thread.shutdownNow();
+		}
+	}
+
+	private void launch() {
+		playwright = Playwright.create();
+		browser = playwright.chromium().launch();
+		openContext();
+	}
+
+	private void openContext() {
+		context = browser.newContext();
+		if (renderProfile.interceptsRequests()) {
+			context.route("**/*", this::handleRoute);
+		}
+		page = context.newPage();
+		pagesServed = 0;
+	}
+
+	private void handleRoute(Route route) {
+		Request request = route.request();
+		// third-party 판단 기준 host : 최상위 문서 요청은 자기 자신, 나머지는 현재 page 의 url
+		// ( main document 를 내려받은 body 로 응답하면 이 handler 를 거치지 않으므로 page url 을 사용 )
+		String pageHost = request.isNavigationRequest() && request.frame().parentFrame() == null
+				? UrlUtils.getHost(request.url()) : UrlUtils.getHost(page.url());
+		if (renderProfile.shouldBlock(request.resourceType(), request.url(), pageHost)) {
+			blockedRequests.increment();
+			route.abort();
+		} else {
+			route.resume();
+		}
+	}
+
+	private void closeQuietly() {
+		try {
+			if (browser != null) {
+				browser.close();
+			}
+		} catch (RuntimeException e) {
+			log.debug("[closeQuietly] browser-{} error ===> {}", id, e.getMessage());
+		}
+		try {
+			if (playwright != null) {
+				playwright.close();
+			}
+		} catch (RuntimeException e) {
+			log.debug("[closeQuietly] browser-{} error ===> {}", id, e.getMessage());
+		}
+		playwright = null;
+		browser = null;
+		context = null;
+		page = null;
+	}
+
+	private <T> T call(Callable<T> task, long timeoutMs) {
+		Future<T> future = thread.submit(task);
+		try {
+			return future.get(timeoutMs, TimeUnit.MILLISECONDS);
+		} catch (TimeoutException e) {
+			future.cancel(true);
+			broken = true;
+			throw new RenderException("browser-" + id + " timed out after " + timeoutMs + "ms", e);
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			}
+			throw new RenderException("browser-" + id + " failed", cause);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RenderException("interrupted while waiting for browser-" + id, e);
+		}
+	}
+}
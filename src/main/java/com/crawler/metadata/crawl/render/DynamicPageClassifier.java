@@ -0,0 +1,479 @@
+package com.crawler.metadata.crawl.render;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import com.crawler.metadata.config.CrawlerProperties;
+import com.crawler.metadata.crawl.extract.HtmlAttributes;
+import com.crawler.metadata.crawl.extract.HtmlTagScanner;
+import com.crawler.metadata.crawl.fetch.FetchResult;
+import com.crawler.metadata.util.UrlUtils;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ *
+ * 내려받은 정적 html 만으로 필요한 meta tag, link 를 얻을 수 있는지 판단해서 렌더링이 필요한 페이지만 골라내는 판별기
+ * script 가 있다는 것만으로 렌더링하지 않고, html 을 한 번 훑으면서 아래 신호를 모은다.
+ * - meta tag 완성도 ( title, description / og:description ) 와 a[href] link 수
+ * - 비어 있는 SPA root 요소 ( #root, #app, #__next, ng-app, data-reactroot 등 )
+ * - JavaScript 를 켜라는 noscript 안내, {{ }} 가 그대로 남은 title
+ * - script 외의 body 내용
+ *
+ * 판단은 host + path template 별로 기억하고, 같은 판단이 templateMinSamples 번 이어지면 이후 페이지는 훑지 않고 그대로 사용한다.
+ * 렌더링한 결과에 정적 html 보다 meta tag, link 가 더 없으면 해당 template 은 렌더링하지 않도록 바꾼다.
+ * 정한 판단은 templateDecisionTtl 동안만 사용하고, 지나면 다시 표본을 모은다. ( template 은 최근 사용 순으로 최대 templateCacheSize 개 )
+ *
+ */
+@Component
+@Slf4j
+public class DynamicPageClassifier {
+
+	private final Logger log = LoggerFactory.getLogger(getClass());
+
+	// noscript 시작 tag 부터 안내 문구를 찾을 최대 길이
+	private static final int NOSCRIPT_HINT_WINDOW = 512;
+
+	private static final ThreadLocal<ScanState> STATE = ThreadLocal.withInitial(ScanState::new);
+
+	private final int minBodyTags;
+
+	private final int maxTemplates;
+
+	private final int minSamples;
+
+	private final long decisionTtlNanos;
+
+	// 사용 순서로 정렬 ( 가장 오래 사용하지 않은 template 부터 제거, templates lock 안에서 접근 )
+	private final Map<String, TemplateState> templates;
+
+	private final LongAdder classified = new LongAdder();
+
+	private final LongAdder rendered = new LongAdder();
+
+	private final LongAdder skipped = new LongAdder();
+
+	private final LongAdder templateHits = new LongAdder();
+
+	private final LongAdder usefulRenders = new LongAdder();
+
+	private final LongAdder uselessRenders = new LongAdder();
+
+	private final LongAdder renderFailures = new LongAdder();
+
+	private final LongAdder renderNanos = new LongAdder();
+
+	private final LongAdder renderSamples = new LongAdder();
+
+	private final LongAdder[] reasons = new LongAdder[RenderDecision.Reason.values().length];
+
+	public DynamicPageClassifier(CrawlerProperties properties) {
+		CrawlerProperties.Render render = properties.getRender();
+		this.minBodyTags = Math.max(0, render.getMinBodyTags());
+		this.maxTemplates = Math.max(1, render.getTemplateCacheSize());
+		this.minSamples = Math.max(1, render.getTemplateMinSamples());
+		this.decisionTtlNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, render.getTemplateDecisionTtlMs()));
+		this.templates = new LinkedHashMap<>(16, 0.75f, true) {
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, TemplateState> eldest) {
+				return size() > maxTemplates;
+			}
+		};
+		for (int i = 0; i < reasons.length; i++) {
+			reasons[i] = new LongAdder();
+		}
+	}
+
+	/**
+	 *
+	 * 내려받은 페이지를 렌더링해야 하는지 판단
+	 * @param page 성공 응답 ( 2xx )
+	 * @return renderDecision
+	 *
+	 */
+	public RenderDecision classify(FetchResult page) {
+		String template = templateOf(page.getFinalUrl());
+		TemplateState state;
+		synchronized (templates) {
+			state = templates.get(template);
+		}
+		Boolean decided = state == null ? null : state.decision(System.nanoTime(), decisionTtlNanos);
+		RenderDecision decision;
+		if (decided != null) {
+			templateHits.increment();
+			decision = new RenderDecision(decided, RenderDecision.Reason.TEMPLATE_CACHE, template, -1, -1);
+		} else {
+			decision = classify(page.getBodyText(), template);
+			if (state == null) {
+				synchronized (templates) {
+					state = templates.computeIfAbsent(template, key -> new TemplateState());
+				}
+			}
+			state.observe(decision.isRenderRequired(), minSamples);
+		}
+		classified.increment();
+		(decision.isRenderRequired() ? rendered : skipped).increment();
+		reasons[decision.getReason().ordinal()].increment();
+		log.debug("[classify] url ===> {} decision ===> {}", page.getFinalUrl(), decision);
+		return decision;
+	}
+
+	/**
+	 *
+	 * 렌더링 결과를 정적 html 과 비교해서 template 의 판단에 반영
+	 * @param decision classify 결과
+	 * @param html 렌더링한 html ( 실패하면 null )
+	 * @param nanos 렌더링에 걸린 시간
+	 *
+	 */
+	public void recordRender(RenderDecision decision, String html, long nanos) {
+		if (html == null) {
+			renderFailures.increment();
+			return;
+		}
+		renderNanos.add(nanos);
+		renderSamples.increment();
+		if (decision.getStaticMetaCount() < 0) {
+			return; // template cache 로 판단한 페이지는 비교할 정적 결과가 없음
+		}
+		ScanState scan = scan(html);
+		boolean useful = scan.metaCount() > decision.getStaticMetaCount()
+				|| scan.links > decision.getStaticLinkCount();
+		(useful ? usefulRenders : uselessRenders).increment();
+		TemplateState state;
+		synchronized (templates) {
+			state = templates.get(decision.getTemplate());
+		}
+		if (state != null) {
+			state.observeRender(useful, minSamples);
+		}
+		log.debug("[recordRender] template ===> {} useful ===> {}", decision.getTemplate(), useful);
+	}
+
+	public RenderDecisionMetrics getMetrics() {
+		long samples = renderSamples.sum();
+		Map<String, Long> counts = new LinkedHashMap<>();
+		for (RenderDecision.Reason reason : RenderDecision.Reason.values()) {
+			counts.put(reason.name(), reasons[reason.ordinal()].sum());
+		}
+		int templateCount;
+		synchronized (templates) {
+			templateCount = templates.size();
+		}
+		return new RenderDecisionMetrics(classified.sum(), rendered.sum(), skipped.sum(), templateHits.sum(),
+				templateCount, usefulRenders.sum(), uselessRenders.sum(), renderFailures.sum(),
+				samples == 0 ? 0 : renderNanos.sum() / 1_000_000.0 / samples, counts);
+	}
+
+	/**
+	 *
+	 * html 의 신호로 렌더링 여부 판단 ( template cache 사용 안 함 )
+	 * @param html
+	 * @param template
+	 *
+	 */
+	RenderDecision classify(String html, String template) {
+		ScanState scan = scan(html);
+		int metaCount = scan.metaCount();
+		boolean metaComplete = scan.title && !scan.placeholder && scan.description;
+		RenderDecision.Reason reason;
+		if (metaComplete && scan.links > 0) {
+			reason = RenderDecision.Reason.META_COMPLETE;
+		} else if (scan.emptyRoot) {
+			reason = RenderDecision.Reason.SPA_ROOT;
+		} else if (metaComplete) {
+			// link 가 없는 페이지라도 SPA 표시가 없으면 렌더링해도 달라지지 않음
+			reason = RenderDecision.Reason.META_COMPLETE;
+		} else if (scan.placeholder) {
+			reason = RenderDecision.Reason.TEMPLATE_PLACEHOLDER;
+		} else if (scan.noscripts > 0 && hasNoscriptHint(html)) {
+			reason = RenderDecision.Reason.NOSCRIPT_HINT;
+		} else if (scan.scripts > 0 && scan.bodyTags < minBodyTags) {
+			reason = RenderDecision.Reason.SCRIPT_SHELL;
+		} else {
+			reason = RenderDecision.Reason.STATIC_CONTENT;
+		}
+		boolean renderRequired = reason != RenderDecision.Reason.META_COMPLETE
+				&& reason != RenderDecision.Reason.STATIC_CONTENT;
+		return new RenderDecision(renderRequired, reason, template, metaCount, scan.links);
+	}
+
+	/**
+	 *
+	 * 판단을 공유할 host + path template
+	 * 첫 번째 path segment 와 segment 수로 묶고, 숫자가 들어가거나 긴 segment 는 * 로 바꾼다. ( /product/123 → /product/* )
+	 * @param url
+	 *
+	 */
+	static String templateOf(String url) {
+		String host = UrlUtils.getHost(url);
+		if (host == null) {
+			return "";
+		}
+		int start = url.indexOf("://") + 3;
+		int pathStart = start;
+		while (pathStart < url.length() && "/?#".indexOf(url.charAt(pathStart)) < 0) {
+			pathStart++;
+		}
+		StringBuilder template = new StringBuilder(host.length() + 16).append(host);
+		int segments = 0;
+		int pos = pathStart;
+		while (pos < url.length() && url.charAt(pos) == '/') {
+			int end = pos + 1;
+			while (end < url.length() && "/?#".indexOf(url.charAt(end)) < 0) {
+				end++;
+			}
+			if (end > pos + 1) {
+				template.append('/');
+				if (segments == 0 && !isVariable(url, pos + 1, end)) {
+					template.append(url, pos + 1, end);
+				} else {
+					template.append('*');
+				}
+				segments++;
+			}
+			pos = end;
+		}
+		return template.toString();
+	}
+
+	// 숫자가 들어가거나 32 자보다 긴 segment ( id, slug, hash )
+	private static boolean isVariable(String url, int start, int end) {
+		if (end - start > 32) {
+			return true;
+		}
+		for (int i = start; i < end; i++) {
+			char c = url.charAt(i);
+			if (c >= '0' && c <= '9') {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	// noscript 안에 JavaScript 를 켜라는 안내가 있는지 ( 추적 pixel 등 다른 noscript 는 무시 )
+	private static boolean hasNoscriptHint(String html) {
+		int from = 0;
+		while ((from = html.indexOf('<', from)) >= 0) {
+			if (html.regionMatches(true, from + 1, "noscript", 0, 8)) {
+				int end = Math.min(html.length(), from + NOSCRIPT_HINT_WINDOW);
+				for (int i = from + 9; i < end; i++) {
+					if (html.regionMatches(true, i, "</noscript", 0, 10)) {
+						break;
+					}
+					if (html.regionMatches(true, i, "javascript", 0, 10)) {
+						return true;
+					}
+				}
+			}
+			from++;
+		}
+		return false;
+	}
+
+	private static ScanState scan(String html) {
+		ScanState state = STATE.get();
+		state.clear();
+		state.scanner.scan(html, state);
+		state.rootTag = null;
+		return state;
+	}
+
+	/**
+	 * host + path template 하나의 판단 기록
+	 */
+	private static final class TemplateState {
+
+		// 정해진 판단 ( 아직 정하지 못했으면 null )
+		private volatile Boolean decided;
+
+		private volatile long decidedAt;
+
+		private int samples;
+
+		private int renders;
+
+		private int useful;
+
+		private int useless;
+
+		// ttl 이 지나지 않은 판단 ( 지났으면 판단과 표본을 버리고 null )
+		Boolean decision(long now, long ttlNanos) {
+			Boolean current = decided;
+			if (current == null || now - decidedAt < ttlNanos) {
+				return current;
+			}
+			synchronized (this) {
+				if (decided != null && now - decidedAt >= ttlNanos) {
+					decided = null;
+					samples = 0;
+					renders = 0;
+					useful = 0;
+					useless = 0;
+				}
+				return decided;
+			}
+		}
+
+		// 정적 html 로 판단한 결과가 모두 렌더링 불필요면 이후 페이지도 렌더링하지 않음
+		synchronized void observe(boolean renderRequired, int minSamples) {
+			samples++;
+			if (renderRequired) {
+				renders++;
+			}
+			if (decided == null && samples >= minSamples && renders == 0) {
+				decide(Boolean.FALSE);
+			}
+		}
+
+		// 렌더링 결과가 계속 같은 쪽이면 이후 페이지는 판별하지 않음
+		synchronized void observeRender(boolean wasUseful, int minSamples) {
+			if (wasUseful) {
+				useful++;
+			} else {
+				useless++;
+			}
+			if (decided != null) {
+				return;
+			}
+			if (useless >= minSamples && useful == 0) {
+				decide(Boolean.FALSE);
+			} else if (useful >= minSamples && useless == 0 && renders == samples) {
+				decide(Boolean.TRUE);
+			}
+		}
+
+		// decidedAt 을 먼저 기록 ( lock 없이 decided 를 읽는 쪽이 이전 시각을 보지 않도록 )
+		private void decide(Boolean value) {
+			decidedAt = System.nanoTime();
+			decided = value;
+		}
+	}
+
+	/**
+	 * thread 마다 재사용하는 scanner 와 html 하나에서 모은 신호
+	 */
+	private static final class ScanState implements HtmlTagScanner.TagHandler {
+
+		private final HtmlTagScanner scanner = new HtmlTagScanner();
+
+		private boolean title;
+
+		private boolean placeholder;
+
+		private boolean description;
+
+		private int metaTags;
+
+		private int links;
+
+		private int scripts;
+
+		private int noscripts;
+
+		private int bodyTags;
+
+		private boolean inBody;
+
+		private boolean emptyRoot;
+
+		// 자식 요소가 있는지 확인 중인 SPA root tag
+		private String rootTag;
+
+		void clear() {
+			title = false;
+			placeholder = false;
+			description = false;
+			metaTags = 0;
+			links = 0;
+			scripts = 0;
+			noscripts = 0;
+			bodyTags = 0;
+			inBody = false;
+			emptyRoot = false;
+			rootTag = null;
+		}
+
+		int metaCount() {
+			return metaTags + (title ? 1 : 0);
+		}
+
+		@Override
+		public boolean startTag(CharSequence name, HtmlAttributes attributes) {
+			rootTag = null; // 자식 요소가 있는 root
+			if ("meta".contentEquals(name)) {
+				String key = attributes.getString("name");
+				if (key == null || key.isEmpty()) {
+					key = attributes.getString("property");
+				}
+				String content = attributes.getString("content");
+				if (key != null && !key.isEmpty() && content != null && !content.isBlank()) {
+					metaTags++;
+					description |= "description".equalsIgnoreCase(key) || "og:description".equalsIgnoreCase(key);
+				}
+				return true;
+			}
+			if ("body".contentEquals(name)) {
+				inBody = true;
+			} else if ("script".contentEquals(name)) {
+				scripts++;
+				return true;
+			} else if ("noscript".contentEquals(name)) {
+				noscripts++;
+				return true;
+			} else if ("a".contentEquals(name)) {
+				String href = attributes.getString("href");
+				if (href != null && !href.isBlank() && !href.startsWith("#")
+						&& !href.regionMatches(true, 0, "javascript:", 0, 11)) {
+					links++;
+				}
+			}
+			if (inBody && !"style".contentEquals(name) && !"template".contentEquals(name)
+					&& !"link".contentEquals(name)) {
+				bodyTags++;
+			}
+			if (isSpaRoot(name, attributes)) {
+				rootTag = name.toString();
+			}
+			return true;
+		}
+
+		@Override
+		public boolean endTag(CharSequence name) {
+			if (rootTag != null && rootTag.contentEquals(name)) {
+				emptyRoot = true;
+			}
+			rootTag = null;
+			return true;
+		}
+
+		@Override
+		public boolean rawText(CharSequence name, CharSequence text) {
+			if ("title".contentEquals(name) && !text.toString().isBlank()) {
+				title = true;
+				placeholder |= text.toString().contains("{{");
+			}
+			return true;
+		}
+
+		private static boolean isSpaRoot(CharSequence name, HtmlAttributes attributes) {
+			if ("app-root".contentEquals(name)) {
+				return true;
+			}
+			if (attributes.get("ng-app") != null || attributes.get("data-reactroot") != null
+					|| attributes.get("ng-version") != null) {
+				return true;
+			}
+			String id = attributes.getString("id");
+			return "root".equals(id) || "app".equals(id) || "__next".equals(id) || "__nuxt".equals(id)
+					|| "___gatsby".equals(id);
+		}
+	}
+}
@@ -0,0 +1,87 @@
+package com.crawler.metadata.crawl.render;
+
+/**
+ *
+ * 내려받은 html 을 playwright 로 렌더링해야 하는지에 대한 판단 하나
+ * 정적 html 에서 찾은 meta tag, link 수를 함께 담아서 렌더링 결과와 비교하는 데 사용한다.
+ *
+ */
+public class RenderDecision {
+
+	/**
+	 * 판단 근거
+	 */
+	public enum Reason {
+
+		// 정적 html 에 title, description 과 link 가 모두 있음
+		META_COMPLETE,
+
+		// meta tag 는 부족하지만 body 내용이 있고 SPA 표시가 없음 ( 렌더링해도 달라지지 않음 )
+		STATIC_CONTENT,
+
+		// 비어 있는 SPA root 요소 ( #root, #app, #__next, ng-app 등 )
+		SPA_ROOT,
+
+		// noscript 에 JavaScript 를 켜라는 안내가 있음
+		NOSCRIPT_HINT,
+
+		// title 이 {{ }} template 그대로임
+		TEMPLATE_PLACEHOLDER,
+
+		// body 에 script 외의 내용이 거의 없음
+		SCRIPT_SHELL,
+
+		// 같은 host + path template 의 이전 판단을 그대로 사용
+		TEMPLATE_CACHE
+	}
+
+	private final boolean renderRequired;
+
+	private final Reason reason;
+
+	private final String template;
+
+	// 정적 html 의 meta tag ( title 포함 ), link 수 ( template cache 로 판단하면 -1 )
+	private final int staticMetaCount;
+
+	private final int staticLinkCount;
+
+	public RenderDecision(boolean renderRequired, Reason reason, String template, int staticMetaCount,
+			int staticLinkCount) {
+		this.renderRequired = renderRequired;
+		this.reason = reason;
+		this.template = template;
+		this.staticMetaCount = staticMetaCount;
+		this.staticLinkCount = staticLinkCount;
+	}
+
+	public boolean isRenderRequired() {
+		return renderRequired;
+	}
+
+	public Reason getReason() {
+		return reason;
+	}
+
+	public String getTemplate() {
+		return template;
+	}
+
+	public int getStaticMetaCount() {
+		return staticMetaCount;
+	}
+
+	public int getStaticLinkCount() {
+		return staticLinkCount;
+	}
+
+	public boolean isCached() {
+		return reason == Reason.TEMPLATE_CACHE;
+	}
+
+	@Override
+	public String toString() {
+		return "RenderDecision [renderRequired=" + renderRequired + ", reason=" + reason + ", template=" + template
+				+ ", staticMetaCount=" + staticMetaCount + ", staticLinkCount=" + staticLinkCount + "]";
+	}
+}
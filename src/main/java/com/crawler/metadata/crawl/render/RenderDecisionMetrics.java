@@ -0,0 +1,109 @@
+package com.crawler.metadata.crawl.render;
+
+import java.util.Map;
+
+/**
+ *
+ * 동적 페이지 판별 결과 ( 렌더링 / 건너뜀 ), 렌더링 시간, 렌더링을 건너뛰어 아낀 시간 추정치 snapshot
+ *
+ */
+public class RenderDecisionMetrics {
+
+	private final long classified;
+
+	private final long rendered;
+
+	private final long skipped;
+
+	// host + path template 의 이전 판단을 그대로 사용한 수
+	private final long templateHits;
+
+	// 판단을 기억하고 있는 template 수
+	private final int templates;
+
+	// 렌더링 결과에 정적 html 보다 meta tag 나 link 가 더 있었던 수
+	private final long usefulRenders;
+
+	// 렌더링했지만 정적 html 과 meta tag, link 수가 같았던 수
+	private final long uselessRenders;
+
+	private final long renderFailures;
+
+	private final double avgRenderMs;
+
+	private final Map<String, Long> reasons;
+
+	public RenderDecisionMetrics(long classified, long rendered, long skipped, long templateHits, int templates,
+			long usefulRenders, long uselessRenders, long renderFailures, double avgRenderMs,
+			Map<String, Long> reasons) {
+		this.classified = classified;
+		this.rendered = rendered;
+		this.skipped = skipped;
+		this.templateHits = templateHits;
+		this.templates = templates;
+		this.usefulRenders = usefulRenders;
+		this.uselessRenders = uselessRenders;
+		this.renderFailures = renderFailures;
+		this.avgRenderMs = avgRenderMs;
+		this.reasons = reasons;
+	}
+
+	public long getClassified() {
+		return classified;
+	}
+
+	public long getRendered() {
+		return rendered;
+	}
+
+	public long getSkipped() {
+		return skipped;
+	}
+
+	public long getTemplateHits() {
+		return templateHits;
+	}
+
+	public int getTemplates() {
+		return templates;
+	}
+
+	public long getUsefulRenders() {
+		return usefulRenders;
+	}
+
+	public long getUselessRenders() {
+		return uselessRenders;
+	}
+
+	public long getRenderFailures() {
+		return renderFailures;
+	}
+
+	public double getAvgRenderMs() {
+		return avgRenderMs;
+	}
+
+	public Map<String, Long> getReasons() {
+		return reasons;
+	}
+
+	// 판별한 페이지 중 렌더링한 비율
+	public double getRenderRate() {
+		return classified == 0 ? 0 : (double) rendered / classified;
+	}
+
+	// 건너뛴 페이지를 평균 렌더링 시간만큼 아꼈다고 본 추정치
+	public double getEstimatedSavedMs() {
+		return skipped * avgRenderMs;
+	}
+
+	@Override
+	public String toString() {
+		return "RenderDecisionMetrics [classified=" + classified + ", rendered=" + rendered + ", skipped=" + skipped
+				+ ", templateHits=" + templateHits + ", templates=" + templates + ", usefulRenders=" + usefulRenders
+				+ ", uselessRenders=" + uselessRenders + ", renderFailures=" + renderFailures + ", avgRenderMs="
+				+ avgRenderMs + ", renderRate=" + getRenderRate() + ", estimatedSavedMs=" + getEstimatedSavedMs()
+				+ ", reasons=" + reasons + "]";
+	}
+}
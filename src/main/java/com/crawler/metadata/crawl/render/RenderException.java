@@ -0,0 +1,19 @@
+package com.crawler.metadata.crawl.render;
+
+/**
+ *
+ * browser pool 에서 browser 를 빌려오지 못했거나 렌더링에 실패한 경우
+ *
+ */
+public class RenderException extends RuntimeException {
+
+	private static final long serialVersionUID = 1L;
+
+	public RenderException(String message) {
+		super(message);
+	}
+
+	public RenderException(String message, Throwable cause) {
+		super(message, cause);
+	}
+}
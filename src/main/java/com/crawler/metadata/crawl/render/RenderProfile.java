@@ -0,0 +1,97 @@
+package com.crawler.metadata.crawl.render;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+import com.crawler.metadata.config.CrawlerProperties;
+import com.crawler.metadata.util.UrlUtils;
+
+/**
+ *
+ * playwright 렌더링 시 요청 차단 / 대기 전략 설정
+ * meta tag, a href 만 필요하므로 이미지, 폰트, 미디어, css 등은 내려받지 않는다.
+ *
+ */
+public class RenderProfile {
+
+	private final Set<String> blockedResourceTypes;
+
+	private final boolean blockThirdPartyScripts;
+
+	private final boolean earlyExitOnHeadMeta;
+
+	private final String headMetaSelector;
+
+	private final long headMetaWaitMs;
+
+	public RenderProfile(List<String> blockedResourceTypes, boolean blockThirdPartyScripts,
+			boolean earlyExitOnHeadMeta, String headMetaSelector, long headMetaWaitMs) {
+		Set<String> types = new HashSet<>();
+		if (blockedResourceTypes != null) {
+			for (String type : blockedResourceTypes) {
+				types.add(type.trim().toLowerCase(Locale.ROOT));
+			}
+		}
+		this.blockedResourceTypes = Collections.unmodifiableSet(types);
+		this.blockThirdPartyScripts = blockThirdPartyScripts;
+		this.earlyExitOnHeadMeta = earlyExitOnHeadMeta;
+		this.headMetaSelector = headMetaSelector;
+		this.headMetaWaitMs = headMetaWaitMs;
+	}
+
+	public static RenderProfile from(CrawlerProperties.Render render) {
+		return new RenderProfile(render.getBlockResourceTypes(), render.isBlockThirdPartyScripts(),
+				render.isEarlyExitOnHeadMeta(), render.getHeadMetaSelector(), render.getHeadMetaWaitMs());
+	}
+
+	/**
+	 *
+	 * 요청 차단 규칙이 하나라도 있는지 확인 ( 없으면 route 가로채기를 하지 않음 )
+	 * @return intercept flag
+	 *
+	 */
+	public boolean interceptsRequests() {
+		return !blockedResourceTypes.isEmpty() || blockThirdPartyScripts;
+	}
+
+	/**
+	 *
+	 * 해당 요청을 차단할지 확인
+	 * @param resourceType playwright request resource type ( image, font, script ... )
+	 * @param requestUrl   요청 url
+	 * @param pageHost     렌더링 중인 페이지의 host ( 모르면 null )
+	 * @return block flag
+	 *
+	 */
+	public boolean shouldBlock(String resourceType, String requestUrl, String pageHost) {
+		if (blockedResourceTypes.contains(resourceType)) {
+			return true;
+		}
+		if (blockThirdPartyScripts && "script".equals(resourceType) && pageHost != null) {
+			String requestHost = UrlUtils.getHost(requestUrl);
+			return requestHost != null && !isSameSite(requestHost, pageHost);
+		}
+		return false;
+	}
+
+	public boolean isEarlyExitOnHeadMeta() {
+		return earlyExitOnHeadMeta;
+	}
+
+	public String getHeadMetaSelector() {
+		return headMetaSelector;
+	}
+
+	public long getHeadMetaWaitMs() {
+		return headMetaWaitMs;
+	}
+
+	// www.example.com 페이지의 cdn.example.com 스크립트는 같은 사이트로 본다
+	private static boolean isSameSite(String requestHost, String pageHost) {
+		String site = pageHost.startsWith("www.") ? pageHost.substring(4) : pageHost;
+		return requestHost.equals(site) || requestHost.endsWith("." + site);
+	}
+}
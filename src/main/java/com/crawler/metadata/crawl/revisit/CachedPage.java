@@ -0,0 +1,144 @@
+package com.crawler.metadata.crawl.revisit;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import com.crawler.metadata.crawl.extract.HeadMetadata;
+import com.crawler.metadata.crawl.fetch.FetchResult;
+
+/**
+ *
+ * url 하나의 이전 크롤링 결과 ( 조건부 요청에 쓸 ETag, Last-Modified, 응답 body hash + 추출한 meta tag, link )
+ * 다음 크롤링에서 304 를 받거나 body hash 가 같으면 다시 parse 하지 않고 이 결과를 사용한다.
+ *
+ */
+public class CachedPage {
+
+	private final String etag;
+
+	private final String lastModified;
+
+	private final long contentHash;
+
+	private final String finalUrl;
+
+	private final int statusCode;
+
+	private final String title;
+
+	private final String canonicalUrl;
+
+	private final Map<String, String> metaTags;
+
+	// 페이지에서 찾은 유효한 link ( 다시 사용할 때 유효성은 다시 확인 )
+	private final List<String> links;
+
+	private final long fetchedAt;
+
+	public CachedPage(String etag, String lastModified, long contentHash, String finalUrl, int statusCode,
+			String title, String canonicalUrl, Map<String, String> metaTags, List<String> links, long fetchedAt) {
+		this.etag = etag;
+		this.lastModified = lastModified;
+		this.contentHash = contentHash;
+		this.finalUrl = finalUrl;
+		this.statusCode = statusCode;
+		this.title = title;
+		this.canonicalUrl = canonicalUrl;
+		this.metaTags = metaTags == null ? Collections.emptyMap() : Collections.unmodifiableMap(metaTags);
+		this.links = links == null ? Collections.emptyList() : Collections.unmodifiableList(links);
+		this.fetchedAt = fetchedAt;
+	}
+
+	/**
+	 *
+	 * 내려받은 페이지와 추출 결과로 entry 생성
+	 * @param page 응답 ( ETag, Last-Modified header, body hash )
+	 * @param metadata
+	 * @param links
+	 * @return cachedPage
+	 *
+	 */
+	public static CachedPage of(FetchResult page, HeadMetadata metadata, List<String> links) {
+		return new CachedPage(page.getHeader("ETag"), page.getHeader("Last-Modified"), page.getContentHash(),
+				page.getFinalUrl(), page.getStatusCode(), metadata.getTitle(), metadata.getCanonicalUrl(),
+				metadata.getMetaTags(), links, System.currentTimeMillis());
+	}
+
+	/**
+	 *
+	 * 같은 내용의 응답에서 받은 새 ETag, Last-Modified 로 교체
+	 * @param page 같은 body hash 의 새 응답
+	 * @return 바뀐 validator 가 없으면 this
+	 *
+	 */
+	public CachedPage refreshValidators(FetchResult page) {
+		String newEtag = page.getHeader("ETag");
+		String newLastModified = page.getHeader("Last-Modified");
+		if (equals(etag, newEtag) && equals(lastModified, newLastModified)) {
+			return this;
+		}
+		return new CachedPage(newEtag, newLastModified, contentHash, finalUrl, statusCode, title, canonicalUrl,
+				metaTags, links, System.currentTimeMillis());
+	}
+
+	public HeadMetadata toHeadMetadata() {
+		return new HeadMetadata(metaTags, title, canonicalUrl);
+	}
+
+	// 조건부 요청을 보낼 수 있는지 ( 없으면 body hash 로만 비교 )
+	public boolean hasValidators() {
+		return etag != null || lastModified != null;
+	}
+
+	public String getEtag() {
+		return etag;
+	}
+
+	public String getLastModified() {
+		return lastModified;
+	}
+
+	public long getContentHash() {
+		return contentHash;
+	}
+
+	public String getFinalUrl() {
+		return finalUrl;
+	}
+
+	public int getStatusCode() {
+		return statusCode;
+	}
+
+	public String getTitle() {
+		return title;
+	}
+
+	public String getCanonicalUrl() {
+		return canonicalUrl;
+	}
+
+	public Map<String, String> getMetaTags() {
+		return metaTags;
+	}
+
+	public List<String> getLinks() {
+		return links;
+	}
+
+	public long getFetchedAt() {
+		return fetchedAt;
+	}
+
+	private static boolean equals(String a, String b) {
+		return a == null ? b == null : a.equals(b);
+	}
+
+	@Override
+	public String toString() {
+		return "CachedPage [etag=" + etag + ", lastModified=" + lastModified + ", contentHash=" + contentHash
+				+ ", finalUrl=" + finalUrl + ", statusCode=" + statusCode + ", title=" + title + ", links="
+				+ links.size() + ", fetchedAt=" + fetchedAt + "]";
+	}
+}
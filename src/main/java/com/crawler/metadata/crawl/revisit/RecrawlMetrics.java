@@ -0,0 +1,96 @@
+package com.crawler.metadata.crawl.revisit;
+
+/**
+ *
+ * 재크롤링 scheduler 의 방문 예정 url 수, 방문 결과 ( 변경 / 새 url ), 꺼낸 url 통계 snapshot
+ *
+ */
+public class RecrawlMetrics {
+
+	private final boolean enabled;
+
+	// 메모리에 올린 방문 예정 url 수
+	private final int scheduled;
+
+	// 저장 대기 방문 결과 수
+	private final int pending;
+
+	private final long observed;
+
+	// meta tag 가 이전 방문과 달랐던 방문 수
+	private final long changed;
+
+	// 다시 크롤링하면서 새로 찾은 url 수
+	private final long discovered;
+
+	private final long written;
+
+	private final long failed;
+
+	// 다시 크롤링하도록 꺼낸 url 수
+	private final long dispatched;
+
+	// 꺼낸 뒤 방문 결과로 next due 가 바뀌어서 건너뛴 url 수
+	private final long stale;
+
+	public RecrawlMetrics(boolean enabled, int scheduled, int pending, long observed, long changed, long discovered,
+			long written, long failed, long dispatched, long stale) {
+		this.enabled = enabled;
+		this.scheduled = scheduled;
+		this.pending = pending;
+		this.observed = observed;
+		this.changed = changed;
+		this.discovered = discovered;
+		this.written = written;
+		this.failed = failed;
+		this.dispatched = dispatched;
+		this.stale = stale;
+	}
+
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	public int getScheduled() {
+		return scheduled;
+	}
+
+	public int getPending() {
+		return pending;
+	}
+
+	public long getObserved() {
+		return observed;
+	}
+
+	public long getChanged() {
+		return changed;
+	}
+
+	public long getDiscovered() {
+		return discovered;
+	}
+
+	public long getWritten() {
+		return written;
+	}
+
+	public long getFailed() {
+		return failed;
+	}
+
+	public long getDispatched() {
+		return dispatched;
+	}
+
+	public long getStale() {
+		return stale;
+	}
+
+	@Override
+	public String toString() {
+		return "RecrawlMetrics [enabled=" + enabled + ", scheduled=" + scheduled + ", pending=" + pending + ", observed="
+				+ observed + ", changed=" + changed + ", discovered=" + discovered + ", written=" + written + ", failed="
+				+ failed + ", dispatched=" + dispatched + ", stale=" + stale + "]";
+	}
+}
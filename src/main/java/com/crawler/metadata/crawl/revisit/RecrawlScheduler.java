@@ -0,0 +1,555 @@
+package com.crawler.metadata.crawl.revisit;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.UnaryOperator;
+
+import javax.annotation.PreDestroy;
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.crawler.metadata.config.CrawlerProperties;
+import com.crawler.metadata.crawl.CrawlPageResult;
+import com.crawler.metadata.crawl.URLQueueService;
+import com.crawler.metadata.util.Fingerprints;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ *
+ * 페이지별 meta tag 변경 빈도로 다시 방문할 간격을 추정하고, 방문할 때가 된 url 을 next due 순서로 꺼내 줌
+ *
+ * 방문할 때마다 title, canonical url, meta tag 의 hash 를 이전 방문과 비교해서 방문 수 / 변경 수를 갱신한다. ( 최근 방문에 무게 )
+ * 변경률은 Cho & Garcia-Molina 의 추정식 -ln((n - X + 0.5) / (n + 0.5)) / 방문 간격 으로 구하고,
+ * 다음 방문 간격은 1 / 변경률 ( 한 번 바뀔 때까지 걸리는 시간 ) 을 min ~ max 사이로, 늘릴 때는 이전 간격의 2 배까지만 사용한다.
+ *
+ * url 별 상태는 모두 DB ( next_due index ) 에 두고, 메모리에는 곧 방문할 url 만 heap 으로 최대 windowSize 개 올린다.
+ * 그래서 추적하는 url 이 수백만 개여도 메모리 사용량은 windowSize, maxPending 으로 제한된다.
+ * 방문 결과는 저장 대기 map 에 넣고 저장 스레드가 batch 로 반영한다. ( ValidatorCache 와 같은 방식 )
+ *
+ */
+@Component
+@Slf4j
+public class RecrawlScheduler {
+
+	private static final String CREATE_SCHEDULE = "CREATE TABLE IF NOT EXISTS crawl_schedule ("
+			+ "url_key VARCHAR(4096) PRIMARY KEY, url VARCHAR(4096) NOT NULL, seed_url VARCHAR(4096) NOT NULL, "
+			+ "next_due BIGINT NOT NULL, interval_ms BIGINT NOT NULL, last_visit BIGINT, visits DOUBLE NOT NULL, "
+			+ "changes DOUBLE NOT NULL, meta_hash BIGINT)";
+
+	private static final String CREATE_DUE_INDEX = "CREATE INDEX IF NOT EXISTS crawl_schedule_due ON crawl_schedule (next_due)";
+
+	private static final String SELECT_STATE = "SELECT interval_ms, last_visit, visits, changes, meta_hash "
+			+ "FROM crawl_schedule WHERE url_key = ?";
+
+	private static final String MERGE_STATE = "MERGE INTO crawl_schedule (url_key, url, seed_url, next_due, "
+			+ "interval_ms, last_visit, visits, changes, meta_hash) KEY (url_key) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+	private static final String SELECT_DUE = "SELECT url_key, url, seed_url, next_due, interval_ms FROM crawl_schedule "
+			+ "WHERE next_due <= ? ORDER BY next_due LIMIT ?";
+
+	// 꺼낸 뒤 방문 결과가 없으면 ( 요청 실패 ) 한 간격 뒤에 다시 꺼냄 ( 그사이 방문 결과로 바뀐 row 는 건드리지 않음 )
+	private static final String LEASE = "UPDATE crawl_schedule SET next_due = ? WHERE url_key = ? AND next_due = ?";
+
+	// 방문할 때마다 이전 방문 수, 변경 수에 곱하는 값 ( 최근 약 10 번의 방문으로 추정 )
+	static final double DECAY = 0.9;
+
+	// heap 이 비었을 때 DB 에서 읽어 오는 범위 ( 지금부터 이 시간 안에 방문할 url )
+	private static final long HORIZON_MS = TimeUnit.MINUTES.toMillis(1);
+
+	private final Logger log = LoggerFactory.getLogger(getClass());
+
+	private final DataSource dataSource;
+
+	private final UnaryOperator<String> canonicalizer;
+
+	private final boolean enabled;
+
+	private final long initialIntervalMs;
+
+	private final long minIntervalMs;
+
+	private final long maxIntervalMs;
+
+	private final int windowSize;
+
+	private final int batchSize;
+
+	private final long flushIntervalMs;
+
+	private final int maxPending;
+
+	// 곧 방문할 url ( next due 순서, 최대 windowSize 개 )
+	private final PriorityQueue<ScheduledUrl> heap = new PriorityQueue<>(
+			Comparator.comparingLong(ScheduledUrl::getNextDue));
+
+	// 저장 대기 방문 결과 / 새로 찾은 url ( url key → 마지막 관측 )
+	private final Map<String, Observation> pending = new ConcurrentHashMap<>();
+
+	// 저장 스레드, store 에서 바로 저장하는 스레드, lease 가 같은 row 를 동시에 쓰지 않도록
+	private final Object flushLock = new Object();
+
+	private volatile boolean running = true;
+
+	private Thread flusher;
+
+	private final LongAdder observed = new LongAdder();
+
+	private final LongAdder changed = new LongAdder();
+
+	private final LongAdder discovered = new LongAdder();
+
+	private final LongAdder written = new LongAdder();
+
+	private final LongAdder failed = new LongAdder();
+
+	private final LongAdder dispatched = new LongAdder();
+
+	private final LongAdder stale = new LongAdder();
+
+	@Autowired
+	public RecrawlScheduler(DataSource dataSource, URLQueueService urlQueueService, CrawlerProperties properties) {
+		this(dataSource, urlQueueService::canonicalize, properties.getRecrawl());
+	}
+
+	/**
+	 *
+	 * @param dataSource
+	 * @param canonicalizer url key ( canonical url ) 변환
+	 * @param recrawl 방문 간격, window, batch 설정
+	 *
+	 */
+	public RecrawlScheduler(DataSource dataSource, UnaryOperator<String> canonicalizer,
+			CrawlerProperties.Recrawl recrawl) {
+		this.dataSource = dataSource;
+		this.canonicalizer = canonicalizer;
+		this.enabled = recrawl.isEnabled();
+		this.minIntervalMs = Math.max(1, recrawl.getMinIntervalMs());
+		this.maxIntervalMs = Math.max(minIntervalMs, recrawl.getMaxIntervalMs());
+		this.initialIntervalMs = clamp(recrawl.getInitialIntervalMs(), minIntervalMs, maxIntervalMs);
+		this.windowSize = Math.max(1, recrawl.getWindowSize());
+		this.batchSize = Math.max(1, recrawl.getBatchSize());
+		this.flushIntervalMs = Math.max(1, recrawl.getFlushIntervalMs());
+		this.maxPending = Math.max(batchSize, recrawl.getMaxPending());
+		if (enabled) {
+			createTable();
+			flusher = new Thread(this::flushLoop, "recrawl-writer");
+			flusher.setDaemon(true);
+			flusher.start();
+		}
+	}
+
+	/**
+	 *
+	 * 페이지 방문 결과 반영 ( meta tag 가 이전 방문과 달라졌는지로 변경 빈도 갱신 )
+	 * @param result
+	 *
+	 */
+	public void observe(CrawlPageResult result) {
+		if (!enabled) {
+			return;
+		}
+		observed.increment();
+		add(canonicalizer.apply(result.getUrl()), new Observation(result.getSeedUrl(), result.getUrl(),
+				metadataHash(result), System.currentTimeMillis()));
+	}
+
+	/**
+	 *
+	 * 다시 크롤링하면서 찾은 link 중 추적하지 않던 url 을 바로 방문하도록 추가 ( 이미 추적 중인 url 은 그대로 )
+	 * @param seedUrl
+	 * @param links
+	 *
+	 */
+	public void discover(String seedUrl, List<String> links) {
+		if (!enabled) {
+			return;
+		}
+		for (String link : links) {
+			pending.putIfAbsent(canonicalizer.apply(link), new Observation(seedUrl, link, 0L, 0L));
+		}
+		afterAdd();
+	}
+
+	/**
+	 *
+	 * 방문할 때가 된 url 을 next due 순서로 최대 max 개 꺼냄
+	 * 꺼낸 url 은 한 간격 뒤로 미뤄 두므로 ( lease ) 방문 결과가 저장되기 전에 다시 꺼내지 않는다.
+	 * @param max
+	 * @return url 목록 ( 없으면 빈 목록 )
+	 *
+	 */
+	public List<ScheduledUrl> pollDue(int max) {
+		if (!enabled) {
+			return Collections.emptyList();
+		}
+		long now = System.currentTimeMillis();
+		List<ScheduledUrl> due = new ArrayList<>();
+		synchronized (heap) {
+			if (heap.isEmpty()) {
+				refill(now);
+			}
+			while (due.size() < max && !heap.isEmpty() && heap.peek().getNextDue() <= now) {
+				due.add(heap.poll());
+			}
+		}
+		return due.isEmpty() ? due : lease(due, now);
+	}
+
+	/**
+	 *
+	 * 저장 대기 방문 결과를 모두 저장
+	 * @return 저장한 수
+	 *
+	 */
+	public int flush() {
+		if (!enabled) {
+			return 0;
+		}
+		int total = 0;
+		synchronized (flushLock) {
+			while (!pending.isEmpty()) {
+				Map<String, Observation> batch = new LinkedHashMap<>();
+				for (Map.Entry<String, Observation> entry : pending.entrySet()) {
+					batch.put(entry.getKey(), entry.getValue());
+					if (batch.size() >= batchSize) {
+						break;
+					}
+				}
+				total += writeBatch(batch);
+			}
+		}
+		return total;
+	}
+
+	/**
+	 *
+	 * 남은 방문 결과를 저장하고 저장 스레드 종료
+	 *
+	 */
+	@PreDestroy
+	public void stop() {
+		running = false;
+		if (flusher == null) {
+			return;
+		}
+		synchronized (this) {
+			notifyAll();
+		}
+		try {
+			flusher.join(TimeUnit.SECONDS.toMillis(30));
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		flush();
+	}
+
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	public RecrawlMetrics getMetrics() {
+		int scheduled;
+		synchronized (heap) {
+			scheduled = heap.size();
+		}
+		return new RecrawlMetrics(enabled, scheduled, pending.size(), observed.sum(), changed.sum(), discovered.sum(),
+				written.sum(), failed.sum(), dispatched.sum(), stale.sum());
+	}
+
+	/**
+	 *
+	 * 다음 방문 간격 추정
+	 * @param visits 방문 수 ( decay 적용 )
+	 * @param changes 변경을 발견한 방문 수 ( decay 적용 )
+	 * @param elapsedMs 이번 방문과 이전 방문 사이 시간
+	 * @param previousIntervalMs 이전 방문 간격
+	 * @return 다음 방문 간격 ( min ~ max )
+	 *
+	 */
+	long estimateInterval(double visits, double changes, long elapsedMs, long previousIntervalMs) {
+		double interval = previousIntervalMs * 2.0; // 바뀐 적이 없으면 두 배씩 늘림
+		if (changes > 0) {
+			double rate = -Math.log((visits - changes + 0.5) / (visits + 0.5)) / Math.max(1, elapsedMs);
+			interval = Math.min(interval, 1 / rate);
+		}
+		return clamp((long) Math.min(interval, Long.MAX_VALUE), minIntervalMs, maxIntervalMs);
+	}
+
+	// title, canonical url, meta tag ( 이름 순서 ) 의 hash
+	static long metadataHash(CrawlPageResult result) {
+		long hash = Fingerprints.hash64(String.valueOf(result.getTitle()));
+		hash = Fingerprints.hash64(String.valueOf(result.getCanonicalUrl()), hash);
+		if (result.getMetaTags() != null) {
+			for (Map.Entry<String, String> tag : new TreeMap<>(result.getMetaTags()).entrySet()) {
+				hash = Fingerprints.hash64(tag.getKey(), hash);
+				hash = Fingerprints.hash64(String.valueOf(tag.getValue()), hash);
+			}
+		}
+		return hash;
+	}
+
+	// 방문 결과는 새로 찾은 url 을 덮어씀
+	private void add(String key, Observation observation) {
+		pending.put(key, observation);
+		afterAdd();
+	}
+
+	// 대기 결과가 maxPending 을 넘으면 저장 스레드가 줄일 때까지 대기 ( DB 저장은 저장 스레드만 )
+	private void afterAdd() {
+		if (pending.size() < batchSize) {
+			return;
+		}
+		synchronized (this) {
+			notifyAll();
+			while (running && pending.size() >= maxPending) {
+				try {
+					wait(flushIntervalMs);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					return;
+				}
+			}
+		}
+	}
+
+	// batchSize 개가 쌓이면 ( add 가 깨움 ) 또는 flushInterval 마다 저장
+	private void flushLoop() {
+		while (running) {
+			synchronized (this) {
+				if (running && pending.size() < batchSize) {
+					try {
+						wait(flushIntervalMs);
+					} catch (InterruptedException e) {
+						running = false;
+					}
+				}
+			}
+			flush();
+			// 대기 map 이 줄기를 기다리는 add 를 깨움
+			synchronized (this) {
+				notifyAll();
+			}
+		}
+	}
+
+	// 저장한 관측은 그사이 새 관측으로 바뀌지 않았을 때만 대기 map 에서 뺌
+	private int writeBatch(Map<String, Observation> batch) {
+		long start = System.nanoTime();
+		int count = batch.size();
+		int changes = 0;
+		try {
+			changes = writeObservations(batch);
+			written.add(count);
+		} catch (SQLException | RuntimeException e) {
+			log.warn("[writeBatch] observations ===> {} error ===> {} retry one by one", batch.size(), e.getMessage());
+			// 잘못된 관측 하나 때문에 batch 전체를 잃지 않도록 한 건씩 다시 저장
+			for (Map.Entry<String, Observation> entry : batch.entrySet()) {
+				try {
+					changes += writeObservations(Collections.singletonMap(entry.getKey(), entry.getValue()));
+					written.increment();
+				} catch (SQLException | RuntimeException observationError) {
+					// 실패한 관측은 버림 ( 다음 방문에서 다시 관측 )
+					log.error("[writeBatch] url ===> {} error ===> {}", entry.getValue().url,
+							observationError.getMessage());
+					failed.increment();
+					count--;
+				}
+			}
+		}
+		batch.forEach((key, observation) -> pending.remove(key, observation));
+		changed.add(changes);
+		log.debug("[writeBatch] observations ===> {} changed ===> {} elapsed ===> {}ms", batch.size(), changes,
+				(System.nanoTime() - start) / 1_000_000);
+		return count;
+	}
+
+	// 한 transaction 으로 저장 ( 실패하면 모두 rollback ), 바뀐 페이지 수 반환
+	private int writeObservations(Map<String, Observation> observations) throws SQLException {
+		int changes = 0;
+		try (Connection connection = dataSource.getConnection()) {
+			connection.setAutoCommit(false);
+			try (PreparedStatement select = connection.prepareStatement(SELECT_STATE);
+					PreparedStatement merge = connection.prepareStatement(MERGE_STATE)) {
+				for (Map.Entry<String, Observation> entry : observations.entrySet()) {
+					if (addState(select, merge, entry.getKey(), entry.getValue())) {
+						changes++;
+					}
+				}
+				merge.executeBatch();
+				connection.commit();
+			} catch (SQLException | RuntimeException e) {
+				connection.rollback();
+				throw e;
+			}
+		}
+		return changes;
+	}
+
+	// 이전 상태를 읽어서 다음 방문 시각 계산 ( 바뀐 페이지면 true )
+	private boolean addState(PreparedStatement select, PreparedStatement merge, String key, Observation observation)
+			throws SQLException {
+		select.setString(1, key);
+		long previousInterval = 0;
+		long lastVisit = 0;
+		double visits = 0;
+		double changes = 0;
+		long metaHash = 0;
+		boolean exists;
+		try (ResultSet rs = select.executeQuery()) {
+			exists = rs.next();
+			if (exists) {
+				previousInterval = rs.getLong(1);
+				lastVisit = rs.getLong(2);
+				visits = rs.getDouble(3);
+				changes = rs.getDouble(4);
+				metaHash = rs.getLong(5);
+			}
+		}
+		long now = System.currentTimeMillis();
+		merge.setString(1, key);
+		merge.setString(2, observation.url);
+		merge.setString(3, observation.seedUrl);
+		if (!observation.isVisit()) {
+			if (exists) { // 이미 추적 중
+				return false;
+			}
+			// 새로 찾은 url 은 바로 방문
+			setState(merge, now, initialIntervalMs, 0, 0, 0, 0);
+			discovered.increment();
+			return false;
+		}
+		if (!exists || lastVisit == 0) { // 처음 방문
+			setState(merge, observation.at + initialIntervalMs, initialIntervalMs, observation.at, 1, 0,
+					observation.metaHash);
+			return false;
+		}
+		boolean metadataChanged = metaHash != observation.metaHash;
+		visits = visits * DECAY + 1;
+		changes = changes * DECAY + (metadataChanged ? 1 : 0);
+		long interval = estimateInterval(visits, changes, observation.at - lastVisit, previousInterval);
+		setState(merge, observation.at + interval, interval, observation.at, visits, changes, observation.metaHash);
+		log.debug("[addState] url ===> {} changed ===> {} interval ===> {}ms", observation.url, metadataChanged,
+				interval);
+		return metadataChanged;
+	}
+
+	private static void setState(PreparedStatement merge, long nextDue, long interval, long lastVisit, double visits,
+			double changes, long metaHash) throws SQLException {
+		merge.setLong(4, nextDue);
+		merge.setLong(5, interval);
+		merge.setLong(6, lastVisit);
+		merge.setDouble(7, visits);
+		merge.setDouble(8, changes);
+		merge.setLong(9, metaHash);
+		merge.addBatch();
+	}
+
+	// 지금부터 HORIZON 안에 방문할 url 을 next due 순서로 최대 windowSize 개
+	private void refill(long now) {
+		try (Connection connection = dataSource.getConnection();
+				PreparedStatement select = connection.prepareStatement(SELECT_DUE)) {
+			select.setLong(1, now + HORIZON_MS);
+			select.setInt(2, windowSize);
+			try (ResultSet rs = select.executeQuery()) {
+				while (rs.next()) {
+					heap.add(new ScheduledUrl(rs.getString(1), rs.getString(2), rs.getString(3), rs.getLong(4),
+							rs.getLong(5)));
+				}
+			}
+		} catch (SQLException e) {
+			log.error("[refill] error ===> {}", e.getMessage());
+		}
+	}
+
+	// 읽어 온 뒤 방문 결과로 next due 가 바뀐 url 은 건너뜀
+	private List<ScheduledUrl> lease(List<ScheduledUrl> due, long now) {
+		List<ScheduledUrl> leased = new ArrayList<>(due.size());
+		synchronized (flushLock) {
+			try (Connection connection = dataSource.getConnection();
+					PreparedStatement update = connection.prepareStatement(LEASE)) {
+				List<ScheduledUrl> candidates = new ArrayList<>(due.size());
+				for (ScheduledUrl url : due) {
+					if (pending.containsKey(url.getKey())) { // 아직 저장하지 않은 방문 결과가 있음
+						continue;
+					}
+					update.setLong(1, now + Math.max(minIntervalMs, url.getIntervalMs()));
+					update.setString(2, url.getKey());
+					update.setLong(3, url.getNextDue());
+					update.addBatch();
+					candidates.add(url);
+				}
+				int[] updated = candidates.isEmpty() ? new int[0] : update.executeBatch();
+				for (int i = 0; i < updated.length; i++) {
+					if (updated[i] > 0) {
+						leased.add(candidates.get(i));
+					}
+				}
+			} catch (SQLException e) {
+				log.error("[lease] urls ===> {} error ===> {}", due.size(), e.getMessage());
+				return leased;
+			}
+		}
+		dispatched.add(leased.size());
+		stale.add(due.size() - leased.size());
+		return leased;
+	}
+
+	private static long clamp(long value, long min, long max) {
+		return Math.max(min, Math.min(max, value));
+	}
+
+	private void createTable() {
+		try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+			statement.execute(CREATE_SCHEDULE);
+			statement.execute(CREATE_DUE_INDEX);
+		} catch (SQLException e) {
+			throw new IllegalStateException("failed to create schedule table", e);
+		}
+	}
+
+	/**
+	 *
+	 * 방문 결과 하나 ( at 이 0 이면 방문하지 않고 link 로 찾기만 한 url )
+	 *
+	 */
+	private static final class Observation {
+
+		private final String seedUrl;
+
+		private final String url;
+
+		private final long metaHash;
+
+		private final long at;
+
+		Observation(String seedUrl, String url, long metaHash, long at) {
+			this.seedUrl = seedUrl;
+			this.url = url;
+			this.metaHash = metaHash;
+			this.at = at;
+		}
+
+		boolean isVisit() {
+			return at > 0;
+		}
+	}
+}
@@ -0,0 +1,140 @@
+package com.crawler.metadata.crawl.revisit;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import com.crawler.metadata.config.CrawlerProperties;
+import com.crawler.metadata.crawl.CrawlListener;
+import com.crawler.metadata.crawl.CrawlScope;
+import com.crawler.metadata.crawl.CrawlerService;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ *
+ * 재크롤링 scheduler 에서 때가 된 url 을 꺼내 seed 별로 다시 크롤링하는 dispatcher ( application 이 떠 있는 동안 계속 실행 )
+ * 한 번에 dispatchBatch 개씩 꺼내고, 다시 크롤링하는 동안은 maxPagesInFlight 개까지만 동시에 처리한다. ( 사용자 job 과 fetch 단계 공유 )
+ *
+ */
+@Service
+@Slf4j
+public class RecrawlService {
+
+	private final Logger log = LoggerFactory.getLogger(getClass());
+
+	private final CrawlerService crawlerService;
+
+	private final RecrawlScheduler recrawlScheduler;
+
+	private final int dispatchBatch;
+
+	private final int maxPagesInFlight;
+
+	private final long pollIntervalMs;
+
+	private volatile boolean running = true;
+
+	private Thread dispatcher;
+
+	// 지금 다시 크롤링 중인 범위 ( 종료 시 취소 )
+	private volatile CrawlScope current;
+
+	private final LongAdder rounds = new LongAdder();
+
+	public RecrawlService(CrawlerService crawlerService, RecrawlScheduler recrawlScheduler,
+			CrawlerProperties properties) {
+		this.crawlerService = crawlerService;
+		this.recrawlScheduler = recrawlScheduler;
+		this.dispatchBatch = Math.max(1, properties.getRecrawl().getDispatchBatch());
+		this.maxPagesInFlight = properties.getRecrawl().getMaxPagesInFlight();
+		this.pollIntervalMs = Math.max(1, properties.getRecrawl().getPollIntervalMs());
+		if (recrawlScheduler.isEnabled()) {
+			dispatcher = new Thread(this::dispatchLoop, "recrawl-dispatcher");
+			dispatcher.setDaemon(true);
+			dispatcher.start();
+		}
+	}
+
+	/**
+	 *
+	 * 때가 된 url 을 한 번 꺼내서 다시 크롤링 ( seed 별로 묶어서 순서대로 )
+	 * @return 다시 크롤링한 url 수 ( 때가 된 url 이 없으면 0 )
+	 *
+	 */
+	public int dispatchDue() {
+		List<ScheduledUrl> due = recrawlScheduler.pollDue(dispatchBatch);
+		if (due.isEmpty()) {
+			return 0;
+		}
+		Map<String, List<String>> bySeed = new LinkedHashMap<>();
+		for (ScheduledUrl url : due) {
+			bySeed.computeIfAbsent(url.getSeedUrl(), seed -> new ArrayList<>()).add(url.getUrl());
+		}
+		CrawlScope scope = new CrawlScope("recrawl-" + rounds.sum(), maxPagesInFlight);
+		current = scope;
+		try {
+			for (Map.Entry<String, List<String>> seed : bySeed.entrySet()) {
+				if (scope.isCancelled()) {
+					break;
+				}
+				crawlerService.revisit(seed.getKey(), seed.getValue(), CrawlListener.NONE, scope);
+			}
+		} finally {
+			current = null;
+		}
+		rounds.increment();
+		log.debug("[dispatchDue] urls ===> {} seeds ===> {}", due.size(), bySeed.size());
+		return due.size();
+	}
+
+	public long getRounds() {
+		return rounds.sum();
+	}
+
+	/**
+	 *
+	 * 다시 크롤링 중인 페이지를 취소하고 dispatcher 종료
+	 *
+	 */
+	@PreDestroy
+	public void stop() {
+		running = false;
+		CrawlScope scope = current;
+		if (scope != null) {
+			scope.cancel();
+		}
+		if (dispatcher == null) {
+			return;
+		}
+		dispatcher.interrupt();
+		try {
+			dispatcher.join(TimeUnit.SECONDS.toMillis(30));
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private void dispatchLoop() {
+		while (running) {
+			try {
+				if (dispatchDue() == 0) {
+					TimeUnit.MILLISECONDS.sleep(pollIntervalMs);
+				}
+			} catch (InterruptedException e) {
+				break;
+			} catch (RuntimeException e) {
+				log.error("[dispatchLoop] error ===> {}", e.getMessage(), e);
+			}
+		}
+	}
+}
@@ -0,0 +1,55 @@
+package com.crawler.metadata.crawl.revisit;
+
+/**
+ *
+ * 다시 방문할 때가 된 ( 또는 곧 될 ) url 하나
+ *
+ */
+public class ScheduledUrl {
+
+	private final String key;
+
+	private final String url;
+
+	private final String seedUrl;
+
+	// 방문 예정 시각 ( epoch ms )
+	private final long nextDue;
+
+	// 현재 추정한 방문 간격
+	private final long intervalMs;
+
+	public ScheduledUrl(String key, String url, String seedUrl, long nextDue, long intervalMs) {
+		this.key = key;
+		this.url = url;
+		this.seedUrl = seedUrl;
+		this.nextDue = nextDue;
+		this.intervalMs = intervalMs;
+	}
+
+	public String getKey() {
+		return key;
+	}
+
+	public String getUrl() {
+		return url;
+	}
+
+	public String getSeedUrl() {
+		return seedUrl;
+	}
+
+	public long getNextDue() {
+		return nextDue;
+	}
+
+	public long getIntervalMs() {
+		return intervalMs;
+	}
+
+	@Override
+	public String toString() {
+		return "ScheduledUrl [url=" + url + ", seedUrl=" + seedUrl + ", nextDue=" + nextDue + ", intervalMs="
+				+ intervalMs + "]";
+	}
+}
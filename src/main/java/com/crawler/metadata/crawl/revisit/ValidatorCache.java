@@ -0,0 +1,452 @@
+package com.crawler.metadata.crawl.revisit;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.UnaryOperator;
+
+import javax.annotation.PreDestroy;
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.crawler.metadata.config.CrawlerProperties;
+import com.crawler.metadata.crawl.URLQueueService;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ *
+ * url 별 validator ( ETag, Last-Modified, 응답 body hash ) 와 추출 결과를 DB 에 보관
+ * 다시 크롤링할 때 validator 로 조건부 요청을 보내고, 304 를 받거나 body hash 가 같으면 보관한 meta tag, link 를 그대로 사용한다.
+ *
+ * store() 는 저장 대기 map 에 넣기만 하고 저장 스레드가 batchSize 개씩 또는 flushInterval 마다 MERGE 한다.
+ * 대기 entry 가 maxPending 을 넘으면 store() 는 저장 스레드가 대기 map 을 줄일 때까지 기다린다. ( DB 저장은 하지 않음 )
+ * 저장 전에 같은 url 을 lookup() 하면 대기 map 에서 찾는다. ( 같은 url 의 새 entry 가 들어오면 덮어씀 )
+ *
+ */
+@Component
+@Slf4j
+public class ValidatorCache {
+
+	private static final String CREATE_VALIDATOR = "CREATE TABLE IF NOT EXISTS crawl_validator ("
+			+ "url_key VARCHAR(4096) PRIMARY KEY, etag VARCHAR(1024), last_modified VARCHAR(256), "
+			+ "content_hash BIGINT NOT NULL, final_url VARCHAR(4096), status_code INT, payload BLOB, "
+			+ "fetched_at TIMESTAMP)";
+
+	private static final String MERGE_VALIDATOR = "MERGE INTO crawl_validator (url_key, etag, last_modified, "
+			+ "content_hash, final_url, status_code, payload, fetched_at) KEY (url_key) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+
+	private static final String SELECT_VALIDATOR = "SELECT etag, last_modified, content_hash, final_url, status_code, "
+			+ "payload, fetched_at FROM crawl_validator WHERE url_key = ?";
+
+	// 너무 긴 header 값은 저장하지 않음 ( 조건부 요청 없이 body hash 로만 비교 )
+	private static final int MAX_ETAG_LENGTH = 1024;
+
+	private static final int MAX_LAST_MODIFIED_LENGTH = 256;
+
+	/**
+	 *
+	 * 내려받은 페이지를 처리한 방식
+	 *
+	 */
+	public enum Outcome {
+		// 304 응답 ( body 를 받지 않음 )
+		NOT_MODIFIED,
+		// 200 이지만 body hash 가 같음 ( 다시 parse 하지 않음 )
+		UNCHANGED,
+		// 처음 수집했거나 내용이 바뀌어서 parse
+		CHANGED
+	}
+
+	private final Logger log = LoggerFactory.getLogger(getClass());
+
+	private final DataSource dataSource;
+
+	private final UnaryOperator<String> canonicalizer;
+
+	private final boolean enabled;
+
+	private final int batchSize;
+
+	private final long flushIntervalMs;
+
+	private final int maxPending;
+
+	// 저장 대기 entry ( url key → 마지막 entry )
+	private final Map<String, CachedPage> pending = new ConcurrentHashMap<>();
+
+	// 저장 스레드와 flush() 를 호출한 스레드가 같은 row 를 동시에 MERGE 하지 않도록
+	private final Object flushLock = new Object();
+
+	private volatile boolean running = true;
+
+	private Thread flusher;
+
+	private final LongAdder lookups = new LongAdder();
+
+	private final LongAdder hits = new LongAdder();
+
+	private final LongAdder notModified = new LongAdder();
+
+	private final LongAdder unchanged = new LongAdder();
+
+	private final LongAdder changed = new LongAdder();
+
+	private final LongAdder stored = new LongAdder();
+
+	private final LongAdder written = new LongAdder();
+
+	private final LongAdder failed = new LongAdder();
+
+	@Autowired
+	public ValidatorCache(DataSource dataSource, URLQueueService urlQueueService, CrawlerProperties properties) {
+		this(dataSource, urlQueueService::canonicalize, properties.getRevisit());
+	}
+
+	/**
+	 *
+	 * @param dataSource
+	 * @param canonicalizer url key ( canonical url ) 변환
+	 * @param revisit batch 설정
+	 *
+	 */
+	public ValidatorCache(DataSource dataSource, UnaryOperator<String> canonicalizer,
+			CrawlerProperties.Revisit revisit) {
+		this.dataSource = dataSource;
+		this.canonicalizer = canonicalizer;
+		this.enabled = revisit.isEnabled();
+		this.batchSize = Math.max(1, revisit.getBatchSize());
+		this.flushIntervalMs = Math.max(1, revisit.getFlushIntervalMs());
+		this.maxPending = Math.max(batchSize, revisit.getMaxPending());
+		if (enabled) {
+			createTable();
+			flusher = new Thread(this::flushLoop, "validator-writer");
+			flusher.setDaemon(true);
+			flusher.start();
+		}
+	}
+
+	/**
+	 *
+	 * url 의 이전 크롤링 결과 조회
+	 * @param url
+	 * @return 없거나 조회에 실패하면 null
+	 *
+	 */
+	public CachedPage lookup(String url) {
+		if (!enabled) {
+			return null;
+		}
+		lookups.increment();
+		String key = canonicalizer.apply(url);
+		CachedPage page = pending.get(key);
+		if (page == null) {
+			page = select(key);
+		}
+		if (page != null) {
+			hits.increment();
+		}
+		return page;
+	}
+
+	/**
+	 *
+	 * url 의 크롤링 결과를 저장 대기 map 에 넣음 ( 대기 entry 가 maxPending 을 넘으면 저장 스레드가 줄일 때까지 대기 )
+	 * @param url
+	 * @param page
+	 *
+	 */
+	public void store(String url, CachedPage page) {
+		if (!enabled || page == null) {
+			return;
+		}
+		if (!fits(page.getEtag(), MAX_ETAG_LENGTH) || !fits(page.getLastModified(), MAX_LAST_MODIFIED_LENGTH)) {
+			page = new CachedPage(null, null, page.getContentHash(), page.getFinalUrl(), page.getStatusCode(),
+					page.getTitle(), page.getCanonicalUrl(), page.getMetaTags(), page.getLinks(), page.getFetchedAt());
+		}
+		pending.put(canonicalizer.apply(url), page);
+		stored.increment();
+		if (pending.size() < batchSize) {
+			return;
+		}
+		synchronized (this) {
+			notifyAll();
+			while (running && pending.size() >= maxPending) {
+				try {
+					wait(flushIntervalMs);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					return;
+				}
+			}
+		}
+	}
+
+	/**
+	 *
+	 * 내려받은 페이지를 처리한 방식 기록 ( 통계 )
+	 * @param outcome
+	 *
+	 */
+	public void record(Outcome outcome) {
+		switch (outcome) {
+		case NOT_MODIFIED:
+			notModified.increment();
+			break;
+		case UNCHANGED:
+			unchanged.increment();
+			break;
+		default:
+			changed.increment();
+		}
+	}
+
+	/**
+	 *
+	 * 저장 대기 entry 를 모두 저장
+	 * @return 저장한 entry 수
+	 *
+	 */
+	public int flush() {
+		if (!enabled) {
+			return 0;
+		}
+		int total = 0;
+		synchronized (flushLock) {
+			while (!pending.isEmpty()) {
+				Map<String, CachedPage> batch = new LinkedHashMap<>();
+				for (Map.Entry<String, CachedPage> entry : pending.entrySet()) {
+					batch.put(entry.getKey(), entry.getValue());
+					if (batch.size() >= batchSize) {
+						break;
+					}
+				}
+				total += writeBatch(batch);
+			}
+		}
+		return total;
+	}
+
+	/**
+	 *
+	 * 남은 entry 를 저장하고 저장 스레드 종료
+	 *
+	 */
+	@PreDestroy
+	public void stop() {
+		running = false;
+		if (flusher == null) {
+			return;
+		}
+		synchronized (this) {
+			notifyAll();
+		}
+		try {
+			flusher.join(TimeUnit.SECONDS.toMillis(30));
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		flush();
+		if (!pending.isEmpty()) {
+			log.error("[stop] validators not written ===> {}", pending.size());
+		}
+	}
+
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	public ValidatorCacheMetrics getMetrics() {
+		return new ValidatorCacheMetrics(enabled, pending.size(), lookups.sum(), hits.sum(), notModified.sum(),
+				unchanged.sum(), changed.sum(), stored.sum(), written.sum(), failed.sum());
+	}
+
+	// batchSize 개가 쌓이면 ( store() 가 깨움 ) 또는 flushInterval 마다 저장
+	private void flushLoop() {
+		while (running) {
+			synchronized (this) {
+				if (running && pending.size() < batchSize) {
+					try {
+						wait(flushIntervalMs);
+					} catch (InterruptedException e) {
+						running = false;
+					}
+				}
+			}
+			flush();
+			// 대기 map 이 줄기를 기다리는 store() 를 깨움
+			synchronized (this) {
+				notifyAll();
+			}
+		}
+	}
+
+	// 저장한 entry 는 그사이 새 entry 로 바뀌지 않았을 때만 대기 map 에서 뺌
+	private int writeBatch(Map<String, CachedPage> batch) {
+		long start = System.nanoTime();
+		int count = batch.size();
+		try {
+			writeEntries(batch);
+			written.add(count);
+		} catch (SQLException | IOException | RuntimeException e) {
+			log.warn("[writeBatch] validators ===> {} error ===> {} retry one by one", batch.size(), e.getMessage());
+			// 잘못된 entry 하나 때문에 batch 전체를 잃지 않도록 한 entry 씩 다시 저장
+			for (Map.Entry<String, CachedPage> entry : batch.entrySet()) {
+				try {
+					writeEntries(Collections.singletonMap(entry.getKey(), entry.getValue()));
+					written.increment();
+				} catch (SQLException | IOException | RuntimeException entryError) {
+					// 실패한 entry 는 버림 ( 다음 크롤링에서 다시 parse 해서 저장 )
+					log.error("[writeBatch] key ===> {} error ===> {}", entry.getKey(), entryError.getMessage());
+					failed.increment();
+					count--;
+				}
+			}
+		}
+		batch.forEach((key, page) -> pending.remove(key, page));
+		log.debug("[writeBatch] validators ===> {} elapsed ===> {}ms", batch.size(),
+				(System.nanoTime() - start) / 1_000_000);
+		return count;
+	}
+
+	// 한 transaction 으로 저장 ( 실패하면 모두 rollback )
+	private void writeEntries(Map<String, CachedPage> entries) throws SQLException, IOException {
+		try (Connection connection = dataSource.getConnection()) {
+			connection.setAutoCommit(false);
+			try (PreparedStatement merge = connection.prepareStatement(MERGE_VALIDATOR)) {
+				for (Map.Entry<String, CachedPage> entry : entries.entrySet()) {
+					addEntry(merge, entry.getKey(), entry.getValue());
+				}
+				merge.executeBatch();
+				connection.commit();
+			} catch (SQLException | IOException | RuntimeException e) {
+				connection.rollback();
+				throw e;
+			}
+		}
+	}
+
+	private static void addEntry(PreparedStatement merge, String key, CachedPage page)
+			throws SQLException, IOException {
+		merge.setString(1, key);
+		merge.setString(2, page.getEtag());
+		merge.setString(3, page.getLastModified());
+		merge.setLong(4, page.getContentHash());
+		merge.setString(5, page.getFinalUrl());
+		merge.setInt(6, page.getStatusCode());
+		merge.setBytes(7, encode(page));
+		merge.setTimestamp(8, new Timestamp(page.getFetchedAt()));
+		merge.addBatch();
+	}
+
+	private CachedPage select(String key) {
+		try (Connection connection = dataSource.getConnection();
+				PreparedStatement select = connection.prepareStatement(SELECT_VALIDATOR)) {
+			select.setString(1, key);
+			try (ResultSet rs = select.executeQuery()) {
+				if (!rs.next()) {
+					return null;
+				}
+				Timestamp fetchedAt = rs.getTimestamp(7);
+				return decode(rs.getBytes(6), rs.getString(1), rs.getString(2), rs.getLong(3), rs.getString(4),
+						rs.getInt(5), fetchedAt == null ? 0 : fetchedAt.getTime());
+			}
+		} catch (SQLException | IOException e) {
+			log.error("[select] key ===> {} error ===> {}", key, e.getMessage());
+			return null;
+		}
+	}
+
+	// title, canonical url, meta tag, link 를 하나의 BLOB 으로 ( 페이지마다 row 를 여러 개 만들지 않음 )
+	private static byte[] encode(CachedPage page) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+		try (DataOutputStream out = new DataOutputStream(bytes)) {
+			writeString(out, page.getTitle());
+			writeString(out, page.getCanonicalUrl());
+			out.writeInt(page.getMetaTags().size());
+			for (Map.Entry<String, String> tag : page.getMetaTags().entrySet()) {
+				writeString(out, tag.getKey());
+				writeString(out, tag.getValue());
+			}
+			out.writeInt(page.getLinks().size());
+			for (String link : page.getLinks()) {
+				writeString(out, link);
+			}
+		}
+		return bytes.toByteArray();
+	}
+
+	private static CachedPage decode(byte[] payload, String etag, String lastModified, long contentHash,
+			String finalUrl, int statusCode, long fetchedAt) throws IOException {
+		try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload))) {
+			String title = readString(in);
+			String canonicalUrl = readString(in);
+			int tagCount = in.readInt();
+			Map<String, String> metaTags = new LinkedHashMap<>();
+			for (int i = 0; i < tagCount; i++) {
+				metaTags.put(readString(in), readString(in));
+			}
+			int linkCount = in.readInt();
+			List<String> links = new ArrayList<>(linkCount);
+			for (int i = 0; i < linkCount; i++) {
+				links.add(readString(in));
+			}
+			return new CachedPage(etag, lastModified, contentHash, finalUrl, statusCode, title, canonicalUrl,
+					metaTags, links, fetchedAt);
+		}
+	}
+
+	// writeUTF 는 64KB 까지라서 길이 + UTF-8 로 씀 ( -1 = null )
+	private static void writeString(DataOutputStream out, String value) throws IOException {
+		if (value == null) {
+			out.writeInt(-1);
+			return;
+		}
+		byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+
+	private static String readString(DataInputStream in) throws IOException {
+		int length = in.readInt();
+		if (length < 0) {
+			return null;
+		}
+		byte[] bytes = new byte[length];
+		in.readFully(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	private static boolean fits(String value, int maxLength) {
+		return value == null || value.length() <= maxLength;
+	}
+
+	private void createTable() {
+		try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+			statement.execute(CREATE_VALIDATOR);
+		} catch (SQLException e) {
+			throw new IllegalStateException("failed to create validator table", e);
+		}
+	}
+}
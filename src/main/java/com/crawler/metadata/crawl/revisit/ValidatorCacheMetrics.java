@@ -0,0 +1,96 @@
+package com.crawler.metadata.crawl.revisit;
+
+/**
+ *
+ * validator cache 조회 적중, 다시 크롤링한 결과 ( 304 / 같은 body / 바뀜 ), 저장 통계 snapshot
+ *
+ */
+public class ValidatorCacheMetrics {
+
+	private final boolean enabled;
+
+	private final int pending;
+
+	private final long lookups;
+
+	private final long hits;
+
+	private final long notModified;
+
+	private final long unchanged;
+
+	private final long changed;
+
+	private final long stored;
+
+	private final long written;
+
+	private final long failed;
+
+	public ValidatorCacheMetrics(boolean enabled, int pending, long lookups, long hits, long notModified, long unchanged,
+			long changed, long stored, long written, long failed) {
+		this.enabled = enabled;
+		this.pending = pending;
+		this.lookups = lookups;
+		this.hits = hits;
+		this.notModified = notModified;
+		this.unchanged = unchanged;
+		this.changed = changed;
+		this.stored = stored;
+		this.written = written;
+		this.failed = failed;
+	}
+
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	public int getPending() {
+		return pending;
+	}
+
+	public long getLookups() {
+		return lookups;
+	}
+
+	public long getHits() {
+		return hits;
+	}
+
+	public long getNotModified() {
+		return notModified;
+	}
+
+	public long getUnchanged() {
+		return unchanged;
+	}
+
+	public long getChanged() {
+		return changed;
+	}
+
+	public long getStored() {
+		return stored;
+	}
+
+	public long getWritten() {
+		return written;
+	}
+
+	public long getFailed() {
+		return failed;
+	}
+
+	// 이전 결과를 다시 사용한 비율 ( 304 + 같은 body )
+	public double getReuseRatio() {
+		long revisited = notModified + unchanged + changed;
+		return revisited == 0 ? 0 : (double) (notModified + unchanged) / revisited;
+	}
+
+	@Override
+	public String toString() {
+		return "ValidatorCacheMetrics [enabled=" + enabled + ", pending=" + pending + ", lookups=" + lookups
+				+ ", hits=" + hits + ", notModified=" + notModified + ", unchanged=" + unchanged + ", changed=" + changed
+				+ ", stored=" + stored + ", written=" + written + ", failed=" + failed + "]";
+	}
+}
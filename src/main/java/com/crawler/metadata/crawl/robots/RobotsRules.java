@@ -0,0 +1,269 @@
+package com.crawler.metadata.crawl.robots;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ *
+ * 한 host 의 robots.txt Allow / Disallow 규칙을 미리 컴파일한 matcher ( RFC 9309 )
+ * 가장 긴 pattern 이 적용되고, 길이가 같으면 Allow 가 우선한다.
+ * '*', '$' 가 없는 pattern 은 문자 trie 로, wildcard pattern 은 길이 내림차순 목록으로 두고
+ * trie 에서 찾은 규칙보다 긴 wildcard pattern 만 확인한다. 검사 중 객체를 만들지 않으며 불변이다.
+ *
+ */
+public final class RobotsRules {
+
+	public static final RobotsRules ALLOW_ALL = new RobotsRules(Collections.emptyList(), -1, Collections.emptyList());
+
+	public static final RobotsRules DISALLOW_ALL = new RobotsRules(
+			Collections.singletonList(new Rule("/", false)), -1, Collections.emptyList());
+
+	private static final byte NONE = 0;
+
+	private static final byte ALLOW = 1;
+
+	private static final byte DISALLOW = 2;
+
+	private final Node root = new Node();
+
+	// '*' 또는 '$' 가 들어간 pattern ( 길이 내림차순, 같은 길이는 Allow 먼저 )
+	private final Rule[] wildcardRules;
+
+	private final long crawlDelayMs;
+
+	private final List<String> sitemaps;
+
+	private final int ruleCount;
+
+	RobotsRules(List<Rule> rules, long crawlDelayMs, List<String> sitemaps) {
+		List<Rule> wildcards = new ArrayList<>();
+		for (Rule rule : rules) {
+			if (rule.pattern.indexOf('*') >= 0 || rule.pattern.indexOf('$') >= 0 && !isExact(rule.pattern)) {
+				wildcards.add(rule);
+			} else {
+				insert(rule);
+			}
+		}
+		wildcards.sort(Comparator.comparingInt((Rule rule) -> rule.pattern.length()).reversed()
+				.thenComparing(rule -> !rule.allow));
+		this.wildcardRules = wildcards.toArray(new Rule[0]);
+		this.crawlDelayMs = crawlDelayMs;
+		this.sitemaps = Collections.unmodifiableList(new ArrayList<>(sitemaps));
+		this.ruleCount = rules.size();
+	}
+
+	/**
+	 *
+	 * url 의 path + query 가 수집 허용인지 확인
+	 * @param url 절대경로 url
+	 * @return 허용이면 true
+	 *
+	 */
+	public boolean isAllowed(String url) {
+		if (ruleCount == 0) {
+			return true;
+		}
+		int schemeEnd = url.indexOf("://");
+		int start = schemeEnd < 0 ? 0 : schemeEnd + 3;
+		while (start < url.length() && !isPathDelimiter(url.charAt(start))) {
+			start++;
+		}
+		int end = url.indexOf('#', start);
+		if (end < 0) {
+			end = url.length();
+		}
+		if (start == end || url.charAt(start) != '/') {
+			// path 가 비어 있으면 "/" 기준 ( "?a=b" 만 있는 경우 포함 )
+			return isAllowedPath("/", 0, 1);
+		}
+		return isAllowedPath(url, start, end);
+	}
+
+	/**
+	 *
+	 * path ( + query ) 구간에 적용되는 규칙 확인
+	 * @param path
+	 * @param start
+	 * @param end
+	 * @return 허용이면 true
+	 *
+	 */
+	public boolean isAllowedPath(String path, int start, int end) {
+		// 1. trie 를 따라가며 가장 깊은 ( 가장 긴 ) 규칙 찾기
+		byte verdict = NONE;
+		int matchedLength = -1;
+		Node node = root;
+		int i = start;
+		while (true) {
+			if (node.verdict != NONE) {
+				verdict = node.verdict;
+				matchedLength = i - start;
+			}
+			if (i == end) {
+				if (node.exactVerdict != NONE) {
+					verdict = node.exactVerdict;
+					matchedLength = i - start + 1; // '$' 포함 길이
+				}
+				break;
+			}
+			node = node.child(path.charAt(i));
+			if (node == null) {
+				break;
+			}
+			i++;
+		}
+		// 2. trie 결과보다 긴 wildcard pattern 만 확인
+		for (Rule rule : wildcardRules) {
+			int length = rule.pattern.length();
+			if (length < matchedLength || length == matchedLength && (verdict == ALLOW || !rule.allow)) {
+				break;
+			}
+			if (rule.matches(path, start, end)) {
+				return rule.allow;
+			}
+		}
+		return verdict != DISALLOW;
+	}
+
+	/**
+	 *
+	 * Crawl-delay ( 없으면 -1 )
+	 *
+	 */
+	public long getCrawlDelayMs() {
+		return crawlDelayMs;
+	}
+
+	public List<String> getSitemaps() {
+		return sitemaps;
+	}
+
+	public int getRuleCount() {
+		return ruleCount;
+	}
+
+	private void insert(Rule rule) {
+		String pattern = rule.pattern;
+		boolean exact = isExact(pattern);
+		int length = exact ? pattern.length() - 1 : pattern.length();
+		Node node = root;
+		for (int i = 0; i < length; i++) {
+			node = node.childOrCreate(pattern.charAt(i));
+		}
+		byte verdict = rule.allow ? ALLOW : DISALLOW;
+		if (exact) {
+			node.exactVerdict = merge(node.exactVerdict, verdict);
+		} else {
+			node.verdict = merge(node.verdict, verdict);
+		}
+	}
+
+	// 같은 pattern 에 Allow, Disallow 가 모두 있으면 Allow
+	private static byte merge(byte current, byte verdict) {
+		return current == ALLOW || verdict == ALLOW ? ALLOW : verdict;
+	}
+
+	// '$' 로 끝나고 '*' 가 없는 pattern
+	private static boolean isExact(String pattern) {
+		return pattern.indexOf('*') < 0 && pattern.indexOf('$') == pattern.length() - 1;
+	}
+
+	// pattern 하나만 확인 ( 테스트용 )
+	static boolean matches(String pattern, String path, int start, int end) {
+		return new Rule(pattern, true).matches(path, start, end);
+	}
+
+	private static boolean isPathDelimiter(char c) {
+		return c == '/' || c == '?' || c == '#';
+	}
+
+	/**
+	 *
+	 * Allow / Disallow 규칙 하나
+	 * wildcard pattern 은 '*' 기준으로 잘라둔 문자열 조각을 순서대로 찾는다.
+	 * 첫 조각은 path 앞에 고정, 중간 조각은 가장 앞에서 찾은 위치를 사용, '$' 로 끝나면 마지막 조각은 path 끝에 고정한다.
+	 *
+	 */
+	static final class Rule {
+
+		final String pattern;
+
+		final boolean allow;
+
+		private final String[] segments;
+
+		private final boolean anchored;
+
+		Rule(String pattern, boolean allow) {
+			this.pattern = pattern;
+			this.allow = allow;
+			this.anchored = pattern.endsWith("$");
+			String body = anchored ? pattern.substring(0, pattern.length() - 1) : pattern;
+			this.segments = body.split("\\*", -1);
+		}
+
+		boolean matches(String path, int start, int end) {
+			String first = segments[0];
+			if (first.length() > end - start || !path.startsWith(first, start)) {
+				return false;
+			}
+			int pos = start + first.length();
+			int last = segments.length - 1;
+			if (last == 0) {
+				return !anchored || pos == end;
+			}
+			for (int i = 1; i < last; i++) {
+				String segment = segments[i];
+				int found = path.indexOf(segment, pos);
+				if (found < 0 || found + segment.length() > end) {
+					return false;
+				}
+				pos = found + segment.length();
+			}
+			String tail = segments[last];
+			if (anchored) {
+				int tailStart = end - tail.length();
+				return tailStart >= pos && path.startsWith(tail, tailStart);
+			}
+			int found = path.indexOf(tail, pos);
+			return found >= 0 && found + tail.length() <= end;
+		}
+	}
+
+	private static final class Node {
+
+		private char[] keys = new char[0];
+
+		private Node[] children = new Node[0];
+
+		private byte verdict;
+
+		private byte exactVerdict;
+
+		Node child(char c) {
+			char[] keys = this.keys;
+			for (int i = 0; i < keys.length; i++) {
+				if (keys[i] == c) {
+					return children[i];
+				}
+			}
+			return null;
+		}
+
+		Node childOrCreate(char c) {
+			Node child = child(c);
+			if (child == null) {
+				int size = keys.length;
+				keys = Arrays.copyOf(keys, size + 1);
+				children = Arrays.copyOf(children, size + 1);
+				keys[size] = c;
+				child = new Node();
+				children[size] = child;
+			}
+			return child;
+		}
+	}
+}
@@ -0,0 +1,345 @@
+package com.crawler.metadata.crawl.robots;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import com.crawler.metadata.config.CrawlerProperties;
+import com.crawler.metadata.crawl.fetch.FetchResult;
+import com.crawler.metadata.crawl.fetch.PageFetcher;
+import com.crawler.metadata.crawl.politeness.HostPolitenessScheduler;
+import com.crawler.metadata.util.UrlUtils;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ *
+ * origin ( scheme://host:port ) 별 robots.txt 규칙 cache
+ * origin 마다 robots.txt 를 한 번만 내려받고 ( HostPolitenessScheduler 를 거쳐 비동기로 ), 같은 origin 의 조회는 같은 결과를 기다린다.
+ * 규칙은 TTL 이 지나면 다시 내려받고, 최대 개수를 넘으면 가장 오래 사용하지 않은 origin 부터 지운다.
+ * Crawl-delay 는 HostPolitenessScheduler 의 host 요청 간격에 반영한다.
+ *
+ */
+@Component
+@Slf4j
+public class RobotsTxtCache {
+
+	private static final CompletableFuture<RobotsRules> NO_RULES = CompletableFuture.completedFuture(null);
+
+	private final Logger log = LoggerFactory.getLogger(getClass());
+
+	private final PageFetcher pageFetcher;
+
+	private final HostPolitenessScheduler politenessScheduler;
+
+	private final String userAgent;
+
+	private final long ttlNanos;
+
+	private final long errorTtlNanos;
+
+	private final int maxOrigins;
+
+	// 사용 순서 ( access order ) 로 정렬, entries 로 synchronized
+	private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+	private final ThreadLocal<Recent> recent = ThreadLocal.withInitial(Recent::new);
+
+	private final LongAdder fetches = new LongAdder();
+
+	private final LongAdder disallowed = new LongAdder();
+
+	public RobotsTxtCache(CrawlerProperties properties, PageFetcher pageFetcher,
+			HostPolitenessScheduler politenessScheduler) {
+		CrawlerProperties.Robots robots = properties.getRobots();
+		this.pageFetcher = pageFetcher;
+		this.politenessScheduler = politenessScheduler;
+		this.userAgent = robots.getUserAgent();
+		this.ttlNanos = TimeUnit.MINUTES.toNanos(robots.getTtlMinutes());
+		this.errorTtlNanos = TimeUnit.MINUTES.toNanos(robots.getErrorTtlMinutes());
+		this.maxOrigins = Math.max(1, robots.getMaxOrigins());
+	}
+
+	/**
+	 *
+	 * robots.txt 기준으로 url 수집이 허용되는지 확인
+	 * 처음 보는 origin 이면 robots.txt 를 내려받는 동안 기다리므로, 기다려도 되는 스레드에서만 호출한다. ( seed 확인 등 )
+	 * @param url
+	 * @return 허용이면 true
+	 *
+	 */
+	public boolean isAllowed(String url) {
+		return isAllowedAsync(url).join();
+	}
+
+	/**
+	 *
+	 * robots.txt 기준으로 url 수집이 허용되는지 비동기로 확인
+	 * @param url
+	 * @return 허용 여부 future ( 내려받기에 실패하면 RFC 9309 기준으로 판단하므로 실패로 끝나지 않음 )
+	 *
+	 */
+	public CompletableFuture<Boolean> isAllowedAsync(String url) {
+		return getRulesAsync(url).thenApply(rules -> check(rules, url));
+	}
+
+	/**
+	 *
+	 * 규칙을 이미 내려받은 origin 에서 금지한 url 인지 확인 ( 기다리지 않음 )
+	 * 아직 내려받지 않은 origin 이면 내려받기를 시작하고 false ( fetch 단계에서 isAllowedAsync 로 다시 확인 )
+	 * @param url
+	 * @return 금지가 확인된 url 이면 true
+	 *
+	 */
+	public boolean isKnownDisallowed(String url) {
+		CompletableFuture<RobotsRules> rules = getRulesAsync(url);
+		return rules.isDone() && !check(rules.join(), url);
+	}
+
+	private boolean check(RobotsRules rules, String url) {
+		if (rules == null || rules.isAllowed(url)) {
+			return true;
+		}
+		disallowed.increment();
+		return false;
+	}
+
+	/**
+	 *
+	 * url origin 의 robots.txt 규칙 ( 내려받는 동안 기다림 )
+	 * @param url
+	 * @return rules ( http, https url 이 아니면 null )
+	 *
+	 */
+	public RobotsRules getRules(String url) {
+		return getRulesAsync(url).join();
+	}
+
+	/**
+	 *
+	 * url origin 의 robots.txt 규칙 future ( 처음 보거나 만료된 origin 이면 내려받기 시작 )
+	 * @param url
+	 * @return rules future ( http, https url 이 아니면 null 로 완료 )
+	 *
+	 */
+	public CompletableFuture<RobotsRules> getRulesAsync(String url) {
+		long now = System.nanoTime();
+		// 같은 페이지의 link 는 대부분 origin 이 같으므로 직전에 사용한 origin 이면 map 조회 생략
+		// ( 사용 순서도 갱신하지 않지만, 스레드가 다른 origin 을 거쳐 돌아오면 lookup 에서 갱신됨 )
+		Recent last = recent.get();
+		if (last.entry != null && !last.entry.removed && last.entry.expiresAt - now > 0 && isSameOrigin(url, last.origin)) {
+			return last.entry.rules;
+		}
+		String origin = originOf(url);
+		if (origin == null) {
+			return NO_RULES;
+		}
+		Entry entry = lookup(origin, now);
+		last.origin = origin;
+		last.entry = entry;
+		return entry.rules;
+	}
+
+	private Entry lookup(String origin, long now) {
+		Entry entry;
+		synchronized (entries) {
+			entry = entries.get(origin);
+			if (entry != null && entry.expiresAt - now > 0) {
+				return entry;
+			}
+			if (entry != null) {
+				entry.removed = true;
+			}
+			entry = new Entry(now);
+			entries.put(origin, entry);
+			evictIfFull();
+		}
+		load(origin, entry);
+		return entry;
+	}
+
+	public List<String> getSitemaps(String url) {
+		RobotsRules rules = getRules(url);
+		return rules == null ? Collections.emptyList() : rules.getSitemaps();
+	}
+
+	/**
+	 *
+	 * 이미 알고 있는 규칙을 등록 ( robots.txt 를 내려받지 않음 )
+	 * @param url origin 을 포함한 url
+	 * @param rules
+	 *
+	 */
+	public void put(String url, RobotsRules rules) {
+		String origin = originOf(url);
+		if (origin == null) {
+			return;
+		}
+		Entry entry = new Entry(System.nanoTime());
+		entry.expiresAt = System.nanoTime() + ttlNanos;
+		entry.rules.complete(rules);
+		synchronized (entries) {
+			Entry old = entries.put(origin, entry);
+			if (old != null) {
+				old.removed = true;
+			}
+			evictIfFull();
+		}
+	}
+
+	public int size() {
+		synchronized (entries) {
+			return entries.size();
+		}
+	}
+
+	public long getFetchCount() {
+		return fetches.sum();
+	}
+
+	public long getDisallowedCount() {
+		return disallowed.sum();
+	}
+
+	/**
+	 *
+	 * robots.txt 를 host 요청 순서에 맞춰 비동기로 내려받아 해석
+	 * 2xx 는 규칙 적용, 4xx 는 전부 허용, 5xx / 요청 실패는 잠시 전부 금지 ( RFC 9309 2.3.1 )
+	 *
+	 */
+	private void load(String origin, Entry entry) {
+		fetches.increment();
+		String robotsUrl = origin + "/robots.txt";
+		CompletableFuture<FetchResult> request;
+		try {
+			request = politenessScheduler.schedule(robotsUrl,
+					() -> pageFetcher.fetchTextAsync(robotsUrl, RobotsTxtParser.MAX_LENGTH));
+		} catch (RuntimeException e) {
+			request = CompletableFuture.failedFuture(e);
+		}
+		request.whenComplete((result, error) -> complete(origin, entry, result, error));
+	}
+
+	private void complete(String origin, Entry entry, FetchResult result, Throwable error) {
+		RobotsRules rules;
+		long ttl = ttlNanos;
+		try {
+			if (error != null) {
+				throw new IllegalStateException(PageFetcher.unwrap(error).getMessage());
+			}
+			int status = result.getStatusCode();
+			if (result.isSuccess()) {
+				rules = RobotsTxtParser.parse(result.getBodyText(), userAgent);
+			} else if (status >= 400 && status < 500 && status != 429) {
+				rules = RobotsRules.ALLOW_ALL;
+			} else {
+				rules = RobotsRules.DISALLOW_ALL;
+				ttl = errorTtlNanos;
+			}
+			log.debug("[load] origin ===> {} status ===> {} rules ===> {}", origin, status, rules.getRuleCount());
+		} catch (RuntimeException e) {
+			log.error("[load] origin ===> {} error ===> {}", origin, e.getMessage());
+			rules = RobotsRules.DISALLOW_ALL;
+			ttl = errorTtlNanos;
+		}
+		if (rules.getCrawlDelayMs() >= 0) {
+			politenessScheduler.setCrawlDelay(UrlUtils.getHost(origin), rules.getCrawlDelayMs());
+		}
+		entry.expiresAt = System.nanoTime() + ttl;
+		entry.rules.complete(rules);
+	}
+
+	// 최대 개수를 넘으면 가장 오래 사용하지 않은 origin 부터 제거 ( 내려받는 중인 origin 은 남김, entries lock 안에서 호출 )
+	private void evictIfFull() {
+		Iterator<Entry> eldest = entries.values().iterator();
+		while (entries.size() > maxOrigins && eldest.hasNext()) {
+			Entry entry = eldest.next();
+			if (entry.rules.isDone()) {
+				eldest.remove();
+				entry.removed = true;
+			}
+		}
+	}
+
+	/**
+	 *
+	 * url 에서 scheme://host[:port] 부분만 잘라냄 ( scheme, host 는 소문자 )
+	 * @param url
+	 * @return origin 또는 null
+	 *
+	 */
+	static String originOf(String url) {
+		if (url == null) {
+			return null;
+		}
+		int schemeEnd = url.indexOf("://");
+		if (schemeEnd != 4 && schemeEnd != 5 || !url.regionMatches(true, 0, "http", 0, 4)
+				|| schemeEnd == 5 && Character.toLowerCase(url.charAt(4)) != 's') {
+			return null;
+		}
+		int end = schemeEnd + 3;
+		while (end < url.length()) {
+			char c = url.charAt(end);
+			if (c == '/' || c == '?' || c == '#') {
+				break;
+			}
+			end++;
+		}
+		int at = url.lastIndexOf('@', end - 1);
+		int hostStart = at > schemeEnd ? at + 1 : schemeEnd + 3;
+		if (hostStart == end) {
+			return null;
+		}
+		StringBuilder origin = new StringBuilder(end - hostStart + schemeEnd + 3);
+		origin.append(url, 0, schemeEnd + 3);
+		origin.append(url, hostStart, end);
+		for (int i = 0; i < origin.length(); i++) {
+			origin.setCharAt(i, Character.toLowerCase(origin.charAt(i)));
+		}
+		return origin.toString();
+	}
+
+	// url 이 origin 으로 시작하고 바로 뒤가 path 구분자인지 ( 사용자 정보가 있는 url 은 false )
+	private static boolean isSameOrigin(String url, String origin) {
+		int length = origin.length();
+		if (!url.regionMatches(true, 0, origin, 0, length)) {
+			return false;
+		}
+		if (url.length() == length) {
+			return true;
+		}
+		char c = url.charAt(length);
+		return c == '/' || c == '?' || c == '#';
+	}
+
+	// 스레드 별 직전 조회 결과
+	private static final class Recent {
+
+		private String origin;
+
+		private Entry entry;
+	}
+
+	private static final class Entry {
+
+		private final CompletableFuture<RobotsRules> rules = new CompletableFuture<>();
+
+		// 내려받기 전까지는 만료되지 않은 것으로 취급
+		private volatile long expiresAt;
+
+		// cache 에서 빠진 entry ( 스레드 별 직전 조회 결과로 쓰지 않음 )
+		private volatile boolean removed;
+
+		Entry(long now) {
+			this.expiresAt = now + TimeUnit.DAYS.toNanos(1);
+		}
+	}
+}
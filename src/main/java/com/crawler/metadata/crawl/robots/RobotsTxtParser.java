@@ -0,0 +1,130 @@
+package com.crawler.metadata.crawl.robots;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ *
+ * robots.txt 내용을 읽어서 지정한 user-agent 에 적용되는 규칙만 RobotsRules 로 컴파일
+ * 연속된 User-agent 줄이 하나의 group 을 이루고, 이름이 맞는 group 이 있으면 그 group 을, 없으면 '*' group 을 사용한다.
+ * Sitemap 은 group 과 상관없이 모두 모은다.
+ *
+ */
+public final class RobotsTxtParser {
+
+	// RFC 9309 : 최소 500 KiB 까지는 읽어야 함. 그 이후는 무시
+	public static final int MAX_LENGTH = 500 * 1024;
+
+	private RobotsTxtParser() {
+	}
+
+	/**
+	 *
+	 * robots.txt 해석
+	 * @param content robots.txt 내용
+	 * @param userAgent crawler 의 product token ( 예 : metadata-crawler )
+	 * @return rules
+	 *
+	 */
+	public static RobotsRules parse(String content, String userAgent) {
+		String agent = userAgent == null ? "" : userAgent.toLowerCase(Locale.ROOT);
+		List<RobotsRules.Rule> specificRules = new ArrayList<>();
+		List<RobotsRules.Rule> wildcardRules = new ArrayList<>();
+		List<String> sitemaps = new ArrayList<>();
+		long specificDelay = -1;
+		long wildcardDelay = -1;
+		boolean hasSpecificGroup = false;
+
+		// 현재 group 이 누구에게 적용되는지
+		boolean inAgentLines = false;
+		boolean groupSpecific = false;
+		boolean groupWildcard = false;
+
+		int length = Math.min(content.length(), MAX_LENGTH);
+		int lineStart = 0;
+		while (lineStart < length) {
+			int lineEnd = lineStart;
+			while (lineEnd < length && content.charAt(lineEnd) != '\n' && content.charAt(lineEnd) != '\r') {
+				lineEnd++;
+			}
+			String line = content.substring(lineStart, lineEnd);
+			lineStart = lineEnd + 1;
+
+			int comment = line.indexOf('#');
+			if (comment >= 0) {
+				line = line.substring(0, comment);
+			}
+			int colon = line.indexOf(':');
+			if (colon < 0) {
+				continue;
+			}
+			String key = line.substring(0, colon).trim().toLowerCase(Locale.ROOT);
+			String value = line.substring(colon + 1).trim();
+
+			switch (key) {
+			case "user-agent":
+				if (!inAgentLines) { // 규칙 다음에 나온 User-agent 는 새 group 시작
+					groupSpecific = false;
+					groupWildcard = false;
+					inAgentLines = true;
+				}
+				String name = value.toLowerCase(Locale.ROOT);
+				if (name.equals("*")) {
+					groupWildcard = true;
+				} else if (!name.isEmpty() && agent.startsWith(name)) {
+					groupSpecific = true;
+					hasSpecificGroup = true;
+				}
+				break;
+			case "allow":
+			case "disallow":
+				inAgentLines = false;
+				if (value.isEmpty()) { // "Disallow:" 는 규칙 없음
+					break;
+				}
+				RobotsRules.Rule rule = new RobotsRules.Rule(value, key.equals("allow"));
+				if (groupSpecific) {
+					specificRules.add(rule);
+				}
+				if (groupWildcard) {
+					wildcardRules.add(rule);
+				}
+				break;
+			case "crawl-delay":
+				inAgentLines = false;
+				long delay = parseDelayMs(value);
+				if (delay >= 0 && groupSpecific) {
+					specificDelay = delay;
+				}
+				if (delay >= 0 && groupWildcard) {
+					wildcardDelay = delay;
+				}
+				break;
+			case "sitemap":
+				if (!value.isEmpty()) {
+					sitemaps.add(value);
+				}
+				break;
+			default:
+				// 알 수 없는 항목은 무시 ( group 은 유지 )
+				break;
+			}
+		}
+
+		if (hasSpecificGroup) {
+			return new RobotsRules(specificRules, specificDelay, sitemaps);
+		}
+		return new RobotsRules(wildcardRules, wildcardDelay, sitemaps);
+	}
+
+	// 초 단위 ( 소수점 허용 ) 를 ms 로 변환
+	private static long parseDelayMs(String value) {
+		try {
+			double seconds = Double.parseDouble(value);
+			return seconds < 0 || Double.isNaN(seconds) ? -1 : (long) (seconds * 1000);
+		} catch (NumberFormatException e) {
+			return -1;
+		}
+	}
+}
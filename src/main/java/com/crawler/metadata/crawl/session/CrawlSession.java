@@ -0,0 +1,146 @@
+package com.crawler.metadata.crawl.session;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.function.UnaryOperator;
+
+import com.crawler.metadata.crawl.frontier.CrawlFrontier;
+import com.crawler.metadata.crawl.frontier.FrontierQueue;
+import com.crawler.metadata.crawl.visited.VisitedUrlStore;
+
+/**
+ *
+ * seed url 크롤링 한 번의 상태 ( 방문 대기열 + 방문 url 보관소 )
+ * 같은 seed 를 동시에 크롤링해도 session 마다 따로 가지므로 서로의 방문 기록, 대기열이 섞이지 않는다.
+ * close() 하면 대기열을 닫고 URLQueueService 의 목록에서 빠지므로, 호출한 쪽이 참조를 놓으면 보관소 메모리도 함께 해제된다.
+ * 디스크 대기열은 complete() 한 ( 끝까지 크롤링한 ) session 만 close() 시 파일을 지우고, 나머지는 다음 session 이 이어서 사용한다.
+ *
+ */
+public class CrawlSession implements AutoCloseable {
+
+	private final long id;
+
+	private final String seedUrl;
+
+	private final long openedAt;
+
+	private final VisitedUrlStore visitedUrls;
+
+	private final UnaryOperator<String> canonicalizer;
+
+	private final FrontierQueue queue;
+
+	private final CrawlFrontier frontier;
+
+	// 열 때 이전 session 에서 남아 있던 대기 url 수
+	private final long recovered;
+
+	private volatile boolean completed;
+
+	private final Consumer<CrawlSession> onClose;
+
+	private final AtomicBoolean closed = new AtomicBoolean();
+
+	/**
+	 *
+	 * @param id
+	 * @param seedUrl
+	 * @param visitedUrls session 전용 방문 url 보관소
+	 * @param canonicalizer 방문 여부 판단에 사용할 key 변환
+	 * @param queue frontier 대기열 ( 이전 session 에서 남은 url 은 visitedUrls 에도 기록되어 있어야 함 )
+	 * @param onClose close() 시 한 번 호출 ( session 목록에서 제거 )
+	 *
+	 */
+	public CrawlSession(long id, String seedUrl, VisitedUrlStore visitedUrls, UnaryOperator<String> canonicalizer,
+			FrontierQueue queue, Consumer<CrawlSession> onClose) {
+		this.id = id;
+		this.seedUrl = seedUrl;
+		this.openedAt = System.currentTimeMillis();
+		this.visitedUrls = visitedUrls;
+		this.canonicalizer = canonicalizer;
+		this.queue = queue;
+		this.frontier = new CrawlFrontier(visitedUrls, canonicalizer, queue);
+		this.recovered = frontier.getQueuedCount();
+		this.onClose = onClose;
+	}
+
+	public long getId() {
+		return id;
+	}
+
+	public String getSeedUrl() {
+		return seedUrl;
+	}
+
+	/**
+	 *
+	 * 방문 대기열 ( 넣을 때 이 session 의 보관소에 방문 기록 )
+	 *
+	 */
+	public CrawlFrontier getFrontier() {
+		return frontier;
+	}
+
+	/**
+	 *
+	 * 대기열을 거치지 않는 탐색 ( BFS ) 의 방문 기록
+	 * @param url
+	 * @return 처음 방문하는 url 이면 true ( 이미 방문했으면 false )
+	 *
+	 */
+	public boolean markVisited(String url) {
+		return visitedUrls.add(canonicalizer.apply(url));
+	}
+
+	public boolean isVisited(String url) {
+		return visitedUrls.contains(canonicalizer.apply(url));
+	}
+
+	// 이전 session 의 대기열을 이어서 사용하는지 여부
+	public boolean isResumed() {
+		return recovered > 0;
+	}
+
+	/**
+	 *
+	 * 크롤링을 끝까지 마침 ( close() 시 디스크 대기열도 삭제 )
+	 *
+	 */
+	public void complete() {
+		completed = true;
+	}
+
+	public boolean isClosed() {
+		return closed.get();
+	}
+
+	public CrawlSessionStats getStats() {
+		return new CrawlSessionStats(id, seedUrl, System.currentTimeMillis() - openedAt, frontier.getQueuedCount(),
+				frontier.getInFlightCount(), frontier.getClaimedCount(), frontier.getDuplicateCount(),
+				frontier.getCompletedCount(), visitedUrls.size(), visitedUrls.memoryBytes(), frontier.getBucketCount(),
+				frontier.getWaitCount(), frontier.getWaitNanos() / 1_000_000.0, recovered, frontier.getDiskBytes());
+	}
+
+	/**
+	 *
+	 * 대기열을 닫고 session 목록에서 제거 ( 여러 번 호출해도 한 번만 처리 )
+	 * 디스크 대기열은 complete() 했으면 삭제, 아니면 읽은 위치를 기록하고 남겨 둔다.
+	 *
+	 */
+	@Override
+	public void close() {
+		if (closed.compareAndSet(false, true)) {
+			frontier.close();
+			if (completed) {
+				queue.delete();
+			}
+			onClose.accept(this);
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "CrawlSession[id=" + id + ", seedUrl=" + seedUrl + ", frontier=" + frontier + ", visited="
+				+ visitedUrls + "]";
+	}
+}
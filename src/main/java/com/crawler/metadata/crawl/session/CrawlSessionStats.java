@@ -0,0 +1,130 @@
+package com.crawler.metadata.crawl.session;
+
+/**
+ *
+ * crawl session 의 대기열, 방문 기록, 대기열 contention 통계 snapshot
+ *
+ */
+public class CrawlSessionStats {
+
+	private final long id;
+
+	private final String seedUrl;
+
+	private final long ageMs;
+
+	private final int queued;
+
+	private final int inFlight;
+
+	private final long claimed;
+
+	private final long duplicates;
+
+	private final long completed;
+
+	private final long visited;
+
+	private final long visitedBytes;
+
+	private final int frontierBuckets;
+
+	private final long frontierWaits;
+
+	private final double frontierWaitMs;
+
+	private final long frontierRecovered;
+
+	private final long frontierDiskBytes;
+
+	public CrawlSessionStats(long id, String seedUrl, long ageMs, int queued, int inFlight, long claimed,
+			long duplicates, long completed, long visited, long visitedBytes, int frontierBuckets, long frontierWaits,
+			double frontierWaitMs, long frontierRecovered, long frontierDiskBytes) {
+		this.id = id;
+		this.seedUrl = seedUrl;
+		this.ageMs = ageMs;
+		this.queued = queued;
+		this.inFlight = inFlight;
+		this.claimed = claimed;
+		this.duplicates = duplicates;
+		this.completed = completed;
+		this.visited = visited;
+		this.visitedBytes = visitedBytes;
+		this.frontierBuckets = frontierBuckets;
+		this.frontierWaits = frontierWaits;
+		this.frontierWaitMs = frontierWaitMs;
+		this.frontierRecovered = frontierRecovered;
+		this.frontierDiskBytes = frontierDiskBytes;
+	}
+
+	public long getId() {
+		return id;
+	}
+
+	public String getSeedUrl() {
+		return seedUrl;
+	}
+
+	public long getAgeMs() {
+		return ageMs;
+	}
+
+	public int getQueued() {
+		return queued;
+	}
+
+	public int getInFlight() {
+		return inFlight;
+	}
+
+	public long getClaimed() {
+		return claimed;
+	}
+
+	public long getDuplicates() {
+		return duplicates;
+	}
+
+	public long getCompleted() {
+		return completed;
+	}
+
+	public long getVisited() {
+		return visited;
+	}
+
+	public long getVisitedBytes() {
+		return visitedBytes;
+	}
+
+	public int getFrontierBuckets() {
+		return frontierBuckets;
+	}
+
+	// 꺼낼 url 이 없어 lock 을 잡고 기다린 횟수
+	public long getFrontierWaits() {
+		return frontierWaits;
+	}
+
+	public double getFrontierWaitMs() {
+		return frontierWaitMs;
+	}
+
+	// 이전 session 에서 이어받은 대기 url 수
+	public long getFrontierRecovered() {
+		return frontierRecovered;
+	}
+
+	public long getFrontierDiskBytes() {
+		return frontierDiskBytes;
+	}
+
+	@Override
+	public String toString() {
+		return "CrawlSessionStats [id=" + id + ", seedUrl=" + seedUrl + ", ageMs=" + ageMs + ", queued=" + queued
+				+ ", inFlight=" + inFlight + ", claimed=" + claimed + ", duplicates=" + duplicates + ", completed="
+				+ completed + ", visited=" + visited + ", visitedBytes=" + visitedBytes + ", frontierBuckets="
+				+ frontierBuckets + ", frontierWaits=" + frontierWaits + ", frontierWaitMs=" + frontierWaitMs + ", frontierRecovered="
+				+ frontierRecovered + ", frontierDiskBytes=" + frontierDiskBytes + "]";
+	}
+}
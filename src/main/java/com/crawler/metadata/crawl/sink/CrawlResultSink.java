@@ -0,0 +1,21 @@
+package com.crawler.metadata.crawl.sink;
+
+import com.crawler.metadata.crawl.CrawlPageResult;
+
+/**
+ *
+ * crawl() 의 페이지 결과를 받아 저장하거나 다른 곳으로 보내는 곳 ( DB, 로컬 result log, 이후 broker 등 )
+ * 등록된 sink 모두에 페이지마다 한 번씩 전달한다.
+ * extract 단계 worker 에서 호출되므로 write() 는 버퍼에 넣고 바로 반환해야 한다. ( 버퍼가 가득 찼을 때만 대기 - backpressure )
+ *
+ */
+public interface CrawlResultSink {
+
+	/**
+	 *
+	 * 페이지 결과 전달
+	 * @param result
+	 *
+	 */
+	void write(CrawlPageResult result);
+}
@@ -0,0 +1,151 @@
+package com.crawler.metadata.crawl.sink;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+import com.crawler.metadata.crawl.CrawlPageResult;
+import com.crawler.metadata.crawl.extract.HeadMetadata;
+
+/**
+ *
+ * result log record 변환
+ *   record = int ( payload 길이 ) + int ( payload CRC32 ) + payload
+ *   payload = long crawledAt + int statusCode + int linkCount + seedUrl, url, finalUrl, title, canonicalUrl
+ *             + int ( meta tag 수 ) + ( name, content ) ...
+ *   문자열 = int ( UTF-8 길이, null 이면 -1 ) + UTF-8 byte
+ *
+ */
+final class ResultLogCodec {
+
+	static final int HEADER_BYTES = 8;
+
+	// 이보다 긴 payload 길이는 깨진 record 로 봄
+	static final int MAX_PAYLOAD_BYTES = 64 * 1024 * 1024;
+
+	private static final ThreadLocal<RecordBuffer> BUFFERS = ThreadLocal.withInitial(RecordBuffer::new);
+
+	private ResultLogCodec() {
+	}
+
+	/**
+	 *
+	 * 페이지 결과를 record 로 변환 ( 반환한 buffer 는 호출한 스레드가 다음 encode() 를 부를 때까지 유효 )
+	 * @param result
+	 * @return header 를 포함한 record
+	 *
+	 */
+	static ByteBuffer encode(CrawlPageResult result) {
+		RecordBuffer buffer = BUFFERS.get();
+		buffer.reset();
+		DataOutputStream out = buffer.out;
+		try {
+			out.writeLong(0); // header 자리
+			out.writeLong(result.getCrawledAt());
+			out.writeInt(result.getStatusCode());
+			out.writeInt(result.getLinkCount());
+			writeString(out, result.getSeedUrl());
+			writeString(out, result.getUrl());
+			writeString(out, result.getFinalUrl());
+			writeString(out, result.getTitle());
+			writeString(out, result.getCanonicalUrl());
+			Map<String, String> metaTags = result.getMetaTags();
+			out.writeInt(metaTags == null ? 0 : metaTags.size());
+			if (metaTags != null) {
+				for (Map.Entry<String, String> tag : metaTags.entrySet()) {
+					writeString(out, tag.getKey());
+					writeString(out, tag.getValue());
+				}
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		ByteBuffer record = ByteBuffer.wrap(buffer.array(), 0, buffer.size());
+		int payloadLength = buffer.size() - HEADER_BYTES;
+		CRC32 crc = new CRC32();
+		crc.update(buffer.array(), HEADER_BYTES, payloadLength);
+		record.putInt(0, payloadLength);
+		record.putInt(4, (int) crc.getValue());
+		return record;
+	}
+
+	/**
+	 *
+	 * payload 가 CRC 와 맞는지 확인
+	 * @param buffer payload 가 position 에서 시작하는 heap buffer
+	 * @param length payload 길이
+	 * @param crc header 의 CRC
+	 *
+	 */
+	static boolean verify(ByteBuffer buffer, int length, int crc) {
+		CRC32 actual = new CRC32();
+		actual.update(buffer.array(), buffer.arrayOffset() + buffer.position(), length);
+		return (int) actual.getValue() == crc;
+	}
+
+	/**
+	 *
+	 * payload 를 페이지 결과로 변환 ( buffer 의 position 을 payload 끝으로 옮김 )
+	 * @param buffer payload 가 position 에서 시작하는 heap buffer
+	 * @return result
+	 *
+	 */
+	static CrawlPageResult decode(ByteBuffer buffer) {
+		long crawledAt = buffer.getLong();
+		int statusCode = buffer.getInt();
+		int linkCount = buffer.getInt();
+		String seedUrl = readString(buffer);
+		String url = readString(buffer);
+		String finalUrl = readString(buffer);
+		String title = readString(buffer);
+		String canonicalUrl = readString(buffer);
+		int tagCount = buffer.getInt();
+		Map<String, String> metaTags = new LinkedHashMap<>(Math.max(4, tagCount * 2));
+		for (int i = 0; i < tagCount; i++) {
+			metaTags.put(readString(buffer), readString(buffer));
+		}
+		return new CrawlPageResult(seedUrl, url, finalUrl, statusCode, new HeadMetadata(metaTags, title, canonicalUrl),
+				linkCount, crawledAt);
+	}
+
+	private static void writeString(DataOutputStream out, String value) throws IOException {
+		if (value == null) {
+			out.writeInt(-1);
+			return;
+		}
+		byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+
+	private static String readString(ByteBuffer buffer) {
+		int length = buffer.getInt();
+		if (length < 0) {
+			return null;
+		}
+		String value = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length,
+				StandardCharsets.UTF_8);
+		buffer.position(buffer.position() + length);
+		return value;
+	}
+
+	// 스레드마다 재사용하는 record 버퍼 ( header 를 나중에 채우기 위해 내부 배열 사용 )
+	private static final class RecordBuffer extends ByteArrayOutputStream {
+
+		private final DataOutputStream out = new DataOutputStream(this);
+
+		RecordBuffer() {
+			super(1024);
+		}
+
+		byte[] array() {
+			return buf;
+		}
+	}
+}
@@ -0,0 +1,117 @@
+package com.crawler.metadata.crawl.sink;
+
+/**
+ *
+ * result log 의 쓰기 위치, segment, group commit 통계 snapshot
+ *
+ */
+public class ResultLogMetrics {
+
+	private final boolean enabled;
+
+	private final String directory;
+
+	private final long appendedOffset;
+
+	private final long committedOffset;
+
+	private final int segments;
+
+	private final long diskBytes;
+
+	private final int bufferedBytes;
+
+	private final long commits;
+
+	private final long failed;
+
+	private final long blockedWrites;
+
+	private final double avgRecordsPerCommit;
+
+	private final double avgCommitMs;
+
+	private final double maxCommitMs;
+
+	public ResultLogMetrics(boolean enabled, String directory, long appendedOffset, long committedOffset,
+			int segments, long diskBytes, int bufferedBytes, long commits, long failed, long blockedWrites,
+			double avgRecordsPerCommit, double avgCommitMs, double maxCommitMs) {
+		this.enabled = enabled;
+		this.directory = directory;
+		this.appendedOffset = appendedOffset;
+		this.committedOffset = committedOffset;
+		this.segments = segments;
+		this.diskBytes = diskBytes;
+		this.bufferedBytes = bufferedBytes;
+		this.commits = commits;
+		this.failed = failed;
+		this.blockedWrites = blockedWrites;
+		this.avgRecordsPerCommit = avgRecordsPerCommit;
+		this.avgCommitMs = avgCommitMs;
+		this.maxCommitMs = maxCommitMs;
+	}
+
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	public String getDirectory() {
+		return directory;
+	}
+
+	// 다음 record 에 붙일 offset ( 버퍼에 있는 record 포함 )
+	public long getAppendedOffset() {
+		return appendedOffset;
+	}
+
+	// 이 offset 전까지 파일에 씀 ( reader 가 읽을 수 있는 곳 )
+	public long getCommittedOffset() {
+		return committedOffset;
+	}
+
+	public int getSegments() {
+		return segments;
+	}
+
+	public long getDiskBytes() {
+		return diskBytes;
+	}
+
+	public int getBufferedBytes() {
+		return bufferedBytes;
+	}
+
+	public long getCommits() {
+		return commits;
+	}
+
+	public long getFailed() {
+		return failed;
+	}
+
+	// 버퍼가 가득 차서 write() 가 기다린 횟수
+	public long getBlockedWrites() {
+		return blockedWrites;
+	}
+
+	public double getAvgRecordsPerCommit() {
+		return avgRecordsPerCommit;
+	}
+
+	public double getAvgCommitMs() {
+		return avgCommitMs;
+	}
+
+	public double getMaxCommitMs() {
+		return maxCommitMs;
+	}
+
+	@Override
+	public String toString() {
+		return "ResultLogMetrics [enabled=" + enabled + ", directory=" + directory + ", appendedOffset="
+				+ appendedOffset + ", committedOffset=" + committedOffset + ", segments=" + segments + ", diskBytes="
+				+ diskBytes + ", bufferedBytes=" + bufferedBytes + ", commits=" + commits + ", failed=" + failed
+				+ ", blockedWrites=" + blockedWrites + ", avgRecordsPerCommit=" + avgRecordsPerCommit
+				+ ", avgCommitMs=" + avgCommitMs + ", maxCommitMs=" + maxCommitMs + "]";
+	}
+}
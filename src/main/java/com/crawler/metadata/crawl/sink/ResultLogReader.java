@@ -0,0 +1,182 @@
+package com.crawler.metadata.crawl.sink;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ *
+ * result log 를 offset 순서대로 따라 읽는 reader ( 쓰는 쪽과 별개로 여러 개를 열 수 있음 )
+ * 현재 segment 끝에 닿으면 다음 segment ( 이름 = 지금까지 읽은 마지막 offset + 1 ) 가 생겼는지 보고 넘어가고,
+ * 아직 없으면 새 record 가 쓰일 때까지 기다린다. ( 같은 process 면 commit 알림, 아니면 짧은 간격으로 다시 확인 )
+ * 다른 process 에서 읽으면 덜 쓴 record 는 CRC 로 걸러서 다 쓰일 때까지 읽지 않는다.
+ *
+ * 읽은 위치는 getNextOffset() 으로 얻어 두었다가 그 offset 으로 다시 열면 이어서 읽는다.
+ * 한 스레드에서만 사용한다.
+ *
+ */
+public class ResultLogReader implements AutoCloseable {
+
+	// 다른 process 가 쓰는 log 를 기다릴 때 다시 확인하는 간격
+	private static final long POLL_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+	private final Logger log = LoggerFactory.getLogger(getClass());
+
+	private final Path directory;
+
+	// 같은 process 에서 쓰는 log ( 없으면 파일만 보고 읽음 )
+	private final SegmentedResultLog owner;
+
+	private FileChannel channel;
+
+	private SegmentCursor cursor;
+
+	private long segmentBase;
+
+	// 현재 segment 에서 읽은 record 수
+	private long segmentRecords;
+
+	// 다음에 반환할 offset ( 이보다 앞의 record 는 건너뜀 )
+	private long nextOffset;
+
+	/**
+	 *
+	 * @param directory result log directory
+	 * @param fromOffset 처음 읽을 offset ( 지워진 offset 이면 남아 있는 첫 record 부터 )
+	 *
+	 */
+	public ResultLogReader(Path directory, long fromOffset) {
+		this(directory, fromOffset, null);
+	}
+
+	ResultLogReader(Path directory, long fromOffset, SegmentedResultLog owner) {
+		this.directory = directory;
+		this.nextOffset = Math.max(0, fromOffset);
+		this.owner = owner;
+	}
+
+	/**
+	 *
+	 * 다음 record 를 최대 maxRecords 개 읽음 ( 읽을 record 가 없으면 timeout 까지 새 record 를 기다림 )
+	 * @param maxRecords
+	 * @param timeout 0 이면 기다리지 않음
+	 * @param unit
+	 * @return record 목록 ( offset 순서 ), 시간 안에 새 record 가 없으면 빈 목록
+	 *
+	 */
+	public List<ResultLogRecord> poll(int maxRecords, long timeout, TimeUnit unit)
+			throws IOException, InterruptedException {
+		List<ResultLogRecord> records = new ArrayList<>();
+		long deadline = System.nanoTime() + unit.toNanos(timeout);
+		while (true) {
+			read(records, maxRecords);
+			long remaining = deadline - System.nanoTime();
+			if (!records.isEmpty() || remaining <= 0) {
+				return records;
+			}
+			if (owner != null) {
+				owner.awaitCommitted(segmentBase + segmentRecords, remaining);
+			} else {
+				TimeUnit.NANOSECONDS.sleep(Math.min(remaining, POLL_NANOS));
+			}
+		}
+	}
+
+	// 다음에 읽을 offset ( 다시 열 때 fromOffset 으로 사용 )
+	public long getNextOffset() {
+		return nextOffset;
+	}
+
+	@Override
+	public void close() throws IOException {
+		closeSegment();
+	}
+
+	private void read(List<ResultLogRecord> records, int maxRecords) throws IOException {
+		if (cursor == null && !openSegment()) {
+			return;
+		}
+		while (records.size() < maxRecords) {
+			long offset = segmentBase + segmentRecords;
+			if (owner != null && offset >= owner.getCommittedOffset()) {
+				return;
+			}
+			ByteBuffer payload = cursor.next();
+			if (payload == null) {
+				if (cursor.isCorrupt()) {
+					log.debug("[read] incomplete record ===> segment {} offset {}", segmentBase, offset);
+				}
+				if (!nextSegment()) {
+					return;
+				}
+				continue;
+			}
+			segmentRecords++;
+			if (offset < nextOffset) { // fromOffset 까지 건너뜀
+				continue;
+			}
+			records.add(new ResultLogRecord(offset, ResultLogCodec.decode(payload)));
+			nextOffset = offset + 1;
+		}
+	}
+
+	// 다음 segment 가 생겼으면 넘어감 ( 현재 segment 가 retention 으로 지워졌으면 남아 있는 segment 에서 다시 찾음 )
+	private boolean nextSegment() throws IOException {
+		long next = segmentBase + segmentRecords;
+		if (Files.exists(SegmentedResultLog.segmentPath(directory, next))) {
+			closeSegment();
+			nextOffset = Math.max(nextOffset, next);
+			return openSegment();
+		}
+		if (!Files.exists(SegmentedResultLog.segmentPath(directory, segmentBase))) {
+			closeSegment();
+			return openSegment();
+		}
+		return false;
+	}
+
+	// nextOffset 이 들어 있는 segment 를 엶 ( 지워졌으면 첫 segment )
+	private boolean openSegment() throws IOException {
+		List<Long> segments = SegmentedResultLog.listSegments(directory);
+		if (segments.isEmpty()) {
+			return false;
+		}
+		long base = segments.get(0);
+		for (long segment : segments) {
+			if (segment <= nextOffset) {
+				base = segment;
+			}
+		}
+		if (base > nextOffset) {
+			log.info("[openSegment] offsets {} ~ {} already deleted ===> {}", nextOffset, base - 1, directory);
+			nextOffset = base;
+		}
+		try {
+			channel = FileChannel.open(SegmentedResultLog.segmentPath(directory, base), StandardOpenOption.READ);
+		} catch (NoSuchFileException e) { // 여는 사이에 지워짐
+			return false;
+		}
+		cursor = new SegmentCursor(channel);
+		segmentBase = base;
+		segmentRecords = 0;
+		return true;
+	}
+
+	private void closeSegment() throws IOException {
+		if (channel != null) {
+			channel.close();
+			channel = null;
+			cursor = null;
+		}
+	}
+}
@@ -0,0 +1,34 @@
+package com.crawler.metadata.crawl.sink;
+
+import com.crawler.metadata.crawl.CrawlPageResult;
+
+/**
+ *
+ * result log 에서 읽은 페이지 결과 하나 ( offset 은 log 전체에서 0 부터 1 씩 증가 )
+ * 다음에 이어 읽을 위치는 offset + 1
+ *
+ */
+public class ResultLogRecord {
+
+	private final long offset;
+
+	private final CrawlPageResult result;
+
+	public ResultLogRecord(long offset, CrawlPageResult result) {
+		this.offset = offset;
+		this.result = result;
+	}
+
+	public long getOffset() {
+		return offset;
+	}
+
+	public CrawlPageResult getResult() {
+		return result;
+	}
+
+	@Override
+	public String toString() {
+		return "ResultLogRecord [offset=" + offset + ", result=" + result + "]";
+	}
+}
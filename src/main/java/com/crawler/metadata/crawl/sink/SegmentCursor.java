@@ -0,0 +1,98 @@
+package com.crawler.metadata.crawl.sink;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ *
+ * segment 파일의 record 를 앞에서부터 차례로 읽음 ( 파일을 큰 단위로 읽어 두고 record 를 나눔 )
+ * 파일 끝, 아직 덜 쓴 record, CRC 가 맞지 않는 record 를 만나면 위치를 옮기지 않고 멈춘다.
+ * channel 은 위치를 지정해서 읽으므로 쓰는 쪽의 channel 위치에 영향을 주지 않는다.
+ *
+ */
+final class SegmentCursor {
+
+	private static final int READ_BYTES = 64 * 1024;
+
+	private final FileChannel channel;
+
+	// 파일의 position 부터 읽어 둔 byte ( buffer.position() 이 position 위치 )
+	private ByteBuffer buffer = ByteBuffer.allocate(READ_BYTES);
+
+	private long position;
+
+	// 마지막 next() 가 깨진 record 때문에 멈췄는지
+	private boolean corrupt;
+
+	SegmentCursor(FileChannel channel) {
+		this.channel = channel;
+		this.buffer.limit(0);
+	}
+
+	/**
+	 *
+	 * 다음 record 의 payload 를 반환하고 그 뒤로 이동
+	 * 반환한 buffer 는 다음 next() 호출 전까지만 유효하다.
+	 * @return payload ( position ~ limit ), 읽을 수 있는 record 가 없으면 null
+	 *
+	 */
+	ByteBuffer next() throws IOException {
+		corrupt = false;
+		if (!fill(ResultLogCodec.HEADER_BYTES)) {
+			return null;
+		}
+		int length = buffer.getInt(buffer.position());
+		int crc = buffer.getInt(buffer.position() + 4);
+		if (length < 0 || length > ResultLogCodec.MAX_PAYLOAD_BYTES) {
+			corrupt = true;
+			return null;
+		}
+		if (!fill(ResultLogCodec.HEADER_BYTES + length)) {
+			return null;
+		}
+		ByteBuffer payload = buffer.duplicate();
+		payload.position(buffer.position() + ResultLogCodec.HEADER_BYTES);
+		payload.limit(payload.position() + length);
+		if (!ResultLogCodec.verify(payload, length, crc)) {
+			corrupt = true;
+			return null;
+		}
+		buffer.position(payload.limit());
+		position += ResultLogCodec.HEADER_BYTES + length;
+		return payload;
+	}
+
+	// 다음 record 의 파일 위치 ( 읽은 record 의 끝 )
+	long position() {
+		return position;
+	}
+
+	boolean isCorrupt() {
+		return corrupt;
+	}
+
+	// 읽어 둔 byte 가 n 개 이상 되도록 파일에서 더 읽음
+	private boolean fill(int n) throws IOException {
+		if (buffer.remaining() >= n) {
+			return true;
+		}
+		if (buffer.capacity() < n) { // 읽기 단위보다 큰 record
+			ByteBuffer larger = ByteBuffer.allocate(Math.max(n, buffer.capacity() * 2));
+			larger.put(buffer);
+			larger.flip();
+			buffer = larger;
+		}
+		buffer.compact();
+		long readFrom = position + buffer.position();
+		while (buffer.hasRemaining()) {
+			int read = channel.read(buffer, readFrom);
+			if (read <= 0) {
+				break;
+			}
+			readFrom += read;
+		}
+		buffer.flip();
+		return buffer.remaining() >= n;
+	}
+}
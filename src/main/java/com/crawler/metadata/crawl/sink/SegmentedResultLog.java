@@ -0,0 +1,562 @@
+package com.crawler.metadata.crawl.sink;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import javax.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.crawler.metadata.config.CrawlerProperties;
+import com.crawler.metadata.crawl.CrawlPageResult;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ *
+ * 페이지 결과를 로컬 디스크의 segment 파일에 이어 쓰는 result log ( 추가만 하고 고쳐 쓰지 않음 )
+ * 다른 consumer 는 ResultLogReader 로 원하는 offset 부터 따라 읽으므로 크롤링 속도와 관계없이 결과를 가져갈 수 있다.
+ *
+ * write() 는 record 를 버퍼에 붙이기만 하고, 저장 스레드가 첫 record 후 commitInterval 동안 ( 또는 버퍼가 반 찰 때까지 ) 모은
+ * record 를 FileChannel write 한 번 + force 한 번으로 쓴다. ( group commit )
+ * 버퍼 두 개를 번갈아 쓰므로 디스크에 쓰는 동안에도 write() 는 다음 버퍼에 붙이고, 두 버퍼가 모두 차면 기다린다. ( backpressure )
+ *
+ * record 는 0 부터 1 씩 증가하는 offset 을 가지고, segment 파일 이름은 그 segment 의 첫 offset 이다.
+ * segment 가 segmentBytes 를 넘으면 다음 batch 부터 새 segment 에 쓰고, retainSegments 보다 많아지면 오래된 segment 를 지운다.
+ * 다시 열면 마지막 segment 를 처음부터 확인해서 덜 쓴 ( CRC 가 맞지 않는 ) 끝부분을 잘라낸다.
+ *
+ */
+@Component
+@Slf4j
+public class SegmentedResultLog implements CrawlResultSink {
+
+	static final String SEGMENT_PREFIX = "results-";
+
+	static final String SEGMENT_SUFFIX = ".log";
+
+	private final Logger log = LoggerFactory.getLogger(getClass());
+
+	private final boolean enabled;
+
+	private final Path directory;
+
+	private final long segmentBytes;
+
+	private final int bufferBytes;
+
+	private final long commitIntervalNanos;
+
+	private final boolean fsync;
+
+	private final int retainSegments;
+
+	private final ReentrantLock lock = new ReentrantLock();
+
+	// 저장 스레드를 깨움 ( 첫 record, 버퍼 반 참, flush, 종료 )
+	private final Condition appended = lock.newCondition();
+
+	// 버퍼 자리가 남 ( 기다리던 write() 를 깨움 )
+	private final Condition space = lock.newCondition();
+
+	// commit 된 offset 이 늘어남 ( flush(), reader 를 깨움 )
+	private final Condition committed = lock.newCondition();
+
+	// 아래는 lock 안에서만 변경
+	private ByteBuffer active;
+
+	private int activeRecords;
+
+	private long firstAppendNanos;
+
+	private long nextOffset;
+
+	private boolean flushRequested;
+
+	private volatile boolean closed;
+
+	// 이 offset 전까지 파일에 씀
+	private volatile long committedOffset;
+
+	// pollAsync 로 새 commit 을 기다리는 요청 ( 스레드를 잡지 않음 )
+	private final ConcurrentLinkedQueue<CommitWaiter> commitWaiters = new ConcurrentLinkedQueue<>();
+
+	// 쓰기에 실패하면 이후 record 는 버림 ( 다시 열 때 파일 기준으로 복구 )
+	private volatile boolean broken;
+
+	// 아래는 저장 스레드만 사용
+	private ByteBuffer spare;
+
+	private FileChannel channel;
+
+	private long segmentBase;
+
+	private Thread committer;
+
+	private final LongAdder commits = new LongAdder();
+
+	private final LongAdder committedRecords = new LongAdder();
+
+	private final LongAdder commitNanos = new LongAdder();
+
+	private final AtomicLong maxCommitNanos = new AtomicLong();
+
+	private final LongAdder failed = new LongAdder();
+
+	private long blockedWrites;
+
+	@Autowired
+	public SegmentedResultLog(CrawlerProperties properties) {
+		this(properties.getResultLog());
+	}
+
+	/**
+	 *
+	 * directory 의 result log 를 열거나 새로 만들고 저장 스레드 시작 ( 비활성이면 파일을 만들지 않음 )
+	 * @param settings directory, segment 크기, 버퍼, commit 간격 설정
+	 *
+	 */
+	public SegmentedResultLog(CrawlerProperties.ResultLog settings) {
+		this.enabled = settings.isEnabled();
+		this.directory = Paths.get(settings.getDirectory());
+		this.segmentBytes = Math.max(1, settings.getSegmentBytes());
+		this.bufferBytes = Math.max(4096, settings.getBufferBytes());
+		this.commitIntervalNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, settings.getCommitIntervalMs()));
+		this.fsync = settings.isFsync();
+		this.retainSegments = settings.getRetainSegments();
+		if (!enabled) {
+			return;
+		}
+		this.active = ByteBuffer.allocate(bufferBytes);
+		this.spare = ByteBuffer.allocate(bufferBytes);
+		try {
+			recover();
+		} catch (IOException e) {
+			throw new IllegalStateException("failed to open result log " + directory, e);
+		}
+		committer = new Thread(this::commitLoop, "result-log-writer");
+		committer.setDaemon(true);
+		committer.start();
+	}
+
+	/**
+	 *
+	 * 페이지 결과를 버퍼에 붙임 ( 두 버퍼가 모두 차 있으면 저장 스레드가 하나를 비울 때까지 대기 )
+	 * @param result
+	 *
+	 */
+	@Override
+	public void write(CrawlPageResult result) {
+		if (!enabled) {
+			return;
+		}
+		ByteBuffer record = ResultLogCodec.encode(result);
+		int length = record.remaining();
+		lock.lock();
+		try {
+			while (!closed && !broken && active.remaining() < length) {
+				if (activeRecords == 0) { // 버퍼보다 큰 record 는 전용 버퍼로
+					active = ByteBuffer.allocate(length);
+					break;
+				}
+				blockedWrites++;
+				appended.signal();
+				space.await();
+			}
+			if (closed || broken) {
+				log.error("[write] result log closed ===> {}", result.getUrl());
+				failed.increment();
+				return;
+			}
+			if (activeRecords == 0) {
+				firstAppendNanos = System.nanoTime();
+				appended.signal();
+			}
+			active.put(record);
+			activeRecords++;
+			nextOffset++;
+			if (active.position() >= bufferBytes / 2) {
+				appended.signal();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			log.error("[write] interrupted ===> {}", result.getUrl());
+			failed.increment();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 *
+	 * 지금까지 write() 한 record 를 바로 파일에 쓰고 끝날 때까지 대기
+	 * @return 제한 시간 안에 모두 썼으면 true
+	 *
+	 */
+	public boolean flush(long timeout, TimeUnit unit) throws InterruptedException {
+		if (!enabled) {
+			return true;
+		}
+		long remaining = unit.toNanos(timeout);
+		lock.lock();
+		try {
+			long target = nextOffset;
+			flushRequested = true;
+			appended.signal();
+			while (committedOffset < target) {
+				if (broken || remaining <= 0) {
+					return false;
+				}
+				remaining = committed.awaitNanos(remaining);
+			}
+			return true;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 *
+	 * 같은 process 에서 따라 읽는 reader ( commit 된 record 만 읽고, 새 commit 을 바로 알림 받음 )
+	 * @param fromOffset 처음 읽을 offset ( 지워진 offset 이면 남아 있는 첫 record 부터 )
+	 * @return reader
+	 *
+	 */
+	public ResultLogReader openReader(long fromOffset) {
+		return new ResultLogReader(directory, fromOffset, this);
+	}
+
+	/**
+	 *
+	 * fromOffset 부터 record 를 최대 maxRecords 개 읽음 ( 읽을 record 가 없으면 timeout 까지 새 commit 을 기다림 )
+	 * 기다리는 동안 스레드를 잡지 않고, 새 commit 이 생기면 executor 에서 다시 읽어서 완료한다. ( http long polling 용 )
+	 * @param fromOffset
+	 * @param maxRecords
+	 * @param timeout 0 이면 기다리지 않음
+	 * @param unit
+	 * @param executor commit 후 다시 읽을 executor
+	 * @return record 목록 future ( 시간 안에 새 record 가 없으면 빈 목록 )
+	 *
+	 */
+	public CompletableFuture<List<ResultLogRecord>> pollAsync(long fromOffset, int maxRecords, long timeout,
+			TimeUnit unit, Executor executor) {
+		List<ResultLogRecord> records;
+		try {
+			records = read(fromOffset, maxRecords);
+		} catch (IOException e) {
+			return CompletableFuture.failedFuture(e);
+		}
+		if (!records.isEmpty() || timeout <= 0 || !enabled) {
+			return CompletableFuture.completedFuture(records);
+		}
+		return awaitCommittedAsync(fromOffset).completeOnTimeout(-1L, timeout, unit).thenApplyAsync(offset -> {
+			try {
+				return offset < 0 ? Collections.<ResultLogRecord>emptyList() : read(fromOffset, maxRecords);
+			} catch (IOException e) {
+				throw new CompletionException(e);
+			}
+		}, executor);
+	}
+
+	private List<ResultLogRecord> read(long fromOffset, int maxRecords) throws IOException {
+		try (ResultLogReader reader = openReader(fromOffset)) {
+			return reader.poll(maxRecords, 0, TimeUnit.MILLISECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt(); // 기다리지 않으므로 발생하지 않음
+			return Collections.emptyList();
+		}
+	}
+
+	// commit 된 offset 이 offset 을 넘거나 닫히면 완료 ( 완료 값 = commit 된 offset )
+	private CompletableFuture<Long> awaitCommittedAsync(long offset) {
+		CommitWaiter waiter = new CommitWaiter(offset);
+		commitWaiters.add(waiter);
+		// 등록하는 사이에 commit 된 경우
+		if (committedOffset > offset || closed || broken) {
+			waiter.future.complete(committedOffset);
+		}
+		waiter.future.whenComplete((committed, error) -> commitWaiters.remove(waiter));
+		return waiter.future;
+	}
+
+	private void notifyCommitWaiters() {
+		long offset = committedOffset;
+		for (CommitWaiter waiter : commitWaiters) {
+			if (offset > waiter.offset || closed || broken) {
+				waiter.future.complete(offset);
+			}
+		}
+	}
+
+	/**
+	 *
+	 * 버퍼에 남은 record 를 모두 쓰고 저장 스레드 종료
+	 *
+	 */
+	@PreDestroy
+	public void close() {
+		if (!enabled) {
+			return;
+		}
+		lock.lock();
+		try {
+			if (closed) {
+				return;
+			}
+			closed = true;
+			appended.signalAll();
+			space.signalAll();
+			committed.signalAll();
+		} finally {
+			lock.unlock();
+		}
+		notifyCommitWaiters();
+		try {
+			committer.join(TimeUnit.SECONDS.toMillis(30));
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		if (committer.isAlive()) {
+			log.error("[close] result log writer did not finish ===> {}", directory);
+			return;
+		}
+		try {
+			channel.force(false);
+			channel.close();
+		} catch (IOException e) {
+			log.error("[close] directory ===> {} error ===> {}", directory, e.getMessage());
+		}
+	}
+
+	public Path getDirectory() {
+		return directory;
+	}
+
+	public long getCommittedOffset() {
+		return committedOffset;
+	}
+
+	public ResultLogMetrics getMetrics() {
+		if (!enabled) {
+			return new ResultLogMetrics(false, directory.toString(), 0, 0, 0, 0, 0, 0, failed.sum(), 0, 0, 0, 0);
+		}
+		long appendedOffset;
+		int bufferedBytes;
+		long blocked;
+		lock.lock();
+		try {
+			appendedOffset = nextOffset;
+			bufferedBytes = active.position();
+			blocked = blockedWrites;
+		} finally {
+			lock.unlock();
+		}
+		int segments = 0;
+		long diskBytes = 0;
+		try {
+			for (long base : listSegments(directory)) {
+				segments++;
+				diskBytes += Files.size(segmentPath(directory, base));
+			}
+		} catch (IOException e) {
+			log.debug("[getMetrics] directory ===> {} error ===> {}", directory, e.getMessage());
+		}
+		long commitCount = commits.sum();
+		return new ResultLogMetrics(true, directory.toString(), appendedOffset, committedOffset, segments, diskBytes,
+				bufferedBytes, commitCount, failed.sum(), blocked,
+				commitCount == 0 ? 0 : (double) committedRecords.sum() / commitCount,
+				commitCount == 0 ? 0 : commitNanos.sum() / 1_000_000.0 / commitCount,
+				maxCommitNanos.get() / 1_000_000.0);
+	}
+
+	// commit 된 offset 이 offset 을 넘거나 닫힐 때까지 대기 ( 같은 process 의 reader 용 )
+	void awaitCommitted(long offset, long timeoutNanos) throws InterruptedException {
+		long remaining = timeoutNanos;
+		lock.lock();
+		try {
+			while (committedOffset <= offset && !closed && remaining > 0) {
+				remaining = committed.awaitNanos(remaining);
+			}
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	private void commitLoop() {
+		while (true) {
+			ByteBuffer batch;
+			int records;
+			long firstOffset;
+			lock.lock();
+			try {
+				while (activeRecords == 0 && !closed) {
+					appended.awaitUninterruptibly();
+				}
+				if (activeRecords == 0) { // 닫혔고 남은 record 없음
+					return;
+				}
+				// 첫 record 후 commitInterval 동안 더 모음 ( 버퍼가 반 차거나 flush, 종료면 바로 )
+				long remaining = firstAppendNanos + commitIntervalNanos - System.nanoTime();
+				while (remaining > 0 && !closed && !flushRequested && active.position() < bufferBytes / 2) {
+					try {
+						remaining = appended.awaitNanos(remaining);
+					} catch (InterruptedException e) {
+						break;
+					}
+				}
+				batch = active;
+				records = activeRecords;
+				active = spare != null ? spare : ByteBuffer.allocate(bufferBytes);
+				spare = null;
+				activeRecords = 0;
+				flushRequested = false;
+				firstOffset = committedOffset;
+				space.signalAll();
+			} finally {
+				lock.unlock();
+			}
+			batch.flip();
+			boolean written = commit(batch, records, firstOffset);
+			batch.clear();
+			if (batch.capacity() == bufferBytes) { // 큰 record 용 버퍼는 버림
+				spare = batch;
+			}
+			lock.lock();
+			try {
+				if (written) {
+					committedOffset = firstOffset + records;
+				}
+				committed.signalAll();
+			} finally {
+				lock.unlock();
+			}
+			notifyCommitWaiters();
+		}
+	}
+
+	// batch 를 현재 segment 에 쓰고 디스크에 내림 ( segment 가 가득 찼으면 새 segment 부터 )
+	private boolean commit(ByteBuffer batch, int records, long firstOffset) {
+		if (broken) {
+			failed.add(records);
+			return false;
+		}
+		long start = System.nanoTime();
+		try {
+			if (channel.position() >= segmentBytes) {
+				rollSegment(firstOffset);
+			}
+			while (batch.hasRemaining()) {
+				channel.write(batch);
+			}
+			if (fsync) {
+				channel.force(false);
+			}
+		} catch (IOException e) {
+			log.error("[commit] directory ===> {} error ===> {}", directory, e.getMessage());
+			broken = true;
+			failed.add(records);
+			return false;
+		}
+		long elapsed = System.nanoTime() - start;
+		commits.increment();
+		committedRecords.add(records);
+		commitNanos.add(elapsed);
+		maxCommitNanos.accumulateAndGet(elapsed, Math::max);
+		return true;
+	}
+
+	private void rollSegment(long base) throws IOException {
+		channel.force(false);
+		channel.close();
+		openSegment(base);
+		if (retainSegments <= 0) {
+			return;
+		}
+		List<Long> segments = listSegments(directory);
+		for (int i = 0; i < segments.size() - retainSegments; i++) {
+			Files.deleteIfExists(segmentPath(directory, segments.get(i)));
+			log.debug("[rollSegment] deleted segment ===> {}", segments.get(i));
+		}
+	}
+
+	private void openSegment(long base) throws IOException {
+		channel = FileChannel.open(segmentPath(directory, base), StandardOpenOption.CREATE, StandardOpenOption.READ,
+				StandardOpenOption.WRITE);
+		channel.position(channel.size());
+		segmentBase = base;
+	}
+
+	// 마지막 segment 의 record 수를 세고 덜 쓴 끝부분은 잘라냄
+	private void recover() throws IOException {
+		Files.createDirectories(directory);
+		List<Long> segments = listSegments(directory);
+		openSegment(segments.isEmpty() ? 0 : segments.get(segments.size() - 1));
+		SegmentCursor cursor = new SegmentCursor(channel);
+		long records = 0;
+		while (cursor.next() != null) {
+			records++;
+		}
+		if (cursor.position() < channel.size()) {
+			log.error("[recover] truncate segment ===> {} size ===> {} valid ===> {}", segmentBase, channel.size(),
+					cursor.position());
+			channel.truncate(cursor.position());
+		}
+		channel.position(cursor.position());
+		nextOffset = segmentBase + records;
+		committedOffset = nextOffset;
+		log.info("[recover] directory ===> {} segments ===> {} next offset ===> {}", directory,
+				Math.max(1, segments.size()), nextOffset);
+	}
+
+	static Path segmentPath(Path directory, long base) {
+		return directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, base, SEGMENT_SUFFIX));
+	}
+
+	// segment 첫 offset 목록 ( 오름차순 )
+	static List<Long> listSegments(Path directory) throws IOException {
+		if (!Files.isDirectory(directory)) {
+			return List.of();
+		}
+		try (Stream<Path> files = Files.list(directory)) {
+			return files.map(file -> file.getFileName().toString())
+					.filter(name -> name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX))
+					.map(name -> Long.parseLong(
+							name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length())))
+					.sorted().collect(Collectors.toList());
+		}
+	}
+
+	/**
+	 * 새 commit 을 기다리는 pollAsync 요청
+	 */
+	private static final class CommitWaiter {
+
+		private final long offset;
+
+		private final CompletableFuture<Long> future = new CompletableFuture<>();
+
+		private CommitWaiter(long offset) {
+			this.offset = offset;
+		}
+	}
+}
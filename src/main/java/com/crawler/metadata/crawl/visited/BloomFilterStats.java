@@ -0,0 +1,86 @@
+package com.crawler.metadata.crawl.visited;
+
+/**
+ *
+ * Bloom filter 앞단 중복 검사 상태 snapshot
+ *
+ */
+public class BloomFilterStats {
+
+	private final long lookups;
+
+	private final long filterHits;
+
+	private final long falsePositives;
+
+	private final long entries;
+
+	private final int slices;
+
+	private final double fillRatio;
+
+	private final double expectedFalsePositiveRate;
+
+	private final long memoryBytes;
+
+	public BloomFilterStats(long lookups, long filterHits, long falsePositives, long entries, int slices,
+			double fillRatio, double expectedFalsePositiveRate, long memoryBytes) {
+		this.lookups = lookups;
+		this.filterHits = filterHits;
+		this.falsePositives = falsePositives;
+		this.entries = entries;
+		this.slices = slices;
+		this.fillRatio = fillRatio;
+		this.expectedFalsePositiveRate = expectedFalsePositiveRate;
+		this.memoryBytes = memoryBytes;
+	}
+
+	public long getLookups() {
+		return lookups;
+	}
+
+	public long getFilterHits() {
+		return filterHits;
+	}
+
+	/**
+	 *
+	 * 조회 중 filter 에서 바로 걸러진 비율
+	 *
+	 */
+	public double getHitRate() {
+		return lookups == 0 ? 0 : (double) filterHits / lookups;
+	}
+
+	public long getFalsePositives() {
+		return falsePositives;
+	}
+
+	public long getEntries() {
+		return entries;
+	}
+
+	public int getSlices() {
+		return slices;
+	}
+
+	public double getFillRatio() {
+		return fillRatio;
+	}
+
+	public double getExpectedFalsePositiveRate() {
+		return expectedFalsePositiveRate;
+	}
+
+	public long getMemoryBytes() {
+		return memoryBytes;
+	}
+
+	@Override
+	public String toString() {
+		return "BloomFilterStats [lookups=" + lookups + ", filterHits=" + filterHits + ", hitRate=" + getHitRate()
+				+ ", falsePositives=" + falsePositives + ", entries=" + entries + ", slices=" + slices
+				+ ", fillRatio=" + fillRatio + ", expectedFalsePositiveRate=" + expectedFalsePositiveRate
+				+ ", memoryBytes=" + memoryBytes + "]";
+	}
+}
@@ -0,0 +1,86 @@
+package com.crawler.metadata.crawl.visited;
+
+import java.util.concurrent.atomic.LongAdder;
+
+import com.crawler.metadata.util.Fingerprints;
+
+/**
+ *
+ * 정확한 방문 url 보관소 앞에 Bloom filter 를 둔 VisitedUrlStore
+ * filter 에 없는 url 은 확실히 처음 보는 url 이므로 바로 보관소에 추가한다.
+ * filter 에 있는 url 은 verifyPositives 가 false 면 보관소를 조회하지 않고 방문한 것으로 처리한다.
+ * ( 오탐률 만큼의 새 url 을 놓치는 대신 이미 본 link 대부분을 보관소 조회 없이 걸러낸다 )
+ *
+ */
+public class BloomFilteredVisitedUrlStore implements VisitedUrlStore {
+
+	private final ScalableBloomFilter filter;
+
+	private final VisitedUrlStore exact;
+
+	private final boolean verifyPositives;
+
+	private final LongAdder lookups = new LongAdder();
+
+	// filter 에서 이미 본 것으로 걸러진 수
+	private final LongAdder filterHits = new LongAdder();
+
+	// filter 는 있다고 했지만 보관소에는 없던 수 ( verifyPositives 일 때만 집계 )
+	private final LongAdder falsePositives = new LongAdder();
+
+	public BloomFilteredVisitedUrlStore(VisitedUrlStore exact, ScalableBloomFilter filter, boolean verifyPositives) {
+		this.exact = exact;
+		this.filter = filter;
+		this.verifyPositives = verifyPositives;
+	}
+
+	@Override
+	public boolean add(String url) {
+		lookups.increment();
+		long fingerprint = Fingerprints.hash64(url);
+		if (!filter.mightContain(fingerprint)) {
+			filter.add(fingerprint);
+			return exact.add(url); // 같은 url 을 동시에 추가하는 경우는 보관소가 판단
+		}
+		filterHits.increment();
+		if (!verifyPositives) {
+			return false;
+		}
+		boolean added = exact.add(url);
+		if (added) {
+			falsePositives.increment();
+		}
+		return added;
+	}
+
+	@Override
+	public boolean contains(String url) {
+		lookups.increment();
+		if (!filter.mightContain(Fingerprints.hash64(url))) {
+			return false;
+		}
+		filterHits.increment();
+		return !verifyPositives || exact.contains(url);
+	}
+
+	@Override
+	public long size() {
+		return exact.size();
+	}
+
+	@Override
+	public long memoryBytes() {
+		return exact.memoryBytes() + filter.memoryBytes();
+	}
+
+	public BloomFilterStats getStats() {
+		return new BloomFilterStats(lookups.sum(), filterHits.sum(), falsePositives.sum(), filter.getCount(),
+				filter.getSliceCount(), filter.getFillRatio(), filter.getExpectedFalsePositiveRate(),
+				filter.memoryBytes());
+	}
+
+	@Override
+	public String toString() {
+		return getStats().toString();
+	}
+}
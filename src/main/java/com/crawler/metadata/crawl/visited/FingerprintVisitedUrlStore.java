@@ -0,0 +1,179 @@
+package com.crawler.metadata.crawl.visited;
+
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+
+import com.crawler.metadata.util.Fingerprints;
+
+/**
+ *
+ * url 대신 64 / 128bit fingerprint 만 보관하는 open addressing hash table
+ * 문자열, node 객체 없이 long 배열 하나에 fingerprint 를 넣으므로 url 하나에 16 ~ 32 byte ( 128bit 는 2배 ) 만 사용한다.
+ * fingerprint 상위 bit 로 고른 stripe 마다 lock 을 따로 두어 서로 다른 stripe 의 추가는 동시에 진행된다.
+ * offHeap 이면 table 을 direct buffer 에 두어 GC 가 훑는 heap 에서 제외한다.
+ * 서로 다른 url 의 fingerprint 가 같으면 방문한 것으로 판단한다. ( 64bit 기준 1억 개에서 약 0.03% 확률 )
+ *
+ */
+public class FingerprintVisitedUrlStore implements VisitedUrlStore {
+
+	private static final long SECOND_SEED = 0x9e3779b97f4a7c15L;
+
+	private final Stripe[] stripes;
+
+	private final int stripeShift;
+
+	private final boolean wide;
+
+	/**
+	 *
+	 * @param stripeCount lock 을 나눌 수 ( 2 의 거듭제곱으로 올림 )
+	 * @param initialCapacity 전체 예상 url 수
+	 * @param fingerprintBits 64 또는 128
+	 * @param offHeap direct buffer 사용 여부
+	 *
+	 */
+	public FingerprintVisitedUrlStore(int stripeCount, int initialCapacity, int fingerprintBits, boolean offHeap) {
+		int count = stripeCount <= 1 ? 1 : Integer.highestOneBit(stripeCount - 1) << 1;
+		this.wide = fingerprintBits > 64;
+		this.stripes = new Stripe[count];
+		this.stripeShift = 64 - Integer.numberOfTrailingZeros(count);
+		int perStripe = Math.max(16, initialCapacity / count);
+		for (int i = 0; i < count; i++) {
+			stripes[i] = new Stripe(perStripe, wide ? 2 : 1, offHeap);
+		}
+	}
+
+	@Override
+	public boolean add(String url) {
+		long high = fingerprint(url);
+		long low = wide ? Fingerprints.hash64(url, SECOND_SEED) : 0;
+		Stripe stripe = stripeOf(high);
+		synchronized (stripe) {
+			return stripe.add(high, low);
+		}
+	}
+
+	@Override
+	public boolean contains(String url) {
+		long high = fingerprint(url);
+		long low = wide ? Fingerprints.hash64(url, SECOND_SEED) : 0;
+		Stripe stripe = stripeOf(high);
+		synchronized (stripe) {
+			return stripe.contains(high, low);
+		}
+	}
+
+	@Override
+	public long size() {
+		long size = 0;
+		for (Stripe stripe : stripes) {
+			synchronized (stripe) {
+				size += stripe.size;
+			}
+		}
+		return size;
+	}
+
+	@Override
+	public long memoryBytes() {
+		long bytes = 0;
+		for (Stripe stripe : stripes) {
+			synchronized (stripe) {
+				bytes += (long) stripe.table.capacity() * Long.BYTES;
+			}
+		}
+		return bytes;
+	}
+
+	private Stripe stripeOf(long fingerprint) {
+		return stripes.length == 1 ? stripes[0] : stripes[(int) (fingerprint >>> stripeShift)];
+	}
+
+	// 0 은 빈 칸 표시이므로 다른 값으로 바꿈
+	private static long fingerprint(String url) {
+		long hash = Fingerprints.hash64(url);
+		return hash == 0 ? 1 : hash;
+	}
+
+	/**
+	 *
+	 * lock 하나가 지키는 linear probing table
+	 * slot 하나는 long 1개 ( 64bit ) 또는 2개 ( 128bit ) 로, 첫 long 이 0 이면 빈 칸이다.
+	 *
+	 */
+	private static final class Stripe {
+
+		private final int width;
+
+		private final boolean offHeap;
+
+		private LongBuffer table;
+
+		private int slots;
+
+		private int mask;
+
+		private int size;
+
+		Stripe(int expected, int width, boolean offHeap) {
+			this.width = width;
+			this.offHeap = offHeap;
+			allocate(Integer.highestOneBit(Math.max(16, expected * 2 - 1)) << 1);
+		}
+
+		boolean add(long high, long low) {
+			int slot = find(high, low);
+			if (table.get(slot * width) != 0) {
+				return false;
+			}
+			put(slot, high, low);
+			if (++size * 2 > slots) {
+				grow();
+			}
+			return true;
+		}
+
+		boolean contains(long high, long low) {
+			return table.get(find(high, low) * width) != 0;
+		}
+
+		// fingerprint 가 있는 slot 또는 처음 만나는 빈 slot
+		private int find(long high, long low) {
+			int slot = (int) high & mask;
+			while (true) {
+				long current = table.get(slot * width);
+				if (current == 0 || current == high && (width == 1 || table.get(slot * width + 1) == low)) {
+					return slot;
+				}
+				slot = (slot + 1) & mask;
+			}
+		}
+
+		private void put(int slot, long high, long low) {
+			table.put(slot * width, high);
+			if (width == 2) {
+				table.put(slot * width + 1, low);
+			}
+		}
+
+		private void grow() {
+			LongBuffer old = table;
+			int oldSlots = slots;
+			allocate(oldSlots * 2);
+			for (int i = 0; i < oldSlots; i++) {
+				long high = old.get(i * width);
+				if (high != 0) {
+					long low = width == 2 ? old.get(i * width + 1) : 0;
+					put(find(high, low), high, low);
+				}
+			}
+		}
+
+		private void allocate(int slotCount) {
+			int longs = slotCount * width;
+			table = offHeap ? ByteBuffer.allocateDirect(longs * Long.BYTES).asLongBuffer() : LongBuffer.allocate(longs);
+			slots = slotCount;
+			mask = slotCount - 1;
+		}
+	}
+}
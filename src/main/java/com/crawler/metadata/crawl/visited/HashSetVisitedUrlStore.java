@@ -0,0 +1,42 @@
+package com.crawler.metadata.crawl.visited;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ *
+ * url 문자열을 그대로 ConcurrentHashMap key set 에 보관하는 기존 방식
+ * 오탐이 없지만 url 하나에 문자열 + map node 만큼의 heap 을 사용한다.
+ *
+ */
+public class HashSetVisitedUrlStore implements VisitedUrlStore {
+
+	// String ( header + hash + value 참조 ) + byte[] header + map node + table slot 의 대략적인 크기
+	private static final int OVERHEAD_PER_URL = 24 + 16 + 32 + 8;
+
+	private final Set<String> urls = ConcurrentHashMap.newKeySet();
+
+	@Override
+	public boolean add(String url) {
+		return urls.add(url);
+	}
+
+	@Override
+	public boolean contains(String url) {
+		return urls.contains(url);
+	}
+
+	@Override
+	public long size() {
+		return urls.size();
+	}
+
+	@Override
+	public long memoryBytes() {
+		long bytes = 0;
+		for (String url : urls) {
+			bytes += OVERHEAD_PER_URL + url.length();
+		}
+		return bytes;
+	}
+}
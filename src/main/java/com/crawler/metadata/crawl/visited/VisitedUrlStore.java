@@ -0,0 +1,30 @@
+package com.crawler.metadata.crawl.visited;
+
+/**
+ *
+ * 방문한 url 보관소
+ * 구현체는 여러 스레드에서 동시에 호출해도 안전해야 한다.
+ *
+ */
+public interface VisitedUrlStore {
+
+	/**
+	 *
+	 * 방문하지 않은 url 이면 방문으로 기록
+	 * @param url
+	 * @return 새로 기록했으면 true, 이미 방문한 url 이면 false
+	 *
+	 */
+	boolean add(String url);
+
+	boolean contains(String url);
+
+	long size();
+
+	/**
+	 *
+	 * 보관에 사용 중인 대략적인 메모리 ( byte, heap + off-heap )
+	 *
+	 */
+	long memoryBytes();
+}
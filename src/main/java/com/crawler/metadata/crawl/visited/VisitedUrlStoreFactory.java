@@ -0,0 +1,39 @@
+package com.crawler.metadata.crawl.visited;
+
+import org.springframework.stereotype.Component;
+
+import com.crawler.metadata.config.CrawlerProperties;
+
+/**
+ *
+ * crawler.visited.* 설정에 맞는 VisitedUrlStore 생성 ( 설정에 따라 Bloom filter 를 앞에 둠 )
+ * seed url 마다 별도의 보관소를 사용하므로 필요할 때마다 새로 만든다.
+ *
+ */
+@Component
+public class VisitedUrlStoreFactory {
+
+	private final CrawlerProperties.Visited visited;
+
+	public VisitedUrlStoreFactory(CrawlerProperties properties) {
+		this.visited = properties.getVisited();
+	}
+
+	public VisitedUrlStore create() {
+		VisitedUrlStore store = createExactStore();
+		if (!visited.isBloomFilter()) {
+			return store;
+		}
+		ScalableBloomFilter filter = new ScalableBloomFilter(visited.getBloomInitialCapacity(),
+				visited.getBloomFalsePositiveRate());
+		return new BloomFilteredVisitedUrlStore(store, filter, visited.isBloomVerifyPositives());
+	}
+
+	private VisitedUrlStore createExactStore() {
+		if (visited.getStore() == CrawlerProperties.VisitedStoreType.HASH_SET) {
+			return new HashSetVisitedUrlStore();
+		}
+		return new FingerprintVisitedUrlStore(visited.getStripes(), visited.getInitialCapacity(),
+				visited.getFingerprintBits(), visited.isOffHeap());
+	}
+}
@@ -0,0 +1,86 @@
+package com.crawler.metadata.util;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+
+/**
+ *
+ * 문자열 객체를 만들지 않고 CharSequence 에서 바로 계산하는 64bit hash
+ * url 중복 제거용 fingerprint 로 사용한다.
+ *
+ */
+public final class Fingerprints {
+
+	private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+
+	private static final long FNV_PRIME = 0x100000001b3L;
+
+	private static final long WORD_MULTIPLIER = 0x9e3779b97f4a7c15L;
+
+	private static final VarHandle LONG_VIEW = MethodHandles.byteArrayViewVarHandle(long[].class,
+			ByteOrder.LITTLE_ENDIAN);
+
+	private Fingerprints() {
+	}
+
+	public static long hash64(CharSequence value) {
+		return hash64(value, 0L);
+	}
+
+	/**
+	 *
+	 * 문자 4개 ( 64bit ) 씩 묶어서 곱셈 / 회전으로 섞은 뒤 murmur3 finalizer 로 bit 를 고르게 분산
+	 * 문자마다 곱셈하는 FNV-1a 보다 곱셈 수가 1/4 이라 긴 url 에서 빠르다.
+	 * @param value
+	 * @param seed
+	 * @return 64bit hash
+	 *
+	 */
+	public static long hash64(CharSequence value, long seed) {
+		long hash = FNV_OFFSET ^ seed;
+		int length = value.length();
+		int i = 0;
+		for (; i + 4 <= length; i += 4) {
+			long word = value.charAt(i) | (long) value.charAt(i + 1) << 16 | (long) value.charAt(i + 2) << 32
+					| (long) value.charAt(i + 3) << 48;
+			hash = Long.rotateLeft(hash ^ word * WORD_MULTIPLIER, 29) * FNV_PRIME;
+		}
+		for (; i < length; i++) {
+			hash ^= value.charAt(i);
+			hash *= FNV_PRIME;
+		}
+		return mix(hash ^ length);
+	}
+
+	/**
+	 *
+	 * byte 배열의 64bit hash ( 응답 body 변경 확인용, 8 byte 씩 묶어서 계산 )
+	 * @param data
+	 * @return 64bit hash
+	 *
+	 */
+	public static long hash64(byte[] data) {
+		long hash = FNV_OFFSET;
+		int length = data.length;
+		int i = 0;
+		for (; i + 8 <= length; i += 8) {
+			long word = (long) LONG_VIEW.get(data, i);
+			hash = Long.rotateLeft(hash ^ word * WORD_MULTIPLIER, 29) * FNV_PRIME;
+		}
+		for (; i < length; i++) {
+			hash ^= data[i] & 0xff;
+			hash *= FNV_PRIME;
+		}
+		return mix(hash ^ length);
+	}
+
+	public static long mix(long hash) {
+		hash ^= hash >>> 33;
+		hash *= 0xff51afd7ed558ccdL;
+		hash ^= hash >>> 33;
+		hash *= 0xc4ceb9fe1a85ec53L;
+		hash ^= hash >>> 33;
+		return hash;
+	}
+}
@@ -0,0 +1,424 @@
+package com.crawler.metadata.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ *
+ * 같은 페이지를 가리키는 url 변형을 하나의 문자열로 맞추는 canonicalizer ( 중복 제거 / 대기열 key 용 )
+ * 앞에서부터 한 번만 읽으면서 scheme, host 소문자, 기본 port 제거, fragment 제거, dot segment 정리,
+ * percent-encoding 정규화 ( unreserved 문자는 decode, 나머지는 대문자 hex ), 추적용 query parameter 제거 / 정렬을 처리한다.
+ * 내부 buffer 는 스레드 별로 재사용하고, 결과가 입력과 같으면 입력 문자열을 그대로 반환한다.
+ * http, https 가 아닌 url 은 바꾸지 않는다.
+ *
+ */
+public final class UrlCanonicalizer {
+
+	public static final List<String> DEFAULT_TRACKING_PARAMS = Arrays.asList("utm_*", "gclid", "fbclid", "msclkid",
+			"dclid", "mc_cid", "mc_eid", "_ga", "igshid");
+
+	public static final UrlCanonicalizer DEFAULT = new UrlCanonicalizer(true, true, true, DEFAULT_TRACKING_PARAMS);
+
+	private static final char[] HEX = "0123456789ABCDEF".toCharArray();
+
+	private final boolean stripWww;
+
+	private final boolean stripTrailingSlash;
+
+	private final boolean sortQueryParams;
+
+	// 정확히 일치해야 하는 이름 / '*' 로 끝나는 prefix
+	private final String[] trackingNames;
+
+	private final String[] trackingPrefixes;
+
+	private final ThreadLocal<Buffers> buffers = ThreadLocal.withInitial(Buffers::new);
+
+	/**
+	 *
+	 * @param stripWww host 앞의 "www." 제거
+	 * @param stripTrailingSlash "/" 가 아닌 path 끝의 "/" 제거
+	 * @param sortQueryParams query parameter 를 이름 순으로 정렬 ( 같은 이름은 원래 순서 유지 )
+	 * @param trackingParams 제거할 query parameter 이름 ( "utm_*" 처럼 '*' 로 끝나면 prefix, 대소문자 무시 )
+	 *
+	 */
+	public UrlCanonicalizer(boolean stripWww, boolean stripTrailingSlash, boolean sortQueryParams,
+			List<String> trackingParams) {
+		this.stripWww = stripWww;
+		this.stripTrailingSlash = stripTrailingSlash;
+		this.sortQueryParams = sortQueryParams;
+		List<String> names = new ArrayList<>();
+		List<String> prefixes = new ArrayList<>();
+		for (String param : trackingParams) {
+			String name = param.trim().toLowerCase(Locale.ROOT);
+			if (name.endsWith("*")) {
+				prefixes.add(name.substring(0, name.length() - 1));
+			} else if (!name.isEmpty()) {
+				names.add(name);
+			}
+		}
+		this.trackingNames = names.toArray(new String[0]);
+		this.trackingPrefixes = prefixes.toArray(new String[0]);
+	}
+
+	/**
+	 *
+	 * url 을 canonical 형태로 변환
+	 * @param url 절대경로 url
+	 * @return canonical url ( http, https 가 아니면 입력 그대로 )
+	 *
+	 */
+	public String canonicalize(String url) {
+		int length = url.length();
+		int start = 0;
+		while (start < length && url.charAt(start) <= ' ') {
+			start++;
+		}
+		while (length > start && url.charAt(length - 1) <= ' ') {
+			length--;
+		}
+		int colon = url.indexOf(':', start);
+		boolean https;
+		if (colon - start == 4 && url.regionMatches(true, start, "http", 0, 4)) {
+			https = false;
+		} else if (colon - start == 5 && url.regionMatches(true, start, "https", 0, 5)) {
+			https = true;
+		} else {
+			return url;
+		}
+		if (colon + 2 >= length || url.charAt(colon + 1) != '/' || url.charAt(colon + 2) != '/') {
+			return url;
+		}
+
+		Buffers buffers = this.buffers.get();
+		StringBuilder out = buffers.out;
+		out.setLength(0);
+		out.append(https ? "https://" : "http://");
+
+		int position = appendAuthority(url, colon + 3, length, https, out);
+		position = appendPath(url, position, length, out, buffers);
+		if (position < length && url.charAt(position) == '?') {
+			appendQuery(url, position + 1, length, out, buffers);
+		}
+		// fragment ( '#' 이후 ) 는 버림
+
+		if (out.length() == url.length() && contentEquals(out, url)) {
+			return url;
+		}
+		return out.toString();
+	}
+
+	/**
+	 *
+	 * 사용자 정보 + host + port. host 는 소문자, 끝의 '.' 과 기본 port 는 제거
+	 * @return authority 다음 위치
+	 *
+	 */
+	private int appendAuthority(String url, int start, int length, boolean https, StringBuilder out) {
+		int end = start;
+		while (end < length) {
+			char c = url.charAt(end);
+			if (c == '/' || c == '?' || c == '#') {
+				break;
+			}
+			end++;
+		}
+		int hostStart = start;
+		int at = url.lastIndexOf('@', end - 1);
+		if (at >= start) {
+			out.append(url, start, at + 1);
+			hostStart = at + 1;
+		}
+		int hostEnd = end;
+		int portStart = -1;
+		int bracket = url.lastIndexOf(']', end - 1);
+		int portColon = url.lastIndexOf(':', end - 1);
+		if (portColon >= hostStart && portColon > bracket) {
+			hostEnd = portColon;
+			portStart = portColon + 1;
+		}
+		if (hostEnd > hostStart && url.charAt(hostEnd - 1) == '.') {
+			hostEnd--;
+		}
+		if (stripWww && hostEnd - hostStart > 4 && url.regionMatches(true, hostStart, "www.", 0, 4)
+				&& url.indexOf('.', hostStart + 4) >= 0 && url.indexOf('.', hostStart + 4) < hostEnd) {
+			hostStart += 4;
+		}
+		for (int i = hostStart; i < hostEnd; i++) {
+			char c = url.charAt(i);
+			out.append(c >= 'A' && c <= 'Z' ? (char) (c + 32) : c);
+		}
+		if (portStart >= 0 && portStart < end && !isDefaultPort(url, portStart, end, https)) {
+			out.append(':');
+			int digit = portStart;
+			while (digit < end - 1 && url.charAt(digit) == '0') {
+				digit++; // ":0080" -> ":80"
+			}
+			out.append(url, digit, end);
+		}
+		return end;
+	}
+
+	private static boolean isDefaultPort(String url, int start, int end, boolean https) {
+		int port = 0;
+		for (int i = start; i < end; i++) {
+			char c = url.charAt(i);
+			if (c < '0' || c > '9' || port > 65535) {
+				return false;
+			}
+			port = port * 10 + (c - '0');
+		}
+		return port == (https ? 443 : 80);
+	}
+
+	/**
+	 *
+	 * path 를 segment 단위로 복사하면서 percent-encoding 정규화, "." / ".." 정리, 연속된 '/' 는 하나로
+	 * @return path 다음 위치 ( '?', '#' 또는 끝 )
+	 *
+	 */
+	private int appendPath(String url, int start, int length, StringBuilder out, Buffers buffers) {
+		int pathStart = out.length();
+		int[] segments = buffers.segments;
+		int depth = 0;
+		// 마지막으로 읽은 것이 '/' 또는 dot segment 인지 ( 디렉터리를 가리키는 path )
+		boolean trailingSlash = false;
+		int i = start;
+		while (i < length) {
+			char c = url.charAt(i);
+			if (c == '?' || c == '#') {
+				break;
+			}
+			if (c == '/') {
+				trailingSlash = true;
+				i++;
+				continue;
+			}
+			int segmentStart = out.length();
+			out.append('/');
+			i = appendEncoded(url, i, length, out, false);
+			int segmentLength = out.length() - segmentStart - 1;
+			boolean dot = segmentLength == 1 && out.charAt(segmentStart + 1) == '.';
+			boolean dotDot = segmentLength == 2 && out.charAt(segmentStart + 1) == '.'
+					&& out.charAt(segmentStart + 2) == '.';
+			if (dot || dotDot) {
+				out.setLength(segmentStart);
+				if (dotDot && depth > 0) {
+					out.setLength(segments[--depth]);
+				}
+				trailingSlash = true;
+				continue;
+			}
+			if (depth == segments.length) {
+				segments = buffers.segments = Arrays.copyOf(segments, depth * 2);
+			}
+			segments[depth++] = segmentStart;
+			trailingSlash = false;
+		}
+		if (out.length() == pathStart || trailingSlash && !stripTrailingSlash) {
+			out.append('/');
+		}
+		return i;
+	}
+
+	/**
+	 *
+	 * query 를 parameter 단위로 정규화, 추적용 parameter 제거, 이름 순 정렬
+	 *
+	 */
+	private void appendQuery(String url, int start, int length, StringBuilder out, Buffers buffers) {
+		StringBuilder query = buffers.query;
+		query.setLength(0);
+		int[] bounds = buffers.params;
+		int count = 0;
+		int i = start;
+		while (i < length && url.charAt(i) != '#') {
+			if (url.charAt(i) == '&') {
+				i++;
+				continue;
+			}
+			int paramStart = query.length();
+			i = appendEncoded(url, i, length, query, true);
+			if (isTrackingParam(query, paramStart)) {
+				query.setLength(paramStart);
+				continue;
+			}
+			if (count * 2 + 2 > bounds.length) {
+				bounds = buffers.params = Arrays.copyOf(bounds, bounds.length * 2);
+			}
+			bounds[count * 2] = paramStart;
+			bounds[count * 2 + 1] = query.length();
+			count++;
+		}
+		if (count == 0) {
+			return;
+		}
+		if (sortQueryParams) {
+			sortParams(query, bounds, count);
+		}
+		out.append('?');
+		for (int p = 0; p < count; p++) {
+			if (p > 0) {
+				out.append('&');
+			}
+			out.append(query, bounds[p * 2], bounds[p * 2 + 1]);
+		}
+	}
+
+	/**
+	 *
+	 * 구분자 ( path 는 '/', query 는 '&' ) 가 나올 때까지 percent-encoding 을 정규화하며 복사
+	 * unreserved 문자 ( 영문, 숫자, - . _ ~ ) 의 %XX 는 decode, 그 외 %xx 는 대문자 hex 로,
+	 * 공백 / 제어 문자 / ascii 가 아닌 문자는 UTF-8 %XX 로 encode 한다.
+	 * @return 구분자 위치
+	 *
+	 */
+	private static int appendEncoded(String url, int i, int length, StringBuilder out, boolean query) {
+		while (i < length) {
+			char c = url.charAt(i);
+			if (c == '#' || (query ? c == '&' : c == '/' || c == '?')) {
+				break;
+			}
+			if (c == '%' && i + 2 < length && isHex(url.charAt(i + 1)) && isHex(url.charAt(i + 2))) {
+				int value = Character.digit(url.charAt(i + 1), 16) << 4 | Character.digit(url.charAt(i + 2), 16);
+				if (isUnreserved(value)) {
+					out.append((char) value);
+				} else {
+					out.append('%').append(HEX[value >> 4]).append(HEX[value & 0xF]);
+				}
+				i += 3;
+				continue;
+			}
+			if (c <= ' ' || c == '"' || c == '<' || c == '>' || c == '\\' || c == '^' || c == '`' || c == '{'
+					|| c == '|' || c == '}' || c >= 0x7F) {
+				int codePoint = Character.codePointAt(url, i);
+				appendUtf8(codePoint, out);
+				i += Character.charCount(codePoint);
+				continue;
+			}
+			out.append(c);
+			i++;
+		}
+		return i;
+	}
+
+	private static void appendUtf8(int codePoint, StringBuilder out) {
+		if (codePoint < 0x80) {
+			appendByte(codePoint, out);
+		} else if (codePoint < 0x800) {
+			appendByte(0xC0 | codePoint >> 6, out);
+			appendByte(0x80 | codePoint & 0x3F, out);
+		} else if (codePoint < 0x10000) {
+			appendByte(0xE0 | codePoint >> 12, out);
+			appendByte(0x80 | codePoint >> 6 & 0x3F, out);
+			appendByte(0x80 | codePoint & 0x3F, out);
+		} else {
+			appendByte(0xF0 | codePoint >> 18, out);
+			appendByte(0x80 | codePoint >> 12 & 0x3F, out);
+			appendByte(0x80 | codePoint >> 6 & 0x3F, out);
+			appendByte(0x80 | codePoint & 0x3F, out);
+		}
+	}
+
+	private static void appendByte(int value, StringBuilder out) {
+		out.append('%').append(HEX[value >> 4 & 0xF]).append(HEX[value & 0xF]);
+	}
+
+	private boolean isTrackingParam(StringBuilder query, int start) {
+		int end = query.length();
+		int nameEnd = start;
+		while (nameEnd < end && query.charAt(nameEnd) != '=') {
+			nameEnd++;
+		}
+		int nameLength = nameEnd - start;
+		for (String name : trackingNames) {
+			if (name.length() == nameLength && regionMatchesIgnoreCase(query, start, name)) {
+				return true;
+			}
+		}
+		for (String prefix : trackingPrefixes) {
+			if (prefix.length() <= nameLength && regionMatchesIgnoreCase(query, start, prefix)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static boolean regionMatchesIgnoreCase(CharSequence value, int start, String lowerCase) {
+		for (int i = 0; i < lowerCase.length(); i++) {
+			char c = value.charAt(start + i);
+			if ((c >= 'A' && c <= 'Z' ? (char) (c + 32) : c) != lowerCase.charAt(i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	// parameter 수가 적으므로 안정 정렬인 삽입 정렬 ( 이름 비교, 같으면 원래 순서 )
+	private static void sortParams(StringBuilder query, int[] bounds, int count) {
+		for (int i = 1; i < count; i++) {
+			int start = bounds[i * 2];
+			int end = bounds[i * 2 + 1];
+			int j = i - 1;
+			while (j >= 0 && compareNames(query, bounds[j * 2], bounds[j * 2 + 1], start, end) > 0) {
+				bounds[(j + 1) * 2] = bounds[j * 2];
+				bounds[(j + 1) * 2 + 1] = bounds[j * 2 + 1];
+				j--;
+			}
+			bounds[(j + 1) * 2] = start;
+			bounds[(j + 1) * 2 + 1] = end;
+		}
+	}
+
+	private static int compareNames(StringBuilder query, int aStart, int aEnd, int bStart, int bEnd) {
+		int a = aStart;
+		int b = bStart;
+		while (true) {
+			boolean aDone = a == aEnd || query.charAt(a) == '=';
+			boolean bDone = b == bEnd || query.charAt(b) == '=';
+			if (aDone || bDone) {
+				return aDone == bDone ? 0 : aDone ? -1 : 1;
+			}
+			int diff = query.charAt(a) - query.charAt(b);
+			if (diff != 0) {
+				return diff;
+			}
+			a++;
+			b++;
+		}
+	}
+
+	private static boolean isHex(char c) {
+		return (c >= '0' && c <= '9') || (c >= 'a' && c <= 'f') || (c >= 'A' && c <= 'F');
+	}
+
+	private static boolean isUnreserved(int c) {
+		return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '-' || c == '.'
+				|| c == '_' || c == '~';
+	}
+
+	private static boolean contentEquals(StringBuilder out, String url) {
+		for (int i = out.length() - 1; i >= 0; i--) {
+			if (out.charAt(i) != url.charAt(i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	// 스레드 별 재사용 buffer
+	private static final class Buffers {
+
+		private final StringBuilder out = new StringBuilder(256);
+
+		private final StringBuilder query = new StringBuilder(128);
+
+		// path segment 시작 위치
+		private int[] segments = new int[32];
+
+		// query parameter 시작 / 끝 위치
+		private int[] params = new int[32];
+	}
+}
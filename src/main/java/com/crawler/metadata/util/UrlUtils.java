@@ -1,6 +1,7 @@
 package com.crawler.metadata.util;
 
 import java.net.URL;
+import java.util.Locale;
 
 public class UrlUtils {
 	
@@ -19,4 +20,51 @@ public class UrlUtils {
 		}
 	}
 
+	/**
+	 * url 에서 host 부분만 잘라서 반환 ( URL 객체 생성 없이, 사용자 정보 / port 제외 )
+	 * 
+	 * @param url
+	 * @return host ( 소문자 ) 또는 null
+	 */
+	public static String getHost(String url) {
+		if (url == null) {
+			return null;
+		}
+		int schemeEnd = url.indexOf("://");
+		if (schemeEnd < 0) {
+			return null;
+		}
+		int start = schemeEnd + 3;
+		int end = start;
+		while (end < url.length()) {
+			char c = url.charAt(end);
+			if (c == '/' || c == '?' || c == '#') {
+				break;
+			}
+			end++;
+		}
+		int at = url.lastIndexOf('@', end - 1);
+		if (at >= start) {
+			start = at + 1;
+		}
+		int port = url.lastIndexOf(':', end - 1);
+		if (port >= start && url.lastIndexOf(']', end - 1) < port) {
+			end = port;
+		}
+		if (start == end) {
+			return null;
+		}
+		return url.substring(start, end).toLowerCase(Locale.ROOT);
+	}
+
+	/**
+	 * 중복 제거 / 대기열 key 로 사용할 canonical url ( 기본 규칙 )
+	 * 
+	 * @param url
+	 * @return canonical url
+	 */
+	public static String canonicalize(String url) {
+		return UrlCanonicalizer.DEFAULT.canonicalize(url);
+	}
+
 }
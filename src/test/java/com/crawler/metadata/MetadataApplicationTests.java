@@ -3,7 +3,8 @@ package com.crawler.metadata;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.context.SpringBootTest;
 
-@SpringBootTest
+@SpringBootTest(properties = { "spring.datasource.url=jdbc:h2:mem:metadata",
+		"crawler.result-log.directory=target/result-log" })
 class MetadataApplicationTests {
 
 	@Test
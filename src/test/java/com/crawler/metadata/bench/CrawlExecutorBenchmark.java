@@ -0,0 +1,112 @@
+package com.crawler.metadata.bench;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import com.crawler.metadata.config.CrawlerProperties;
+import com.crawler.metadata.crawl.executor.CrawlExecutor;
+
+/**
+ *
+ * crawler executor 방식 비교 ( 느린 endpoint 에 대한 blocking 작업 tasks 개 처리 시간 )
+ * platform : ThreadPoolTaskExecutor ( 기존 설정 ) vs virtual : 작업마다 스레드 + semaphore
+ * 동시에 살아 있던 스레드 수의 최대값은 peakThreads 로 함께 출력
+ * mvn -Pbenchmark test -Dbenchmark.include="CrawlExecutorBenchmark -prof gc"
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(1)
+public class CrawlExecutorBenchmark {
+
+	@Param({ "platform", "virtual" })
+	public String mode;
+
+	@Param({ "10000" })
+	public int tasks;
+
+	// 느린 endpoint 의 응답 시간
+	@Param({ "20" })
+	public int latencyMs;
+
+	@Param({ "256" })
+	public int maxConcurrency;
+
+	private CrawlExecutor executor;
+
+	@AuxCounters(AuxCounters.Type.EVENTS)
+	@State(Scope.Thread)
+	public static class Threads {
+
+		public int peakThreads;
+
+		@Setup(Level.Iteration)
+		public void reset() {
+			peakThreads = 0;
+		}
+	}
+
+	@Setup(Level.Iteration)
+	public void start() {
+		CrawlerProperties.Executor settings = new CrawlerProperties.Executor();
+		settings.setMode(CrawlerProperties.ExecutorMode.valueOf(mode.toUpperCase()));
+		settings.setMaxConcurrency(maxConcurrency);
+		settings.setMaxConcurrencyPerHost(maxConcurrency);
+		ThreadPoolTaskExecutor pool = null;
+		if (settings.getMode() == CrawlerProperties.ExecutorMode.PLATFORM) {
+			int cores = Runtime.getRuntime().availableProcessors();
+			pool = new ThreadPoolTaskExecutor();
+			pool.setCorePoolSize(cores * 2);
+			pool.setMaxPoolSize(cores * 4);
+			pool.setQueueCapacity(500);
+			pool.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+			pool.initialize();
+		}
+		executor = new CrawlExecutor(settings, pool);
+	}
+
+	@TearDown(Level.Iteration)
+	public void stop() {
+		executor.shutdown();
+	}
+
+	@Benchmark
+	public int slowEndpoints(Threads threads) {
+		AtomicInteger peak = new AtomicInteger();
+		CompletableFuture<?>[] futures = new CompletableFuture<?>[tasks];
+		for (int i = 0; i < tasks; i++) {
+			futures[i] = CompletableFuture.runAsync(() -> {
+				peak.accumulateAndGet(Thread.activeCount(), Math::max);
+				try {
+					Thread.sleep(latencyMs);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}, executor);
+		}
+		CompletableFuture.allOf(futures).join();
+		threads.peakThreads = Math.max(threads.peakThreads, peak.get());
+		return futures.length;
+	}
+}
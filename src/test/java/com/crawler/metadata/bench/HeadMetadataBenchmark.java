@@ -0,0 +1,69 @@
+package com.crawler.metadata.bench;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.jsoup.Jsoup;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.crawler.metadata.crawl.MetadataExtractorService;
+import com.crawler.metadata.crawl.extract.HeadMetadata;
+import com.crawler.metadata.crawl.extract.HeadMetadataExtractor;
+
+/**
+ *
+ * 전체 jsoup DOM 변환 후 meta 선택 vs head 영역만 stream 으로 읽는 extractor 비교
+ * 저장된 html corpus ( src/test/resources/corpus ) 기준
+ * mvn -Pbenchmark test -Dbenchmark.include=HeadMetadataBenchmark
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HeadMetadataBenchmark {
+
+	private static final String BASE_URI = "https://blog.example.com/posts/market-report";
+
+	@Param({ "blog-post.html", "category-listing.html", "spa-shell.html" })
+	private String file;
+
+	private String html;
+
+	private final MetadataExtractorService fullParse = new MetadataExtractorService(null, null, null, null, null, null, null);
+
+	private final HeadMetadataExtractor headOnly = new HeadMetadataExtractor();
+
+	@Setup
+	public void load() throws IOException {
+		try (InputStream in = getClass().getResourceAsStream("/corpus/" + file)) {
+			html = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+		}
+	}
+
+	@Benchmark
+	public Map<String, String> fullJsoupParse() {
+		return fullParse.extractMetadataStatic(Jsoup.parse(html, BASE_URI));
+	}
+
+	@Benchmark
+	public HeadMetadata streamingHeadOnly() throws IOException {
+		return headOnly.extract(new StringReader(html), BASE_URI);
+	}
+}
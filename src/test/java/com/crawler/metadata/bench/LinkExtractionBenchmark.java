@@ -0,0 +1,88 @@
+package com.crawler.metadata.bench;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.crawler.metadata.config.CrawlerProperties;
+import com.crawler.metadata.crawl.MetadataExtractorService;
+import com.crawler.metadata.crawl.extract.LinkScanner;
+import com.crawler.metadata.crawl.filter.UrlFilterRegistry;
+import com.crawler.metadata.crawl.robots.RobotsRules;
+import com.crawler.metadata.crawl.robots.RobotsTxtCache;
+
+/**
+ *
+ * jsoup select("a[href]") + abs:href stream 방식 vs LinkScanner 비교
+ * 할당량은 gc profiler 로 확인 ( gc.alloc.rate.norm )
+ * mvn -Pbenchmark test -Dbenchmark.include="LinkExtractionBenchmark -prof gc"
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LinkExtractionBenchmark {
+
+	private static final String PAGE_URL = "https://shop.example.com/category/shoes/index.html";
+
+	@Param({ "blog-post.html", "category-listing.html" })
+	private String file;
+
+	private String html;
+
+	private Document parsed;
+
+	private final RobotsTxtCache robotsTxtCache = new RobotsTxtCache(new CrawlerProperties(), null, null);
+
+	private final MetadataExtractorService current = new MetadataExtractorService(null, null, null, null, null,
+			robotsTxtCache, new UrlFilterRegistry(new CrawlerProperties()));
+
+	private final LinkScanner linkScanner = new LinkScanner();
+
+	@Setup
+	public void load() throws IOException {
+		try (InputStream in = getClass().getResourceAsStream("/corpus/" + file)) {
+			html = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+		}
+		parsed = Jsoup.parse(html, PAGE_URL);
+		// robots.txt 를 내려받지 않도록 전부 허용으로 등록
+		robotsTxtCache.put(PAGE_URL, RobotsRules.ALLOW_ALL);
+	}
+
+	// 기존 방식 : DOM 변환 + select + stream
+	@Benchmark
+	public List<String> jsoupParseAndSelect() {
+		return current.extractLinksFromPage(PAGE_URL, Jsoup.parse(html, PAGE_URL));
+	}
+
+	// 기존 방식에서 DOM 변환 비용을 제외한 select + stream 만
+	@Benchmark
+	public List<String> jsoupSelectOnly() {
+		return current.extractLinksFromPage(PAGE_URL, parsed);
+	}
+
+	@Benchmark
+	public int linkScanner(Blackhole blackhole) {
+		return linkScanner.scan(html, PAGE_URL, blackhole::consume);
+	}
+}
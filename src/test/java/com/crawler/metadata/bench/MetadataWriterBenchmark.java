@@ -0,0 +1,99 @@
+package com.crawler.metadata.bench;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+import com.crawler.metadata.config.CrawlerProperties;
+import com.crawler.metadata.crawl.CrawlPageResult;
+import com.crawler.metadata.crawl.extract.HeadMetadata;
+import com.crawler.metadata.crawl.persist.MetadataWriter;
+
+/**
+ *
+ * 페이지 저장 처리량 비교 ( in-memory H2, 페이지마다 meta tag 5 개 )
+ * batchSize 1 : 페이지마다 transaction vs 100 / 1000 : batch MERGE
+ * 결과 ops/s 는 초당 저장한 페이지 수 ( write() 부터 저장 완료까지, 페이지 하나 = crawl_page 1 row + crawl_meta_tag 5 row )
+ * mvn -Pbenchmark test -Dbenchmark.include=MetadataWriterBenchmark
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 3)
+@Measurement(iterations = 5, time = 3)
+@Fork(1)
+public class MetadataWriterBenchmark {
+
+	private static final int PAGES = 10000;
+
+	@Param({ "1", "100", "1000" })
+	public int batchSize;
+
+	private MetadataWriter writer;
+
+	private CrawlPageResult[] pages;
+
+	private int round;
+
+	@Setup(Level.Trial)
+	public void createPages() {
+		pages = new CrawlPageResult[PAGES];
+		for (int i = 0; i < PAGES; i++) {
+			Map<String, String> tags = new LinkedHashMap<>();
+			tags.put("description", "description of page " + i);
+			tags.put("keywords", "crawler, metadata, page" + i);
+			tags.put("og:title", "page " + i);
+			tags.put("og:type", "website");
+			tags.put("viewport", "width=device-width, initial-scale=1");
+			String url = "https://example.com/section/" + (i % 100) + "/page-" + i;
+			pages[i] = new CrawlPageResult("https://example.com/", url, url, 200,
+					new HeadMetadata(tags, "page " + i, url), 42, System.currentTimeMillis());
+		}
+	}
+
+	@Setup(Level.Iteration)
+	public void start() {
+		CrawlerProperties.Persistence persistence = new CrawlerProperties.Persistence();
+		persistence.setBatchSize(batchSize);
+		persistence.setBufferCapacity(10000);
+		persistence.setFlushIntervalMs(200);
+		// 저장 스레드 하나만 쓰므로 connection 하나를 재사용 ( connection pool 과 같은 조건 )
+		writer = new MetadataWriter(new SingleConnectionDataSource(
+				"jdbc:h2:mem:bench-" + System.nanoTime() + ";DB_CLOSE_DELAY=-1", true), url -> url, persistence);
+	}
+
+	@TearDown(Level.Iteration)
+	public void stop() {
+		writer.stop();
+	}
+
+	// 같은 url 을 다시 저장하는 round 는 MERGE 의 update 경로
+	@Benchmark
+	@OperationsPerInvocation(PAGES)
+	public long writePages() throws InterruptedException {
+		for (CrawlPageResult page : pages) {
+			writer.write(page);
+		}
+		if (!writer.flush(5, TimeUnit.MINUTES)) {
+			throw new IllegalStateException("flush timed out");
+		}
+		return round++;
+	}
+}
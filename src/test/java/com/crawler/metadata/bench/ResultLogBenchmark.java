@@ -0,0 +1,107 @@
+package com.crawler.metadata.bench;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.crawler.metadata.config.CrawlerProperties;
+import com.crawler.metadata.crawl.CrawlPageResult;
+import com.crawler.metadata.crawl.extract.HeadMetadata;
+import com.crawler.metadata.crawl.sink.SegmentedResultLog;
+
+/**
+ *
+ * result log 쓰기 처리량 ( extract worker 4 개가 동시에 write(), 페이지마다 meta tag 5 개 )
+ * commitIntervalMs 0 : batch 를 모으지 않고 바로 씀 vs 20 : group commit, fsync 켜고 끈 경우 비교
+ * 결과 ops/s 는 초당 record 를 붙인 페이지 수 ( 마지막에 flush 로 디스크에 쓸 때까지 포함 )
+ * mvn -Pbenchmark test -Dbenchmark.include=ResultLogBenchmark
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+@Fork(1)
+@Threads(4)
+public class ResultLogBenchmark {
+
+	private static final int PAGES = 1000;
+
+	@Param({ "0", "20" })
+	public long commitIntervalMs;
+
+	@Param({ "true", "false" })
+	public boolean fsync;
+
+	private Path directory;
+
+	private SegmentedResultLog resultLog;
+
+	private CrawlPageResult[] pages;
+
+	@Setup(Level.Trial)
+	public void createPages() {
+		pages = new CrawlPageResult[PAGES];
+		for (int i = 0; i < PAGES; i++) {
+			Map<String, String> tags = new LinkedHashMap<>();
+			tags.put("description", "description of page " + i);
+			tags.put("keywords", "crawler, metadata, page" + i);
+			tags.put("og:title", "page " + i);
+			tags.put("og:type", "website");
+			tags.put("viewport", "width=device-width, initial-scale=1");
+			String url = "https://example.com/section/" + (i % 100) + "/page-" + i;
+			pages[i] = new CrawlPageResult("https://example.com/", url, url, 200,
+					new HeadMetadata(tags, "page " + i, url), 42, System.currentTimeMillis());
+		}
+	}
+
+	@Setup(Level.Iteration)
+	public void open() throws IOException {
+		directory = Files.createTempDirectory("result-log-bench");
+		CrawlerProperties.ResultLog settings = new CrawlerProperties.ResultLog();
+		settings.setDirectory(directory.toString());
+		settings.setCommitIntervalMs(commitIntervalMs);
+		settings.setFsync(fsync);
+		settings.setRetainSegments(0);
+		resultLog = new SegmentedResultLog(settings);
+	}
+
+	@TearDown(Level.Iteration)
+	public void close() throws IOException {
+		resultLog.close();
+		try (Stream<Path> files = Files.walk(directory)) {
+			files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(PAGES)
+	public boolean writePages() throws InterruptedException {
+		for (CrawlPageResult page : pages) {
+			resultLog.write(page);
+		}
+		return resultLog.flush(1, TimeUnit.MINUTES);
+	}
+}
@@ -0,0 +1,78 @@
+package com.crawler.metadata.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.crawler.metadata.config.CrawlerProperties;
+import com.crawler.metadata.crawl.robots.RobotsRules;
+import com.crawler.metadata.crawl.robots.RobotsTxtCache;
+import com.crawler.metadata.crawl.robots.RobotsTxtParser;
+
+/**
+ *
+ * link 하나당 robots.txt 검사 비용 ( 규칙 matcher 단독 / origin cache 조회 포함 )
+ * mvn -Pbenchmark test -Dbenchmark.include=RobotsMatchBenchmark
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RobotsMatchBenchmark {
+
+	private static final String[] URLS = {
+			"https://shop.example.com/category/shoes/index.html",
+			"https://shop.example.com/private/account/orders?page=3",
+			"https://shop.example.com/search?q=running+shoes&page=2",
+			"https://shop.example.com/files/catalogue-2023.pdf",
+			"https://shop.example.com/products/12345/reviews#top",
+	};
+
+	private RobotsRules rules;
+
+	private RobotsTxtCache cache;
+
+	private int index;
+
+	@Setup
+	public void setUp() {
+		StringBuilder robotsTxt = new StringBuilder("User-agent: *\n");
+		// 실제 대형 사이트 수준의 규칙 수
+		for (int i = 0; i < 200; i++) {
+			robotsTxt.append("Disallow: /section-").append(i).append("/private/\n");
+			robotsTxt.append("Allow: /section-").append(i).append("/private/public\n");
+		}
+		robotsTxt.append("Disallow: /private/\nDisallow: /*.pdf$\nDisallow: /search?\nAllow: /search?page=*\n")
+				.append("Disallow: /*/reviews\nDisallow: /*?sessionid=*\n");
+		rules = RobotsTxtParser.parse(robotsTxt.toString(), "metadata-crawler");
+		cache = new RobotsTxtCache(new CrawlerProperties(), null, null);
+		cache.put(URLS[0], rules);
+	}
+
+	@Benchmark
+	public boolean compiledRules() {
+		return rules.isAllowed(nextUrl());
+	}
+
+	@Benchmark
+	public boolean cachedLookup() {
+		return cache.isAllowed(nextUrl());
+	}
+
+	private String nextUrl() {
+		index = (index + 1) % URLS.length;
+		return URLS[index];
+	}
+}
@@ -0,0 +1,126 @@
+package com.crawler.metadata.bench;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.crawler.metadata.crawl.extract.LinkScanner;
+import com.crawler.metadata.util.UrlCanonicalizer;
+
+/**
+ *
+ * url canonicalize 비용 비교 ( url 1 개 기준 )
+ * corpus 페이지의 link 에 대소문자 / fragment / 추적용 parameter / dot segment / percent-encoding 변형을 섞어 만든 url 목록을 사용한다.
+ * mvn -Pbenchmark test -Dbenchmark.include="UrlCanonicalizerBenchmark -prof gc"
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UrlCanonicalizerBenchmark {
+
+	private static final String[] FILES = { "blog-post.html", "category-listing.html", "spa-shell.html" };
+
+	private static final String[] PAGE_URLS = { "https://blog.example.com/2023/05/post.html",
+			"https://shop.example.com/category/shoes/index.html", "https://app.example.com/" };
+
+	private String[] urls;
+
+	private int index;
+
+	@Setup
+	public void load() throws IOException {
+		List<String> links = new ArrayList<>();
+		LinkScanner scanner = new LinkScanner();
+		for (int i = 0; i < FILES.length; i++) {
+			try (InputStream in = getClass().getResourceAsStream("/corpus/" + FILES[i])) {
+				scanner.scan(new String(in.readAllBytes(), StandardCharsets.UTF_8), PAGE_URLS[i], links::add);
+			}
+		}
+		List<String> variants = new ArrayList<>();
+		for (int n = 0; variants.size() < 20_000; n++) {
+			for (String link : links) {
+				variants.add(variant(link, n));
+			}
+		}
+		urls = variants.toArray(new String[0]);
+	}
+
+	private static String variant(String link, int n) {
+		switch (n % 5) {
+		case 1:
+			return link.replace("https://", "HTTPS://WWW.") + "#section-" + n;
+		case 2:
+			return link + (link.indexOf('?') < 0 ? "?" : "&") + "utm_source=newsletter&utm_medium=email&page=" + n;
+		case 3:
+			return link.replaceFirst("(https://[^/]+)/", "$1/./a/../") + "/";
+		case 4:
+			return link.replace("-", "%2d") + "?b=" + n + "&a=%7e";
+		default:
+			return link;
+		}
+	}
+
+	// 새 canonicalizer
+	@Benchmark
+	public void canonicalizer(Blackhole blackhole) {
+		blackhole.consume(UrlCanonicalizer.DEFAULT.canonicalize(next()));
+	}
+
+	// 기존 normalizeUrl : URI 파싱 + dot segment 정리만
+	@Benchmark
+	public void uriNormalize(Blackhole blackhole) {
+		String url = next();
+		try {
+			blackhole.consume(new URI(url).normalize().toString());
+		} catch (URISyntaxException e) {
+			blackhole.consume(url);
+		}
+	}
+
+	// URI 로 scheme / host 소문자 + fragment 제거까지 하는 경우
+	@Benchmark
+	public void uriLowercaseWithoutFragment(Blackhole blackhole) {
+		String url = next();
+		try {
+			URI uri = new URI(url).normalize();
+			String host = uri.getHost() == null ? null : uri.getHost().toLowerCase(Locale.ROOT);
+			blackhole.consume(new URI(uri.getScheme().toLowerCase(Locale.ROOT), uri.getUserInfo(), host,
+					uri.getPort(), uri.getPath(), uri.getQuery(), null).toString());
+		} catch (URISyntaxException e) {
+			blackhole.consume(url);
+		}
+	}
+
+	// 기존 getCanonicalUrl : 정규식 replaceAll 두 번
+	@Benchmark
+	public void regexReplace(Blackhole blackhole) {
+		blackhole.consume(next().toLowerCase().replaceAll("www.", "").replaceAll("#.*", ""));
+	}
+
+	private String next() {
+		index = index + 1 == urls.length ? 0 : index + 1;
+		return urls[index];
+	}
+}
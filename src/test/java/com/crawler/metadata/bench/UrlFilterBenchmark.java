@@ -0,0 +1,118 @@
+package com.crawler.metadata.bench;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.crawler.metadata.config.CrawlerProperties;
+import com.crawler.metadata.crawl.extract.LinkScanner;
+import com.crawler.metadata.crawl.filter.UrlFilterChain;
+
+/**
+ *
+ * url filter 비용 비교 ( url 1 개 기준 )
+ * 기존 private filter ( new URL, stream anyMatch, split ) 를 차례로 호출 vs UrlFilterChain 한 번 훑기
+ * mvn -Pbenchmark test -Dbenchmark.include="UrlFilterBenchmark -prof gc"
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UrlFilterBenchmark {
+
+	private static final String[] FILES = { "blog-post.html", "category-listing.html", "spa-shell.html" };
+
+	private static final String[] PAGE_URLS = { "https://blog.example.com/2023/05/post.html",
+			"https://shop.example.com/category/shoes/index.html", "https://app.example.com/" };
+
+	private static final String[] EXTRA = { "https://example.com/images/photo.jpg", "https://facebook.com/sharer?u=x",
+			"https://example.com/account/login?next=/", "mailto:someone@example.com", "ftp://example.com/file.zip",
+			"https://example.com/a/b/c/d/e/f/g/h/i/j/k/l" };
+
+	private final List<String> blockedPatterns = Arrays.asList("facebook.com", "twitter.com", "/ads/", "login",
+			"subscribe");
+
+	private final List<String> blockedExtensions = Arrays.asList(".jpg", ".png", ".gif", ".pdf", ".zip", ".mp4");
+
+	private final UrlFilterChain chain = new UrlFilterChain(new CrawlerProperties().getFilter());
+
+	private String[] urls;
+
+	private int index;
+
+	@Setup
+	public void load() throws IOException {
+		List<String> links = new ArrayList<>();
+		LinkScanner scanner = new LinkScanner();
+		for (int i = 0; i < FILES.length; i++) {
+			try (InputStream in = getClass().getResourceAsStream("/corpus/" + FILES[i])) {
+				scanner.scan(new String(in.readAllBytes(), StandardCharsets.UTF_8), PAGE_URLS[i], links::add);
+			}
+		}
+		links.addAll(Arrays.asList(EXTRA));
+		urls = links.toArray(new String[0]);
+	}
+
+	// 기존 방식 : 규칙마다 url 을 따로 훑음
+	@Benchmark
+	public boolean separateFilters() {
+		String url = next();
+		return isValidUrlFormat(url) && isValidProtocol(url) && !containsSpamPatterns(url) && !isMediaFile(url)
+				&& isDepthValid(url, 12);
+	}
+
+	@Benchmark
+	public boolean filterChain() {
+		return chain.accept(next(), null);
+	}
+
+	private boolean isValidUrlFormat(String url) {
+		try {
+			new URL(url);
+			return true;
+		} catch (MalformedURLException e) {
+			return false;
+		}
+	}
+
+	private boolean containsSpamPatterns(String url) {
+		return blockedPatterns.stream().anyMatch(url::contains);
+	}
+
+	private boolean isMediaFile(String url) {
+		return blockedExtensions.stream().anyMatch(url::endsWith);
+	}
+
+	private boolean isDepthValid(String url, int maxDepth) {
+		return url.split("/").length <= maxDepth;
+	}
+
+	private boolean isValidProtocol(String url) {
+		return url.startsWith("http://") || url.startsWith("https://");
+	}
+
+	private String next() {
+		index = index + 1 == urls.length ? 0 : index + 1;
+		return urls[index];
+	}
+}
@@ -0,0 +1,125 @@
+package com.crawler.metadata.bench;
+
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.crawler.metadata.crawl.visited.BloomFilteredVisitedUrlStore;
+import com.crawler.metadata.crawl.visited.FingerprintVisitedUrlStore;
+import com.crawler.metadata.crawl.visited.HashSetVisitedUrlStore;
+import com.crawler.metadata.crawl.visited.ScalableBloomFilter;
+import com.crawler.metadata.crawl.visited.VisitedUrlStore;
+
+/**
+ *
+ * 방문 url 보관소 비교 ( 4 스레드 동시 add / contains 처리량 )
+ * setup 에서 url 100 만 개를 넣은 뒤 늘어난 heap / direct memory 를 url 당 byte 로 출력한다.
+ * 실제 crawl 처럼 link 마다 새로 만든 문자열로 조회한다. ( 같은 String 객체를 재사용하면 hashCode cache, 참조 비교 덕분에 hash set 이 유리해짐 )
+ * mvn -Pbenchmark test -Dbenchmark.include=VisitedUrlStoreBenchmark
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = { "-Xmx4g" })
+@Threads(4)
+public class VisitedUrlStoreBenchmark {
+
+	private static final int PRELOADED = 1_000_000;
+
+	private static final String PREFIX = "https://shop.example.com/category/shoes/product-detail?id=";
+
+	@Param({ "hash-set", "fingerprint-64", "fingerprint-128", "fingerprint-64-off-heap", "bloom-hash-set",
+			"bloom-fingerprint-64" })
+	private String store;
+
+	private VisitedUrlStore visited;
+
+	private int total;
+
+	@State(Scope.Thread)
+	public static class Cursor {
+
+		private int index;
+	}
+
+	@Setup(Level.Trial)
+	public void fill() {
+		total = PRELOADED * 2;
+		long heapBefore = usedHeap();
+		long directBefore = usedDirect();
+		visited = create(store);
+		for (int i = 0; i < PRELOADED; i++) {
+			visited.add(PREFIX + i);
+		}
+		long heap = usedHeap() - heapBefore;
+		long direct = usedDirect() - directBefore;
+		System.out.printf("%n[%s] heap %.1f B/url, direct %.1f B/url, reported %.1f B/url%n", store,
+				(double) heap / PRELOADED, (double) direct / PRELOADED, (double) visited.memoryBytes() / PRELOADED);
+	}
+
+	// 절반은 이미 있는 url, 절반은 새 url
+	@Benchmark
+	public boolean add(Cursor cursor) {
+		cursor.index = (cursor.index + 7919) % total;
+		return visited.add(PREFIX + cursor.index);
+	}
+
+	@Benchmark
+	public boolean contains(Cursor cursor) {
+		cursor.index = (cursor.index + 7919) % total;
+		return visited.contains(PREFIX + cursor.index);
+	}
+
+	private static VisitedUrlStore create(String store) {
+		switch (store) {
+		case "hash-set":
+			return new HashSetVisitedUrlStore();
+		case "fingerprint-128":
+			return new FingerprintVisitedUrlStore(64, 16 * 1024, 128, false);
+		case "fingerprint-64-off-heap":
+			return new FingerprintVisitedUrlStore(64, 16 * 1024, 64, true);
+		case "bloom-hash-set":
+			return new BloomFilteredVisitedUrlStore(new HashSetVisitedUrlStore(), new ScalableBloomFilter(64 * 1024, 0.001),
+					false);
+		case "bloom-fingerprint-64":
+			return new BloomFilteredVisitedUrlStore(new FingerprintVisitedUrlStore(64, 16 * 1024, 64, false),
+					new ScalableBloomFilter(64 * 1024, 0.001), false);
+		default:
+			return new FingerprintVisitedUrlStore(64, 16 * 1024, 64, false);
+		}
+	}
+
+	private static long usedHeap() {
+		for (int i = 0; i < 3; i++) {
+			System.gc();
+		}
+		Runtime runtime = Runtime.getRuntime();
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+
+	private static long usedDirect() {
+		for (BufferPoolMXBean pool : ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class)) {
+			if ("direct".equals(pool.getName())) {
+				return pool.getMemoryUsed();
+			}
+		}
+		return 0;
+	}
+}
@@ -0,0 +1,565 @@
+package com.crawler.metadata.crawl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import com.crawler.metadata.config.CrawlerProperties;
+import com.crawler.metadata.config.CrawlerProperties.FrontierStore;
+import com.crawler.metadata.crawl.executor.CrawlExecutor;
+import com.crawler.metadata.crawl.extract.HeadMetadataExtractor;
+import com.crawler.metadata.crawl.extract.LinkScanner;
+import com.crawler.metadata.crawl.fetch.PageFetcher;
+import com.crawler.metadata.crawl.filter.UrlFilterRegistry;
+import com.crawler.metadata.crawl.persist.MetadataWriter;
+import com.crawler.metadata.crawl.pipeline.CrawlPipeline;
+import com.crawler.metadata.crawl.pipeline.StageMetrics;
+import com.crawler.metadata.crawl.politeness.HostPolitenessScheduler;
+import com.crawler.metadata.crawl.render.BrowserPool;
+import com.crawler.metadata.crawl.render.DynamicPageClassifier;
+import com.crawler.metadata.crawl.revisit.CachedPage;
+import com.crawler.metadata.crawl.revisit.RecrawlScheduler;
+import com.crawler.metadata.crawl.revisit.ScheduledUrl;
+import com.crawler.metadata.crawl.revisit.ValidatorCache;
+import com.crawler.metadata.crawl.robots.RobotsTxtCache;
+import com.crawler.metadata.crawl.visited.VisitedUrlStoreFactory;
+import com.sun.net.httpserver.HttpServer;
+
+class CrawlerServiceTests {
+
+	// /p 에서 시작해서 path 길이가 5 가 될 때까지 자식 3 개씩 ( 깊이 3 까지 ) ( 부모, 자기 자신 link 포함 )
+	private static final int MAX_PATH_LENGTH = 5;
+
+	private HttpServer server;
+
+	private ExecutorService serverExecutor;
+
+	private CrawlExecutor crawlerExecutor;
+
+	private ThreadPoolTaskExecutor parseExecutor;
+
+	private HostPolitenessScheduler scheduler;
+
+	private CrawlPipeline pipeline;
+
+	private URLQueueService urlQueueService;
+
+	private DriverManagerDataSource dataSource;
+
+	private MetadataWriter metadataWriter;
+
+	private final List<CrawlPageResult> sinkResults = new CopyOnWriteArrayList<>();
+
+	// false 면 ETag 없이 응답 ( body hash 로만 비교 )
+	private volatile boolean sendEtags = true;
+
+	// null 이면 robots.txt 없음 ( 404 )
+	private volatile String robotsTxt;
+
+	private PageFetcher pageFetcher;
+
+	private ValidatorCache validatorCache;
+
+	private RecrawlScheduler recrawlScheduler;
+
+	private UrlFilterRegistry urlFilterRegistry;
+
+	// 이전 크롤링 결과를 조회한 스레드
+	private final Set<Thread> lookupThreads = ConcurrentHashMap.newKeySet();
+
+	private final AtomicInteger inFlight = new AtomicInteger();
+
+	private final AtomicInteger maxInFlight = new AtomicInteger();
+
+	private final AtomicInteger pageRequests = new AtomicInteger();
+
+	private final Map<String, AtomicInteger> requestedPaths = new ConcurrentHashMap<>();
+
+	@BeforeEach
+	void startServer() throws IOException {
+		server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		serverExecutor = Executors.newFixedThreadPool(8);
+		server.setExecutor(serverExecutor);
+		server.createContext("/", exchange -> {
+			String path = exchange.getRequestURI().getPath();
+			if (path.equals("/robots.txt")) {
+				String robots = robotsTxt;
+				if (robots == null) {
+					exchange.sendResponseHeaders(404, -1);
+					exchange.close();
+					return;
+				}
+				byte[] body = robots.getBytes(StandardCharsets.UTF_8);
+				exchange.getResponseHeaders().add("Content-Type", "text/plain");
+				exchange.sendResponseHeaders(200, body.length);
+				try (OutputStream out = exchange.getResponseBody()) {
+					out.write(body);
+				}
+				return;
+			}
+			pageRequests.incrementAndGet();
+			requestedPaths.computeIfAbsent(path, key -> new AtomicInteger()).incrementAndGet();
+			maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+			try {
+				Thread.sleep(30);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			inFlight.decrementAndGet();
+			StringBuilder html = new StringBuilder("<html><head><title>page</title></head><body>");
+			for (String link : links(path)) {
+				html.append("<a href=\"").append(link).append("\">link</a>");
+			}
+			byte[] body = html.append("</body></html>").toString().getBytes(StandardCharsets.UTF_8);
+			exchange.getResponseHeaders().add("Content-Type", "text/html; charset=UTF-8");
+			if (sendEtags) {
+				String etag = "\"" + Integer.toHexString(Arrays.hashCode(body)) + "\"";
+				exchange.getResponseHeaders().add("ETag", etag);
+				if (etag.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+					exchange.sendResponseHeaders(304, -1);
+					exchange.close();
+					return;
+				}
+			}
+			exchange.sendResponseHeaders(200, body.length);
+			try (OutputStream out = exchange.getResponseBody()) {
+				out.write(body);
+			}
+		});
+		server.start();
+	}
+
+	@AfterEach
+	void stopServer() {
+		server.stop(0);
+		serverExecutor.shutdownNow();
+		if (crawlerExecutor != null) {
+			crawlerExecutor.shutdown();
+			parseExecutor.shutdown();
+		}
+		if (scheduler != null) {
+			scheduler.stop();
+			pipeline.shutdown();
+		}
+		if (metadataWriter != null) {
+			metadataWriter.stop();
+			validatorCache.stop();
+			recrawlScheduler.stop();
+		}
+	}
+
+	@Test
+	void fetchesPagesOfSameDepthConcurrentlyInBfsOrder() {
+		CrawlerService service = newService(0);
+		String seedUrl = baseUrl() + "/p";
+
+		List<String> collected = service.makeQueueListToBfs(seedUrl);
+
+		assertEquals(sequentialBfs(seedUrl, Integer.MAX_VALUE), collected);
+		assertEquals(1 + 3 + 9 + 27, pageRequests.get());
+		// 페이지 내 link ( 중복 제외 ) 를 seed 기준으로 한 번씩만 검사 ( seed 4 개, 가운데 페이지 5 개, 마지막 깊이 2 개 )
+		assertEquals(4 + 5 * (3 + 9) + 2 * 27, urlFilterRegistry.getCheckedCount());
+		assertTrue(maxInFlight.get() > 1, "max in flight ===> " + maxInFlight.get());
+		assertTrue(maxInFlight.get() <= 4, "max in flight ===> " + maxInFlight.get());
+	}
+
+	@Test
+	void stopsAtMaxDepth() {
+		CrawlerService service = newService(2);
+		String seedUrl = baseUrl() + "/p";
+
+		List<String> collected = service.makeQueueListToBfs(seedUrl);
+
+		// 깊이 0, 1 페이지만 내려받고 깊이 2 link 까지 수집
+		assertEquals(sequentialBfs(seedUrl, 2), collected);
+		assertEquals(3 + 9, collected.size());
+		assertEquals(1 + 3, pageRequests.get());
+	}
+
+	@Test
+	void crawlRunsEveryPageThroughEachStageOnce() {
+		CrawlerService service = newService(0);
+
+		service.crawl(baseUrl() + "/p");
+
+		assertEquals(1 + 3 + 9 + 27, pageRequests.get());
+		// 마지막 parse, extract 작업은 frontier.done() 뒤에 통계를 기록하므로 잠깐 기다림
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while ((pipeline.getParseStage().getMetrics().getInFlight() > 0
+				|| pipeline.getExtractStage().getMetrics().getInFlight() > 0) && System.nanoTime() < deadline) {
+			Thread.onSpinWait();
+		}
+		for (StageMetrics stage : pipeline.getMetrics()) {
+			assertEquals(1 + 3 + 9 + 27, stage.getProcessed(), stage.toString());
+			assertEquals(0, stage.getFailed(), stage.toString());
+			assertEquals(0, stage.getQueued(), stage.toString());
+			assertEquals(0, stage.getInFlight(), stage.toString());
+		}
+		assertEquals(2, pipeline.getFetchStage().getAvailablePermits());
+	}
+
+	@Test
+	void robotsTxtIsCheckedBeforeFetchingNewOrigins() {
+		robotsTxt = "User-agent: *\nDisallow: /p1\n";
+		CrawlerService service = newService(0);
+
+		service.crawl(baseUrl() + "/p");
+		List<String> collected = service.makeQueueListToBfs(baseUrl() + "/p");
+
+		// parse 단계는 robots.txt 를 기다리지 않지만 금지한 url 은 요청하지 않음
+		assertTrue(requestedPaths.keySet().stream().noneMatch(path -> path.startsWith("/p1")), requestedPaths.toString());
+		assertEquals(2 * (1 + 2 + 6 + 18), pageRequests.get());
+		assertEquals(1 + 2 + 6 + 18, sinkResults.size());
+		assertTrue(collected.stream().noneMatch(url -> url.startsWith(baseUrl() + "/p1")), collected.toString());
+		assertEquals(2 + 6 + 18, collected.size());
+	}
+
+	@Test
+	void crawlSendsEveryPageToEachSink() {
+		CrawlerService service = newService(0);
+
+		service.crawl(baseUrl() + "/p");
+
+		assertEquals(1 + 3 + 9 + 27, sinkResults.size());
+		assertEquals(1 + 3 + 9 + 27, sinkResults.stream().map(CrawlPageResult::getUrl).distinct().count());
+	}
+
+	@Test
+	void crawlWritesEachPageOnceKeyedOnCanonicalUrl() throws Exception {
+		CrawlerService service = newService(0);
+
+		service.crawl(baseUrl() + "/p");
+		// 같은 seed 를 다시 수집해도 row 는 늘지 않음
+		service.crawl(baseUrl() + "/p");
+
+		assertTrue(metadataWriter.flush(10, TimeUnit.SECONDS));
+		assertEquals(2 * (1 + 3 + 9 + 27), metadataWriter.getMetrics().getWritten());
+		assertEquals(0, metadataWriter.getMetrics().getFailed());
+		assertEquals(1 + 3 + 9 + 27, count("SELECT COUNT(*) FROM crawl_page"));
+		assertEquals(1 + 3 + 9 + 27, count("SELECT COUNT(*) FROM crawl_page WHERE title = 'page' AND status_code = 200"));
+	}
+
+	@Test
+	void recrawlReusesNotModifiedPagesWithoutDownloadingBodies() {
+		CrawlerService service = newService(0);
+		service.crawl(baseUrl() + "/p");
+		long firstBytes = pageFetcher.getReceivedBytes();
+		List<CrawlPageResult> first = new ArrayList<>(sinkResults);
+		sinkResults.clear();
+
+		service.crawl(baseUrl() + "/p");
+
+		// 두 번째는 모두 304 ( body 없음 ) 이지만 이전과 같은 결과를 sink 로 전달
+		assertEquals(2 * (1 + 3 + 9 + 27), pageRequests.get());
+		assertTrue(pageFetcher.getReceivedBytes() - firstBytes < firstBytes / 10,
+				"received bytes ===> " + firstBytes + " / " + pageFetcher.getReceivedBytes());
+		assertEquals(1 + 3 + 9 + 27, validatorCache.getMetrics().getNotModified());
+		assertEquals(summary(first), summary(sinkResults));
+		// frontier 를 도는 스레드 ( crawl 을 호출한 스레드 ) 에서는 DB 조회를 하지 않음
+		assertFalse(lookupThreads.isEmpty());
+		assertFalse(lookupThreads.contains(Thread.currentThread()));
+	}
+
+	@Test
+	void recrawlReusesPagesWithSameBodyWithoutValidators() throws Exception {
+		sendEtags = false;
+		CrawlerService service = newService(0);
+		service.crawl(baseUrl() + "/p");
+		List<CrawlPageResult> first = new ArrayList<>(sinkResults);
+		sinkResults.clear();
+		validatorCache.flush();
+
+		service.crawl(baseUrl() + "/p");
+
+		assertEquals(1 + 3 + 9 + 27, count("SELECT COUNT(*) FROM crawl_validator WHERE etag IS NULL"));
+		assertEquals(1 + 3 + 9 + 27, validatorCache.getMetrics().getUnchanged());
+		assertEquals(1 + 3 + 9 + 27, validatorCache.getMetrics().getChanged());
+		assertEquals(summary(first), summary(sinkResults));
+	}
+
+	@Test
+	void revisitFetchesOnlyDuePagesAndTracksNewLinks() throws Exception {
+		CrawlerService service = newService(0, properties -> {
+			properties.getRecrawl().setInitialIntervalMs(300);
+			properties.getRecrawl().setMinIntervalMs(300);
+		});
+		service.crawl(baseUrl() + "/p");
+		recrawlScheduler.flush();
+		Thread.sleep(350);
+		List<ScheduledUrl> due = recrawlScheduler.pollDue(1000);
+		assertEquals(1 + 3 + 9 + 27, due.size());
+		// 꺼낸 url 은 방문 결과가 저장될 때까지 다시 꺼내지 않음
+		assertTrue(recrawlScheduler.pollDue(1000).isEmpty());
+		pageRequests.set(0);
+		requestedPaths.clear();
+
+		List<String> urls = due.stream().map(ScheduledUrl::getUrl).filter(url -> url.endsWith("/p0"))
+				.collect(Collectors.toList());
+		service.revisit(baseUrl() + "/p", urls, CrawlListener.NONE, CrawlScope.unbounded());
+		recrawlScheduler.flush();
+
+		// link 는 따라가지 않음 ( 모두 이미 추적 중인 url )
+		assertEquals(1, pageRequests.get());
+		assertEquals(0, recrawlScheduler.getMetrics().getDiscovered());
+		assertEquals(1 + 3 + 9 + 27 + 1, recrawlScheduler.getMetrics().getObserved());
+		assertEquals(0, recrawlScheduler.getMetrics().getChanged());
+		assertEquals(1 + 3 + 9 + 27, count("SELECT COUNT(*) FROM crawl_schedule"));
+	}
+
+	@Test
+	void crawlKeepsPagesInFlightWithinFetchStageLimit() {
+		CrawlerService service = newService(0);
+
+		service.crawl(baseUrl() + "/p");
+
+		assertEquals(1 + 3 + 9 + 27, pageRequests.get());
+		assertTrue(maxInFlight.get() <= 2, "max in flight ===> " + maxInFlight.get());
+		// permit 을 기다린 적이 있어야 함 ( 한 페이지에서 link 3 개 이상 )
+		assertTrue(pipeline.getFetchStage().getMetrics().getBlockedSubmits() > 0);
+	}
+
+	@Test
+	void crawlsBackToBackAndConcurrentlyOnSharedExecutors() throws Exception {
+		CrawlerService service = newService(0);
+		String seedUrl = baseUrl() + "/p";
+
+		service.crawl(seedUrl);
+		service.crawl(seedUrl);
+		CompletableFuture<Void> first = CompletableFuture.runAsync(() -> service.crawl(seedUrl));
+		CompletableFuture<Void> second = CompletableFuture.runAsync(() -> service.crawl(seedUrl));
+		CompletableFuture.allOf(first, second).get(30, TimeUnit.SECONDS);
+		// crawl 마다 방문 기록이 따로이므로 매번 전체 페이지
+		assertEquals(4 * (1 + 3 + 9 + 27), pageRequests.get());
+		assertEquals(0, urlQueueService.getActiveSessionCount());
+		assertEquals(4, urlQueueService.getClosedSessionCount());
+
+		// seed 별 BFS 도 executor 를 종료하지 않으므로 다시 호출 가능 ( 같은 seed 라도 방문 기록은 호출마다 새로 )
+		List<String> expected = sequentialBfs(seedUrl, Integer.MAX_VALUE);
+		assertEquals(expected, service.processParallelAllSeedUrls(Collections.singletonList(seedUrl)).get(seedUrl));
+		assertEquals(expected, service.processParallelAllSeedUrls(Collections.singletonList(seedUrl)).get(seedUrl));
+	}
+
+	@Test
+	void concurrentBfsOfSameSeedKeepSeparateSessions() throws Exception {
+		CrawlerService service = newService(0);
+		String seedUrl = baseUrl() + "/p";
+
+		CompletableFuture<List<String>> first = service.makeQueueListToBfsAsync(seedUrl);
+		CompletableFuture<List<String>> second = service.makeQueueListToBfsAsync(seedUrl);
+
+		List<String> expected = sequentialBfs(seedUrl, Integer.MAX_VALUE);
+		assertEquals(expected, first.get(30, TimeUnit.SECONDS));
+		assertEquals(expected, second.get(30, TimeUnit.SECONDS));
+		// 끝난 session 은 목록에서 빠짐
+		assertEquals(0, urlQueueService.getActiveSessionCount());
+		assertEquals(2, urlQueueService.getClosedSessionCount());
+	}
+
+	@Test
+	void crawlKeepsPagesInFlightWithinScopeQuota() {
+		CrawlerService service = newService(0);
+		CrawlScope scope = new CrawlScope("job", 1);
+
+		service.crawl(baseUrl() + "/p", CrawlListener.NONE, scope);
+
+		assertEquals(1 + 3 + 9 + 27, pageRequests.get());
+		assertEquals(1, maxInFlight.get());
+		assertEquals(0, scope.getPagesInFlight());
+	}
+
+	@Test
+	void cancelledScopeStopsCrawlAfterPagesInFlight() {
+		CrawlerService service = newService(0);
+		CrawlScope scope = new CrawlScope("job", 2);
+		List<String> pages = new CopyOnWriteArrayList<>();
+
+		service.crawl(baseUrl() + "/p", new CrawlListener() {
+			@Override
+			public void onPage(CrawlPageResult result) {
+				pages.add(result.getUrl());
+				scope.cancel();
+			}
+		}, scope);
+
+		assertEquals(1, pages.size());
+		assertTrue(pageRequests.get() < 1 + 3 + 9 + 27, "page requests ===> " + pageRequests.get());
+		assertEquals(0, scope.getPagesInFlight());
+		// 취소된 scope 로는 시작하지 않음
+		int requests = pageRequests.get();
+		service.crawl(baseUrl() + "/p", CrawlListener.NONE, scope);
+		assertEquals(requests, pageRequests.get());
+	}
+
+	@Test
+	void mappedFrontierResumesCancelledCrawlWithoutRefetching(@TempDir Path directory) {
+		CrawlerService service = newService(0, properties -> {
+			properties.getSession().setFrontierStore(FrontierStore.MAPPED);
+			properties.getSession().setFrontierDirectory(directory.toString());
+			properties.getSession().setFrontierSegmentBytes(4096);
+		});
+		String seedUrl = baseUrl() + "/p";
+		CrawlScope scope = new CrawlScope("job", 2);
+		AtomicInteger pages = new AtomicInteger();
+
+		service.crawl(seedUrl, new CrawlListener() {
+			@Override
+			public void onPage(CrawlPageResult result) {
+				if (pages.incrementAndGet() == 5) {
+					scope.cancel();
+				}
+			}
+		}, scope);
+		int firstRun = pageRequests.get();
+		assertTrue(firstRun < 1 + 3 + 9 + 27, "page requests ===> " + firstRun);
+
+		// 다시 요청하면 남은 대기열부터 ( 처리를 마친 페이지는 다시 내려받지 않음 )
+		service.crawl(seedUrl);
+
+		assertEquals(1 + 3 + 9 + 27, requestedPaths.size());
+		assertTrue(pageRequests.get() - firstRun < 1 + 3 + 9 + 27, "page requests ===> " + pageRequests.get());
+		// checkpoint 이전 ( 처리를 마친 ) 페이지는 한 번만 ( 처리 중이던 페이지는 다시 내려받을 수 있음 )
+		assertEquals(1, requestedPaths.get("/p").get());
+		// 끝까지 마친 대기열은 삭제
+		assertEquals(0, directory.toFile().list().length);
+	}
+
+	private CrawlerService newService(int maxDepth) {
+		return newService(maxDepth, properties -> {
+		});
+	}
+
+	private CrawlerService newService(int maxDepth, Consumer<CrawlerProperties> customizer) {
+		CrawlerProperties properties = new CrawlerProperties();
+		properties.getPoliteness().setRequestsPerSecond(1000);
+		properties.getPoliteness().setBurst(100);
+		properties.getPoliteness().setMaxConcurrencyPerHost(4);
+		properties.getBfs().setMaxDepth(maxDepth);
+		properties.getPipeline().setFetchMaxInFlight(2);
+		properties.getPipeline().setParseThreads(1);
+		properties.getPipeline().setParseQueueCapacity(1);
+		properties.getPipeline().setExtractQueueCapacity(1);
+		customizer.accept(properties);
+		pipeline = new CrawlPipeline(properties);
+		ThreadPoolTaskExecutor pool = new ThreadPoolTaskExecutor();
+		pool.setCorePoolSize(8);
+		pool.initialize();
+		crawlerExecutor = new CrawlExecutor(properties.getExecutor(), pool);
+		parseExecutor = new ThreadPoolTaskExecutor();
+		parseExecutor.setCorePoolSize(2);
+		parseExecutor.initialize();
+		pageFetcher = new PageFetcher(properties);
+		scheduler = new HostPolitenessScheduler(properties, pageFetcher);
+		VisitedUrlStoreFactory visitedUrlStoreFactory = new VisitedUrlStoreFactory(properties);
+		urlFilterRegistry = new UrlFilterRegistry(properties);
+		MetadataExtractorService metadataExtractorService = new MetadataExtractorService(pageFetcher,
+				new BrowserPool(properties), new DynamicPageClassifier(properties),
+				new HeadMetadataExtractor(), new LinkScanner(),
+				new RobotsTxtCache(properties, pageFetcher, scheduler), urlFilterRegistry);
+		urlQueueService = new URLQueueService(visitedUrlStoreFactory, properties);
+		dataSource = new DriverManagerDataSource("jdbc:h2:mem:crawler-" + System.nanoTime() + ";DB_CLOSE_DELAY=-1");
+		metadataWriter = new MetadataWriter(dataSource, urlQueueService, properties);
+		validatorCache = new ValidatorCache(dataSource, urlQueueService, properties) {
+			@Override
+			public CachedPage lookup(String url) {
+				lookupThreads.add(Thread.currentThread());
+				return super.lookup(url);
+			}
+		};
+		recrawlScheduler = new RecrawlScheduler(dataSource, urlQueueService, properties);
+		return new CrawlerService(urlQueueService, metadataExtractorService, crawlerExecutor, parseExecutor, scheduler,
+				pipeline, List.of(metadataWriter, sinkResults::add), validatorCache, recrawlScheduler, properties);
+	}
+
+	private long count(String sql) throws SQLException {
+		try (Connection connection = dataSource.getConnection();
+				Statement statement = connection.createStatement();
+				ResultSet rs = statement.executeQuery(sql)) {
+			rs.next();
+			return rs.getLong(1);
+		}
+	}
+
+	// url 순서로 정렬한 url, title, link 수
+	private static List<String> summary(List<CrawlPageResult> results) {
+		return results.stream().map(result -> result.getUrl() + " " + result.getTitle() + " " + result.getLinkCount()
+				+ " " + result.getStatusCode()).sorted().collect(Collectors.toList());
+	}
+
+	private String baseUrl() {
+		return "http://127.0.0.1:" + server.getAddress().getPort();
+	}
+
+	private static List<String> links(String path) {
+		List<String> links = new ArrayList<>();
+		if (path.length() < MAX_PATH_LENGTH) {
+			for (int i = 0; i < 3; i++) {
+				links.add(path + i);
+			}
+		}
+		links.add(path.length() > 2 ? path.substring(0, path.length() - 1) : path);
+		links.add(path);
+		return links;
+	}
+
+	// 한 페이지씩 내려받는 BFS 의 수집 순서
+	private List<String> sequentialBfs(String seedUrl, int maxDepth) {
+		List<String> collected = new ArrayList<>();
+		Set<String> visited = new HashSet<>();
+		Queue<String> queue = new ArrayDeque<>();
+		Queue<Integer> depths = new ArrayDeque<>();
+		visited.add(seedUrl);
+		queue.add(seedUrl);
+		depths.add(0);
+		while (!queue.isEmpty()) {
+			String url = queue.poll();
+			int depth = depths.poll();
+			if (depth >= maxDepth) {
+				continue;
+			}
+			for (String link : links(url.substring(baseUrl().length()))) {
+				String absolute = baseUrl() + link;
+				if (visited.add(absolute)) {
+					collected.add(absolute);
+					queue.add(absolute);
+					depths.add(depth + 1);
+				}
+			}
+		}
+		return collected;
+	}
+}
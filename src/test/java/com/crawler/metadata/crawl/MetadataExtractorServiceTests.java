@@ -0,0 +1,145 @@
+package com.crawler.metadata.crawl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.jsoup.nodes.Document;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.crawler.metadata.config.CrawlerProperties;
+import com.crawler.metadata.crawl.extract.HeadMetadata;
+import com.crawler.metadata.crawl.extract.HeadMetadataExtractor;
+import com.crawler.metadata.crawl.extract.LinkScanner;
+import com.crawler.metadata.crawl.fetch.FetchResult;
+import com.crawler.metadata.crawl.fetch.PageFetcher;
+import com.crawler.metadata.crawl.filter.UrlFilterRegistry;
+import com.crawler.metadata.crawl.politeness.HostPolitenessScheduler;
+import com.crawler.metadata.crawl.render.BrowserPool;
+import com.crawler.metadata.crawl.render.DynamicPageClassifier;
+import com.crawler.metadata.crawl.robots.RobotsTxtCache;
+import com.sun.net.httpserver.HttpServer;
+
+class MetadataExtractorServiceTests {
+
+	private static final String STATIC_PAGE = "<html><head><title>static</title>"
+			+ "<meta name=\"description\" content=\"static page\"></head>"
+			+ "<body><a href=\"/next\">next</a></body></html>";
+
+	private static final String SPA_SHELL = "<html><head><title>app</title></head><body>"
+			+ "<div id=\"root\"></div><script src=\"/bundle.js\"></script></body></html>";
+
+	private HttpServer server;
+
+	private final AtomicInteger hits = new AtomicInteger();
+
+	@BeforeEach
+	void startServer() throws IOException {
+		server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		server.createContext("/", exchange -> {
+			hits.incrementAndGet();
+			String html = exchange.getRequestURI().getPath().equals("/spa") ? SPA_SHELL : STATIC_PAGE;
+			byte[] body = html.getBytes(StandardCharsets.UTF_8);
+			exchange.getResponseHeaders().add("Content-Type", "text/html; charset=UTF-8");
+			exchange.sendResponseHeaders(200, body.length);
+			try (OutputStream out = exchange.getResponseBody()) {
+				out.write(body);
+			}
+		});
+		server.start();
+	}
+
+	@AfterEach
+	void stopServer() {
+		server.stop(0);
+	}
+
+	@Test
+	void convertPageIntoDocSendsOneRequestPerUrl() {
+		PageFetcher pageFetcher = new PageFetcher(new CrawlerProperties());
+		MetadataExtractorService service = new MetadataExtractorService(pageFetcher,
+				new BrowserPool(new CrawlerProperties()), new DynamicPageClassifier(new CrawlerProperties()),
+				new HeadMetadataExtractor(), new LinkScanner(),
+				robotsTxtCache(pageFetcher), new UrlFilterRegistry(new CrawlerProperties()));
+		String url = "http://127.0.0.1:" + server.getAddress().getPort() + "/index";
+
+		Document doc = service.convertPageIntoDoc(url);
+
+		assertNotNull(doc);
+		assertEquals("static page", service.extractMetadataStatic(doc).get("description"));
+		// 상대경로 link 가 요청 url 기준으로 풀려야 함
+		assertEquals("http://127.0.0.1:" + server.getAddress().getPort() + "/next",
+				doc.selectFirst("a[href]").attr("abs:href"));
+		assertEquals(1, pageFetcher.getRequestCount());
+		assertEquals(1, hits.get());
+	}
+
+	@Test
+	void extractHeadMetadataStreamsHeadOnly() throws IOException {
+		PageFetcher pageFetcher = new PageFetcher(new CrawlerProperties());
+		MetadataExtractorService service = new MetadataExtractorService(pageFetcher,
+				new BrowserPool(new CrawlerProperties()), new DynamicPageClassifier(new CrawlerProperties()),
+				new HeadMetadataExtractor(), new LinkScanner(),
+				robotsTxtCache(pageFetcher), new UrlFilterRegistry(new CrawlerProperties()));
+		String url = "http://127.0.0.1:" + server.getAddress().getPort() + "/index";
+
+		HeadMetadata metadata = service.extractHeadMetadata(url);
+
+		assertEquals("static", metadata.getTitle());
+		assertEquals("static page", metadata.getMetaTags().get("description"));
+		assertEquals(1, hits.get());
+	}
+
+	@Test
+	void fetchPageRendersOnlyPagesThatNeedJavaScript() {
+		PageFetcher pageFetcher = new PageFetcher(new CrawlerProperties());
+		DynamicPageClassifier classifier = new DynamicPageClassifier(new CrawlerProperties());
+		MetadataExtractorService service = new MetadataExtractorService(pageFetcher,
+				new BrowserPool(new CrawlerProperties()), classifier, new HeadMetadataExtractor(), new LinkScanner(),
+				robotsTxtCache(pageFetcher), new UrlFilterRegistry(new CrawlerProperties()));
+
+		FetchResult page = service.fetchPage("http://127.0.0.1:" + server.getAddress().getPort() + "/index");
+		// 요청이 실패한 url 은 렌더링하지 않음
+		FetchResult unreachable = service.fetchPage("http://127.0.0.1:1/index");
+
+		assertEquals(STATIC_PAGE, page.getBodyText());
+		assertNull(unreachable);
+		assertEquals(1, classifier.getMetrics().getClassified());
+		assertEquals(0, classifier.getMetrics().getRendered());
+	}
+
+	@Test
+	void failedRenderFallsBackToStaticHtml() throws Exception {
+		PageFetcher pageFetcher = new PageFetcher(new CrawlerProperties());
+		DynamicPageClassifier classifier = new DynamicPageClassifier(new CrawlerProperties());
+		// 닫힌 pool 은 렌더링 요청을 바로 거절
+		BrowserPool browserPool = new BrowserPool(new CrawlerProperties());
+		browserPool.close();
+		MetadataExtractorService service = new MetadataExtractorService(pageFetcher, browserPool, classifier,
+				new HeadMetadataExtractor(), new LinkScanner(), robotsTxtCache(pageFetcher),
+				new UrlFilterRegistry(new CrawlerProperties()));
+		String url = "http://127.0.0.1:" + server.getAddress().getPort() + "/spa";
+
+		FetchResult page = service.fetchPage(url);
+		FetchResult async = service.fetchPageAsync(url, Runnable::run).get(5, TimeUnit.SECONDS);
+
+		assertEquals(SPA_SHELL, page.getBodyText());
+		assertEquals(SPA_SHELL, async.getBodyText());
+		assertEquals(2, classifier.getMetrics().getClassified());
+		assertEquals(2, hits.get());
+	}
+
+	private static RobotsTxtCache robotsTxtCache(PageFetcher pageFetcher) {
+		CrawlerProperties properties = new CrawlerProperties();
+		return new RobotsTxtCache(properties, pageFetcher, new HostPolitenessScheduler(properties, pageFetcher));
+	}
+}
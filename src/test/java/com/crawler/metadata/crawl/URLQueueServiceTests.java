@@ -0,0 +1,146 @@
+package com.crawler.metadata.crawl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.crawler.metadata.config.CrawlerProperties;
+import com.crawler.metadata.config.CrawlerProperties.FrontierStore;
+import com.crawler.metadata.crawl.frontier.CrawlFrontier;
+import com.crawler.metadata.crawl.session.CrawlSession;
+import com.crawler.metadata.crawl.session.CrawlSessionStats;
+import com.crawler.metadata.crawl.visited.VisitedUrlStoreFactory;
+
+class URLQueueServiceTests {
+
+	private final CrawlerProperties properties = new CrawlerProperties();
+
+	private final URLQueueService service = new URLQueueService(new VisitedUrlStoreFactory(properties), properties);
+
+	@Test
+	void sessionsOfSameSeedDoNotShareState() throws InterruptedException {
+		try (CrawlSession first = service.openSession("https://example.com/");
+				CrawlSession second = service.openSession("https://example.com/")) {
+			assertNotEquals(first.getId(), second.getId());
+
+			assertTrue(first.getFrontier().offer("https://example.com/a"));
+			assertTrue(second.getFrontier().offer("https://example.com/a"));
+			assertTrue(first.markVisited("https://example.com/b"));
+			assertFalse(second.isVisited("https://example.com/b"));
+			// 방문 여부는 canonical url 로 판단
+			assertFalse(first.markVisited("https://www.example.com/b/"));
+
+			assertEquals("https://example.com/a", first.getFrontier().next());
+			assertEquals(1, second.getFrontier().getQueuedCount());
+		}
+	}
+
+	@Test
+	void closedSessionIsReleased() {
+		CrawlSession session = service.openSession("https://example.com/");
+		session.getFrontier().offer("https://example.com/a");
+		assertEquals(1, service.getActiveSessionCount());
+
+		session.close();
+		session.close();
+
+		assertTrue(session.isClosed());
+		assertTrue(session.getFrontier().isClosed());
+		assertEquals(0, session.getFrontier().getQueuedCount());
+		assertEquals(0, service.getActiveSessionCount());
+		assertEquals(1, service.getOpenedSessionCount());
+		assertEquals(1, service.getClosedSessionCount());
+		assertTrue(service.getSessionStats().isEmpty());
+	}
+
+	@Test
+	void reportsStatsOfActiveSessions() throws InterruptedException {
+		properties.getSession().setFrontierBuckets(5);
+		URLQueueService buckets = new URLQueueService(new VisitedUrlStoreFactory(properties), properties);
+		try (CrawlSession first = buckets.openSession("https://a.example.com/");
+				CrawlSession second = buckets.openSession("https://b.example.com/")) {
+			first.getFrontier().offer("https://a.example.com/1");
+			first.getFrontier().offer("https://a.example.com/2");
+			first.getFrontier().offer("https://a.example.com/1");
+			first.getFrontier().next();
+
+			List<CrawlSessionStats> stats = buckets.getSessionStats();
+
+			assertEquals(2, stats.size());
+			CrawlSessionStats stat = stats.get(0);
+			assertEquals(first.getId(), stat.getId());
+			assertEquals("https://a.example.com/", stat.getSeedUrl());
+			assertEquals(1, stat.getQueued());
+			assertEquals(1, stat.getInFlight());
+			assertEquals(2, stat.getClaimed());
+			assertEquals(1, stat.getDuplicates());
+			assertEquals(2, stat.getVisited());
+			assertTrue(stat.getVisitedBytes() > 0);
+			assertEquals(8, stat.getFrontierBuckets());
+			assertEquals(0, stats.get(1).getClaimed());
+		}
+	}
+
+	@Test
+	void mappedSessionResumesUnfinishedFrontier(@TempDir Path directory) throws InterruptedException {
+		URLQueueService mapped = mappedService(directory);
+		try (CrawlSession session = mapped.openSession("https://example.com/")) {
+			CrawlFrontier frontier = session.getFrontier();
+			frontier.offer("https://example.com/");
+			frontier.offer("https://example.com/a");
+			frontier.offer("https://example.com/b");
+			frontier.done(frontier.next());
+			// 크롤링 도중 중단 ( complete() 없이 close )
+		}
+
+		try (CrawlSession resumed = mapped.openSession("https://example.com/")) {
+			CrawlFrontier frontier = resumed.getFrontier();
+			assertTrue(resumed.isResumed());
+			assertEquals(2, frontier.getQueuedCount());
+			assertEquals(2, resumed.getStats().getFrontierRecovered());
+			// 이미 꺼낸 url 도 방문 기록에 복원
+			assertFalse(frontier.offer("https://example.com/"));
+			assertEquals("https://example.com/a", frontier.next());
+			frontier.done("https://example.com/a");
+			assertEquals("https://example.com/b", frontier.next());
+			frontier.done("https://example.com/b");
+			assertEquals(null, frontier.next());
+			resumed.complete();
+		}
+
+		// 끝까지 마친 대기열은 삭제되므로 다음 crawl 은 처음부터
+		try (CrawlSession fresh = mapped.openSession("https://example.com/")) {
+			assertFalse(fresh.isResumed());
+			assertTrue(fresh.getFrontier().offer("https://example.com/"));
+		}
+	}
+
+	@Test
+	void concurrentMappedSessionOfSameSeedUsesMemory(@TempDir Path directory) {
+		URLQueueService mapped = mappedService(directory);
+		try (CrawlSession first = mapped.openSession("https://example.com/");
+				CrawlSession second = mapped.openSession("https://example.com/")) {
+			assertTrue(first.getStats().getFrontierDiskBytes() > 0);
+			assertEquals(0, second.getStats().getFrontierDiskBytes());
+		}
+		try (CrawlSession memory = mapped.openSession("https://example.com/", FrontierStore.MEMORY)) {
+			assertEquals(0, memory.getStats().getFrontierDiskBytes());
+		}
+	}
+
+	private URLQueueService mappedService(Path directory) {
+		CrawlerProperties mappedProperties = new CrawlerProperties();
+		mappedProperties.getSession().setFrontierStore(FrontierStore.MAPPED);
+		mappedProperties.getSession().setFrontierDirectory(directory.toString());
+		mappedProperties.getSession().setFrontierSegmentBytes(4096);
+		return new URLQueueService(new VisitedUrlStoreFactory(mappedProperties), mappedProperties);
+	}
+}
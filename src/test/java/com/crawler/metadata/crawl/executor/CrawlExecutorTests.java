@@ -0,0 +1,160 @@
+package com.crawler.metadata.crawl.executor;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import com.crawler.metadata.config.CrawlerProperties;
+
+class CrawlExecutorTests {
+
+	@ParameterizedTest
+	@EnumSource(CrawlerProperties.ExecutorMode.class)
+	void runsEveryTask(CrawlerProperties.ExecutorMode mode) throws Exception {
+		CrawlExecutor executor = newExecutor(mode, 16, 16);
+		Set<String> threads = ConcurrentHashMap.newKeySet();
+		CompletableFuture<?>[] futures = new CompletableFuture<?>[200];
+		for (int i = 0; i < futures.length; i++) {
+			futures[i] = CompletableFuture.runAsync(() -> threads.add(Thread.currentThread().getName()), executor);
+		}
+		CompletableFuture.allOf(futures).get(10, TimeUnit.SECONDS);
+		// future 는 작업 안에서 완료되고, 완료 수는 작업이 끝난 뒤에 기록되므로 잠깐 기다림
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while (executor.getActiveCount() > 0 && System.nanoTime() < deadline) {
+			Thread.onSpinWait();
+		}
+
+		assertEquals(200, executor.getCompletedCount());
+		assertEquals(0, executor.getActiveCount());
+		if (mode == CrawlerProperties.ExecutorMode.PLATFORM) {
+			assertTrue(threads.stream().allMatch(name -> name.startsWith("test-")));
+		}
+		executor.shutdown();
+	}
+
+	@ParameterizedTest
+	@EnumSource(CrawlerProperties.ExecutorMode.class)
+	void boundsGlobalConcurrency(CrawlerProperties.ExecutorMode mode) throws Exception {
+		CrawlExecutor executor = newExecutor(mode, 3, 100);
+
+		assertEquals(3, peakConcurrency(executor, 30));
+		executor.shutdown();
+	}
+
+	@ParameterizedTest
+	@EnumSource(CrawlerProperties.ExecutorMode.class)
+	void boundsConcurrencyPerHost(CrawlerProperties.ExecutorMode mode) throws Exception {
+		CrawlExecutor executor = newExecutor(mode, 100, 2);
+
+		assertEquals(2, peakConcurrency(executor.forHost("example.com"), 20));
+		executor.shutdown();
+	}
+
+	@ParameterizedTest
+	@EnumSource(CrawlerProperties.ExecutorMode.class)
+	void busyHostDoesNotHoldGlobalSlots(CrawlerProperties.ExecutorMode mode) throws Exception {
+		CrawlExecutor executor = newExecutor(mode, 2, 1);
+		CountDownLatch release = new CountDownLatch(1);
+		Executor busy = executor.forHost("busy.com");
+		CompletableFuture<?>[] blocked = new CompletableFuture<?>[10];
+		for (int i = 0; i < blocked.length; i++) {
+			blocked[i] = CompletableFuture.runAsync(() -> {
+				try {
+					release.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}, busy);
+		}
+
+		// busy.com 의 대기 작업이 전체 자리를 잡지 않으므로 다른 host 는 바로 실행
+		CompletableFuture.runAsync(() -> {
+		}, executor.forHost("other.com")).get(5, TimeUnit.SECONDS);
+		assertEquals(0, Stream.of(blocked).filter(CompletableFuture::isDone).count());
+		release.countDown();
+		CompletableFuture.allOf(blocked).get(10, TimeUnit.SECONDS);
+		executor.shutdown();
+	}
+
+	@ParameterizedTest
+	@EnumSource(CrawlerProperties.ExecutorMode.class)
+	void shutdownWaitsForQueuedAndRunningTasks(CrawlerProperties.ExecutorMode mode) {
+		CrawlExecutor executor = newExecutor(mode, 1, 1);
+		AtomicInteger done = new AtomicInteger();
+		for (int i = 0; i < 3; i++) {
+			executor.execute(() -> {
+				try {
+					Thread.sleep(50);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				done.incrementAndGet();
+			});
+		}
+
+		executor.shutdown();
+
+		assertEquals(3, done.get());
+		assertEquals(3, executor.getCompletedCount());
+	}
+
+	@ParameterizedTest
+	@EnumSource(CrawlerProperties.ExecutorMode.class)
+	void rejectsAfterShutdown(CrawlerProperties.ExecutorMode mode) {
+		CrawlExecutor executor = newExecutor(mode, 4, 4);
+		executor.shutdown();
+
+		assertThrows(RejectedExecutionException.class, () -> executor.execute(() -> {
+		}));
+	}
+
+	// 작업마다 잠깐 멈추면서 동시에 실행된 작업 수의 최대값 측정
+	private static int peakConcurrency(Executor executor, int tasks) throws Exception {
+		AtomicInteger running = new AtomicInteger();
+		AtomicInteger peak = new AtomicInteger();
+		CompletableFuture<?>[] futures = new CompletableFuture<?>[tasks];
+		for (int i = 0; i < tasks; i++) {
+			futures[i] = CompletableFuture.runAsync(() -> {
+				peak.accumulateAndGet(running.incrementAndGet(), Math::max);
+				try {
+					Thread.sleep(20);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				running.decrementAndGet();
+			}, executor);
+		}
+		CompletableFuture.allOf(futures).get(30, TimeUnit.SECONDS);
+		return peak.get();
+	}
+
+	private static CrawlExecutor newExecutor(CrawlerProperties.ExecutorMode mode, int maxConcurrency,
+			int maxConcurrencyPerHost) {
+		CrawlerProperties.Executor settings = new CrawlerProperties.Executor();
+		settings.setMode(mode);
+		settings.setMaxConcurrency(maxConcurrency);
+		settings.setMaxConcurrencyPerHost(maxConcurrencyPerHost);
+		if (mode == CrawlerProperties.ExecutorMode.VIRTUAL) {
+			return new CrawlExecutor(settings, null);
+		}
+		ThreadPoolTaskExecutor pool = new ThreadPoolTaskExecutor();
+		pool.setCorePoolSize(8);
+		pool.setThreadNamePrefix("test-");
+		pool.initialize();
+		return new CrawlExecutor(settings, pool);
+	}
+}
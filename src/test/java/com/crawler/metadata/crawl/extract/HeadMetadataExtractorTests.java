@@ -0,0 +1,94 @@
+package com.crawler.metadata.crawl.extract;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+class HeadMetadataExtractorTests {
+
+	private static final String BASE_URI = "https://blog.example.com/posts/market-report";
+
+	private final HeadMetadataExtractor extractor = new HeadMetadataExtractor();
+
+	@ParameterizedTest
+	@ValueSource(strings = { "blog-post.html", "category-listing.html", "spa-shell.html" })
+	void matchesFullJsoupParse(String file) throws IOException {
+		String html = readCorpus(file);
+		Document doc = Jsoup.parse(html, BASE_URI);
+
+		HeadMetadata metadata = extractor.extract(new StringReader(html), BASE_URI);
+
+		Map<String, String> expected = new LinkedHashMap<>();
+		for (Element meta : doc.head().select("meta")) {
+			String key = !meta.attr("name").isEmpty() ? meta.attr("name")
+					: !meta.attr("property").isEmpty() ? meta.attr("property") : meta.attr("http-equiv");
+			if (!key.isEmpty()) {
+				expected.putIfAbsent(key, meta.attr("content"));
+			}
+		}
+		assertEquals(expected, metadata.getMetaTags());
+		assertEquals(doc.title(), metadata.getTitle());
+		Element canonical = doc.selectFirst("link[rel=canonical]");
+		assertEquals(canonical == null ? null : canonical.attr("abs:href"), metadata.getCanonicalUrl());
+	}
+
+	@Test
+	void stopsReadingAtEndOfHead() throws IOException {
+		StringBuilder html = new StringBuilder("<html><head><meta name=\"description\" content=\"head only\"></head><body>");
+		for (int i = 0; i < 100_000; i++) {
+			html.append("<p>body</p>");
+		}
+		CountingReader reader = new CountingReader(new StringReader(html.toString()));
+
+		HeadMetadata metadata = extractor.extract(reader, BASE_URI);
+
+		assertEquals("head only", metadata.getMetaTags().get("description"));
+		// scanner buffer 하나 분량 이상은 읽지 않아야 함
+		assertTrue(reader.count <= 8192, "read " + reader.count + " chars");
+	}
+
+	private static String readCorpus(String file) throws IOException {
+		try (InputStream in = HeadMetadataExtractorTests.class.getResourceAsStream("/corpus/" + file)) {
+			return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+		}
+	}
+
+	private static final class CountingReader extends Reader {
+
+		private final Reader delegate;
+
+		private long count;
+
+		CountingReader(Reader delegate) {
+			this.delegate = delegate;
+		}
+
+		@Override
+		public int read(char[] cbuf, int off, int len) throws IOException {
+			int read = delegate.read(cbuf, off, len);
+			if (read > 0) {
+				count += read;
+			}
+			return read;
+		}
+
+		@Override
+		public void close() throws IOException {
+			delegate.close();
+		}
+	}
+}
@@ -0,0 +1,79 @@
+package com.crawler.metadata.crawl.extract;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.jsoup.Jsoup;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+class LinkScannerTests {
+
+	private static final String PAGE_URL = "https://shop.example.com/category/shoes/index.html";
+
+	private final LinkScanner linkScanner = new LinkScanner();
+
+	@ParameterizedTest
+	@ValueSource(strings = { "blog-post.html", "category-listing.html", "spa-shell.html" })
+	void matchesJsoupAbsHref(String file) throws IOException {
+		String html = readCorpus(file);
+		Set<String> expected = new LinkedHashSet<>();
+		Jsoup.parse(html, PAGE_URL).select("a[href]").forEach(a -> {
+			String link = a.attr("abs:href");
+			if (link.startsWith("http://") || link.startsWith("https://")) {
+				expected.add(link);
+			}
+		});
+
+		List<String> links = new ArrayList<>();
+		int count = linkScanner.scan(html, PAGE_URL, links::add);
+
+		assertEquals(new ArrayList<>(expected), links);
+		assertEquals(links.size(), count);
+	}
+
+	@ParameterizedTest
+	@CsvSource({
+			"https://a.com/b/c/d?q=1, g, https://a.com/b/c/g",
+			"https://a.com/b/c/d?q=1, ./g/, https://a.com/b/c/g/",
+			"https://a.com/b/c/d?q=1, ../g, https://a.com/b/g",
+			"https://a.com/b/c/d?q=1, ../../../g, https://a.com/g",
+			"https://a.com/b/c/d?q=1, /g/./h/.., https://a.com/g/",
+			"https://a.com/b/c/d?q=1, //cdn.a.com/x, https://cdn.a.com/x",
+			"https://a.com/b/c/d?q=1, ?y=2, https://a.com/b/c/d?y=2",
+			"https://a.com/b/c/d?q=1, #top, https://a.com/b/c/d?q=1#top",
+			"https://a.com, x, https://a.com/x",
+			"https://a.com/b, HTTP://Other.com, http://Other.com/" })
+	void resolvesRelativeReferences(String base, String href, String expected) {
+		UrlResolver resolver = new UrlResolver();
+		resolver.setBase(base);
+
+		assertEquals(expected, resolver.resolve(href).toString());
+	}
+
+	@Test
+	void skipsNonHttpLinksAndDuplicates() {
+		String html = "<a href='mailto:a@b.com'>m</a><a href='javascript:void(0)'>j</a>"
+				+ "<a href='/x'>1</a><a href=\"/x\">2</a><a href=https://a.com/x>3</a>";
+		List<String> links = new ArrayList<>();
+
+		linkScanner.scan(html, "https://a.com/", links::add);
+
+		assertEquals(List.of("https://a.com/x"), links);
+	}
+
+	private static String readCorpus(String file) throws IOException {
+		try (InputStream in = LinkScannerTests.class.getResourceAsStream("/corpus/" + file)) {
+			return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+		}
+	}
+}
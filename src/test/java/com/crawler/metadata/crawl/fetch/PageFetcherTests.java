@@ -0,0 +1,229 @@
+package com.crawler.metadata.crawl.fetch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPOutputStream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.crawler.metadata.config.CrawlerProperties;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+class PageFetcherTests {
+
+	private static final String PAGE = "<html><head><title>한글 페이지</title></head><body>body</body></html>";
+
+	// 응답 지연
+	private static final int LATENCY_MS = 200;
+
+	// html 이 아닌 큰 응답 ( 모두 받으면 256MB )
+	private static final long VIDEO_BYTES = 256L * 1024 * 1024;
+
+	private HttpServer server;
+
+	private ExecutorService serverExecutor;
+
+	private PageFetcher fetcher;
+
+	private final AtomicInteger inFlight = new AtomicInteger();
+
+	private final AtomicInteger maxInFlight = new AtomicInteger();
+
+	private final AtomicLong videoBytesWritten = new AtomicLong();
+
+	private final CountDownLatch videoDone = new CountDownLatch(1);
+
+	@BeforeEach
+	void startServer() throws IOException {
+		server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 1000);
+		serverExecutor = Executors.newCachedThreadPool();
+		server.setExecutor(serverExecutor);
+		server.createContext("/slow", exchange -> {
+			maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+			sleep(LATENCY_MS);
+			inFlight.decrementAndGet();
+			respond(exchange, "text/html; charset=UTF-8", PAGE.getBytes(StandardCharsets.UTF_8));
+		});
+		server.createContext("/euc-kr", exchange -> respond(exchange, "text/html; charset=\"EUC-KR\"",
+				PAGE.getBytes("EUC-KR")));
+		server.createContext("/gzip", exchange -> {
+			ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+			try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+				gzip.write(PAGE.getBytes(StandardCharsets.UTF_8));
+			}
+			exchange.getResponseHeaders().add("Content-Encoding", "gzip");
+			respond(exchange, "text/html; charset=UTF-8", compressed.toByteArray());
+		});
+		server.createContext("/redirect", exchange -> {
+			exchange.getResponseHeaders().add("Location", "/euc-kr");
+			exchange.sendResponseHeaders(301, -1);
+			exchange.close();
+		});
+		server.createContext("/large", exchange -> respond(exchange, "text/plain", new byte[1024 * 1024]));
+		server.createContext("/image.png", exchange -> respond(exchange, "image/png", new byte[1024]));
+		server.createContext("/video.mp4", exchange -> {
+			exchange.getResponseHeaders().add("Content-Type", "video/mp4");
+			byte[] chunk = new byte[64 * 1024];
+			try (OutputStream out = exchange.getResponseBody()) {
+				exchange.sendResponseHeaders(200, VIDEO_BYTES);
+				for (long sent = 0; sent < VIDEO_BYTES; sent += chunk.length) {
+					out.write(chunk);
+					videoBytesWritten.addAndGet(chunk.length);
+				}
+			} catch (IOException e) {
+				// client 가 연결을 닫음
+			} finally {
+				videoDone.countDown();
+			}
+		});
+		server.createContext("/missing", exchange -> respond(exchange, 404, "text/html", "not found".getBytes()));
+		server.start();
+
+		CrawlerProperties properties = new CrawlerProperties();
+		properties.getFetch().setIoThreads(2);
+		properties.getFetch().setMaxBodyBytes(64 * 1024);
+		fetcher = new PageFetcher(properties);
+	}
+
+	@AfterEach
+	void stopServer() {
+		server.stop(0);
+		serverExecutor.shutdownNow();
+		fetcher.close();
+	}
+
+	@Test
+	void keepsManyRequestsInFlightWithFewThreads() {
+		int requests = 200;
+		long start = System.nanoTime();
+		List<CompletableFuture<FetchResult>> results = new ArrayList<>();
+		for (int i = 0; i < requests; i++) {
+			results.add(fetcher.fetchAsync(url("/slow?i=" + i)));
+		}
+		CompletableFuture.allOf(results.toArray(new CompletableFuture[0])).join();
+		long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+		for (CompletableFuture<FetchResult> result : results) {
+			assertEquals(200, result.join().getStatusCode());
+		}
+		// 요청마다 스레드를 잡았다면 io 스레드 2 개로 200 * 200ms / 2 = 20 초
+		assertTrue(elapsedMs < 5000, "elapsed ===> " + elapsedMs);
+		assertTrue(maxInFlight.get() > 50, "max in flight ===> " + maxInFlight.get());
+		assertEquals(requests, fetcher.getRequestCount());
+		assertEquals(0, fetcher.getInFlightCount());
+	}
+
+	@Test
+	void decodesCharsetAndGzip() throws IOException {
+		assertTrue(fetcher.fetch(url("/euc-kr")).getBodyText().contains("한글 페이지"));
+		assertTrue(fetcher.fetch(url("/gzip")).getBodyText().contains("한글 페이지"));
+	}
+
+	@Test
+	void followsRedirects() throws IOException {
+		FetchResult result = fetcher.fetch(url("/redirect"));
+
+		assertEquals(200, result.getStatusCode());
+		assertEquals(url("/euc-kr"), result.getFinalUrl());
+		assertEquals(url("/redirect"), result.getUrl());
+	}
+
+	@Test
+	void returnsHttpErrorsAsResults() throws IOException {
+		FetchResult result = fetcher.fetch(url("/missing"));
+
+		assertEquals(404, result.getStatusCode());
+		assertEquals("not found", result.getBodyText());
+	}
+
+	@Test
+	void truncatesLargeBodies() throws IOException {
+		assertEquals(64 * 1024, fetcher.fetchText(url("/large"), 64 * 1024).getBody().length);
+		assertEquals(1000, fetcher.fetchText(url("/large"), 1000).getBody().length);
+	}
+
+	@Test
+	void rejectsNonHtmlWithoutBody() throws Exception {
+		ExecutionException error = assertThrows(ExecutionException.class,
+				() -> fetcher.fetchAsync(url("/image.png")).get());
+		assertTrue(error.getCause() instanceof UnsupportedContentTypeException);
+		assertThrows(UnsupportedContentTypeException.class, () -> fetcher.fetch(url("/image.png")));
+		// text 로 내려받을 때는 content-type 무시
+		assertEquals(1024, fetcher.fetchText(url("/image.png"), 4096).getBody().length);
+		long received = fetcher.getReceivedBytes();
+
+		long start = System.nanoTime();
+		assertThrows(UnsupportedContentTypeException.class, () -> fetcher.fetch(url("/video.mp4")));
+		long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+		// 연결을 닫으면 server 는 socket buffer 만큼만 쓰고 실패함
+		assertTrue(videoDone.await(10, TimeUnit.SECONDS));
+		assertTrue(videoBytesWritten.get() < 32L * 1024 * 1024, "written ===> " + videoBytesWritten.get());
+		assertTrue(elapsedMs < 5000, "elapsed ===> " + elapsedMs);
+		assertEquals(received, fetcher.getReceivedBytes());
+	}
+
+	@Test
+	void encodesUnsafeCharacters() {
+		assertEquals("https://example.com/a%20b/%ED%95%9C?q=%22x%22",
+				PageFetcher.toUri("https://example.com/a b/한?q=\"x\"#frag").toString());
+		assertEquals("https://example.com/a?b=c", PageFetcher.toUri("https://example.com/a?b=c").toString());
+	}
+
+	@Test
+	void streamsHeadOnly() throws IOException {
+		String title = fetcher.fetchStreaming(url("/euc-kr"), (body, finalUrl) -> {
+			char[] buffer = new char[64];
+			int read = body.read(buffer);
+			return new String(buffer, 0, read);
+		});
+
+		assertTrue(title.startsWith("<html><head><title>한글"));
+		assertThrows(IOException.class, () -> fetcher.fetchStreaming(url("/missing"), (body, finalUrl) -> "x"));
+	}
+
+	private String url(String path) {
+		return "http://127.0.0.1:" + server.getAddress().getPort() + path;
+	}
+
+	private static void respond(HttpExchange exchange, String contentType, byte[] body) throws IOException {
+		respond(exchange, 200, contentType, body);
+	}
+
+	private static void respond(HttpExchange exchange, int status, String contentType, byte[] body)
+			throws IOException {
+		exchange.getResponseHeaders().add("Content-Type", contentType);
+		exchange.sendResponseHeaders(status, body.length);
+		try (OutputStream out = exchange.getResponseBody()) {
+			out.write(body);
+		}
+	}
+
+	private static void sleep(long millis) {
+		try {
+			Thread.sleep(millis);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
@@ -0,0 +1,129 @@
+package com.crawler.metadata.crawl.filter;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import com.crawler.metadata.config.CrawlerProperties;
+
+class UrlFilterChainTests {
+
+	private final UrlFilterChain chain = new UrlFilterChain(rules());
+
+	private static CrawlerProperties.FilterRules rules() {
+		CrawlerProperties.FilterRules rules = new CrawlerProperties.FilterRules();
+		rules.setMaxDepth(3);
+		rules.setMaxLength(100);
+		rules.setSameDomain(true);
+		return rules;
+	}
+
+	@ParameterizedTest
+	@CsvSource({
+			"https://example.com/, ",
+			"https://example.com, ",
+			"https://www.example.com/a/b/c, ",
+			"https://blog.example.com/post?page=2#top, ",
+			"HTTPS://EXAMPLE.COM:8443/a, ",
+			"https://user:pw@example.com/a, ",
+			"https://example.com/a.html?file=b.jpg, ",
+			"https://example.com/jpg, ",
+			"https://example.com/a b, ",
+			"https://example.com/a.jpg, EXTENSION",
+			"https://example.com/a.JPG?size=large, EXTENSION",
+			"https://example.com/files/archive.zip#x, EXTENSION",
+			"https://example.com/a/b/c/d, DEPTH",
+			"https://example.com/a/b/c/d.png, EXTENSION",
+			"https://example.com/user/LOGIN, PATTERN",
+			"https://example.com/share?u=https://facebook.com/x, PATTERN",
+			"https://example.com/ads/banner, PATTERN",
+			"https://example.com/downloads/, ",
+			"https://facebook.com/example, DOMAIN",
+			"https://notexample.com/, DOMAIN",
+			"https://example.com.evil.org/, DOMAIN",
+			"mailto:someone@example.com, FORMAT",
+			"ftp://example.com/a, PROTOCOL",
+			"javascript://example.com/, PROTOCOL",
+			"https://, FORMAT",
+			"https:///path, FORMAT",
+			"https://exa mple.com/, FORMAT",
+			"https://example.com:80a/, FORMAT",
+			"https://example.com:123456/, FORMAT",
+			"https://[::1]:8080/, DOMAIN",
+			"/relative/path, FORMAT",
+			"https://example.com/aaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaa, FORMAT",
+	})
+	void checksAllRulesInOnePass(String url, FilterRule expected) {
+		assertEquals(expected, chain.check(url, "example.com"), url);
+	}
+
+	@Test
+	void countsRejectionsPerRule() {
+		chain.check("https://example.com/a.jpg", "example.com");
+		chain.check("https://example.com/b.gif", "example.com");
+		chain.check("https://example.com/login", "example.com");
+		chain.check("https://example.com/ok", "example.com");
+
+		assertEquals(4, chain.getCheckedCount());
+		assertEquals(2L, chain.getRejectionCounts().get(FilterRule.EXTENSION));
+		assertEquals(1L, chain.getRejectionCounts().get(FilterRule.PATTERN));
+		assertEquals(0L, chain.getRejectionCounts().get(FilterRule.DEPTH));
+	}
+
+	@Test
+	void skipsDomainRuleWithoutSeedHost() {
+		assertNull(chain.check("https://other.org/", null));
+	}
+
+	@Test
+	void disallowsSubdomainsWhenConfigured() {
+		CrawlerProperties.FilterRules rules = rules();
+		rules.setAllowSubdomains(false);
+		UrlFilterChain strict = new UrlFilterChain(rules);
+
+		assertTrue(strict.accept("https://www.example.com/", "example.com"));
+		assertFalse(strict.accept("https://blog.example.com/", "example.com"));
+	}
+
+	@Test
+	void disabledChainAcceptsEverything() {
+		CrawlerProperties.FilterRules rules = rules();
+		rules.setEnabled(false);
+
+		assertTrue(new UrlFilterChain(rules).accept("ftp://other.org/a.jpg", "example.com"));
+	}
+
+	@Test
+	void patternMatcherFindsOverlappingPatterns() {
+		PatternMatcher matcher = new PatternMatcher(Arrays.asList("he", "she", "hers", "his"));
+
+		assertTrue(matcher.find("uSHErs"));
+		assertTrue(matcher.find("ahishe"));
+		assertFalse(matcher.find("hxe h-e"));
+		assertFalse(new PatternMatcher(Arrays.asList()).find("anything"));
+	}
+
+	@Test
+	void registryUsesSeedSpecificRules() {
+		CrawlerProperties properties = new CrawlerProperties();
+		CrawlerProperties.FilterRules blog = new CrawlerProperties.FilterRules();
+		blog.setMaxDepth(1);
+		blog.setSameDomain(true);
+		properties.getFilter().getSeeds().put("blog.example.com", blog);
+		UrlFilterRegistry registry = new UrlFilterRegistry(properties);
+
+		assertEquals(FilterRule.DEPTH, registry.check("https://www.blog.example.com/", "https://blog.example.com/a/b"));
+		assertEquals(FilterRule.DOMAIN, registry.check("https://blog.example.com/", "https://other.org/a"));
+		assertNull(registry.check("https://shop.example.com/", "https://other.org/a/b"));
+		assertNull(registry.check("shop.example.com", "https://other.org/a/b"));
+		assertEquals(2L, registry.getRejectionCounts().values().stream().mapToLong(Long::longValue).sum());
+		assertEquals(4, registry.getCheckedCount());
+	}
+}
@@ -0,0 +1,189 @@
+package com.crawler.metadata.crawl.frontier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import com.crawler.metadata.crawl.visited.HashSetVisitedUrlStore;
+import com.crawler.metadata.util.UrlUtils;
+
+class CrawlFrontierTests {
+
+	private final CrawlFrontier frontier = new CrawlFrontier(new HashSetVisitedUrlStore(), UrlUtils::canonicalize);
+
+	@Test
+	void claimsUrlOnceAtOffer() throws InterruptedException {
+		assertTrue(frontier.offer("https://example.com/a"));
+		assertFalse(frontier.offer("https://EXAMPLE.com/a#top"));
+
+		assertEquals("https://example.com/a", frontier.next());
+		// 꺼낸 뒤에도 다시 들어가지 않음
+		assertFalse(frontier.offer("https://example.com/a"));
+		assertEquals(1, frontier.getClaimedCount());
+		assertEquals(2, frontier.getDuplicateCount());
+	}
+
+	@Test
+	void finishesImmediatelyWhenEmptyAndNothingInFlight() throws InterruptedException {
+		frontier.offer("https://example.com/");
+		frontier.next();
+		frontier.done();
+
+		long start = System.nanoTime();
+		assertNull(frontier.next());
+		assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(100));
+	}
+
+	@Test
+	void waitsForInFlightUrlToOfferLinks() throws Exception {
+		frontier.offer("https://example.com/");
+		String seed = frontier.next();
+
+		CompletableFuture<String> waiting = CompletableFuture.supplyAsync(() -> {
+			try {
+				return frontier.next();
+			} catch (InterruptedException e) {
+				throw new IllegalStateException(e);
+			}
+		});
+		Thread.sleep(50);
+		assertFalse(waiting.isDone());
+
+		frontier.offer(seed + "next");
+		frontier.done();
+		assertEquals("https://example.com/next", waiting.get(1, TimeUnit.SECONDS));
+		frontier.done();
+		assertNull(frontier.next());
+	}
+
+	@Test
+	void closeReleasesWaitingConsumers() throws Exception {
+		frontier.offer("https://example.com/");
+		frontier.next();
+		CompletableFuture<String> waiting = CompletableFuture.supplyAsync(() -> {
+			try {
+				return frontier.next();
+			} catch (InterruptedException e) {
+				throw new IllegalStateException(e);
+			}
+		});
+
+		frontier.close();
+
+		assertNull(waiting.get(1, TimeUnit.SECONDS));
+		assertFalse(frontier.offer("https://example.com/other"));
+	}
+
+	@Test
+	void doneWithoutNextFails() {
+		assertThrows(IllegalStateException.class, frontier::done);
+	}
+
+	@Test
+	void crawlsTreeWithWorkersWithoutDuplicates() throws Exception {
+		// 각 페이지가 자식 3 개와 부모, 자기 자신을 link 하는 깊이 5 의 tree
+		ExecutorService workers = Executors.newFixedThreadPool(4);
+		Set<String> fetched = ConcurrentHashMap.newKeySet();
+		AtomicInteger fetchCount = new AtomicInteger();
+		try {
+			frontier.offer("https://example.com/n");
+			String url;
+			while ((url = frontier.next()) != null) {
+				String current = url;
+				workers.execute(() -> {
+					fetchCount.incrementAndGet();
+					fetched.add(current);
+					String path = current.substring("https://example.com/".length());
+					if (path.length() < 6) {
+						for (int i = 0; i < 3; i++) {
+							frontier.offer(current + i);
+						}
+					}
+					frontier.offer(current);
+					frontier.offer(current.substring(0, Math.max(current.length() - 1, 21)));
+					frontier.done();
+				});
+			}
+		} finally {
+			workers.shutdownNow();
+		}
+
+		int expected = 1 + 3 + 9 + 27 + 81 + 243;
+		assertEquals(expected, fetchCount.get());
+		assertEquals(expected, fetched.size());
+		assertEquals(0, frontier.getInFlightCount());
+		assertEquals(expected, frontier.getCompletedCount());
+	}
+
+	@Test
+	void takesTurnsAcrossHostBuckets() throws InterruptedException {
+		CrawlFrontier buckets = new CrawlFrontier(new HashSetVisitedUrlStore(), UrlUtils::canonicalize, 64);
+		for (int i = 0; i < 3; i++) {
+			buckets.offer("https://a.example.com/" + i);
+		}
+		buckets.offer("https://b.example.com/0");
+
+		// 한 host 의 url 이 몰려 있어도 다른 host 의 url 이 뒤로 밀리지 않음
+		Set<String> firstTwo = Set.of(buckets.next(), buckets.next());
+		assertTrue(firstTwo.contains("https://b.example.com/0"), firstTwo.toString());
+		assertEquals(4, buckets.getInFlightCount() + buckets.getQueuedCount());
+		assertEquals(64, buckets.getBucketCount());
+	}
+
+	@Test
+	void countsWaitsOnlyWhenConsumerBlocks() throws Exception {
+		frontier.offer("https://example.com/");
+		frontier.next();
+		assertEquals(0, frontier.getWaitCount());
+
+		CompletableFuture<String> waiting = CompletableFuture.supplyAsync(() -> {
+			try {
+				return frontier.next();
+			} catch (InterruptedException e) {
+				throw new IllegalStateException(e);
+			}
+		});
+		Thread.sleep(50);
+		frontier.done();
+
+		assertNull(waiting.get(1, TimeUnit.SECONDS));
+		assertEquals(1, frontier.getWaitCount());
+		assertTrue(frontier.getWaitNanos() > 0);
+	}
+
+	@Test
+	void closeDuringConcurrentOffersLeavesNothingQueued() throws Exception {
+		ExecutorService producers = Executors.newFixedThreadPool(4);
+		try {
+			for (int p = 0; p < 4; p++) {
+				int producer = p;
+				producers.execute(() -> {
+					for (int i = 0; i < 10_000; i++) {
+						frontier.offer("https://host" + (i % 7) + ".example.com/" + producer + "/" + i);
+					}
+				});
+			}
+			Thread.sleep(5);
+			frontier.close();
+		} finally {
+			producers.shutdown();
+			assertTrue(producers.awaitTermination(10, TimeUnit.SECONDS));
+		}
+
+		assertEquals(0, frontier.getQueuedCount());
+		assertNull(frontier.next());
+		assertTrue(frontier.awaitQuiescence(0, TimeUnit.MILLISECONDS));
+	}
+}
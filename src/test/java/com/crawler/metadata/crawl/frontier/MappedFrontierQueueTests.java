@@ -0,0 +1,154 @@
+package com.crawler.metadata.crawl.frontier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class MappedFrontierQueueTests {
+
+	@TempDir
+	Path directory;
+
+	@Test
+	void keepsOrderAcrossSegments() throws IOException {
+		MappedFrontierQueue queue = open(256, 4, 1000, url -> {
+		});
+		for (int i = 0; i < 100; i++) {
+			assertTrue(queue.add("https://example.com/page/" + i));
+		}
+		assertTrue(queue.getSegmentCount() > 1, "segments ===> " + queue.getSegmentCount());
+		assertEquals(100, queue.size());
+
+		for (int i = 0; i < 100; i++) {
+			assertEquals("https://example.com/page/" + i, queue.poll());
+		}
+		assertNull(queue.poll());
+		assertEquals(0, queue.size());
+		// 다 읽은 뒤 새로 넣은 url 도 바로 읽음
+		queue.add("https://example.com/last");
+		assertEquals("https://example.com/last", queue.poll());
+	}
+
+	@Test
+	void storesSimilarUrlsCompactly() throws IOException {
+		MappedFrontierQueue queue = open(1 << 20, 16, 1000, url -> {
+		});
+		int rawBytes = 0;
+		for (int i = 0; i < 1000; i++) {
+			String url = "https://example.com/articles/2024/10/page-" + i;
+			rawBytes += url.length();
+			queue.add(url);
+		}
+
+		// 앞 url 과 겹치는 부분은 길이만 저장
+		assertTrue(queue.getWrittenBytes() * 4 < rawBytes,
+				"written ===> " + queue.getWrittenBytes() + " raw ===> " + rawBytes);
+	}
+
+	@Test
+	void resumesAfterLastContiguousAck() throws IOException {
+		MappedFrontierQueue queue = open(256, 4, 1000, url -> {
+		});
+		for (int i = 0; i < 10; i++) {
+			queue.add("https://example.com/" + i);
+		}
+		for (int i = 0; i < 4; i++) {
+			queue.poll();
+		}
+		queue.ack("https://example.com/0");
+		queue.ack("https://example.com/1");
+		queue.ack("https://example.com/3");
+		queue.close();
+		assertFalse(queue.add("https://example.com/closed"));
+
+		List<String> recovered = new ArrayList<>();
+		MappedFrontierQueue reopened = open(256, 4, 1000, recovered::add);
+
+		// 남아 있는 url 은 모두 방문 기록용으로 전달, 처리 중이던 /2 부터 다시 꺼냄
+		assertEquals(10, recovered.size());
+		assertEquals(8, reopened.size());
+		assertEquals(8, reopened.getRecoveredCount());
+		assertEquals("https://example.com/2", reopened.poll());
+		assertEquals("https://example.com/3", reopened.poll());
+		reopened.add("https://example.com/10");
+		for (int i = 4; i <= 10; i++) {
+			assertEquals("https://example.com/" + i, reopened.poll());
+		}
+	}
+
+	@Test
+	void recoversFromCheckpointWithoutClose() throws IOException {
+		MappedFrontierQueue queue = open(256, 4, 1, url -> {
+		});
+		for (int i = 0; i < 5; i++) {
+			queue.add("https://example.com/" + i);
+		}
+		queue.ack(queue.poll());
+		queue.ack(queue.poll());
+		queue.poll();
+
+		// close() 없이 ( process 가 죽은 경우 ) 다시 열면 마지막 checkpoint 부터
+		MappedFrontierQueue reopened = open(256, 4, 1, url -> {
+		});
+
+		assertEquals(3, reopened.size());
+		assertEquals("https://example.com/2", reopened.poll());
+	}
+
+	@Test
+	void ignoresPartiallyWrittenRecord() throws IOException {
+		MappedFrontierQueue queue = open(256, 4, 1000, url -> {
+		});
+		queue.add("https://example.com/a");
+		queue.add("https://example.com/b");
+		long written = queue.getWrittenBytes();
+		queue.close();
+		// 첫 byte 를 쓰기 전에 멈춘 record
+		try (FileChannel channel = FileChannel.open(directory.resolve("segment-0000000000.log"),
+				StandardOpenOption.WRITE)) {
+			channel.write(ByteBuffer.wrap(new byte[] { 20, 'x', 'y', 'z' }), written + 1);
+		}
+
+		MappedFrontierQueue reopened = open(256, 4, 1000, url -> {
+		});
+
+		assertEquals(2, reopened.size());
+		reopened.add("https://example.com/c");
+		assertEquals("https://example.com/a", reopened.poll());
+		assertEquals("https://example.com/b", reopened.poll());
+		assertEquals("https://example.com/c", reopened.poll());
+	}
+
+	@Test
+	void deleteRemovesFiles() throws IOException {
+		Path queueDirectory = directory.resolve("seed");
+		MappedFrontierQueue queue = MappedFrontierQueue.open(queueDirectory, 256, 4, 1, url -> {
+		});
+		queue.add("https://example.com/a");
+		queue.ack(queue.poll());
+		assertTrue(Files.exists(queueDirectory.resolve("checkpoint")));
+
+		queue.delete();
+
+		assertFalse(Files.exists(queueDirectory));
+	}
+
+	private MappedFrontierQueue open(int segmentBytes, int headSize, int checkpointEvery,
+			Consumer<String> recovered) throws IOException {
+		return MappedFrontierQueue.open(directory, segmentBytes, headSize, checkpointEvery, recovered);
+	}
+}
@@ -0,0 +1,358 @@
+package com.crawler.metadata.crawl.job;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.UnaryOperator;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import com.crawler.metadata.config.CrawlerProperties;
+import com.crawler.metadata.crawl.CrawlPageResult;
+import com.crawler.metadata.crawl.CrawlerService;
+import com.crawler.metadata.crawl.MetadataExtractorService;
+import com.crawler.metadata.crawl.URLQueueService;
+import com.crawler.metadata.crawl.executor.CrawlExecutor;
+import com.crawler.metadata.crawl.extract.HeadMetadataExtractor;
+import com.crawler.metadata.crawl.extract.LinkScanner;
+import com.crawler.metadata.crawl.fetch.PageFetcher;
+import com.crawler.metadata.crawl.filter.UrlFilterRegistry;
+import com.crawler.metadata.crawl.pipeline.CrawlPipeline;
+import com.crawler.metadata.crawl.politeness.HostPolitenessScheduler;
+import com.crawler.metadata.crawl.render.BrowserPool;
+import com.crawler.metadata.crawl.render.DynamicPageClassifier;
+import com.crawler.metadata.crawl.revisit.RecrawlScheduler;
+import com.crawler.metadata.crawl.revisit.ValidatorCache;
+import com.crawler.metadata.crawl.robots.RobotsTxtCache;
+import com.crawler.metadata.crawl.visited.VisitedUrlStoreFactory;
+import com.sun.net.httpserver.HttpServer;
+
+class CrawlJobServiceTests {
+
+	private HttpServer server;
+
+	private ExecutorService serverExecutor;
+
+	// 응답을 잠시 막아서 crawl 도중 상태 확인
+	private volatile CountDownLatch gate = new CountDownLatch(0);
+
+	private CrawlExecutor crawlerExecutor;
+
+	private HostPolitenessScheduler scheduler;
+
+	private CrawlPipeline pipeline;
+
+	private ThreadPoolTaskExecutor jobExecutor;
+
+	private ThreadPoolTaskExecutor streamExecutor;
+
+	private CrawlJobService service;
+
+	private long drainTimeoutMs = 5000;
+
+	@BeforeEach
+	void start() throws IOException {
+		server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		serverExecutor = Executors.newFixedThreadPool(4);
+		server.setExecutor(serverExecutor);
+		// /a, /b 는 각각 leaf 페이지 3 개로 link
+		server.createContext("/", exchange -> {
+			String path = exchange.getRequestURI().getPath();
+			if (path.equals("/robots.txt")) {
+				exchange.sendResponseHeaders(404, -1);
+				exchange.close();
+				return;
+			}
+			try {
+				gate.await(5, TimeUnit.SECONDS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			StringBuilder html = new StringBuilder("<html><head><title>").append(path).append("</title></head><body>");
+			if (path.length() == 2) {
+				for (int i = 0; i < 3; i++) {
+					html.append("<a href=\"").append(path).append(i).append("\">link</a>");
+				}
+			}
+			byte[] body = html.append("</body></html>").toString().getBytes(StandardCharsets.UTF_8);
+			exchange.getResponseHeaders().add("Content-Type", "text/html; charset=UTF-8");
+			exchange.sendResponseHeaders(200, body.length);
+			try (OutputStream out = exchange.getResponseBody()) {
+				out.write(body);
+			}
+		});
+		server.start();
+		service = newService(2);
+	}
+
+	@AfterEach
+	void stop() {
+		server.stop(0);
+		serverExecutor.shutdownNow();
+		stopService();
+	}
+
+	private void stopService() {
+		jobExecutor.shutdown();
+		streamExecutor.shutdown();
+		crawlerExecutor.shutdown();
+		scheduler.stop();
+		pipeline.shutdown();
+	}
+
+	@Test
+	void submitReturnsBeforeCrawlFinishes() throws Exception {
+		gate = new CountDownLatch(1);
+
+		CrawlJob job = service.submit(Collections.singletonList(baseUrl() + "/a"));
+
+		assertTrue(!job.isFinished());
+		assertNotNull(service.get(job.getId()));
+		gate.countDown();
+		CrawlJobProgress progress = awaitFinished(job);
+		assertEquals(CrawlJobStatus.COMPLETED, progress.getStatus());
+		assertEquals(4, progress.getPagesCrawled());
+		assertEquals(0, progress.getPagesFailed());
+		assertEquals(1, progress.getSeedsCompleted());
+		assertNotNull(progress.getStartedAt());
+		assertNotNull(progress.getFinishedAt());
+	}
+
+	@Test
+	void streamsResultsAsPagesComplete() throws Exception {
+		gate = new CountDownLatch(1);
+		CrawlJob job = service.submit(Arrays.asList(baseUrl() + "/a", baseUrl() + "/b"));
+		RecordingSubscriber live = new RecordingSubscriber();
+		service.subscribe(job, 0, live);
+
+		gate.countDown();
+		CrawlJobProgress progress = live.completed.get(10, TimeUnit.SECONDS);
+
+		assertEquals(CrawlJobStatus.COMPLETED, progress.getStatus());
+		assertEquals(8, progress.getPagesCrawled());
+		assertEquals(8, live.results.size());
+		assertEquals(8, live.results.stream().map(CrawlPageResult::getUrl).distinct().count());
+		assertEquals(2, live.results.stream().map(CrawlPageResult::getSeedUrl).distinct().count());
+	}
+
+	@Test
+	void replaysStoredResultsToLateSubscriber() throws Exception {
+		CrawlJob job = service.submit(Collections.singletonList(baseUrl() + "/a"));
+		awaitFinished(job);
+		RecordingSubscriber first = new RecordingSubscriber();
+		service.subscribe(job, 0, first);
+		first.completed.get(5, TimeUnit.SECONDS);
+
+		RecordingSubscriber late = new RecordingSubscriber();
+		service.subscribe(job, 2, late);
+
+		late.completed.get(5, TimeUnit.SECONDS);
+		assertEquals(4, first.results.size());
+		assertEquals(urls(first.results).subList(2, 4), urls(late.results));
+		assertEquals("/a", first.results.get(0).getTitle());
+	}
+
+	@Test
+	void dropsSubscriberWhenConnectionFails() throws Exception {
+		gate = new CountDownLatch(1);
+		CrawlJob job = service.submit(Collections.singletonList(baseUrl() + "/a"));
+		RecordingSubscriber closed = new RecordingSubscriber() {
+			@Override
+			public void onResult(long index, CrawlPageResult result) throws IOException {
+				throw new IOException("broken pipe");
+			}
+		};
+		service.subscribe(job, 0, closed);
+
+		gate.countDown();
+		assertEquals(CrawlJobStatus.COMPLETED, awaitFinished(job).getStatus());
+		assertTrue(!closed.completed.isDone());
+	}
+
+	@Test
+	void cancelledSubscriptionReceivesNothing() throws Exception {
+		gate = new CountDownLatch(1);
+		CrawlJob job = service.submit(Collections.singletonList(baseUrl() + "/a"));
+		RecordingSubscriber cancelled = new RecordingSubscriber();
+		CrawlJobSubscription subscription = service.subscribe(job, 0, cancelled);
+
+		subscription.cancel();
+		gate.countDown();
+
+		assertEquals(CrawlJobStatus.COMPLETED, awaitFinished(job).getStatus());
+		assertTrue(cancelled.results.isEmpty());
+		assertTrue(!cancelled.completed.isDone());
+		subscription.cancel();
+	}
+
+	@Test
+	void rejectsWhenJobQueueIsFull() {
+		gate = new CountDownLatch(1);
+		// 실행 2 + 대기 2
+		service.submit(Arrays.asList(baseUrl() + "/a", baseUrl() + "/b"));
+		service.submit(Arrays.asList(baseUrl() + "/a", baseUrl() + "/b"));
+
+		assertThrows(RejectedExecutionException.class, () -> service.submit(Collections.singletonList(baseUrl() + "/a")));
+		assertThrows(IllegalArgumentException.class, () -> service.submit(Collections.emptyList()));
+		assertNull(service.get("unknown"));
+		gate.countDown();
+	}
+
+	@Test
+	void cancelStopsRunningSeeds() throws Exception {
+		gate = new CountDownLatch(1);
+		CrawlJob job = service.submit(Arrays.asList(baseUrl() + "/a", baseUrl() + "/b"));
+
+		assertEquals(job, service.cancel(job.getId()));
+		gate.countDown();
+		CrawlJobProgress progress = awaitFinished(job);
+
+		assertEquals(CrawlJobStatus.CANCELLED, progress.getStatus());
+		assertTrue(progress.getPagesCrawled() < 8, progress.toString());
+		assertNull(service.cancel("unknown"));
+		// 취소 후에도 다음 job 은 같은 executor 에서 정상 실행
+		assertEquals(CrawlJobStatus.COMPLETED, awaitFinished(service.submit(Collections.singletonList(baseUrl() + "/b"))).getStatus());
+	}
+
+	@Test
+	void shutdownDrainsRunningJobsAndRejectsNewOnes() throws Exception {
+		gate = new CountDownLatch(1);
+		CrawlJob job = service.submit(Collections.singletonList(baseUrl() + "/a"));
+		CompletableFuture<Void> shutdown = CompletableFuture.runAsync(() -> {
+			try {
+				service.shutdown();
+			} catch (InterruptedException e) {
+				throw new IllegalStateException(e);
+			}
+		});
+		Thread.sleep(100);
+		assertTrue(!shutdown.isDone());
+		assertThrows(RejectedExecutionException.class, () -> service.submit(Collections.singletonList(baseUrl() + "/b")));
+
+		gate.countDown();
+		shutdown.get(10, TimeUnit.SECONDS);
+		assertEquals(CrawlJobStatus.COMPLETED, job.getStatus());
+		assertEquals(4, job.getProgress().getPagesCrawled());
+	}
+
+	@Test
+	void shutdownCancelsJobsThatOutliveDrainTimeout() throws Exception {
+		drainTimeoutMs = 1000;
+		stopService();
+		service = newService(2);
+		gate = new CountDownLatch(1);
+		CrawlJob job = service.submit(Collections.singletonList(baseUrl() + "/a"));
+		CompletableFuture<Void> shutdown = CompletableFuture.runAsync(() -> {
+			try {
+				service.shutdown();
+			} catch (InterruptedException e) {
+				throw new IllegalStateException(e);
+			}
+		});
+
+		// drain 시간이 지나면 취소하고, 처리 중이던 페이지가 끝날 때까지 다시 기다림
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while (!job.getScope().isCancelled() && System.nanoTime() < deadline) {
+			Thread.sleep(10);
+		}
+		assertTrue(job.getScope().isCancelled());
+		gate.countDown();
+		shutdown.get(10, TimeUnit.SECONDS);
+		assertEquals(CrawlJobStatus.CANCELLED, job.getStatus());
+	}
+
+	private CrawlJobProgress awaitFinished(CrawlJob job) throws InterruptedException {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+		while (!job.isFinished() && System.nanoTime() < deadline) {
+			Thread.sleep(10);
+		}
+		assertTrue(job.isFinished(), job.getProgress().toString());
+		return job.getProgress();
+	}
+
+	private static List<String> urls(List<CrawlPageResult> results) {
+		return results.stream().map(CrawlPageResult::getUrl).collect(Collectors.toList());
+	}
+
+	private String baseUrl() {
+		return "http://127.0.0.1:" + server.getAddress().getPort();
+	}
+
+	private CrawlJobService newService(int maxRunning) {
+		CrawlerProperties properties = new CrawlerProperties();
+		properties.getPoliteness().setRequestsPerSecond(1000);
+		properties.getPoliteness().setBurst(100);
+		properties.getPoliteness().setMaxConcurrencyPerHost(4);
+		properties.getJobs().setMaxRunning(maxRunning);
+		properties.getJobs().setMaxQueued(2);
+		properties.getJobs().setDrainTimeoutMs(drainTimeoutMs);
+		ThreadPoolTaskExecutor pool = new ThreadPoolTaskExecutor();
+		pool.setCorePoolSize(4);
+		pool.initialize();
+		crawlerExecutor = new CrawlExecutor(properties.getExecutor(), pool);
+		pipeline = new CrawlPipeline(properties);
+		PageFetcher pageFetcher = new PageFetcher(properties);
+		scheduler = new HostPolitenessScheduler(properties, pageFetcher);
+		VisitedUrlStoreFactory visitedUrlStoreFactory = new VisitedUrlStoreFactory(properties);
+		MetadataExtractorService metadataExtractorService = new MetadataExtractorService(pageFetcher,
+				new BrowserPool(properties), new DynamicPageClassifier(properties),
+				new HeadMetadataExtractor(), new LinkScanner(),
+				new RobotsTxtCache(properties, pageFetcher, scheduler), new UrlFilterRegistry(properties));
+		// job 동작만 확인하므로 결과 sink, validator cache, 재크롤링 scheduler 없음
+		CrawlerProperties.Revisit revisit = new CrawlerProperties.Revisit();
+		revisit.setEnabled(false);
+		CrawlerProperties.Recrawl recrawl = new CrawlerProperties.Recrawl();
+		recrawl.setEnabled(false);
+		CrawlerService crawlerService = new CrawlerService(new URLQueueService(visitedUrlStoreFactory, properties),
+				metadataExtractorService, crawlerExecutor, pool, scheduler, pipeline, List.of(),
+				new ValidatorCache(null, UnaryOperator.identity(), revisit),
+				new RecrawlScheduler(null, UnaryOperator.identity(), recrawl), properties);
+		jobExecutor = new ThreadPoolTaskExecutor();
+		jobExecutor.setCorePoolSize(maxRunning);
+		jobExecutor.setMaxPoolSize(maxRunning);
+		jobExecutor.setQueueCapacity(properties.getJobs().getMaxQueued());
+		jobExecutor.initialize();
+		streamExecutor = new ThreadPoolTaskExecutor();
+		streamExecutor.setCorePoolSize(2);
+		streamExecutor.initialize();
+		return new CrawlJobService(crawlerService, jobExecutor, streamExecutor, properties);
+	}
+
+	private static class RecordingSubscriber implements CrawlJobSubscriber {
+
+		final List<CrawlPageResult> results = new CopyOnWriteArrayList<>();
+
+		final CompletableFuture<CrawlJobProgress> completed = new CompletableFuture<>();
+
+		@Override
+		public void onResult(long index, CrawlPageResult result) throws IOException {
+			results.add(result);
+		}
+
+		@Override
+		public void onComplete(CrawlJobProgress progress) {
+			completed.complete(progress);
+		}
+	}
+}
@@ -0,0 +1,115 @@
+package com.crawler.metadata.crawl.job;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import com.crawler.metadata.crawl.CrawlPageResult;
+import com.crawler.metadata.crawl.extract.HeadMetadata;
+
+class CrawlJobTests {
+
+	@Test
+	void replayKeepsOnlyMostRecentResultsWithTheirIndexes() {
+		CrawlJob job = new CrawlJob("job", Collections.singletonList("http://a.com/"), 0, 3);
+		for (int i = 0; i < 10; i++) {
+			job.onPage(page(i));
+		}
+		RecordingSubscriber all = new RecordingSubscriber();
+		RecordingSubscriber late = new RecordingSubscriber();
+
+		job.subscribe(0, all);
+		job.subscribe(8, late);
+
+		assertEquals(List.of(7L, 8L, 9L), all.indexes);
+		assertEquals(List.of(8L, 9L), late.indexes);
+		assertEquals("http://a.com/7", all.results.get(0).getUrl());
+		assertEquals(10, job.getProgress().getPagesCrawled());
+	}
+
+	@Test
+	void slowSubscriberIsDroppedWhenQueueIsFull() {
+		CrawlJob job = new CrawlJob("job", Collections.singletonList("http://a.com/"), 0, 100);
+		// 실행하지 않고 모아두는 executor ( client 가 결과를 받지 않는 상태 )
+		List<Runnable> tasks = new ArrayList<>();
+		RecordingSubscriber slow = new RecordingSubscriber();
+		job.subscribe(0, new QueuedSubscriber(job, slow, tasks::add, 3));
+
+		for (int i = 0; i < 10; i++) {
+			job.onPage(page(i));
+		}
+		while (!tasks.isEmpty()) {
+			tasks.remove(0).run();
+		}
+
+		// 가득 찬 시점에 대기열을 버리고 해제, 이후 결과는 전달하지 않음
+		assertTrue(slow.dropped);
+		assertTrue(slow.results.isEmpty());
+		job.seedFinished(null);
+		assertFalse(slow.completed);
+	}
+
+	@Test
+	void subscriberWithinQueueLimitReceivesEverything() {
+		CrawlJob job = new CrawlJob("job", Collections.singletonList("http://a.com/"), 0, 100);
+		List<Runnable> tasks = new ArrayList<>();
+		RecordingSubscriber subscriber = new RecordingSubscriber();
+		job.subscribe(0, new QueuedSubscriber(job, subscriber, tasks::add, 3));
+
+		for (int i = 0; i < 10; i++) {
+			job.onPage(page(i));
+			while (!tasks.isEmpty()) {
+				tasks.remove(0).run();
+			}
+		}
+		job.seedFinished(null);
+		while (!tasks.isEmpty()) {
+			tasks.remove(0).run();
+		}
+
+		assertEquals(10, subscriber.results.size());
+		assertEquals(9L, subscriber.indexes.get(9));
+		assertFalse(subscriber.dropped);
+		assertTrue(subscriber.completed);
+	}
+
+	private static CrawlPageResult page(int i) {
+		return new CrawlPageResult("http://a.com/", "http://a.com/" + i, "http://a.com/" + i, 200,
+				new HeadMetadata(Map.of(), "page " + i, null), 0, System.currentTimeMillis());
+	}
+
+	private static class RecordingSubscriber implements CrawlJobSubscriber {
+
+		final List<Long> indexes = new ArrayList<>();
+
+		final List<CrawlPageResult> results = new ArrayList<>();
+
+		boolean completed;
+
+		boolean dropped;
+
+		@Override
+		public void onResult(long index, CrawlPageResult result) throws IOException {
+			indexes.add(index);
+			results.add(result);
+		}
+
+		@Override
+		public void onComplete(CrawlJobProgress progress) {
+			completed = true;
+		}
+
+		@Override
+		public void onDropped() {
+			dropped = true;
+		}
+	}
+}
@@ -0,0 +1,197 @@
+package com.crawler.metadata.crawl.persist;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import com.crawler.metadata.config.CrawlerProperties;
+import com.crawler.metadata.crawl.CrawlPageResult;
+import com.crawler.metadata.crawl.extract.HeadMetadata;
+
+class MetadataWriterTests {
+
+	private DriverManagerDataSource dataSource;
+
+	private MetadataWriter writer;
+
+	@BeforeEach
+	void createDatabase() {
+		dataSource = new DriverManagerDataSource("jdbc:h2:mem:writer-" + System.nanoTime() + ";DB_CLOSE_DELAY=-1");
+	}
+
+	@AfterEach
+	void stopWriter() {
+		if (writer != null) {
+			writer.stop();
+		}
+	}
+
+	@Test
+	void mergesPagesOnCanonicalUrlAndReplacesMetaTags() throws Exception {
+		writer = new MetadataWriter(dataSource, url -> url.replaceFirst("/$", ""), persistence(100, 10, 1000));
+
+		writer.write(page("http://a.com/x/", "first", tags("description", "old", "keywords", "k")));
+		writer.write(page("http://a.com/x", "second", tags("description", "new")));
+		writer.write(page("http://a.com/y", "other", tags()));
+
+		assertTrue(writer.flush(5, TimeUnit.SECONDS));
+		assertEquals(2, count("SELECT COUNT(*) FROM crawl_page"));
+		assertEquals("second", string("SELECT title FROM crawl_page WHERE url_key = 'http://a.com/x'"));
+		// 이전 결과의 meta tag 는 남지 않음
+		assertEquals(1, count("SELECT COUNT(*) FROM crawl_meta_tag WHERE url_key = 'http://a.com/x'"));
+		assertEquals("new", string("SELECT content FROM crawl_meta_tag WHERE url_key = 'http://a.com/x'"));
+		// 같은 batch 안의 같은 페이지는 한 번만 저장
+		assertEquals(2, writer.getMetrics().getWritten());
+		assertEquals(0, writer.getMetrics().getBuffered());
+	}
+
+	@Test
+	void failedBatchIsRetriedPageByPage() throws Exception {
+		writer = new MetadataWriter(dataSource, url -> url, persistence(100, 10, 1000));
+
+		writer.write(page("http://a.com/1", "t", tags("description", "d")));
+		// meta tag 이름이 column 길이를 넘는 페이지
+		writer.write(page("http://a.com/bad", "t", tags("x".repeat(2000), "d")));
+		writer.write(page("http://a.com/2", "t", tags()));
+
+		assertTrue(writer.flush(5, TimeUnit.SECONDS));
+		assertEquals(2, count("SELECT COUNT(*) FROM crawl_page"));
+		assertEquals(0, count("SELECT COUNT(*) FROM crawl_page WHERE url_key = 'http://a.com/bad'"));
+		assertEquals(1, count("SELECT COUNT(*) FROM crawl_meta_tag"));
+		assertEquals(2, writer.getMetrics().getWritten());
+		assertEquals(1, writer.getMetrics().getFailed());
+		assertEquals(1, writer.getMetrics().getBatches());
+	}
+
+	@Test
+	void flushesPartialBatchAfterInterval() throws Exception {
+		writer = new MetadataWriter(dataSource, url -> url, persistence(100, 1000, 20));
+
+		writer.write(page("http://a.com/1", "t", tags()));
+
+		assertTrue(writer.flush(5, TimeUnit.SECONDS));
+		assertEquals(1, count("SELECT COUNT(*) FROM crawl_page"));
+		assertEquals(1, writer.getMetrics().getBatches());
+	}
+
+	@Test
+	void fullBufferBlocksWriterUntilBatchIsStored() throws Exception {
+		CountDownLatch release = new CountDownLatch(1);
+		// 첫 batch 저장을 막아 버퍼가 차게 만듦
+		DataSource blocking = new DelegatingDataSource(dataSource) {
+
+			private boolean tablesCreated;
+
+			@Override
+			public synchronized Connection getConnection() throws SQLException {
+				if (tablesCreated) {
+					try {
+						release.await();
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+					}
+				}
+				tablesCreated = true;
+				return super.getConnection();
+			}
+		};
+		writer = new MetadataWriter(blocking, url -> url, persistence(2, 1, 1));
+		Thread producer = new Thread(() -> {
+			for (int i = 0; i < 10; i++) {
+				writer.write(page("http://a.com/" + i, "t", tags()));
+			}
+		});
+		producer.start();
+
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while (writer.getMetrics().getBlockedWrites() == 0 && System.nanoTime() < deadline) {
+			Thread.sleep(5);
+		}
+		assertTrue(writer.getMetrics().getBlockedWrites() > 0);
+		assertTrue(producer.isAlive());
+		assertTrue(writer.getMetrics().getBuffered() <= 2);
+
+		release.countDown();
+		producer.join(5000);
+		assertFalse(producer.isAlive());
+		assertTrue(writer.flush(5, TimeUnit.SECONDS));
+		assertEquals(10, count("SELECT COUNT(*) FROM crawl_page"));
+	}
+
+	@Test
+	void stopStoresBufferedPages() throws Exception {
+		writer = new MetadataWriter(dataSource, url -> url, persistence(1000, 500, 60000));
+		for (int i = 0; i < 300; i++) {
+			writer.write(page("http://a.com/" + i, "t", tags("description", "d" + i)));
+		}
+
+		writer.stop();
+
+		assertEquals(300, count("SELECT COUNT(*) FROM crawl_page"));
+		assertEquals(300, count("SELECT COUNT(*) FROM crawl_meta_tag"));
+		assertEquals(300, writer.getMetrics().getWritten());
+	}
+
+	@Test
+	void disabledWriterIgnoresPages() {
+		CrawlerProperties.Persistence persistence = persistence(10, 10, 10);
+		persistence.setEnabled(false);
+		writer = new MetadataWriter(null, url -> url, persistence);
+
+		writer.write(page("http://a.com/1", "t", tags()));
+
+		assertFalse(writer.getMetrics().isEnabled());
+		assertEquals(0, writer.getMetrics().getSubmitted());
+	}
+
+	static CrawlPageResult page(String url, String title, Map<String, String> metaTags) {
+		return new CrawlPageResult("http://a.com/", url, url, 200, new HeadMetadata(metaTags, title, null), 3,
+				System.currentTimeMillis());
+	}
+
+	static Map<String, String> tags(String... nameValues) {
+		Map<String, String> tags = new LinkedHashMap<>();
+		for (int i = 0; i < nameValues.length; i += 2) {
+			tags.put(nameValues[i], nameValues[i + 1]);
+		}
+		return tags;
+	}
+
+	static CrawlerProperties.Persistence persistence(int bufferCapacity, int batchSize, long flushIntervalMs) {
+		CrawlerProperties.Persistence persistence = new CrawlerProperties.Persistence();
+		persistence.setBufferCapacity(bufferCapacity);
+		persistence.setBatchSize(batchSize);
+		persistence.setFlushIntervalMs(flushIntervalMs);
+		return persistence;
+	}
+
+	private long count(String sql) throws SQLException {
+		return Long.parseLong(string(sql));
+	}
+
+	private String string(String sql) throws SQLException {
+		try (Connection connection = dataSource.getConnection();
+				Statement statement = connection.createStatement();
+				ResultSet rs = statement.executeQuery(sql)) {
+			rs.next();
+			return rs.getString(1);
+		}
+	}
+}
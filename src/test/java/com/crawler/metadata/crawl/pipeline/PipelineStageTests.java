@@ -0,0 +1,114 @@
+package com.crawler.metadata.crawl.pipeline;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class PipelineStageTests {
+
+	private final PipelineStage stage = new PipelineStage("test", 1, 1);
+
+	@AfterEach
+	void shutdown() {
+		stage.shutdown();
+	}
+
+	@Test
+	void blocksSubmitterWhileQueueIsFull() throws Exception {
+		CountDownLatch running = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		stage.execute(() -> {
+			running.countDown();
+			await(release);
+		});
+		assertTrue(running.await(5, TimeUnit.SECONDS));
+		stage.execute(() -> {
+		}); // 대기열 1 칸
+
+		CompletableFuture<Void> blocked = CompletableFuture.runAsync(() -> stage.execute(() -> {
+		}));
+		assertThrows(TimeoutException.class, () -> blocked.get(200, TimeUnit.MILLISECONDS));
+		StageMetrics metrics = stage.getMetrics();
+		assertEquals(1, metrics.getQueued());
+		assertEquals(1, metrics.getInFlight());
+		assertEquals(1, metrics.getBlockedSubmits());
+
+		release.countDown();
+		blocked.get(5, TimeUnit.SECONDS);
+		waitUntilProcessed(3);
+		assertEquals(0, stage.getMetrics().getQueued());
+		assertTrue(stage.getMetrics().getMaxWaitMs() >= 100, stage.getMetrics().toString());
+	}
+
+	@Test
+	void countsFailedTasks() throws Exception {
+		stage.execute(() -> {
+			throw new IllegalStateException("parse error");
+		});
+		stage.execute(() -> {
+		});
+
+		waitUntilProcessed(2);
+		assertEquals(1, stage.getMetrics().getFailed());
+	}
+
+	@Test
+	void rejectsAfterShutdown() {
+		stage.shutdown();
+
+		assertThrows(RejectedExecutionException.class, () -> stage.execute(() -> {
+		}));
+	}
+
+	@Test
+	void fetchStageBlocksAtMaxInFlight() throws Exception {
+		FetchStage fetchStage = new FetchStage(1);
+		fetchStage.acquire();
+		long started = fetchStage.start();
+		assertEquals(1, fetchStage.getMetrics().getInFlight());
+
+		CompletableFuture<Void> next = CompletableFuture.runAsync(() -> {
+			try {
+				fetchStage.acquire();
+			} catch (InterruptedException e) {
+				throw new IllegalStateException(e);
+			}
+		});
+		assertThrows(TimeoutException.class, () -> next.get(200, TimeUnit.MILLISECONDS));
+		fetchStage.finish(started, true);
+		assertFalse(next.isDone()); // permit 은 parse 로 넘길 때 반납
+
+		fetchStage.release();
+		next.get(5, TimeUnit.SECONDS);
+		StageMetrics metrics = fetchStage.getMetrics();
+		assertEquals(1, metrics.getProcessed());
+		assertEquals(1, metrics.getBlockedSubmits());
+		assertEquals(0, metrics.getInFlight());
+	}
+
+	private void waitUntilProcessed(long count) throws InterruptedException {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while (stage.getMetrics().getProcessed() < count && System.nanoTime() < deadline) {
+			Thread.sleep(10);
+		}
+		assertEquals(count, stage.getMetrics().getProcessed());
+	}
+
+	private static void await(CountDownLatch latch) {
+		try {
+			latch.await();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
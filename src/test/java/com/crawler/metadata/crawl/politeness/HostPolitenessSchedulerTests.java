@@ -0,0 +1,180 @@
+package com.crawler.metadata.crawl.politeness;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import com.crawler.metadata.config.CrawlerProperties;
+import com.crawler.metadata.crawl.fetch.FetchResult;
+import com.crawler.metadata.crawl.fetch.PageFetcher;
+
+class HostPolitenessSchedulerTests {
+
+	private HostPolitenessScheduler scheduler;
+
+	private PageFetcher pageFetcher;
+
+	@AfterEach
+	void stopScheduler() {
+		if (scheduler != null) {
+			scheduler.stop();
+		}
+		if (pageFetcher != null) {
+			pageFetcher.close();
+		}
+	}
+
+	@Test
+	void limitsConcurrentRequestsPerHost() {
+		scheduler = newScheduler(1000, 10, 2);
+		AtomicInteger inFlight = new AtomicInteger();
+		AtomicInteger maxInFlight = new AtomicInteger();
+		List<CompletableFuture<FetchResult>> results = new ArrayList<>();
+		for (int i = 0; i < 10; i++) {
+			String url = "http://a.example/" + i;
+			results.add(scheduler.schedule(url, () -> CompletableFuture.supplyAsync(() -> {
+				maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+				sleep(20);
+				inFlight.decrementAndGet();
+				return ok(url);
+			})));
+		}
+
+		CompletableFuture.allOf(results.toArray(new CompletableFuture[0])).join();
+
+		assertEquals(2, maxInFlight.get());
+		assertEquals(10, scheduler.getDispatchedCount());
+	}
+
+	@Test
+	void slowHostDoesNotBlockOtherHosts() {
+		// slow.example 은 초당 1건이므로 두 번째 요청은 1초 뒤에나 나감
+		scheduler = newScheduler(1, 1, 1);
+		scheduler.schedule("http://slow.example/1", () -> CompletableFuture.completedFuture(ok("http://slow.example/1")))
+				.join();
+		CompletableFuture<FetchResult> slow = scheduler.schedule("http://slow.example/2",
+				() -> CompletableFuture.completedFuture(ok("http://slow.example/2")));
+
+		long start = System.nanoTime();
+		scheduler.schedule("http://fast.example/1", () -> CompletableFuture.completedFuture(ok("http://fast.example/1")))
+				.join();
+		long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+		assertTrue(elapsedMs < 500, "fast host waited " + elapsedMs + "ms");
+		assertTrue(!slow.isDone());
+		slow.join();
+	}
+
+	@Test
+	void backsOffOnTooManyRequests() {
+		scheduler = newScheduler(1000, 1, 1);
+		scheduler.schedule("http://busy.example/", () -> CompletableFuture.completedFuture(
+				new FetchResult("http://busy.example/", "http://busy.example/", 429,
+						Map.of("Retry-After", Collections.singletonList("1")), new byte[0], StandardCharsets.UTF_8, 0)))
+				.join();
+
+		long start = System.nanoTime();
+		scheduler.schedule("http://busy.example/next", () -> CompletableFuture.completedFuture(ok("http://busy.example/next")))
+				.join();
+		long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+		assertTrue(elapsedMs >= 900, "Retry-After ignored, waited " + elapsedMs + "ms");
+		assertEquals(1, scheduler.getThrottledCount());
+		HostStats stats = scheduler.getHostStats().get(0);
+		assertEquals(1, stats.getThrottledResponses());
+	}
+
+	@Test
+	void fetchIsStartedOnFetchExecutor() {
+		scheduler = newScheduler(1000, 1, 1);
+
+		String thread = scheduler.schedule("http://a.example/",
+				() -> CompletableFuture.completedFuture(ok(Thread.currentThread().getName()))).join().getUrl();
+
+		assertTrue(thread.startsWith("fetch-io-"), thread);
+	}
+
+	@Test
+	void evictsIdleHostsButKeepsCrawlDelay() {
+		scheduler = newScheduler(1000, 1, 1, 50);
+		scheduler.setCrawlDelay("a.example", 1000);
+		scheduler.schedule("http://a.example/", () -> CompletableFuture.completedFuture(ok("http://a.example/"))).join();
+		sleep(100);
+
+		scheduler.schedule("http://b.example/", () -> CompletableFuture.completedFuture(ok("http://b.example/"))).join();
+
+		assertEquals(1, scheduler.getHostCount());
+		assertEquals("b.example", scheduler.getHostStats().get(0).getHost());
+		scheduler.schedule("http://a.example/", () -> CompletableFuture.completedFuture(ok("http://a.example/"))).join();
+		for (HostStats stats : scheduler.getHostStats()) {
+			if ("a.example".equals(stats.getHost())) {
+				assertEquals(1000.0, stats.getIntervalMs(), 0.001);
+			}
+		}
+	}
+
+	@Test
+	void throttledHostIsNotEvictedWhileBlocked() {
+		scheduler = newScheduler(1000, 1, 1, 50);
+		scheduler.schedule("http://busy.example/", () -> CompletableFuture.completedFuture(
+				new FetchResult("http://busy.example/", "http://busy.example/", 429,
+						Map.of("Retry-After", Collections.singletonList("5")), new byte[0], StandardCharsets.UTF_8, 0)))
+				.join();
+		sleep(100);
+
+		scheduler.schedule("http://b.example/", () -> CompletableFuture.completedFuture(ok("http://b.example/"))).join();
+
+		assertEquals(2, scheduler.getHostCount());
+	}
+
+	@Test
+	void parsesRetryAfter() {
+		assertEquals(TimeUnit.SECONDS.toNanos(120), HostPolitenessScheduler.parseRetryAfterNanos(" 120 "));
+		assertEquals(0, HostPolitenessScheduler.parseRetryAfterNanos(null));
+		assertEquals(0, HostPolitenessScheduler.parseRetryAfterNanos("soon"));
+		String date = DateTimeFormatter.RFC_1123_DATE_TIME.format(ZonedDateTime.now().plusSeconds(30));
+		long nanos = HostPolitenessScheduler.parseRetryAfterNanos(date);
+		assertTrue(nanos > TimeUnit.SECONDS.toNanos(25) && nanos <= TimeUnit.SECONDS.toNanos(30), "nanos " + nanos);
+	}
+
+	private HostPolitenessScheduler newScheduler(double requestsPerSecond, int burst, int maxConcurrency) {
+		return newScheduler(requestsPerSecond, burst, maxConcurrency, 600000);
+	}
+
+	private HostPolitenessScheduler newScheduler(double requestsPerSecond, int burst, int maxConcurrency,
+			long hostIdleTtlMs) {
+		CrawlerProperties properties = new CrawlerProperties();
+		properties.getPoliteness().setHostIdleTtlMs(hostIdleTtlMs);
+		properties.getPoliteness().setRequestsPerSecond(requestsPerSecond);
+		properties.getPoliteness().setBurst(burst);
+		properties.getPoliteness().setMaxConcurrencyPerHost(maxConcurrency);
+		properties.getPoliteness().setLatencyFactor(0);
+		pageFetcher = new PageFetcher(properties);
+		return new HostPolitenessScheduler(properties, pageFetcher);
+	}
+
+	private static FetchResult ok(String url) {
+		return new FetchResult(url, url, 200, Collections.emptyMap(), new byte[0], StandardCharsets.UTF_8, 0);
+	}
+
+	private static void sleep(long millis) {
+		try {
+			Thread.sleep(millis);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
@@ -0,0 +1,229 @@
+package com.crawler.metadata.crawl.render;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import com.crawler.metadata.config.CrawlerProperties;
+import com.microsoft.playwright.Page;
+
+class BrowserPoolTests {
+
+	private final List<FakeWorker> created = new CopyOnWriteArrayList<>();
+
+	// 다음에 만들 worker 의 start 실패 여부
+	private volatile boolean failNextStart;
+
+	private BrowserPool pool;
+
+	@AfterEach
+	void closePool() {
+		if (pool != null) {
+			pool.close();
+		}
+	}
+
+	@Test
+	void leasesReuseIdleBrowsersUpToPoolSize() {
+		pool = open(2, 50, 200);
+
+		BrowserLease first = pool.lease();
+		BrowserLease second = pool.lease();
+		RenderException timeout = assertThrows(RenderException.class, () -> pool.lease());
+		first.close();
+		BrowserLease third = pool.lease();
+
+		assertTrue(timeout.getMessage().contains("200ms"), timeout.getMessage());
+		assertEquals(2, created.size());
+		assertEquals("page-1", third.execute(page -> "page-1"));
+		assertEquals(1, created.get(0).pages);
+		second.close();
+		third.close();
+		assertEquals(2, pool.getMetrics().getIdleBrowsers());
+		assertEquals(3, pool.getMetrics().getLeases());
+	}
+
+	@Test
+	void unhealthyBrowsersAreRestartedBeforeReuse() {
+		pool = open(1, 50, 200);
+
+		try (BrowserLease lease = pool.lease()) {
+			assertThrows(IllegalStateException.class, () -> lease.execute(page -> {
+				throw new IllegalStateException("crashed");
+			}));
+		}
+		// 반환 시 재시작
+		assertEquals(1, created.get(0).restarts);
+		created.get(0).healthy = false;
+		try (BrowserLease lease = pool.lease()) {
+			assertEquals("ok", lease.execute(page -> "ok"));
+		}
+
+		assertEquals(1, created.size());
+		assertEquals(2, created.get(0).restarts);
+		assertEquals(2, pool.getMetrics().getRestarts());
+		assertEquals(1, pool.getMetrics().getRenderFailures());
+	}
+
+	@Test
+	void contextsAreRecycledAfterConfiguredPages() {
+		pool = open(1, 2, 200);
+
+		for (int i = 0; i < 5; i++) {
+			try (BrowserLease lease = pool.lease()) {
+				lease.execute(page -> null);
+			}
+		}
+
+		assertEquals(2, created.get(0).recycles);
+		assertEquals(2, pool.getMetrics().getRecycles());
+	}
+
+	@Test
+	void failedLaunchFreesPoolSlot() {
+		pool = open(1, 50, 200);
+		failNextStart = true;
+
+		assertThrows(RenderException.class, () -> pool.lease());
+		try (BrowserLease lease = pool.lease()) {
+			assertEquals("ok", lease.execute(page -> "ok"));
+		}
+
+		assertEquals(2, created.size());
+		assertTrue(created.get(0).closed);
+		assertEquals(1, pool.getMetrics().getBrowsers());
+	}
+
+	@Test
+	void waitersLaunchReplacementWhenBrowserIsDiscarded() throws Exception {
+		pool = open(1, 50, 10_000);
+		BrowserLease lease = pool.lease();
+		CompletableFuture<BrowserLease> waiter = CompletableFuture.supplyAsync(() -> pool.lease());
+		TimeUnit.MILLISECONDS.sleep(100);
+
+		// 재시작에 실패한 browser 는 버려지고 자리가 빔
+		FakeWorker broken = created.get(0);
+		broken.healthy = false;
+		broken.failRestart = true;
+		long start = System.nanoTime();
+		lease.close();
+		BrowserLease replacement = waiter.get(5, TimeUnit.SECONDS);
+		long waitedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+		assertTrue(waitedMs < 1000, "waited ===> " + waitedMs);
+		assertTrue(broken.closed);
+		assertEquals(2, created.size());
+		assertEquals("ok", replacement.execute(page -> "ok"));
+		replacement.close();
+		assertEquals(1, pool.getMetrics().getBrowsers());
+	}
+
+	@Test
+	void closedPoolRejectsLeasesAndClosesBrowsers() {
+		pool = open(1, 50, 200);
+		pool.lease().close();
+
+		pool.close();
+
+		assertTrue(created.get(0).closed);
+		assertThrows(RenderException.class, () -> pool.lease());
+	}
+
+	private BrowserPool open(int poolSize, int recycleAfterPages, long leaseTimeoutMs) {
+		CrawlerProperties properties = new CrawlerProperties();
+		properties.getBrowser().setPoolSize(poolSize);
+		properties.getBrowser().setRecycleAfterPages(recycleAfterPages);
+		properties.getBrowser().setLeaseTimeoutMs(leaseTimeoutMs);
+		properties.getBrowser().setRenderTimeoutMs(1000);
+		return new BrowserPool(properties, (id, profile, blocked) -> {
+			FakeWorker worker = new FakeWorker(id, profile, blocked, failNextStart);
+			failNextStart = false;
+			created.add(worker);
+			return worker;
+		});
+	}
+
+	/**
+	 * playwright 없이 상태만 흉내내는 worker
+	 */
+	private static final class FakeWorker extends BrowserWorker {
+
+		private final boolean failStart;
+
+		private volatile boolean healthy = true;
+
+		private volatile boolean failRestart;
+
+		private volatile boolean closed;
+
+		private volatile int pages;
+
+		private volatile int restarts;
+
+		private volatile int recycles;
+
+		private FakeWorker(int id, RenderProfile renderProfile, LongAdder blockedRequests, boolean failStart) {
+			super(id, renderProfile, blockedRequests);
+			this.failStart = failStart;
+		}
+
+		@Override
+		void start(long timeoutMs) {
+			if (failStart) {
+				throw new RenderException("launch failed");
+			}
+		}
+
+		@Override
+		<T> T render(Function<Page, T> task, long timeoutMs) {
+			pages++;
+			try {
+				return task.apply(null);
+			} catch (RuntimeException e) {
+				healthy = false;
+				throw e;
+			}
+		}
+
+		@Override
+		boolean isHealthy(long timeoutMs) {
+			return healthy;
+		}
+
+		@Override
+		void restart(long timeoutMs) {
+			restarts++;
+			if (failRestart) {
+				throw new RenderException("restart failed");
+			}
+			healthy = true;
+			pages = 0;
+		}
+
+		@Override
+		boolean recycleIfNeeded(int recycleAfterPages, long timeoutMs) {
+			if (pages < recycleAfterPages) {
+				return false;
+			}
+			recycles++;
+			pages = 0;
+			return true;
+		}
+
+		@Override
+		void close() {
+			closed = true;
+		}
+	}
+}
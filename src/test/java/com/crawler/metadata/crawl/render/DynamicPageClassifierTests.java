@@ -0,0 +1,189 @@
+package com.crawler.metadata.crawl.render;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import com.crawler.metadata.config.CrawlerProperties;
+import com.crawler.metadata.crawl.fetch.FetchResult;
+
+class DynamicPageClassifierTests {
+
+	private static final String HEAD = "<head><title>page</title><meta name=\"description\" content=\"about\">"
+			+ "<script src=\"/analytics.js\"></script></head>";
+
+	private static final String SPA_SHELL = "<html><head><title>app</title></head><body>"
+			+ "<div id=\"root\"></div><script src=\"/bundle.js\"></script></body></html>";
+
+	private final DynamicPageClassifier classifier = new DynamicPageClassifier(new CrawlerProperties());
+
+	@Test
+	void pagesWithCompleteStaticMetadataAreNotRenderedEvenWithScripts() {
+		RenderDecision decision = classifier.classify("<html>" + HEAD + "<body ng-controller=\"main\">"
+				+ "<a href=\"/next\">next</a><script>window.x = '{{ }}';</script></body></html>", "a.com");
+
+		assertFalse(decision.isRenderRequired());
+		assertEquals(RenderDecision.Reason.META_COMPLETE, decision.getReason());
+		assertEquals(2, decision.getStaticMetaCount());
+		assertEquals(1, decision.getStaticLinkCount());
+	}
+
+	@Test
+	void emptySpaRootsAreRendered() {
+		assertEquals(RenderDecision.Reason.SPA_ROOT, classifier.classify(SPA_SHELL, "a.com").getReason());
+		// meta tag 가 있어도 link 를 얻으려면 렌더링해야 함
+		RenderDecision decision = classifier.classify("<html>" + HEAD + "<body><app-root></app-root></body></html>",
+				"a.com");
+		assertTrue(decision.isRenderRequired());
+		assertEquals(RenderDecision.Reason.SPA_ROOT, decision.getReason());
+		// 서버에서 그려둔 root 는 렌더링하지 않음
+		assertFalse(classifier.classify("<html><head><title>app</title></head><body><div id=\"__next\">"
+				+ "<h1>hello</h1><p>text</p></div></body></html>", "a.com").isRenderRequired());
+	}
+
+	@Test
+	void noscriptHintsAndTemplatePlaceholdersAreRendered() {
+		RenderDecision hint = classifier.classify("<html><head><title>app</title></head><body>"
+				+ "<noscript>You need to enable JavaScript to run this app.</noscript>"
+				+ "<header><nav><ul><li>a</li><li>b</li><li>c</li></ul></nav></header><main><p>x</p></main>"
+				+ "</body></html>", "a.com");
+		assertEquals(RenderDecision.Reason.NOSCRIPT_HINT, hint.getReason());
+
+		RenderDecision placeholder = classifier.classify("<html><head><title>{{ page.title }}</title>"
+				+ "<meta name=\"description\" content=\"about\"></head><body><a href=\"/x\">x</a></body></html>",
+				"a.com");
+		assertEquals(RenderDecision.Reason.TEMPLATE_PLACEHOLDER, placeholder.getReason());
+	}
+
+	@Test
+	void scriptShellsAreRenderedButStaticContentIsNot() {
+		RenderDecision shell = classifier.classify("<html><head><title>app</title><script src=\"/a.js\"></script>"
+				+ "</head><body><div class=\"loading\"></div></body></html>", "a.com");
+		assertEquals(RenderDecision.Reason.SCRIPT_SHELL, shell.getReason());
+
+		// description 이 없어도 내용이 있는 페이지는 렌더링해도 달라지지 않음 ( 추적 pixel noscript 는 무시 )
+		RenderDecision article = classifier.classify("<html><head><title>post</title><script src=\"/a.js\"></script>"
+				+ "</head><body><noscript><img src=\"/pixel.gif\"></noscript><article><h1>t</h1><p>1</p><p>2</p>"
+				+ "<p>3</p><p>4</p><p>5</p><a href=\"/a\">a</a><a href=\"/b\">b</a></article></body></html>", "a.com");
+		assertFalse(article.isRenderRequired());
+		assertEquals(RenderDecision.Reason.STATIC_CONTENT, article.getReason());
+	}
+
+	@Test
+	void templatesGroupUrlsByFirstSegmentAndDepth() {
+		assertEquals("a.com/product/*", DynamicPageClassifier.templateOf("https://A.com/product/123?color=red"));
+		assertEquals("a.com/product/*", DynamicPageClassifier.templateOf("https://a.com/product/shoes#top"));
+		assertEquals("a.com/*/*", DynamicPageClassifier.templateOf("http://a.com:8080/2024/post"));
+		assertEquals("a.com/blog", DynamicPageClassifier.templateOf("http://a.com/blog/"));
+		assertEquals("a.com", DynamicPageClassifier.templateOf("http://a.com"));
+	}
+
+	@Test
+	void templateDecisionIsReusedAfterConsistentSamples() {
+		String html = "<html>" + HEAD + "<body><a href=\"/next\">next</a></body></html>";
+		for (int i = 0; i < 3; i++) {
+			assertFalse(classifier.classify(page("http://a.com/item/" + i, html)).isCached());
+		}
+
+		RenderDecision cached = classifier.classify(page("http://a.com/item/99", SPA_SHELL));
+
+		assertTrue(cached.isCached());
+		assertFalse(cached.isRenderRequired());
+		RenderDecisionMetrics metrics = classifier.getMetrics();
+		assertEquals(4, metrics.getClassified());
+		assertEquals(4, metrics.getSkipped());
+		assertEquals(1, metrics.getTemplateHits());
+		assertEquals(1, metrics.getTemplates());
+		assertEquals(0, metrics.getRenderRate());
+	}
+
+	@Test
+	void templatesStopRenderingWhenRendersAddNothing() {
+		for (int i = 0; i < 3; i++) {
+			RenderDecision decision = classifier.classify(page("http://a.com/app/" + i, SPA_SHELL));
+			assertTrue(decision.isRenderRequired());
+			// 렌더링해도 meta tag, link 가 늘지 않음
+			classifier.recordRender(decision, "<html><head><title>app</title></head><body><div id=\"root\">"
+					+ "<canvas></canvas></div></body></html>", TimeUnit.MILLISECONDS.toNanos(100));
+		}
+
+		RenderDecision next = classifier.classify(page("http://a.com/app/3", SPA_SHELL));
+
+		assertFalse(next.isRenderRequired());
+		assertTrue(next.isCached());
+		RenderDecisionMetrics metrics = classifier.getMetrics();
+		assertEquals(3, metrics.getRendered());
+		assertEquals(3, metrics.getUselessRenders());
+		assertEquals(0.75, metrics.getRenderRate());
+		assertEquals(100.0, metrics.getAvgRenderMs(), 0.001);
+		assertEquals(100.0, metrics.getEstimatedSavedMs(), 0.001);
+		assertEquals(3L, metrics.getReasons().get("SPA_ROOT"));
+	}
+
+	@Test
+	void usefulRendersKeepTemplateRendering() {
+		for (int i = 0; i < 3; i++) {
+			RenderDecision decision = classifier.classify(page("http://b.com/app/" + i, SPA_SHELL));
+			classifier.recordRender(decision, "<html><head><title>app</title>"
+					+ "<meta property=\"og:title\" content=\"x\"></head><body><div id=\"root\"><a href=\"/a\">a</a>"
+					+ "</div></body></html>", TimeUnit.MILLISECONDS.toNanos(50));
+		}
+
+		RenderDecision next = classifier.classify(page("http://b.com/app/3", "<html><body></body></html>"));
+
+		assertTrue(next.isCached());
+		assertTrue(next.isRenderRequired());
+		assertEquals(3, classifier.getMetrics().getUsefulRenders());
+	}
+
+	@Test
+	void templateDecisionExpiresAfterTtl() throws Exception {
+		CrawlerProperties properties = new CrawlerProperties();
+		properties.getRender().setTemplateDecisionTtlMs(50);
+		DynamicPageClassifier expiring = new DynamicPageClassifier(properties);
+		String html = "<html>" + HEAD + "<body><a href=\"/next\">next</a></body></html>";
+		for (int i = 0; i < 3; i++) {
+			expiring.classify(page("http://a.com/item/" + i, html));
+		}
+		assertTrue(expiring.classify(page("http://a.com/item/3", SPA_SHELL)).isCached());
+		Thread.sleep(100);
+
+		// 개편된 페이지를 다시 판별
+		RenderDecision next = expiring.classify(page("http://a.com/item/4", SPA_SHELL));
+
+		assertFalse(next.isCached());
+		assertTrue(next.isRenderRequired());
+		assertEquals(RenderDecision.Reason.SPA_ROOT, next.getReason());
+	}
+
+	@Test
+	void leastRecentlyUsedTemplateIsEvicted() {
+		CrawlerProperties properties = new CrawlerProperties();
+		properties.getRender().setTemplateCacheSize(2);
+		DynamicPageClassifier bounded = new DynamicPageClassifier(properties);
+		String html = "<html>" + HEAD + "<body><a href=\"/next\">next</a></body></html>";
+		for (int i = 0; i < 3; i++) {
+			bounded.classify(page("http://a.com/item/" + i, html));
+		}
+		bounded.classify(page("http://b.com/item/1", html));
+		// a.com 을 다시 사용해서 b.com 이 가장 오래 사용하지 않은 template
+		assertTrue(bounded.classify(page("http://a.com/item/3", html)).isCached());
+
+		bounded.classify(page("http://c.com/item/1", html));
+
+		assertEquals(2, bounded.getMetrics().getTemplates());
+		assertTrue(bounded.classify(page("http://a.com/item/4", html)).isCached());
+	}
+
+	private static FetchResult page(String url, String html) {
+		return new FetchResult(url, url, 200, Map.of("Content-Type", List.of("text/html")),
+				html.getBytes(StandardCharsets.UTF_8), StandardCharsets.UTF_8, 0L);
+	}
+}
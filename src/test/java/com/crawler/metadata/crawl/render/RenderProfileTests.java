@@ -0,0 +1,227 @@
+package com.crawler.metadata.crawl.render;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+
+import com.crawler.metadata.config.CrawlerProperties;
+import com.crawler.metadata.crawl.fetch.FetchResult;
+import com.crawler.metadata.crawl.fetch.PageFetcher;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+class RenderProfileTests {
+
+	// fixture 페이지의 xhr 응답 지연 ( network idle 까지 기다리면 최소 이만큼 걸림 )
+	private static final int SLOW_MS = 2000;
+
+	// DOMContentLoaded 에 description meta tag 를 추가하고, 그 뒤로도 느린 xhr 때문에 network 가 계속 바쁜 페이지
+	private static final String SPA_PAGE = "<html><head><title>spa</title>"
+			+ "<link rel=\"stylesheet\" href=\"/style.css\">"
+			+ "<script>fetch('/slow');document.addEventListener('DOMContentLoaded', () => {"
+			+ "const meta = document.createElement('meta'); meta.name = 'description'; meta.content = 'rendered';"
+			+ "document.head.appendChild(meta);});</script></head>"
+			+ "<body><img src=\"/image.png\"><a href=\"/next\">next</a></body></html>";
+
+	// meta tag 가 생기지 않는 페이지 ( network idle 까지 기다려야 함 )
+	private static final String NO_META_PAGE = "<html><head><title>plain</title><script>fetch('/slow');</script>"
+			+ "</head><body><a href=\"/next\">next</a></body></html>";
+
+	private final AtomicInteger heavyRequests = new AtomicInteger();
+
+	private final AtomicInteger documentRequests = new AtomicInteger();
+
+	@Test
+	void defaultProfileBlocksHeavyResources() {
+		RenderProfile profile = RenderProfile.from(new CrawlerProperties().getRender());
+
+		assertTrue(profile.interceptsRequests());
+		for (String type : Arrays.asList("image", "font", "media", "stylesheet")) {
+			assertTrue(profile.shouldBlock(type, "https://cdn.other.com/a", "www.example.com"), type);
+		}
+		assertFalse(profile.shouldBlock("document", "https://www.example.com/", "www.example.com"));
+		assertFalse(profile.shouldBlock("script", "https://cdn.other.com/app.js", "www.example.com"));
+		assertFalse(profile.shouldBlock("xhr", "https://api.example.com/data", "www.example.com"));
+	}
+
+	@Test
+	void thirdPartyScriptsAreBlockedOnlyWhenEnabled() {
+		RenderProfile profile = new RenderProfile(Collections.emptyList(), true, true, "head meta", 1000);
+
+		assertTrue(profile.shouldBlock("script", "https://tracker.ads.net/t.js", "www.example.com"));
+		assertFalse(profile.shouldBlock("script", "https://static.example.com/app.js", "www.example.com"));
+		assertFalse(profile.shouldBlock("script", "https://www.example.com/app.js", "www.example.com"));
+		// 페이지 host 를 아직 모르면 차단하지 않음
+		assertFalse(profile.shouldBlock("script", "https://tracker.ads.net/t.js", null));
+	}
+
+	@Test
+	void lightProfileRendersFixtureFasterWithoutHeavyResources() throws Exception {
+		assumeTrue(chromiumInstalled(), "chromium is not installed");
+		HttpServer server = startFixtureServer();
+		ExecutorService executor = (ExecutorService) server.getExecutor();
+		try {
+			String url = "http://127.0.0.1:" + server.getAddress().getPort() + "/spa";
+
+			CrawlerProperties light = new CrawlerProperties();
+			long lightMs = timeRender(light, url, "rendered");
+			int lightHeavyRequests = heavyRequests.getAndSet(0);
+
+			CrawlerProperties full = new CrawlerProperties();
+			full.getRender().setBlockResourceTypes(new ArrayList<>());
+			full.getRender().setEarlyExitOnHeadMeta(false);
+			long fullMs = timeRender(full, url, "rendered");
+
+			// meta tag 가 생기면 느린 xhr 을 기다리지 않고 반환
+			assertTrue(lightMs < SLOW_MS, "light ===> " + lightMs);
+			assertTrue(fullMs >= SLOW_MS, "full ===> " + fullMs);
+			// image, stylesheet 는 요청하지 않음
+			assertEquals(0, lightHeavyRequests);
+			assertTrue(heavyRequests.get() > 0);
+		} finally {
+			server.stop(0);
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	void earlyExitFallsBackToNetworkIdleWithoutHeadMeta() throws Exception {
+		assumeTrue(chromiumInstalled(), "chromium is not installed");
+		HttpServer server = startFixtureServer();
+		ExecutorService executor = (ExecutorService) server.getExecutor();
+		try {
+			CrawlerProperties properties = new CrawlerProperties();
+			properties.getRender().setHeadMetaWaitMs(300);
+
+			long elapsedMs = timeRender(properties,
+					"http://127.0.0.1:" + server.getAddress().getPort() + "/no-meta", "plain");
+
+			assertTrue(elapsedMs >= SLOW_MS, "elapsed ===> " + elapsedMs);
+		} finally {
+			server.stop(0);
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	void fetchedDocumentIsRenderedWithoutDownloadingItAgain() throws Exception {
+		assumeTrue(chromiumInstalled(), "chromium is not installed");
+		HttpServer server = startFixtureServer();
+		ExecutorService executor = (ExecutorService) server.getExecutor();
+		CrawlerProperties properties = new CrawlerProperties();
+		PageFetcher fetcher = new PageFetcher(properties);
+		BrowserPool pool = new BrowserPool(properties);
+		try {
+			FetchResult page = fetcher.fetch("http://127.0.0.1:" + server.getAddress().getPort() + "/spa");
+
+			String html = pool.render(page);
+
+			assertTrue(html.contains("rendered"), html);
+			// main document 는 정적 요청 한 번만
+			assertEquals(1, documentRequests.get());
+		} finally {
+			pool.close();
+			fetcher.close();
+			server.stop(0);
+			executor.shutdownNow();
+		}
+	}
+
+	// browser 를 먼저 띄운 뒤 렌더링 시간만 측정
+	private static long timeRender(CrawlerProperties properties, String url, String expected) {
+		BrowserPool pool = new BrowserPool(properties);
+		try {
+			pool.lease().close();
+			long start = System.nanoTime();
+			String html = pool.render(url);
+			long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+			assertTrue(html.contains(expected), html);
+			return elapsedMs;
+		} finally {
+			pool.close();
+		}
+	}
+
+	private HttpServer startFixtureServer() throws IOException {
+		HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		server.setExecutor(Executors.newCachedThreadPool());
+		server.createContext("/spa", exchange -> {
+			documentRequests.incrementAndGet();
+			respond(exchange, "text/html; charset=UTF-8", SPA_PAGE);
+		});
+		server.createContext("/no-meta", exchange -> respond(exchange, "text/html; charset=UTF-8", NO_META_PAGE));
+		server.createContext("/slow", exchange -> {
+			try {
+				TimeUnit.MILLISECONDS.sleep(SLOW_MS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			respond(exchange, "application/json", "{}");
+		});
+		server.createContext("/style.css", exchange -> {
+			heavyRequests.incrementAndGet();
+			respond(exchange, "text/css", "body { color: black; }");
+		});
+		server.createContext("/image.png", exchange -> {
+			heavyRequests.incrementAndGet();
+			respond(exchange, "image/png", "");
+		});
+		server.start();
+		return server;
+	}
+
+	private static void respond(HttpExchange exchange, String contentType, String body) throws IOException {
+		byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+		exchange.getResponseHeaders().add("Content-Type", contentType);
+		exchange.sendResponseHeaders(200, bytes.length == 0 ? -1 : bytes.length);
+		try (OutputStream out = exchange.getResponseBody()) {
+			out.write(bytes);
+		}
+	}
+
+	// playwright 가 내려받은 chromium 이 있는지 ( 없으면 렌더링 시험은 건너뜀 )
+	private static boolean chromiumInstalled() {
+		List<Path> candidates = new ArrayList<>();
+		String browsersPath = System.getenv("PLAYWRIGHT_BROWSERS_PATH");
+		if (browsersPath != null && !browsersPath.isEmpty() && !"0".equals(browsersPath)) {
+			candidates.add(Paths.get(browsersPath));
+		}
+		String home = System.getProperty("user.home");
+		candidates.add(Paths.get(home, ".cache", "ms-playwright"));
+		candidates.add(Paths.get(home, "Library", "Caches", "ms-playwright"));
+		candidates.add(Paths.get(home, "AppData", "Local", "ms-playwright"));
+		for (Path candidate : candidates) {
+			if (!Files.isDirectory(candidate)) {
+				continue;
+			}
+			try (Stream<Path> entries = Files.list(candidate)) {
+				if (entries.anyMatch(entry -> entry.getFileName().toString().startsWith("chromium"))) {
+					return true;
+				}
+			} catch (IOException e) {
+				// 다음 후보 확인
+			}
+		}
+		return false;
+	}
+}
@@ -0,0 +1,187 @@
+package com.crawler.metadata.crawl.revisit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import com.crawler.metadata.config.CrawlerProperties;
+import com.crawler.metadata.crawl.CrawlPageResult;
+import com.crawler.metadata.crawl.extract.HeadMetadata;
+
+class RecrawlSchedulerTests {
+
+	private static final long MINUTE = 60_000L;
+
+	private DriverManagerDataSource dataSource;
+
+	private RecrawlScheduler scheduler;
+
+	@BeforeEach
+	void createDatabase() {
+		dataSource = new DriverManagerDataSource("jdbc:h2:mem:recrawl-" + System.nanoTime() + ";DB_CLOSE_DELAY=-1");
+	}
+
+	@AfterEach
+	void stopScheduler() {
+		if (scheduler != null) {
+			scheduler.stop();
+		}
+	}
+
+	@Test
+	void intervalShrinksForChangingPagesAndGrowsForStaticPages() {
+		scheduler = open(recrawl(60 * MINUTE, 1000));
+
+		long changing = 60 * MINUTE;
+		long unchanged = 60 * MINUTE;
+		double visits = 0;
+		double changes = 0;
+		for (int i = 0; i < 10; i++) {
+			visits = visits * RecrawlScheduler.DECAY + 1;
+			changes = changes * RecrawlScheduler.DECAY + 1;
+			changing = scheduler.estimateInterval(visits, changes, changing, changing);
+			unchanged = scheduler.estimateInterval(visits, 0, unchanged, unchanged);
+		}
+
+		assertEquals(MINUTE, changing);
+		assertEquals(24 * 60 * MINUTE, unchanged);
+		// 10 번에 한 번 바뀌면 방문 간격의 약 10 배 ( 한 번에 2 배까지만 늘림 )
+		assertEquals(2 * 60 * MINUTE, scheduler.estimateInterval(10, 1, 60 * MINUTE, 60 * MINUTE));
+		long estimated = scheduler.estimateInterval(10, 1, 60 * MINUTE, 24 * 60 * MINUTE);
+		assertTrue(estimated > 9 * 60 * MINUTE && estimated < 11 * 60 * MINUTE, String.valueOf(estimated));
+	}
+
+	@Test
+	void observationsCountMetadataChangesOnly() throws Exception {
+		scheduler = open(recrawl(1, 1000));
+
+		scheduler.observe(page("http://a.com/x", "title", "d1"));
+		scheduler.flush();
+		scheduler.observe(page("http://a.com/x", "title", "d1"));
+		scheduler.flush();
+		scheduler.observe(page("http://a.com/x", "title", "d2"));
+		scheduler.flush();
+
+		assertEquals(3, scheduler.getMetrics().getObserved());
+		assertEquals(1, scheduler.getMetrics().getChanged());
+		assertEquals(1, count("SELECT COUNT(*) FROM crawl_schedule"));
+	}
+
+	@Test
+	void pollsDueUrlsInOrderAndLeasesThem() throws Exception {
+		scheduler = open(recrawl(200, 1000));
+		for (int i = 0; i < 5; i++) {
+			scheduler.observe(page("http://a.com/" + i, "title", "d"));
+			Thread.sleep(2);
+		}
+		scheduler.flush();
+		Thread.sleep(250);
+
+		List<ScheduledUrl> first = scheduler.pollDue(3);
+		List<ScheduledUrl> rest = scheduler.pollDue(10);
+
+		assertEquals(List.of("http://a.com/0", "http://a.com/1", "http://a.com/2"),
+				first.stream().map(ScheduledUrl::getUrl).collect(Collectors.toList()));
+		assertEquals(2, rest.size());
+		// lease 한 url 은 한 간격 뒤에 다시 꺼냄
+		assertTrue(scheduler.pollDue(10).isEmpty());
+		Thread.sleep(250);
+		assertEquals(5, scheduler.pollDue(10).size());
+		assertEquals(10, scheduler.getMetrics().getDispatched());
+	}
+
+	@Test
+	void discoveredUrlsAreDueNowButDoNotResetTrackedUrls() throws Exception {
+		scheduler = open(recrawl(60 * MINUTE, 1000));
+		scheduler.observe(page("http://a.com/tracked", "title", "d"));
+		scheduler.flush();
+
+		scheduler.discover("http://a.com/", List.of("http://a.com/tracked", "http://a.com/new"));
+		scheduler.flush();
+
+		List<ScheduledUrl> due = scheduler.pollDue(10);
+		assertEquals(1, due.size());
+		assertEquals("http://a.com/new", due.get(0).getUrl());
+		assertEquals("http://a.com/", due.get(0).getSeedUrl());
+		assertEquals(1, scheduler.getMetrics().getDiscovered());
+	}
+
+	@Test
+	void windowBoundsUrlsHeldInMemory() throws Exception {
+		CrawlerProperties.Recrawl recrawl = recrawl(500, 1000);
+		recrawl.setWindowSize(10);
+		scheduler = open(recrawl);
+		for (int i = 0; i < 50; i++) {
+			scheduler.observe(page("http://a.com/" + i, "title", "d"));
+		}
+		scheduler.flush();
+		Thread.sleep(550);
+
+		int polled = scheduler.pollDue(1).size();
+
+		assertEquals(1, polled);
+		assertEquals(9, scheduler.getMetrics().getScheduled());
+		int total = polled;
+		for (int i = 0; i < 10; i++) {
+			total += scheduler.pollDue(100).size();
+		}
+		assertEquals(50, total);
+	}
+
+	@Test
+	void failedBatchDropsOnlyFailingObservations() throws Exception {
+		scheduler = open(recrawl(60 * MINUTE, 60_000));
+		for (int i = 0; i < 5; i++) {
+			scheduler.observe(page("http://a.com/" + i, "title", "d"));
+		}
+		// url 이 컬럼 길이를 넘는 관측만 저장 실패
+		scheduler.observe(page("http://a.com/" + "x".repeat(5000), "title", "d"));
+
+		assertEquals(5, scheduler.flush());
+
+		assertEquals(5, scheduler.getMetrics().getWritten());
+		assertEquals(1, scheduler.getMetrics().getFailed());
+		assertEquals(0, scheduler.getMetrics().getPending());
+		assertEquals(5, count("SELECT COUNT(*) FROM crawl_schedule"));
+	}
+
+	private RecrawlScheduler open(CrawlerProperties.Recrawl recrawl) {
+		return new RecrawlScheduler(dataSource, url -> url, recrawl);
+	}
+
+	// 처음 방문 간격 = initial, 최소 initial 과 1 분 중 짧은 쪽, 최대 하루
+	private static CrawlerProperties.Recrawl recrawl(long initialIntervalMs, long flushIntervalMs) {
+		CrawlerProperties.Recrawl recrawl = new CrawlerProperties.Recrawl();
+		recrawl.setInitialIntervalMs(initialIntervalMs);
+		recrawl.setMinIntervalMs(Math.min(initialIntervalMs, MINUTE));
+		recrawl.setMaxIntervalMs(24 * 60 * MINUTE);
+		recrawl.setFlushIntervalMs(flushIntervalMs);
+		return recrawl;
+	}
+
+	private static CrawlPageResult page(String url, String title, String description) {
+		return new CrawlPageResult("http://a.com/", url, url, 200,
+				new HeadMetadata(Map.of("description", description), title, null), 0, System.currentTimeMillis());
+	}
+
+	private long count(String sql) throws SQLException {
+		try (Connection connection = dataSource.getConnection();
+				Statement statement = connection.createStatement();
+				ResultSet rs = statement.executeQuery(sql)) {
+			rs.next();
+			return rs.getLong(1);
+		}
+	}
+}
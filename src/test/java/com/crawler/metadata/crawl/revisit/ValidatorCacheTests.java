@@ -0,0 +1,184 @@
+package com.crawler.metadata.crawl.revisit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import com.crawler.metadata.config.CrawlerProperties;
+import com.crawler.metadata.crawl.extract.HeadMetadata;
+import com.crawler.metadata.crawl.fetch.FetchResult;
+
+class ValidatorCacheTests {
+
+	private DriverManagerDataSource dataSource;
+
+	private ValidatorCache cache;
+
+	@BeforeEach
+	void createDatabase() {
+		dataSource = new DriverManagerDataSource("jdbc:h2:mem:validator-" + System.nanoTime() + ";DB_CLOSE_DELAY=-1");
+	}
+
+	@AfterEach
+	void stopCache() {
+		if (cache != null) {
+			cache.stop();
+		}
+	}
+
+	@Test
+	void storedPagesSurviveReopenWithMetaTagsAndLinks() {
+		cache = open(revisit(100, 60_000));
+		Map<String, String> tags = new LinkedHashMap<>();
+		tags.put("description", "설명");
+		tags.put("og:title", null);
+		CachedPage page = new CachedPage("\"v1\"", "Mon, 01 Jan 2024 00:00:00 GMT", 42L, "http://a.com/x", 200,
+				"title", null, tags, List.of("http://a.com/y", "http://a.com/z"), 1000L);
+
+		cache.store("http://a.com/x/", page);
+		// 저장 전에도 대기 map 에서 찾음
+		assertSame(page, cache.lookup("http://a.com/x"));
+		assertEquals(1, cache.flush());
+		cache.stop();
+		cache = open(revisit(100, 60_000));
+
+		CachedPage loaded = cache.lookup("http://a.com/x");
+		assertEquals("\"v1\"", loaded.getEtag());
+		assertEquals("Mon, 01 Jan 2024 00:00:00 GMT", loaded.getLastModified());
+		assertEquals(42L, loaded.getContentHash());
+		assertEquals("title", loaded.getTitle());
+		assertNull(loaded.getCanonicalUrl());
+		assertEquals(tags, loaded.getMetaTags());
+		assertEquals(List.of("http://a.com/y", "http://a.com/z"), loaded.getLinks());
+		assertEquals(1000L, loaded.getFetchedAt());
+		assertNull(cache.lookup("http://a.com/unknown"));
+		assertEquals(2, cache.getMetrics().getLookups());
+		assertEquals(1, cache.getMetrics().getHits());
+	}
+
+	@Test
+	void writerFlushesFullBatchesAndKeepsNewerEntries() throws Exception {
+		cache = open(revisit(10, 60_000));
+
+		for (int i = 0; i < 25; i++) {
+			cache.store("http://a.com/" + i, page("\"" + i + "\"", i));
+		}
+		// batch 2 개는 저장 스레드가 저장 ( 나머지 5 개는 flushInterval 전까지 대기 )
+		long deadline = System.currentTimeMillis() + 5000;
+		while (cache.getMetrics().getWritten() < 20 && System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+		assertTrue(cache.getMetrics().getWritten() >= 20, cache.getMetrics().toString());
+
+		cache.store("http://a.com/0", page("\"new\"", 100));
+		cache.flush();
+
+		assertEquals(0, cache.getMetrics().getPending());
+		assertEquals("\"new\"", cache.lookup("http://a.com/0").getEtag());
+		assertEquals(100L, cache.lookup("http://a.com/0").getContentHash());
+	}
+
+	@Test
+	void failedBatchIsRetriedEntryByEntry() {
+		cache = open(revisit(100, 60_000));
+		for (int i = 0; i < 5; i++) {
+			cache.store("http://a.com/" + i, page("\"" + i + "\"", i));
+		}
+		// final_url 이 컬럼 길이를 넘는 entry 만 저장 실패
+		cache.store("http://a.com/bad", new CachedPage(null, null, 9L, "http://a.com/" + "x".repeat(5000), 200, "bad",
+				null, Map.of(), List.of(), 0L));
+
+		assertEquals(5, cache.flush());
+
+		assertEquals(5, cache.getMetrics().getWritten());
+		assertEquals(1, cache.getMetrics().getFailed());
+		assertEquals(0, cache.getMetrics().getPending());
+		assertEquals(4L, cache.lookup("http://a.com/4").getContentHash());
+		assertNull(cache.lookup("http://a.com/bad"));
+	}
+
+	@Test
+	void fullPendingMapIsWrittenByWriterThread() {
+		List<String> threads = new CopyOnWriteArrayList<>();
+		dataSource = new DriverManagerDataSource(dataSource.getUrl()) {
+
+			@Override
+			public Connection getConnection() throws SQLException {
+				threads.add(Thread.currentThread().getName());
+				return super.getConnection();
+			}
+		};
+		CrawlerProperties.Revisit revisit = revisit(2, 60_000);
+		revisit.setMaxPending(4);
+		cache = open(revisit);
+		threads.clear();
+
+		for (int i = 0; i < 50; i++) {
+			cache.store("http://a.com/" + i, page("\"" + i + "\"", i));
+		}
+
+		assertTrue(cache.getMetrics().getPending() <= 4, cache.getMetrics().toString());
+		assertTrue(threads.stream().allMatch("validator-writer"::equals), threads.toString());
+	}
+
+	@Test
+	void refreshValidatorsKeepsExtractedResult() {
+		CachedPage page = page("\"v1\"", 7);
+		byte[] body = "<html></html>".getBytes(StandardCharsets.UTF_8);
+		Map<String, List<String>> headers = Map.of("ETag", List.of("\"v2\""));
+
+		CachedPage refreshed = page.refreshValidators(new FetchResult("http://a.com/", "http://a.com/", 200, headers,
+				body, StandardCharsets.UTF_8, 0L));
+
+		assertEquals("\"v2\"", refreshed.getEtag());
+		assertNull(refreshed.getLastModified());
+		assertEquals(page.getTitle(), refreshed.getTitle());
+		assertEquals(page.getLinks(), refreshed.getLinks());
+		assertSame(refreshed, refreshed.refreshValidators(new FetchResult("http://a.com/", "http://a.com/", 200,
+				headers, body, StandardCharsets.UTF_8, 0L)));
+		HeadMetadata metadata = refreshed.toHeadMetadata();
+		assertEquals("title 7", metadata.getTitle());
+	}
+
+	@Test
+	void disabledCacheIgnoresDataSource() {
+		CrawlerProperties.Revisit revisit = revisit(10, 1000);
+		revisit.setEnabled(false);
+		cache = new ValidatorCache(null, url -> url, revisit);
+
+		cache.store("http://a.com/", page("\"v1\"", 1));
+
+		assertNull(cache.lookup("http://a.com/"));
+		assertEquals(0, cache.flush());
+	}
+
+	private ValidatorCache open(CrawlerProperties.Revisit revisit) {
+		return new ValidatorCache(dataSource, url -> url.replaceFirst("/$", ""), revisit);
+	}
+
+	private static CrawlerProperties.Revisit revisit(int batchSize, long flushIntervalMs) {
+		CrawlerProperties.Revisit revisit = new CrawlerProperties.Revisit();
+		revisit.setBatchSize(batchSize);
+		revisit.setFlushIntervalMs(flushIntervalMs);
+		return revisit;
+	}
+
+	private static CachedPage page(String etag, long contentHash) {
+		return new CachedPage(etag, null, contentHash, "http://a.com/", 200, "title " + contentHash, null,
+				Map.of("description", "d"), List.of("http://a.com/next"), System.currentTimeMillis());
+	}
+}
@@ -0,0 +1,136 @@
+package com.crawler.metadata.crawl.robots;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.crawler.metadata.config.CrawlerProperties;
+import com.crawler.metadata.crawl.fetch.PageFetcher;
+import com.crawler.metadata.crawl.politeness.HostPolitenessScheduler;
+import com.sun.net.httpserver.HttpServer;
+
+class RobotsTxtCacheTests {
+
+	private HttpServer server;
+
+	private final AtomicInteger robotsHits = new AtomicInteger();
+
+	private volatile int status = 200;
+
+	// robots.txt 응답을 늦춤 ( 0 이면 바로 )
+	private volatile long delayMs;
+
+	private HostPolitenessScheduler scheduler;
+
+	private RobotsTxtCache cache;
+
+	private String origin;
+
+	@BeforeEach
+	void startServer() throws IOException {
+		server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		server.createContext("/robots.txt", exchange -> {
+			robotsHits.incrementAndGet();
+			try {
+				Thread.sleep(delayMs);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			byte[] body = "User-agent: *\nDisallow: /private\nCrawl-delay: 2\n".getBytes(StandardCharsets.UTF_8);
+			exchange.getResponseHeaders().add("Content-Type", "text/plain");
+			exchange.sendResponseHeaders(status, body.length);
+			try (OutputStream out = exchange.getResponseBody()) {
+				out.write(body);
+			}
+		});
+		server.start();
+		origin = "http://127.0.0.1:" + server.getAddress().getPort();
+
+		CrawlerProperties properties = new CrawlerProperties();
+		properties.getRobots().setMaxOrigins(2);
+		PageFetcher pageFetcher = new PageFetcher(properties);
+		scheduler = new HostPolitenessScheduler(properties, pageFetcher);
+		cache = new RobotsTxtCache(properties, pageFetcher, scheduler);
+	}
+
+	@AfterEach
+	void stopServer() {
+		server.stop(0);
+		scheduler.stop();
+	}
+
+	@Test
+	void fetchesRobotsTxtOncePerOrigin() {
+		assertTrue(cache.isAllowed(origin + "/index.html"));
+		assertFalse(cache.isAllowed(origin + "/private/a.html"));
+		assertTrue(cache.isAllowed(origin.toUpperCase() + "/public"));
+
+		assertEquals(1, robotsHits.get());
+		assertEquals(1, cache.getDisallowedCount());
+		// Crawl-delay 가 host 요청 간격에 반영되어야 함
+		assertEquals(2000.0, scheduler.getHostStats().get(0).getIntervalMs());
+	}
+
+	@Test
+	void knownDisallowedDoesNotWaitForRobotsTxt() throws Exception {
+		delayMs = 500;
+
+		long start = System.nanoTime();
+		// 아직 내려받지 않은 origin 은 금지로 보지 않고 ( fetch 단계에서 다시 확인 ) 바로 반환
+		assertFalse(cache.isKnownDisallowed(origin + "/private/a.html"));
+		assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 400);
+		assertFalse(cache.isAllowedAsync(origin + "/private/a.html").get(5, TimeUnit.SECONDS));
+
+		assertTrue(cache.isKnownDisallowed(origin + "/private/b.html"));
+		assertFalse(cache.isKnownDisallowed(origin + "/index.html"));
+		assertEquals(1, robotsHits.get());
+		assertEquals(1, cache.getFetchCount());
+	}
+
+	@Test
+	void allowsAllWhenRobotsTxtIsMissing() {
+		status = 404;
+
+		assertTrue(cache.isAllowed(origin + "/private/a.html"));
+	}
+
+	@Test
+	void disallowsAllOnServerError() {
+		status = 503;
+
+		assertFalse(cache.isAllowed(origin + "/index.html"));
+	}
+
+	@Test
+	void evictsLeastRecentlyUsedOrigin() {
+		cache.put("http://a.example/", RobotsRules.ALLOW_ALL);
+		cache.put("http://b.example/", RobotsRules.ALLOW_ALL);
+		cache.isAllowed("http://a.example/page");
+		cache.put("http://c.example/", RobotsRules.ALLOW_ALL);
+
+		assertEquals(2, cache.size());
+		assertEquals(0, cache.getFetchCount());
+		assertTrue(cache.isAllowed("http://a.example/page"));
+		assertEquals(0, cache.getFetchCount());
+	}
+
+	@Test
+	void extractsOrigin() {
+		assertEquals("https://example.com:8443", RobotsTxtCache.originOf("HTTPS://user@Example.com:8443/a?b"));
+		assertEquals("http://example.com", RobotsTxtCache.originOf("http://example.com"));
+		assertNull(RobotsTxtCache.originOf("mailto:someone@example.com"));
+		assertNull(RobotsTxtCache.originOf("ftp://example.com/"));
+	}
+}
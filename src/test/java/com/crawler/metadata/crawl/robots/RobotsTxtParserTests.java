@@ -0,0 +1,81 @@
+package com.crawler.metadata.crawl.robots;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+class RobotsTxtParserTests {
+
+	private static final String ROBOTS_TXT = String.join("\n",
+			"# comment",
+			"User-agent: other-bot",
+			"Disallow: /",
+			"",
+			"User-agent: *",
+			"Disallow: /private/",
+			"Allow: /private/public/",
+			"Disallow: /*.pdf$",
+			"Disallow: /search?",
+			"Allow: /search?page=*",
+			"Disallow: /exact$",
+			"Disallow: /page",
+			"Allow: /page",
+			"Crawl-delay: 1.5",
+			"Sitemap: https://example.com/sitemap.xml",
+			"Disallow:");
+
+	private final RobotsRules rules = RobotsTxtParser.parse(ROBOTS_TXT, "metadata-crawler");
+
+	@ParameterizedTest
+	@CsvSource({
+			"https://example.com/, true",
+			"https://example.com, true",
+			"https://example.com/private/, false",
+			"https://example.com/private/a.html, false",
+			"https://example.com/private/public/a.html, true",
+			"https://example.com/docs/a.pdf, false",
+			"https://example.com/docs/a.pdf?download=1, true",
+			"https://example.com/search?q=1, false",
+			"https://example.com/search?page=2, true",
+			"https://example.com/exact, false",
+			"https://example.com/exact/more, true",
+			"https://example.com/page, true", // 같은 길이는 Allow 우선
+			"https://example.com/private/#fragment, false",
+	})
+	void appliesLongestMatch(String url, boolean allowed) {
+		assertEquals(allowed, rules.isAllowed(url), url);
+	}
+
+	@Test
+	void readsCrawlDelayAndSitemaps() {
+		assertEquals(1500, rules.getCrawlDelayMs());
+		assertEquals(Arrays.asList("https://example.com/sitemap.xml"), rules.getSitemaps());
+	}
+
+	@Test
+	void prefersMatchingUserAgentGroup() {
+		String robotsTxt = "User-agent: *\nDisallow: /\n\nUser-agent: Metadata-Crawler\nUser-agent: other\nDisallow: /admin\n";
+
+		RobotsRules specific = RobotsTxtParser.parse(robotsTxt, "metadata-crawler");
+		RobotsRules fallback = RobotsTxtParser.parse(robotsTxt, "another-crawler");
+
+		assertTrue(specific.isAllowed("https://example.com/index.html"));
+		assertFalse(specific.isAllowed("https://example.com/admin/users"));
+		assertFalse(fallback.isAllowed("https://example.com/index.html"));
+	}
+
+	@Test
+	void matchesWildcardPatterns() {
+		assertTrue(RobotsRules.matches("/*/detail", "/a/b/detail/1", 0, 13));
+		assertTrue(RobotsRules.matches("/a*b*c$", "/aXbYc", 0, 6));
+		assertFalse(RobotsRules.matches("/a*b*c$", "/aXbYcd", 0, 7));
+		assertTrue(RobotsRules.matches("*", "/", 0, 1));
+		assertFalse(RobotsRules.matches("/a*z", "/abc", 0, 4));
+	}
+}
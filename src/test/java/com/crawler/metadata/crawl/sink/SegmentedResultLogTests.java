@@ -0,0 +1,240 @@
+package com.crawler.metadata.crawl.sink;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.crawler.metadata.config.CrawlerProperties;
+import com.crawler.metadata.crawl.CrawlPageResult;
+import com.crawler.metadata.crawl.extract.HeadMetadata;
+
+class SegmentedResultLogTests {
+
+	@TempDir
+	Path directory;
+
+	private final List<SegmentedResultLog> logs = new ArrayList<>();
+
+	@AfterEach
+	void closeLogs() {
+		logs.forEach(SegmentedResultLog::close);
+	}
+
+	@Test
+	void readsBackRecordsInOffsetOrder() throws Exception {
+		SegmentedResultLog log = open(settings());
+		for (int i = 0; i < 100; i++) {
+			log.write(page(i));
+		}
+		assertTrue(log.flush(5, TimeUnit.SECONDS));
+
+		List<ResultLogRecord> records = readAll(new ResultLogReader(directory, 0), 100);
+
+		assertEquals(100, records.size());
+		for (int i = 0; i < 100; i++) {
+			ResultLogRecord record = records.get(i);
+			assertEquals(i, record.getOffset());
+			assertEquals(url(i), record.getResult().getUrl());
+			assertEquals("title " + i, record.getResult().getTitle());
+			assertEquals("description " + i, record.getResult().getMetaTags().get("description"));
+			assertEquals(i % 7, record.getResult().getLinkCount());
+			assertEquals(1000L + i, record.getResult().getCrawledAt());
+			assertNull(record.getResult().getCanonicalUrl());
+		}
+		// 중간 offset 부터
+		List<ResultLogRecord> tail = readAll(new ResultLogReader(directory, 60), 40);
+		assertEquals(60, tail.get(0).getOffset());
+		assertEquals(99, tail.get(39).getOffset());
+	}
+
+	@Test
+	void groupsConcurrentWritesIntoFewCommits() throws Exception {
+		CrawlerProperties.ResultLog settings = settings();
+		settings.setCommitIntervalMs(50);
+		SegmentedResultLog log = open(settings);
+
+		List<CompletableFuture<Void>> writers = new ArrayList<>();
+		for (int t = 0; t < 4; t++) {
+			int thread = t;
+			writers.add(CompletableFuture.runAsync(() -> {
+				for (int i = 0; i < 100; i++) {
+					log.write(page(thread * 100 + i));
+				}
+			}));
+		}
+		CompletableFuture.allOf(writers.toArray(new CompletableFuture[0])).join();
+		assertTrue(log.flush(5, TimeUnit.SECONDS));
+
+		ResultLogMetrics metrics = log.getMetrics();
+		assertEquals(400, metrics.getCommittedOffset());
+		assertTrue(metrics.getCommits() < 40, metrics.toString());
+		assertEquals(400, readAll(log.openReader(0), 400).size());
+	}
+
+	@Test
+	void rollsSegmentsAndReaderFollowsThem() throws Exception {
+		CrawlerProperties.ResultLog settings = settings();
+		settings.setSegmentBytes(2048);
+		settings.setCommitIntervalMs(0);
+		SegmentedResultLog log = open(settings);
+		for (int i = 0; i < 200; i++) {
+			log.write(page(i));
+			if (i % 10 == 9) {
+				assertTrue(log.flush(5, TimeUnit.SECONDS));
+			}
+		}
+
+		assertTrue(log.getMetrics().getSegments() > 1, log.getMetrics().toString());
+		List<ResultLogRecord> records = readAll(new ResultLogReader(directory, 0), 200);
+		assertEquals(200, records.size());
+		for (int i = 0; i < 200; i++) {
+			assertEquals(i, records.get(i).getOffset());
+			assertEquals(url(i), records.get(i).getResult().getUrl());
+		}
+	}
+
+	@Test
+	void tailingReadersWaitForNewRecords() throws Exception {
+		SegmentedResultLog log = open(settings());
+		try (ResultLogReader inProcess = log.openReader(0);
+				ResultLogReader fileOnly = new ResultLogReader(directory, 0)) {
+			assertTrue(inProcess.poll(10, 0, TimeUnit.MILLISECONDS).isEmpty());
+			CompletableFuture<List<ResultLogRecord>> waiting = CompletableFuture.supplyAsync(() -> {
+				try {
+					return inProcess.poll(10, 5, TimeUnit.SECONDS);
+				} catch (IOException | InterruptedException e) {
+					throw new IllegalStateException(e);
+				}
+			});
+			Thread.sleep(50);
+
+			log.write(page(0));
+
+			assertEquals(url(0), waiting.get(5, TimeUnit.SECONDS).get(0).getResult().getUrl());
+			assertEquals(url(0), fileOnly.poll(10, 5, TimeUnit.SECONDS).get(0).getResult().getUrl());
+			assertEquals(1, fileOnly.getNextOffset());
+		}
+	}
+
+	@Test
+	void pollAsyncCompletesOnCommitWithoutHoldingThread() throws Exception {
+		SegmentedResultLog log = open(settings());
+		CompletableFuture<List<ResultLogRecord>> waiting = log.pollAsync(0, 10, 5, TimeUnit.SECONDS, Runnable::run);
+
+		// 기다리는 동안 호출한 스레드는 바로 반환됨
+		assertFalse(waiting.isDone());
+		log.write(page(0));
+
+		assertEquals(url(0), waiting.get(5, TimeUnit.SECONDS).get(0).getResult().getUrl());
+		assertEquals(url(0), log.pollAsync(0, 10, 5, TimeUnit.SECONDS, Runnable::run).getNow(null).get(0)
+				.getResult().getUrl());
+		// 시간 안에 새 record 가 없으면 빈 목록
+		assertTrue(log.pollAsync(1, 10, 50, TimeUnit.MILLISECONDS, Runnable::run).get(5, TimeUnit.SECONDS).isEmpty());
+	}
+
+	@Test
+	void reopenTruncatesTornTailAndContinuesOffsets() throws Exception {
+		SegmentedResultLog log = open(settings());
+		for (int i = 0; i < 10; i++) {
+			log.write(page(i));
+		}
+		log.close();
+		// 마지막 record 를 쓰다가 멈춘 것처럼 header 일부만 남김
+		Path segment = SegmentedResultLog.segmentPath(directory, 0);
+		long validSize = Files.size(segment);
+		Files.write(segment, new byte[] { 0, 0, 1 }, StandardOpenOption.APPEND);
+
+		SegmentedResultLog reopened = open(settings());
+
+		assertEquals(validSize, Files.size(segment));
+		assertEquals(10, reopened.getCommittedOffset());
+		reopened.write(page(10));
+		assertTrue(reopened.flush(5, TimeUnit.SECONDS));
+		List<ResultLogRecord> records = readAll(new ResultLogReader(directory, 0), 11);
+		assertEquals(11, records.size());
+		assertEquals(url(10), records.get(10).getResult().getUrl());
+	}
+
+	@Test
+	void retentionDeletesOldSegmentsAndReaderSkipsAhead() throws Exception {
+		CrawlerProperties.ResultLog settings = settings();
+		settings.setSegmentBytes(1024);
+		settings.setRetainSegments(2);
+		SegmentedResultLog log = open(settings);
+		for (int i = 0; i < 100; i++) {
+			log.write(page(i));
+			assertTrue(log.flush(5, TimeUnit.SECONDS));
+		}
+
+		List<Long> segments = SegmentedResultLog.listSegments(directory);
+		assertEquals(2, segments.size());
+		List<ResultLogRecord> records = readAll(new ResultLogReader(directory, 0), 100 - (int) (long) segments.get(0));
+		assertEquals(segments.get(0), records.get(0).getOffset());
+		assertEquals(99, records.get(records.size() - 1).getOffset());
+	}
+
+	@Test
+	void disabledLogCreatesNoFiles() throws Exception {
+		CrawlerProperties.ResultLog settings = settings();
+		settings.setEnabled(false);
+		SegmentedResultLog log = open(settings);
+
+		log.write(page(0));
+
+		assertTrue(log.flush(1, TimeUnit.SECONDS));
+		assertEquals(0, Files.list(directory).count());
+	}
+
+	private SegmentedResultLog open(CrawlerProperties.ResultLog settings) {
+		SegmentedResultLog log = new SegmentedResultLog(settings);
+		logs.add(log);
+		return log;
+	}
+
+	private CrawlerProperties.ResultLog settings() {
+		CrawlerProperties.ResultLog settings = new CrawlerProperties.ResultLog();
+		settings.setDirectory(directory.toString());
+		settings.setCommitIntervalMs(5);
+		settings.setFsync(false);
+		return settings;
+	}
+
+	private static List<ResultLogRecord> readAll(ResultLogReader reader, int expected) throws Exception {
+		List<ResultLogRecord> records = new ArrayList<>();
+		try (reader) {
+			long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+			while (records.size() < expected && System.nanoTime() < deadline) {
+				records.addAll(reader.poll(expected - records.size(), 100, TimeUnit.MILLISECONDS));
+			}
+		}
+		return records;
+	}
+
+	private static String url(int i) {
+		return "http://a.com/page/" + i;
+	}
+
+	private static CrawlPageResult page(int i) {
+		Map<String, String> tags = new LinkedHashMap<>();
+		tags.put("description", "description " + i);
+		tags.put("og:title", "제목 " + i);
+		return new CrawlPageResult("http://a.com/", url(i), url(i), 200, new HeadMetadata(tags, "title " + i, null),
+				i % 7, 1000L + i);
+	}
+}
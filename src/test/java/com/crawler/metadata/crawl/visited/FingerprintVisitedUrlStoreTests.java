@@ -0,0 +1,66 @@
+package com.crawler.metadata.crawl.visited;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+class FingerprintVisitedUrlStoreTests {
+
+	@ParameterizedTest
+	@CsvSource({ "64, false", "128, false", "64, true", "128, true" })
+	void addsEachUrlOnceAndGrows(int bits, boolean offHeap) {
+		VisitedUrlStore store = new FingerprintVisitedUrlStore(4, 16, bits, offHeap);
+
+		for (int i = 0; i < 10_000; i++) {
+			assertTrue(store.add("https://example.com/page/" + i));
+		}
+		for (int i = 0; i < 10_000; i++) {
+			assertFalse(store.add("https://example.com/page/" + i));
+			assertTrue(store.contains("https://example.com/page/" + i));
+		}
+
+		assertFalse(store.contains("https://example.com/page/10000"));
+		assertEquals(10_000, store.size());
+		// load factor 0.5 이하 + 2배 증가 : slot 당 최대 4개 분량
+		assertTrue(store.memoryBytes() <= 10_000L * 4 * bits / 8, "memory " + store.memoryBytes());
+	}
+
+	@ParameterizedTest
+	@CsvSource({ "1", "64" })
+	void concurrentAddReportsNewUrlExactlyOnce(int stripes) throws Exception {
+		VisitedUrlStore store = new FingerprintVisitedUrlStore(stripes, 16, 64, false);
+		int threads = 8;
+		int urls = 20_000;
+		AtomicInteger added = new AtomicInteger();
+		CountDownLatch start = new CountDownLatch(1);
+		List<CompletableFuture<Void>> futures = new ArrayList<>();
+		for (int t = 0; t < threads; t++) {
+			futures.add(CompletableFuture.runAsync(() -> {
+				try {
+					start.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				for (int i = 0; i < urls; i++) {
+					if (store.add("https://example.com/" + i)) {
+						added.incrementAndGet();
+					}
+				}
+			}));
+		}
+		start.countDown();
+		CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get();
+
+		assertEquals(urls, added.get());
+		assertEquals(urls, store.size());
+	}
+}
@@ -0,0 +1,90 @@
+package com.crawler.metadata.crawl.visited;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+import com.crawler.metadata.util.Fingerprints;
+
+class ScalableBloomFilterTests {
+
+	@Test
+	void growsWhileKeepingFalsePositiveRate() {
+		double target = 0.01;
+		ScalableBloomFilter filter = new ScalableBloomFilter(1_000, target);
+		int inserted = 200_000;
+		for (int i = 0; i < inserted; i++) {
+			filter.add(Fingerprints.hash64("https://example.com/page/" + i));
+		}
+
+		for (int i = 0; i < inserted; i++) {
+			assertTrue(filter.mightContain(Fingerprints.hash64("https://example.com/page/" + i)));
+		}
+		int falsePositives = 0;
+		int probes = 200_000;
+		for (int i = 0; i < probes; i++) {
+			if (filter.mightContain(Fingerprints.hash64("https://example.com/other/" + i))) {
+				falsePositives++;
+			}
+		}
+
+		assertTrue(filter.getSliceCount() > 1);
+		// slice 별 오탐률 합은 목표값에 수렴 ( 표본 오차 감안 )
+		assertTrue((double) falsePositives / probes <= target * 1.2, "false positives " + falsePositives);
+		// 목표 오탐률 1% 기준 원소 하나에 몇 byte 수준
+		assertTrue(filter.memoryBytes() < inserted * 6L, "memory " + filter.memoryBytes());
+	}
+
+	@Test
+	void filteredStoreSkipsExactStoreForSeenUrls() {
+		CountingStore exact = new CountingStore();
+		BloomFilteredVisitedUrlStore store = new BloomFilteredVisitedUrlStore(exact,
+				new ScalableBloomFilter(1_000, 0.001), false);
+
+		for (int i = 0; i < 1_000; i++) {
+			assertTrue(store.add("https://example.com/" + i));
+		}
+		int calls = exact.calls;
+		for (int i = 0; i < 1_000; i++) {
+			assertFalse(store.add("https://example.com/" + i));
+		}
+
+		assertEquals(calls, exact.calls);
+		BloomFilterStats stats = store.getStats();
+		assertEquals(2_000, stats.getLookups());
+		assertEquals(0.5, stats.getHitRate(), 0.01);
+		assertEquals(1_000, store.size());
+	}
+
+	@Test
+	void verifiedStoreHasNoFalsePositives() {
+		// 아주 작은 filter 로 오탐을 일부러 만듦
+		BloomFilteredVisitedUrlStore store = new BloomFilteredVisitedUrlStore(new HashSetVisitedUrlStore(),
+				new ScalableBloomFilter(64, 0.5), true);
+		for (int i = 0; i < 5_000; i++) {
+			assertTrue(store.add("https://example.com/" + i));
+		}
+
+		assertEquals(5_000, store.size());
+		assertTrue(store.getStats().getFalsePositives() > 0);
+	}
+
+	private static final class CountingStore extends HashSetVisitedUrlStore {
+
+		private int calls;
+
+		@Override
+		public boolean add(String url) {
+			calls++;
+			return super.add(url);
+		}
+
+		@Override
+		public boolean contains(String url) {
+			calls++;
+			return super.contains(url);
+		}
+	}
+}
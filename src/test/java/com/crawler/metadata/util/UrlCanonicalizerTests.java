@@ -0,0 +1,59 @@
+package com.crawler.metadata.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.Collections;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+class UrlCanonicalizerTests {
+
+	@ParameterizedTest
+	@CsvSource(delimiter = '|', value = {
+			"http://x.com/a                                   | http://x.com/a",
+			"http://x.com/a#top                               | http://x.com/a",
+			"HTTP://www.X.com/a/                              | http://x.com/a",
+			"http://x.com/a?utm_source=news&utm_medium=email  | http://x.com/a",
+			"http://x.com/a?b=2&utm_source=news&a=1           | http://x.com/a?a=1&b=2",
+			"http://x.com/a?b=2&a=1&b=1                       | http://x.com/a?a=1&b=2&b=1",
+			"http://x.com/a?GCLID=abc&&q=1#frag               | http://x.com/a?q=1",
+			"https://x.com:443/a                              | https://x.com/a",
+			"http://x.com:80                                  | http://x.com/",
+			"http://x.com:8080/                               | http://x.com:8080/",
+			"https://x.com:80/                                | https://x.com:80/",
+			"http://x.com./                                   | http://x.com/",
+			"http://x.com/a/./b/../c                          | http://x.com/a/c",
+			"http://x.com/../../a                             | http://x.com/a",
+			"http://x.com/a//b///                             | http://x.com/a/b",
+			"http://x.com/%7euser/%2fpath/%e2%82%ac           | http://x.com/~user/%2Fpath/%E2%82%AC",
+			"http://x.com/%2E%2E/a                            | http://x.com/a",
+			"http://x.com/a b/ü                               | http://x.com/a%20b/%C3%BC",
+			"http://user@WWW.x.com/a                          | http://user@x.com/a",
+			"http://www.com/a                                 | http://www.com/a",
+			"http://[::1]:80/a                                | http://[::1]/a",
+			"mailto:Someone@Example.com                       | mailto:Someone@Example.com",
+	})
+	void canonicalizes(String url, String expected) {
+		assertEquals(expected, UrlCanonicalizer.DEFAULT.canonicalize(url));
+	}
+
+	@Test
+	void keepsTrailingSlashAndOrderWhenConfigured() {
+		UrlCanonicalizer canonicalizer = new UrlCanonicalizer(false, false, false, Collections.emptyList());
+
+		assertEquals("http://www.x.com/a/?b=1&a=2&utm_source=x",
+				canonicalizer.canonicalize("http://WWW.x.com/a/./?b=1&a=2&utm_source=x#top"));
+		assertEquals("http://x.com/a/", canonicalizer.canonicalize("http://x.com/a/b/.."));
+	}
+
+	@Test
+	void returnsSameInstanceWhenAlreadyCanonical() {
+		String url = "https://x.com/a/b?a=1&b=2";
+
+		assertSame(url, UrlCanonicalizer.DEFAULT.canonicalize(url));
+		assertEquals(url, UrlUtils.canonicalize(url));
+	}
+}
@@ -0,0 +1,17 @@
+package com.crawler.metadata.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import org.junit.jupiter.api.Test;
+
+class UrlUtilsTests {
+
+	@Test
+	void getHostStripsCredentialsPortAndPath() {
+		assertEquals("www.example.com", UrlUtils.getHost("https://user:pw@WWW.Example.com:8443/path?q=1"));
+		assertEquals("example.com", UrlUtils.getHost("http://example.com"));
+		assertEquals("[::1]", UrlUtils.getHost("http://[::1]:8080/"));
+		assertNull(UrlUtils.getHost("data:image/png;base64,AAAA"));
+	}
+}